@@ -8,9 +8,11 @@ import org.bauerbrun0.snippetvault.api.service.UserService;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 @Slf4j
+@EnableScheduling
 @SpringBootApplication
 public class SnippetvaultApiApplication implements CommandLineRunner {
 
@@ -75,6 +75,12 @@ public class ExceptionResolver {
         return new ErrorResponse("Invalid color string");
     }
 
+    @ExceptionHandler(InvalidSearchCursorException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ErrorResponse handleInvalidSearchCursorException(InvalidSearchCursorException e) {
+        return new ErrorResponse("Invalid search cursor");
+    }
+
     @ExceptionHandler(TagNotFoundException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ErrorResponse handleTagNotFoundException(TagNotFoundException e) {
@@ -105,6 +111,18 @@ public class ExceptionResolver {
         return new ErrorResponse("File not found");
     }
 
+    @ExceptionHandler(FileTooLargeException.class)
+    @ResponseStatus(HttpStatus.PAYLOAD_TOO_LARGE)
+    public ErrorResponse handleFileTooLargeException(FileTooLargeException e) {
+        return new ErrorResponse("File too large");
+    }
+
+    @ExceptionHandler(InvalidFileContentException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ErrorResponse handleInvalidFileContentException(InvalidFileContentException e) {
+        return new ErrorResponse("File content must be non-empty UTF-8 text");
+    }
+
     @ExceptionHandler(LanguageNotFoundException.class)
     @ResponseStatus(HttpStatus.NOT_FOUND)
     public ErrorResponse handleLanguageNotFoundException(LanguageNotFoundException e) {
@@ -117,6 +135,12 @@ public class ExceptionResolver {
         return new ErrorResponse("Token expired");
     }
 
+    @ExceptionHandler(NotOwnerException.class)
+    @ResponseStatus(HttpStatus.UNAUTHORIZED)
+    public ErrorResponse handleNotOwnerException(NotOwnerException e) {
+        return new ErrorResponse("Unauthorized");
+    }
+
     @ExceptionHandler(AuthorizationDeniedException.class)
     @ResponseStatus(HttpStatus.UNAUTHORIZED)
     public ErrorResponse handleAuthorizationDeniedException(AuthorizationDeniedException e) {
@@ -0,0 +1,42 @@
+package org.bauerbrun0.snippetvault.api.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "cache")
+public class CacheProperties {
+    private Principal principal = new Principal();
+    private Search search = new Search();
+    private Suggestions suggestions = new Suggestions();
+
+    @Getter
+    @Setter
+    public static class Principal {
+        private long maximumSize = 10_000;
+        private Duration expireAfterWrite = Duration.ofMinutes(5);
+    }
+
+    @Getter
+    @Setter
+    public static class Search {
+        private long maximumSize = 10_000;
+        private Duration expireAfterWrite = Duration.ofMinutes(5);
+        // Interval of the Oracle Text index sync job (JOB_SYNC_IDX_FILE_CONTENT)
+        private Duration contentSyncWindow = Duration.ofMinutes(1);
+    }
+
+    @Getter
+    @Setter
+    public static class Suggestions {
+        // Number of users whose suggestion index is kept
+        private long maximumSize = 1_000;
+        private Duration expireAfterAccess = Duration.ofMinutes(30);
+    }
+}
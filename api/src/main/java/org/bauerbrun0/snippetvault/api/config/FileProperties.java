@@ -0,0 +1,30 @@
+package org.bauerbrun0.snippetvault.api.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "files")
+public class FileProperties {
+    // Characters of a file's content returned with its row, the rest is read in further round trips
+    private int lobPrefetchSize = 32_768;
+    // Characters copied per write when streaming a file's content to or from the client
+    private int streamBufferSize = 8_192;
+    // UTF-8 size of content uploaded as a request body, checked while it is received
+    private DataSize maxUploadSize = DataSize.ofMegabytes(20);
+    // Characters of an upload kept for search to match until the text index has them; the search
+    // leaves out a longer upload's stale index entry without matching its new content meanwhile
+    private int maxUploadCopyLength = 1_048_576;
+    // Stores a precompressed gzip wire copy of each file's content next to the text, sent as is to
+    // clients accepting gzip; it takes tablespace in exchange for not compressing per request
+    private boolean precompressContent = false;
+    // Delay between the runs precompressing the contents stored since the previous one
+    private Duration precompressionInterval = Duration.ofMinutes(1);
+}
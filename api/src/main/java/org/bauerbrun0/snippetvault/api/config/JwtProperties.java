@@ -5,6 +5,8 @@ import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+
 @Getter
 @Setter
 @Component
@@ -12,4 +14,7 @@ import org.springframework.stereotype.Component;
 public class JwtProperties {
     private String secret;
     private Long expiration;
+    // Issue tokens carrying the user id, roles and token epoch, so requests authenticate without the database
+    private boolean selfContained = false;
+    private Duration epochRefreshInterval = Duration.ofSeconds(30);
 }
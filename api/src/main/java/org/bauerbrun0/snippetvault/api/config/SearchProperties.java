@@ -0,0 +1,39 @@
+package org.bauerbrun0.snippetvault.api.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "search")
+public class SearchProperties {
+    private Engine engine = Engine.ORACLE;
+    // Delay between attempts to build the in-memory index after a failed one
+    private Duration indexRetryInterval = Duration.ofMinutes(1);
+    // How long written file content is matched in the API; covers the minutely Oracle Text sync
+    private Duration recentWritesWindow = Duration.ofMinutes(2);
+    private Grep grep = new Grep();
+
+    public enum Engine {
+        // snippet_pkg.get_paginated_snippets
+        ORACLE,
+        // In-process trigram index, falling back to ORACLE while it can't answer
+        MEMORY
+    }
+
+    @Getter
+    @Setter
+    public static class Grep {
+        // Threads scanning file contents, 0 uses one per available processor
+        private int parallelism = 0;
+        private Duration timeout = Duration.ofSeconds(10);
+        private int maxMatches = 1_000;
+        // Rows fetched from the file cursor per round trip
+        private int fetchSize = 20;
+    }
+}
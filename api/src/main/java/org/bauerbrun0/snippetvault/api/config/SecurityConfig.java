@@ -2,6 +2,7 @@ package org.bauerbrun0.snippetvault.api.config;
 
 import org.bauerbrun0.snippetvault.api.security.JwtRequestFilter;
 import org.bauerbrun0.snippetvault.api.security.JwtUtil;
+import org.bauerbrun0.snippetvault.api.security.TokenEpochRegistry;
 import org.bauerbrun0.snippetvault.api.service.CustomUserDetailsService;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
@@ -27,15 +28,21 @@ public class SecurityConfig {
     private final CustomUserDetailsService userDetailsService;
     private final JwtUtil jwtUtil;
     private final HandlerExceptionResolver handlerExceptionResolver;
+    private final TokenEpochRegistry tokenEpochRegistry;
+    private final JwtProperties jwtProperties;
 
     public SecurityConfig(
             CustomUserDetailsService customUserDetailsService,
             JwtUtil jwtUtil,
-            @Qualifier("handlerExceptionResolver") HandlerExceptionResolver handlerExceptionResolver
+            @Qualifier("handlerExceptionResolver") HandlerExceptionResolver handlerExceptionResolver,
+            TokenEpochRegistry tokenEpochRegistry,
+            JwtProperties jwtProperties
     ) {
         this.userDetailsService = customUserDetailsService;
         this.jwtUtil = jwtUtil;
         this.handlerExceptionResolver = handlerExceptionResolver;
+        this.tokenEpochRegistry = tokenEpochRegistry;
+        this.jwtProperties = jwtProperties;
     }
 
     @Bean
@@ -57,6 +64,9 @@ public class SecurityConfig {
                                 "/swagger-ui.html",
                                 "/swagger-ui/**"
                         ).permitAll()
+                        // Liveness and readiness probes don't authenticate
+                        .requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
                         .anyRequest().authenticated()
                 )
                 .sessionManagement(configurer -> configurer
@@ -68,7 +78,13 @@ public class SecurityConfig {
 
     @Bean
     public JwtRequestFilter jwtRequestFilter() {
-        return new JwtRequestFilter(jwtUtil, this.userDetailsService, this.handlerExceptionResolver);
+        return new JwtRequestFilter(
+                jwtUtil,
+                this.userDetailsService,
+                this.handlerExceptionResolver,
+                this.tokenEpochRegistry,
+                this.jwtProperties
+        );
     }
 
     @Bean
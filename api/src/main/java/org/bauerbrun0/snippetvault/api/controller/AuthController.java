@@ -9,10 +9,12 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
+import org.bauerbrun0.snippetvault.api.config.JwtProperties;
 import org.bauerbrun0.snippetvault.api.dto.*;
 import org.bauerbrun0.snippetvault.api.model.*;
 import org.bauerbrun0.snippetvault.api.security.CustomUserDetails;
 import org.bauerbrun0.snippetvault.api.security.JwtUtil;
+import org.bauerbrun0.snippetvault.api.security.TokenEpochRegistry;
 import org.bauerbrun0.snippetvault.api.service.UserService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -34,17 +36,23 @@ public class AuthController {
     private final PasswordEncoder passwordEncoder;
     private final UserService userService;
     private final JwtUtil jwtUtil;
+    private final JwtProperties jwtProperties;
+    private final TokenEpochRegistry tokenEpochRegistry;
 
     public AuthController(
             AuthenticationManager authenticationManager,
             PasswordEncoder passwordEncoder,
             UserService userService,
-            JwtUtil jwtUtil
+            JwtUtil jwtUtil,
+            JwtProperties jwtProperties,
+            TokenEpochRegistry tokenEpochRegistry
     ) {
         this.authenticationManager = authenticationManager;
         this.passwordEncoder = passwordEncoder;
         this.userService = userService;
         this.jwtUtil = jwtUtil;
+        this.jwtProperties = jwtProperties;
+        this.tokenEpochRegistry = tokenEpochRegistry;
     }
 
     @Operation(
@@ -70,7 +78,9 @@ public class AuthController {
         List<Role> roles = this.userService.getUserRoles(user.getId());
         boolean isAdmin = roles.stream().anyMatch(role -> role.getName().equals(Role.ADMIN));
 
-        String jwt = jwtUtil.generateToken(user.getUsername());
+        String jwt = this.jwtProperties.isSelfContained()
+                ? jwtUtil.generateToken(user, roles, this.tokenEpochRegistry.reload(user.getId()))
+                : jwtUtil.generateToken(user.getUsername());
         return ResponseEntity.ok(new LoginResponse(jwt, user.getId(), user.getUsername(), user.getCreated(), isAdmin));
     }
 
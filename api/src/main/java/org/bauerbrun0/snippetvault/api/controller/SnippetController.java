@@ -1,28 +1,56 @@
 package org.bauerbrun0.snippetvault.api.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
+import org.bauerbrun0.snippetvault.api.config.FileProperties;
 import org.bauerbrun0.snippetvault.api.dto.*;
+import org.bauerbrun0.snippetvault.api.exception.InvalidFileContentException;
 import org.bauerbrun0.snippetvault.api.model.File;
+import org.bauerbrun0.snippetvault.api.model.GrepMatch;
+import org.bauerbrun0.snippetvault.api.model.GrepSummary;
 import org.bauerbrun0.snippetvault.api.model.Snippet;
 import org.bauerbrun0.snippetvault.api.model.SnippetSearchResult;
+import org.bauerbrun0.snippetvault.api.model.Suggestion;
 import org.bauerbrun0.snippetvault.api.model.Tag;
 import org.bauerbrun0.snippetvault.api.security.CustomUserDetails;
 import org.bauerbrun0.snippetvault.api.service.SnippetService;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.parameters.P;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.List;
+import java.util.Map;
 
 @Slf4j
 @RestController
@@ -31,9 +59,13 @@ import java.util.List;
 @RequestMapping("/api/snippets")
 public class SnippetController {
     private final SnippetService snippetService;
+    private final ObjectMapper objectMapper;
+    private final FileProperties fileProperties;
 
-    public SnippetController(SnippetService snippetService) {
+    public SnippetController(SnippetService snippetService, ObjectMapper objectMapper, FileProperties fileProperties) {
         this.snippetService = snippetService;
+        this.objectMapper = objectMapper;
+        this.fileProperties = fileProperties;
     }
 
     @Operation(
@@ -61,7 +93,8 @@ public class SnippetController {
 
     @Operation(
             summary = "Search and filter snippets",
-            description = "Returns paginated snippets filtered by query, tags, language, etc."
+            description = "Returns paginated snippets filtered by query, tags, language, etc. "
+                    + "Pages can be requested by number or by the nextCursor of the previous page."
     )
     @ApiResponse(
             responseCode = "200",
@@ -79,11 +112,66 @@ public class SnippetController {
                 searchRequest.getTagIds(),
                 searchRequest.getLanguageIds(),
                 searchRequest.getPageNumber(),
-                searchRequest.getPageSize()
+                searchRequest.getPageSize(),
+                searchRequest.getCursor(),
+                searchRequest.getIncludeTotalCount(),
+                searchRequest.getIncludeFacets()
         );
         return ResponseEntity.ok(result);
     }
 
+    @Operation(
+            summary = "Regex search in file contents",
+            description = "Matches a regular expression against every line of the authenticated user's files. "
+                    + "Streams one JSON object per line: {\"match\": ...} for each matching line as it is found, "
+                    + "then a final {\"summary\": ...}."
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Newline-delimited matches followed by a summary",
+            content = @Content(
+                    mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                    schema = @Schema(implementation = GrepMatch.class)
+            )
+    )
+    @PostMapping(value = "/grep", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> grep(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            @Valid @RequestBody GrepRequest grepRequest
+    ) {
+        Long userId = userDetails.getId();
+        StreamingResponseBody body = outputStream -> {
+            GrepSummary summary = this.snippetService.grep(
+                    userId,
+                    grepRequest.getPattern(),
+                    grepRequest.getIgnoreCase(),
+                    grepRequest.getLanguageIds(),
+                    grepRequest.getMaxMatches(),
+                    match -> this.writeLine(outputStream, Map.of("match", match))
+            );
+            this.writeLine(outputStream, Map.of("summary", summary));
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    @Operation(
+            summary = "Suggest completions",
+            description = "Returns the authenticated user's snippet titles, filenames and tag names completing the query."
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "List of suggestions",
+            content = @Content(array = @ArraySchema(schema = @Schema(implementation = Suggestion.class)))
+    )
+    @GetMapping("/suggest")
+    public ResponseEntity<List<Suggestion>> suggest(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            @RequestParam("q") String query,
+            @RequestParam(value = "limit", defaultValue = "10") int limit
+    ) {
+        return ResponseEntity.ok(this.snippetService.suggest(userDetails.getId(), query, limit));
+    }
+
     @Operation(
             summary = "Get snippet",
             description = "Fetch a snippet by ID (owner only)."
@@ -112,11 +200,11 @@ public class SnippetController {
             content = @Content(schema = @Schema(implementation = Snippet.class))
     )
     @DeleteMapping("/{id}")
-    @PreAuthorize("@snippetSecurity.isOwner(authentication, #id)")
     public ResponseEntity<Snippet> deleteSnippet(
-            @P("id") @PathVariable("id") Long id
+            @PathVariable("id") Long id,
+            @AuthenticationPrincipal CustomUserDetails userDetails
     ) {
-        return ResponseEntity.ok(this.snippetService.deleteSnippet(id));
+        return ResponseEntity.ok(this.snippetService.deleteSnippet(id, userDetails.getId()));
     }
 
     @Operation(
@@ -129,13 +217,14 @@ public class SnippetController {
             content = @Content(schema = @Schema(implementation = Snippet.class))
     )
     @PatchMapping("/{id}")
-    @PreAuthorize("@snippetSecurity.isOwner(authentication, #id)")
     public ResponseEntity<Snippet> updateSnippet(
-            @P("id") @PathVariable("id") Long id,
-            @Valid @RequestBody UpdateSnippetRequest updateRequest
+            @PathVariable("id") Long id,
+            @Valid @RequestBody UpdateSnippetRequest updateRequest,
+            @AuthenticationPrincipal CustomUserDetails userDetails
     ) {
         Snippet updated = snippetService.updateSnippet(
                 id,
+                userDetails.getId(),
                 updateRequest.getTitle(),
                 updateRequest.getDescription()
         );
@@ -168,12 +257,12 @@ public class SnippetController {
             description = "Tag added to snippet"
     )
     @PostMapping("/{id}/tags/{tagId}")
-    @PreAuthorize("@snippetSecurity.isOwner(authentication, #id) && @tagSecurity.isOwner(authentication, #tagId)")
     public ResponseEntity<Void> addTagToSnippet(
-            @P("id") @PathVariable("id") Long id,
-            @P("tagId") @PathVariable("tagId") Long tagId
+            @PathVariable("id") Long id,
+            @PathVariable("tagId") Long tagId,
+            @AuthenticationPrincipal CustomUserDetails userDetails
     ) {
-        this.snippetService.addTagToSnippet(id, tagId);
+        this.snippetService.addTagToSnippet(id, tagId, userDetails.getId());
         return ResponseEntity.noContent().build();
     }
 
@@ -186,12 +275,12 @@ public class SnippetController {
             description = "Tag removed"
     )
     @DeleteMapping("/{id}/tags/{tagId}")
-    @PreAuthorize("@snippetSecurity.isOwner(authentication, #id) && @tagSecurity.isOwner(authentication, #tagId)")
     public ResponseEntity<Void> removeTagFromSnippet(
-            @P("id") @PathVariable("id") Long id,
-            @P("tagId") @PathVariable("tagId") Long tagId
+            @PathVariable("id") Long id,
+            @PathVariable("tagId") Long tagId,
+            @AuthenticationPrincipal CustomUserDetails userDetails
     ) {
-        snippetService.removeTagFromSnippet(id, tagId);
+        snippetService.removeTagFromSnippet(id, tagId, userDetails.getId());
         return ResponseEntity.noContent().build();
     }
 
@@ -205,13 +294,14 @@ public class SnippetController {
             content = @Content(schema = @Schema(implementation = File.class))
     )
     @PostMapping("/{id}/files")
-    @PreAuthorize("@snippetSecurity.isOwner(authentication, #id)")
     public ResponseEntity<File> createFile(
-            @P("id") @PathVariable("id") Long id,
-            @Valid @RequestBody CreateFileRequest createFileRequest
+            @PathVariable("id") Long id,
+            @Valid @RequestBody CreateFileRequest createFileRequest,
+            @AuthenticationPrincipal CustomUserDetails userDetails
     ) {
         File file = this.snippetService.createFile(
                 id,
+                userDetails.getId(),
                 createFileRequest.getFileName(),
                 createFileRequest.getContent(),
                 createFileRequest.getLanguageId()
@@ -219,9 +309,40 @@ public class SnippetController {
         return ResponseEntity.status(HttpStatus.CREATED).body(file);
     }
 
+    @Operation(
+            summary = "Upload file",
+            description = "Adds a code file to a snippet with the request body as its content, streamed to the "
+                    + "database as it is received. The body must be UTF-8 text within the upload size limit."
+    )
+    @ApiResponse(
+            responseCode = "201",
+            description = "File created, without its content",
+            content = @Content(schema = @Schema(implementation = File.class))
+    )
+    @ApiResponse(responseCode = "413", description = "The body exceeds the upload size limit")
+    @PostMapping(value = "/{id}/files", consumes = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<File> uploadFile(
+            @PathVariable("id") Long id,
+            @RequestParam("filename") String filename,
+            @RequestParam("languageId") Long languageId,
+            HttpServletRequest request,
+            @AuthenticationPrincipal CustomUserDetails userDetails
+    ) throws IOException {
+        checkUploadCharset(request);
+        File file = this.snippetService.uploadFile(
+                id,
+                userDetails.getId(),
+                filename,
+                languageId,
+                request.getInputStream()
+        );
+        return ResponseEntity.status(HttpStatus.CREATED).body(file);
+    }
+
     @Operation(
             summary = "Get snippet files",
-            description = "Returns all files inside a snippet."
+            description = "Returns all files inside a snippet with their size, line count and content hash. "
+                    + "With includeContent=false the content is left out; it can be fetched per file from /raw."
     )
     @ApiResponse(
             responseCode = "200",
@@ -231,9 +352,67 @@ public class SnippetController {
     @GetMapping("/{id}/files")
     @PreAuthorize("@snippetSecurity.isOwner(authentication, #id)")
     public ResponseEntity<List<File>> getFiles(
-            @P("id") @PathVariable("id") Long id
+            @P("id") @PathVariable("id") Long id,
+            @RequestParam(value = "includeContent", defaultValue = "true") boolean includeContent
     ) {
-        return ResponseEntity.ok(this.snippetService.getFiles(id));
+        return ResponseEntity.ok(this.snippetService.getFiles(id, includeContent));
+    }
+
+    @Operation(
+            summary = "Download file content",
+            description = "Streams a file's content as UTF-8 text. Supports a single byte range "
+                    + "in the Range header, optionally conditional on If-Range with the Last-Modified date. "
+                    + "Without a range, clients accepting gzip get the stored compressed content if there is one."
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "File content",
+            content = @Content(mediaType = MediaType.TEXT_PLAIN_VALUE)
+    )
+    @ApiResponse(
+            responseCode = "206",
+            description = "The requested range of the file content",
+            content = @Content(mediaType = MediaType.TEXT_PLAIN_VALUE)
+    )
+    @ApiResponse(responseCode = "416", description = "The range starts past the end of the content")
+    @GetMapping("/{id}/files/{fileId}/raw")
+    @PreAuthorize("@snippetSecurity.isOwner(authentication, #id)")
+    public void getRawFileContent(
+            @P("id") @PathVariable("id") Long id,
+            @PathVariable("fileId") Long fileId,
+            @RequestHeader HttpHeaders requestHeaders,
+            HttpServletResponse response
+    ) {
+        this.snippetService.streamFileContent(
+                fileId,
+                id,
+                (file, content, gzipContent) ->
+                        this.writeRawContent(requestHeaders, response, file, content, gzipContent)
+        );
+    }
+
+    @Operation(
+            summary = "Upload file content",
+            description = "Replaces a file's content with the request body, streamed to the database as it is "
+                    + "received. The body must be UTF-8 text within the upload size limit."
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "File updated, without its content",
+            content = @Content(schema = @Schema(implementation = File.class))
+    )
+    @ApiResponse(responseCode = "413", description = "The body exceeds the upload size limit")
+    @PutMapping(value = "/{id}/files/{fileId}/raw", consumes = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<File> uploadFileContent(
+            @PathVariable("id") Long id,
+            @PathVariable("fileId") Long fileId,
+            HttpServletRequest request,
+            @AuthenticationPrincipal CustomUserDetails userDetails
+    ) throws IOException {
+        checkUploadCharset(request);
+        return ResponseEntity.ok(
+                this.snippetService.uploadFileContent(fileId, id, userDetails.getId(), request.getInputStream())
+        );
     }
 
     @Operation(
@@ -246,15 +425,16 @@ public class SnippetController {
             content = @Content(schema = @Schema(implementation = File.class))
     )
     @PatchMapping("/{id}/files/{fileId}")
-    @PreAuthorize("@snippetSecurity.isOwner(authentication, #id)")
     public ResponseEntity<File> updateFile(
-            @P("id") @PathVariable("id") Long id,
-            @P("fileId") @PathVariable("fileId") Long fileId,
-            @Valid @RequestBody UpdateFileRequest updateFileRequest
+            @PathVariable("id") Long id,
+            @PathVariable("fileId") Long fileId,
+            @Valid @RequestBody UpdateFileRequest updateFileRequest,
+            @AuthenticationPrincipal CustomUserDetails userDetails
     ) {
         File updated = this.snippetService.updateFile(
                 fileId,
                 id,
+                userDetails.getId(),
                 updateFileRequest.getFilename(),
                 updateFileRequest.getContent(),
                 updateFileRequest.getLanguageId()
@@ -272,11 +452,180 @@ public class SnippetController {
             content = @Content(schema = @Schema(implementation = File.class))
     )
     @DeleteMapping("/{id}/files/{fileId}")
-    @PreAuthorize("@snippetSecurity.isOwner(authentication, #id)")
     public ResponseEntity<File> deleteFile(
-            @P("id") @PathVariable("id") Long id,
-            @P("fileId") @PathVariable("fileId") Long fileId
+            @PathVariable("id") Long id,
+            @PathVariable("fileId") Long fileId,
+            @AuthenticationPrincipal CustomUserDetails userDetails
     ) {
-        return ResponseEntity.ok(this.snippetService.deleteFile(fileId, id));
+        return ResponseEntity.ok(this.snippetService.deleteFile(fileId, id, userDetails.getId()));
+    }
+
+    // Bodies are stored as they are received, so only UTF-8 (and its ASCII subset) is accepted
+    private static void checkUploadCharset(HttpServletRequest request) {
+        Charset charset = MediaType.parseMediaType(request.getContentType()).getCharset();
+        if (charset != null && !charset.equals(StandardCharsets.UTF_8) && !charset.equals(StandardCharsets.US_ASCII)) {
+            throw new InvalidFileContentException();
+        }
+    }
+
+    private void writeRawContent(
+            HttpHeaders requestHeaders,
+            HttpServletResponse response,
+            File file,
+            Reader content,
+            InputStream gzipContent
+    ) throws IOException {
+        long contentSize = file.getContentSize();
+        long lastModified = file.getUpdated().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        response.setHeader(
+                HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.inline().filename(file.getFilename(), StandardCharsets.UTF_8).build().toString()
+        );
+
+        HttpRange range = getSingleRange(requestHeaders, lastModified);
+        // Ranges are of the uncompressed content, so only whole responses are sent compressed
+        if (range == null && gzipContent != null && acceptsGzip(requestHeaders)) {
+            response.setContentType(MediaType.TEXT_PLAIN_VALUE + ";charset=UTF-8");
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            OutputStream out = response.getOutputStream();
+            byte[] buffer = new byte[this.fileProperties.getStreamBufferSize()];
+            int read;
+            while ((read = gzipContent.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            out.flush();
+            return;
+        }
+
+        long start = 0;
+        long end = contentSize - 1;
+        if (range != null) {
+            boolean satisfiable;
+            try {
+                start = range.getRangeStart(contentSize);
+                end = range.getRangeEnd(contentSize);
+                satisfiable = start < contentSize && start <= end;
+            } catch (IllegalArgumentException e) {
+                satisfiable = false;
+            }
+            if (!satisfiable) {
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + contentSize);
+                return;
+            }
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + contentSize);
+        }
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE + ";charset=UTF-8");
+        response.setContentLengthLong(end - start + 1);
+
+        // Encoded as it is read; bytes before the range are encoded only to be counted
+        ByteRangeOutputStream rangeStream = new ByteRangeOutputStream(response.getOutputStream(), start, end + 1);
+        Writer writer = new OutputStreamWriter(rangeStream, StandardCharsets.UTF_8);
+        char[] buffer = new char[this.fileProperties.getStreamBufferSize()];
+        int read;
+        while (!rangeStream.isComplete() && (read = content.read(buffer)) != -1) {
+            writer.write(buffer, 0, read);
+        }
+        writer.flush();
+    }
+
+    // Only an explicit gzip coding counts, unless it is listed with q=0
+    private static boolean acceptsGzip(HttpHeaders requestHeaders) {
+        for (String value : requestHeaders.getOrEmpty(HttpHeaders.ACCEPT_ENCODING)) {
+            for (String coding : value.split(",")) {
+                String[] parts = coding.split(";");
+                if (!parts[0].trim().equalsIgnoreCase("gzip")) {
+                    continue;
+                }
+                for (int i = 1; i < parts.length; i++) {
+                    String parameter = parts[i].trim();
+                    if (parameter.startsWith("q=")) {
+                        try {
+                            return Double.parseDouble(parameter.substring(2)) > 0;
+                        } catch (NumberFormatException e) {
+                            return false;
+                        }
+                    }
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Multiple ranges and ranges of a since modified file are answered with the whole content
+    private static HttpRange getSingleRange(HttpHeaders requestHeaders, long lastModified) {
+        String ifRange = requestHeaders.getFirst(HttpHeaders.IF_RANGE);
+        if (ifRange != null) {
+            try {
+                if (ZonedDateTime.parse(ifRange, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli()
+                        != lastModified / 1000 * 1000) {
+                    return null;
+                }
+            } catch (DateTimeParseException e) {
+                // An entity tag, which these responses don't have
+                return null;
+            }
+        }
+
+        List<HttpRange> ranges;
+        try {
+            ranges = requestHeaders.getRange();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        return ranges.size() == 1 ? ranges.get(0) : null;
+    }
+
+    /**
+     * Passes on the bytes between start (inclusive) and end (exclusive) of what is written to it.
+     */
+    private static final class ByteRangeOutputStream extends FilterOutputStream {
+        private final long start;
+        private final long end;
+        private long position;
+
+        private ByteRangeOutputStream(OutputStream out, long start, long end) {
+            super(out);
+            this.start = start;
+            this.end = end;
+        }
+
+        private boolean isComplete() {
+            return this.position >= this.end;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (this.position >= this.start && this.position < this.end) {
+                this.out.write(b);
+            }
+            this.position++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            long from = Math.max(this.start, this.position);
+            long to = Math.min(this.end, this.position + len);
+            if (from < to) {
+                this.out.write(b, off + (int) (from - this.position), (int) (to - from));
+            }
+            this.position += len;
+        }
+    }
+
+    // Called on the request's thread only; the search's pool threads never write to the client
+    private void writeLine(OutputStream outputStream, Object value) {
+        try {
+            outputStream.write(this.objectMapper.writeValueAsBytes(value));
+            outputStream.write('\n');
+            outputStream.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 }
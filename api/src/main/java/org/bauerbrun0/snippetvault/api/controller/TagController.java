@@ -14,7 +14,6 @@ import org.bauerbrun0.snippetvault.api.service.TagService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PostAuthorize;
-import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.parameters.P;
 import org.springframework.web.bind.annotation.*;
@@ -82,10 +81,13 @@ public class TagController {
     )
     @ApiResponse(responseCode = "403", description = "Not the tag owner")
     @PatchMapping("/{id}")
-    @PreAuthorize("@tagSecurity.isOwner(authentication, #id)")
-    public ResponseEntity<Tag> updateTag(@P("id") @PathVariable("id") Long id, @Valid @RequestBody UpdateTagRequest updateTagRequest) {
+    public ResponseEntity<Tag> updateTag(
+            @PathVariable("id") Long id,
+            @Valid @RequestBody UpdateTagRequest updateTagRequest,
+            @AuthenticationPrincipal CustomUserDetails userDetails
+    ) {
         Tag tag = this.tagService.updateTag(
-                id, updateTagRequest.getName(), updateTagRequest.getColor()
+                id, userDetails.getId(), updateTagRequest.getName(), updateTagRequest.getColor()
         );
         return ResponseEntity.ok(tag);
     }
@@ -101,9 +103,11 @@ public class TagController {
     )
     @ApiResponse(responseCode = "403", description = "Not the tag owner")
     @DeleteMapping("/{id}")
-    @PreAuthorize("@tagSecurity.isOwner(authentication, #id)")
-    public ResponseEntity<Tag> deleteTag(@P("id") @PathVariable("id") Long id) {
-        Tag tag = this.tagService.deleteTag(id);
+    public ResponseEntity<Tag> deleteTag(
+            @PathVariable("id") Long id,
+            @AuthenticationPrincipal CustomUserDetails userDetails
+    ) {
+        Tag tag = this.tagService.deleteTag(id, userDetails.getId());
         return ResponseEntity.ok(tag);
     }
 
@@ -0,0 +1,42 @@
+package org.bauerbrun0.snippetvault.api.dto;
+
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class GrepRequest {
+    @NotBlank(message = "pattern is required")
+    @Size(max = 1000, message = "pattern must be at most 1000 characters")
+    private String pattern;
+    private Boolean ignoreCase;
+    private List<Long> languageIds;
+    // Capped by search.grep.max-matches
+    @Min(value = 1L, message = "maxMatches must be a positive number")
+    private Integer maxMatches;
+
+    @AssertTrue(message = "pattern is not a valid regular expression")
+    public boolean isPatternValid() {
+        if (this.pattern == null) {
+            return true;
+        }
+        try {
+            Pattern.compile(this.pattern);
+            return true;
+        } catch (PatternSyntaxException e) {
+            return false;
+        }
+    }
+}
@@ -17,4 +17,10 @@ public class SearchSnippetsRequest {
     private List<Long> languageIds;
     private Long pageNumber;
     private Long pageSize;
+    // nextCursor of a previous response; when set, pageNumber is ignored
+    private String cursor;
+    // false skips counting every match, only hasMore is reported then
+    private Boolean includeTotalCount;
+    // true also returns the number of matches per tag and per language
+    private Boolean includeFacets;
 }
@@ -0,0 +1,4 @@
+package org.bauerbrun0.snippetvault.api.exception;
+
+public class InvalidSearchCursorException extends RuntimeException {
+}
@@ -0,0 +1,22 @@
+package org.bauerbrun0.snippetvault.api.exception;
+
+public class TextMaintenanceRepositoryException extends RuntimeException {
+    public TextMaintenanceRepositoryException(String message) {
+        super(message);
+    }
+
+    public TextMaintenanceRepositoryException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public TextMaintenanceRepositoryException(Throwable cause) {
+        super(cause);
+    }
+
+    public TextMaintenanceRepositoryException(String message, Throwable cause, boolean enableSuppression, boolean writableStackTrace) {
+        super(message, cause, enableSuppression, writableStackTrace);
+    }
+
+    public TextMaintenanceRepositoryException() {
+    }
+}
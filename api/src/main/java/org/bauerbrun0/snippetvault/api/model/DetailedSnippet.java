@@ -3,7 +3,6 @@ package org.bauerbrun0.snippetvault.api.model;
 import lombok.*;
 
 import java.time.LocalDateTime;
-import java.util.List;
 
 @Getter
 @Setter
@@ -19,6 +18,6 @@ public class DetailedSnippet {
     private LocalDateTime updated;
     private Long relevance;
     private Long fileCount;
-    private List<Long> languageIds;
-    private List<Long> tagIds;
+    private long[] languageIds;
+    private long[] tagIds;
 }
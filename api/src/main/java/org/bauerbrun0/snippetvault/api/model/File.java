@@ -17,4 +17,9 @@ public class File {
     private String content;
     private LocalDateTime created;
     private LocalDateTime updated;
+    // UTF-8 bytes
+    private Long contentSize;
+    private Long lineCount;
+    // Hex SHA-256 of the UTF-8 content
+    private String contentHash;
 }
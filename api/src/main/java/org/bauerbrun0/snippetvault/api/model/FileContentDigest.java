@@ -0,0 +1,114 @@
+package org.bauerbrun0.snippetvault.api.model;
+
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Size, line count and SHA-256 digest of a file's content, measured over its UTF-8 bytes as
+ * they are passed in, so content can be measured while it is streamed. Lines are counted like
+ * the database migration does: newlines, plus one for a last line without one.
+ */
+public class FileContentDigest {
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final MessageDigest sha256;
+    @Getter
+    private long size;
+    private long newlineCount;
+    private byte lastByte;
+    private String hash;
+
+    public FileContentDigest() {
+        try {
+            this.sha256 = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    public static FileContentDigest of(String content) {
+        FileContentDigest digest = new FileContentDigest();
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        digest.update(bytes, 0, bytes.length);
+        return digest;
+    }
+
+    /**
+     * Measures the content read from the reader, encoded to UTF-8 a buffer at a time instead of
+     * as a whole.
+     */
+    public static FileContentDigest of(Reader content, int bufferSize) throws IOException {
+        FileContentDigest digest = new FileContentDigest();
+        Writer writer = new OutputStreamWriter(new DigestOutputStream(digest), StandardCharsets.UTF_8);
+        char[] buffer = new char[bufferSize];
+        int read;
+        while ((read = content.read(buffer)) != -1) {
+            writer.write(buffer, 0, read);
+        }
+        writer.flush();
+        return digest;
+    }
+
+    public void update(byte[] bytes, int offset, int length) {
+        if (this.hash != null) {
+            throw new IllegalStateException("The digest has already been computed");
+        }
+        this.sha256.update(bytes, offset, length);
+        this.size += length;
+        // A newline byte is never part of a multi-byte UTF-8 sequence
+        for (int i = offset; i < offset + length; i++) {
+            if (bytes[i] == '\n') {
+                this.newlineCount++;
+            }
+        }
+        if (length > 0) {
+            this.lastByte = bytes[offset + length - 1];
+        }
+    }
+
+    public long getLineCount() {
+        return this.size == 0 || this.lastByte == '\n' ? this.newlineCount : this.newlineCount + 1;
+    }
+
+    /**
+     * The lowercase hex digest; no more content can be passed in afterwards.
+     */
+    public String getHash() {
+        if (this.hash == null) {
+            byte[] digest = this.sha256.digest();
+            char[] hex = new char[digest.length * 2];
+            for (int i = 0; i < digest.length; i++) {
+                hex[i * 2] = HEX_DIGITS[(digest[i] >> 4) & 0xF];
+                hex[i * 2 + 1] = HEX_DIGITS[digest[i] & 0xF];
+            }
+            this.hash = new String(hex);
+        }
+        return this.hash;
+    }
+
+    private static final class DigestOutputStream extends OutputStream {
+        private final FileContentDigest digest;
+
+        private DigestOutputStream(FileContentDigest digest) {
+            this.digest = digest;
+        }
+
+        @Override
+        public void write(int b) {
+            this.digest.update(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            this.digest.update(b, off, len);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package org.bauerbrun0.snippetvault.api.model;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class FileUpdateResult {
+    private File file;
+    // The stored content's digest changed, so the Oracle Text index is behind it until it syncs
+    private Boolean contentChanged;
+}
@@ -0,0 +1,18 @@
+package org.bauerbrun0.snippetvault.api.model;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class GrepMatch {
+    private Long snippetId;
+    private Long fileId;
+    private String filename;
+    // 1-based
+    private Long lineNumber;
+    // Truncated to 500 characters
+    private String line;
+}
@@ -0,0 +1,17 @@
+package org.bauerbrun0.snippetvault.api.model;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class GrepSummary {
+    private Long fileCount;
+    private Long matchCount;
+    // More matches were found than the match cap allowed
+    private Boolean truncated;
+    // The deadline passed before every file was scanned
+    private Boolean timedOut;
+}
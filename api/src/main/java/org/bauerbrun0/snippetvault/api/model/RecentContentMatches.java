@@ -0,0 +1,19 @@
+package org.bauerbrun0.snippetvault.api.model;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class RecentContentMatches {
+    public static final RecentContentMatches NONE = new RecentContentMatches(List.of(), List.of());
+
+    // Files whose content may not be in the Oracle Text index yet
+    private List<Long> writtenFileIds;
+    // The subset of writtenFileIds whose content matches the search
+    private List<Long> matchingFileIds;
+}
@@ -0,0 +1,53 @@
+package org.bauerbrun0.snippetvault.api.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import org.bauerbrun0.snippetvault.api.exception.InvalidSearchCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position of the last snippet of a search page in the (relevance, updated DESC, id) order.
+ * Clients only see it as an opaque URL-safe token.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class SearchCursor {
+    private static final String SEPARATOR = "|";
+
+    private final Long relevance;
+    private final LocalDateTime updated;
+    private final Long id;
+
+    public static SearchCursor after(DetailedSnippet snippet) {
+        return new SearchCursor(snippet.getRelevance(), snippet.getUpdated(), snippet.getId());
+    }
+
+    public static SearchCursor decode(String token) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = decoded.split("\\" + SEPARATOR, -1);
+            if (parts.length != 3) {
+                throw new InvalidSearchCursorException();
+            }
+            return new SearchCursor(
+                    Long.parseLong(parts[0]),
+                    LocalDateTime.parse(parts[1]),
+                    Long.parseLong(parts[2])
+            );
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            // Also covers malformed base64 and numbers
+            throw new InvalidSearchCursorException();
+        }
+    }
+
+    public String encode() {
+        String raw = this.relevance + SEPARATOR + this.updated + SEPARATOR + this.id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,17 @@
+package org.bauerbrun0.snippetvault.api.model;
+
+import lombok.*;
+
+import java.util.List;
+import java.util.Map;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class SearchIndexRows {
+    private List<Snippet> snippets;
+    private List<File> files;
+    private Map<Long, List<Long>> tagIdsBySnippetId;
+}
@@ -4,6 +4,7 @@ package org.bauerbrun0.snippetvault.api.model;
 import lombok.*;
 
 import java.util.List;
+import java.util.Map;
 
 @Getter
 @Setter
@@ -12,5 +13,12 @@ import java.util.List;
 @ToString
 public class SnippetSearchResult {
     private List<DetailedSnippet> snippets;
+    // null when the search was run without the total count
     private Long totalCount;
+    private Boolean hasMore;
+    // Token for the page after this one, null on the last page
+    private String nextCursor;
+    // Number of matches per tag id and per language id, null unless facets were requested
+    private Map<Long, Long> tagCounts;
+    private Map<Long, Long> languageCounts;
 }
@@ -0,0 +1,15 @@
+package org.bauerbrun0.snippetvault.api.model;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class Suggestion {
+    private SuggestionType type;
+    private String text;
+    // Number of snippets with this title or filename, 1 for tags
+    private Long count;
+}
@@ -0,0 +1,17 @@
+package org.bauerbrun0.snippetvault.api.model;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class SuggestionRow {
+    private SuggestionType type;
+    // Set for titles and filenames
+    private Long snippetId;
+    // Set for tags
+    private Long tagId;
+    private String text;
+}
@@ -0,0 +1,7 @@
+package org.bauerbrun0.snippetvault.api.model;
+
+public enum SuggestionType {
+    TITLE,
+    FILENAME,
+    TAG
+}
@@ -0,0 +1,21 @@
+package org.bauerbrun0.snippetvault.api.model;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class TextMaintenanceRun {
+    private Long id;
+    private LocalDateTime time;
+    private String indexName;
+    // SYNC, SYNC_SKIPPED (once the index turns idle), OPTIMIZE or OPTIMIZE_SKIPPED
+    private String action;
+    private Long pendingCount;
+    private Double fragmentation;
+    private Long durationMs;
+}
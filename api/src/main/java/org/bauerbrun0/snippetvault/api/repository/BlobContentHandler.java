@@ -0,0 +1,13 @@
+package org.bauerbrun0.snippetvault.api.repository;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Receives a stored blob's content as a reader over the database LOB, which is only readable
+ * until the handler returns.
+ */
+@FunctionalInterface
+public interface BlobContentHandler {
+    void handle(Long blobId, Reader content) throws IOException;
+}
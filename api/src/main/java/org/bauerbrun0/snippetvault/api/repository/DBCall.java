@@ -0,0 +1,175 @@
+package org.bauerbrun0.snippetvault.api.repository;
+
+import oracle.jdbc.OracleConnection;
+import org.springframework.jdbc.core.CallableStatementCallback;
+import org.springframework.jdbc.core.CallableStatementCreator;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.io.StringReader;
+import java.sql.CallableStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A PL/SQL procedure or function call with positional parameters, executed on the JdbcTemplate's
+ * (transaction-bound) connection. The statement text is built once, so with the driver's implicit
+ * statement cache (oracle.jdbc.implicitStatementCacheSize) every connection parses it only once.
+ * Ref cursors are read straight into model objects with a fetch size matching the expected rows.
+ * SQL errors are translated by the JdbcTemplate, as with SimpleJdbcCall.
+ */
+public final class DBCall {
+    // Oracle's default row prefetch
+    public static final int DEFAULT_FETCH_SIZE = 10;
+
+    private final String sql;
+    private final boolean function;
+
+    private DBCall(String sql, boolean function) {
+        this.sql = sql;
+        this.function = function;
+    }
+
+    /**
+     * "{call NAME(?, ...)}" with parameterCount positional parameters, IN and OUT alike.
+     */
+    public static DBCall procedure(String name, int parameterCount) {
+        return new DBCall("{call " + name + "(" + placeholders(parameterCount) + ")}", false);
+    }
+
+    /**
+     * "{? = call NAME(?, ...)}" of a function returning SYS_REFCURSOR. The cursor is parameter 1,
+     * the arguments are bound from 2.
+     */
+    public static DBCall function(String name, int argumentCount) {
+        return new DBCall("{? = call " + name + "(" + placeholders(argumentCount) + ")}", true);
+    }
+
+    public <T> T execute(JdbcTemplate jdbcTemplate, Binder binder, Reader<T> reader) {
+        return jdbcTemplate.execute(
+                (CallableStatementCreator) connection -> connection.prepareCall(this.sql),
+                (CallableStatementCallback<T>) statement -> {
+                    if (this.function) {
+                        statement.registerOutParameter(1, Types.REF_CURSOR);
+                    }
+                    binder.bind(statement);
+                    statement.execute();
+                    return reader.read(statement);
+                }
+        );
+    }
+
+    public void execute(JdbcTemplate jdbcTemplate, Binder binder) {
+        this.execute(jdbcTemplate, binder, statement -> null);
+    }
+
+    public static void setLong(CallableStatement statement, int index, Long value) throws SQLException {
+        if (value == null) {
+            statement.setNull(index, Types.NUMERIC);
+        } else {
+            statement.setLong(index, value);
+        }
+    }
+
+    public static void setString(CallableStatement statement, int index, String value) throws SQLException {
+        if (value == null) {
+            statement.setNull(index, Types.VARCHAR);
+        } else {
+            statement.setString(index, value);
+        }
+    }
+
+    // Streamed like Spring binds a String as Types.CLOB, so content isn't limited to a VARCHAR2's size
+    public static void setClob(CallableStatement statement, int index, String value) throws SQLException {
+        if (value == null) {
+            statement.setNull(index, Types.CLOB);
+        } else {
+            statement.setClob(index, new StringReader(value), value.length());
+        }
+    }
+
+    public static void setTimestamp(CallableStatement statement, int index, LocalDateTime value) throws SQLException {
+        if (value == null) {
+            statement.setNull(index, Types.TIMESTAMP);
+        } else {
+            statement.setTimestamp(index, Timestamp.valueOf(value));
+        }
+    }
+
+    /**
+     * Binds the values as an Oracle collection of the given type (NUMBER_ARRAY, ROLE_ARRAY),
+     * created on the statement's own connection.
+     */
+    public static void setArray(CallableStatement statement, int index, String typeName, Object[] values)
+            throws SQLException {
+        if (values == null) {
+            statement.setNull(index, Types.ARRAY, typeName);
+        } else {
+            statement.setArray(
+                    index,
+                    statement.getConnection().unwrap(OracleConnection.class).createOracleArray(typeName, values)
+            );
+        }
+    }
+
+    public static void registerCursor(CallableStatement statement, int index) throws SQLException {
+        statement.registerOutParameter(index, Types.REF_CURSOR);
+    }
+
+    public static <T> T readCursor(
+            CallableStatement statement,
+            int index,
+            int fetchSize,
+            ResultSetExtractor<T> extractor
+    ) throws SQLException {
+        try (ResultSet rs = statement.getObject(index, ResultSet.class)) {
+            rs.setFetchSize(fetchSize);
+            return extractor.extractData(rs);
+        }
+    }
+
+    public static <T> List<T> readList(
+            CallableStatement statement,
+            int index,
+            int fetchSize,
+            RowMapper<T> rowMapper
+    ) throws SQLException {
+        return readCursor(statement, index, fetchSize, rs -> {
+            List<T> rows = new ArrayList<>();
+            int rowNum = 0;
+            while (rs.next()) {
+                rows.add(rowMapper.mapRow(rs, rowNum++));
+            }
+            return rows.isEmpty() ? Collections.emptyList() : rows;
+        });
+    }
+
+    /**
+     * The first row of the cursor, null when it is empty.
+     */
+    public static <T> T readFirst(CallableStatement statement, int index, RowMapper<T> rowMapper)
+            throws SQLException {
+        return readCursor(statement, index, 1, rs -> rs.next() ? rowMapper.mapRow(rs, 0) : null);
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    @FunctionalInterface
+    public interface Binder {
+        void bind(CallableStatement statement) throws SQLException;
+    }
+
+    @FunctionalInterface
+    public interface Reader<T> {
+        T read(CallableStatement statement) throws SQLException;
+    }
+}
@@ -15,6 +15,7 @@ public enum DBErrorCodes {
     TAG_NOT_ON_SNIPPET(20009),
     LANGUAGE_NOT_FOUND(20010),
     FILE_NOT_FOUND(20011),
+    NOT_OWNER(20012),
     UNKNOWN(0);
 
     private final int code;
@@ -3,38 +3,25 @@ package org.bauerbrun0.snippetvault.api.repository;
 import org.bauerbrun0.snippetvault.api.exception.LanguageRepositoryException;
 import org.bauerbrun0.snippetvault.api.model.Language;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.core.SqlOutParameter;
-import org.springframework.jdbc.core.simple.SimpleJdbcCall;
 import org.springframework.stereotype.Repository;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Types;
 import java.util.List;
-import java.util.Map;
 
 @Repository
 public class DBLanguageRepository implements LanguageRepository {
-    private final JdbcTemplate jdbcTemplate;
+    private static final DBCall GET_LANGUAGES = DBCall.function("GET_LANGUAGES", 0);
+    // Every language comes back at once
+    private static final int LANGUAGES_FETCH_SIZE = 300;
 
-    private final SimpleJdbcCall getAllLanguagesCall;
+    private final JdbcTemplate jdbcTemplate;
 
     public DBLanguageRepository(JdbcTemplate jdbcTemplate) {
         this.jdbcTemplate = jdbcTemplate;
-        this.getAllLanguagesCall = createGetAllLanguagesCall(jdbcTemplate);
-    }
-
-    private static SimpleJdbcCall createGetAllLanguagesCall(JdbcTemplate jdbcTemplate) {
-        return new SimpleJdbcCall(jdbcTemplate)
-                .withFunctionName("GET_LANGUAGES")
-                .withoutProcedureColumnMetaDataAccess()
-                .declareParameters(
-                        new SqlOutParameter("RESULT", Types.REF_CURSOR)
-                )
-                .returningResultSet("RESULT", DBLanguageRepository::mapLanguageResultRow);
     }
 
-    private static Object mapLanguageResultRow(ResultSet rs, int rowNum) throws SQLException {
+    private static Language mapLanguageResultRow(ResultSet rs, int rowNum) throws SQLException {
         Language language = new Language();
         language.setId(rs.getLong("ID"));
         language.setName(rs.getString("NAME"));
@@ -44,9 +31,12 @@ public class DBLanguageRepository implements LanguageRepository {
     @Override
     public List<Language> getAllLanguages() {
         try {
-            Map<String, Object> result = this.getAllLanguagesCall.execute();
-            return DBRepositoryUtils.getListFromResultObject(
-                    result.get("RESULT"), Language.class
+            return GET_LANGUAGES.execute(
+                    this.jdbcTemplate,
+                    statement -> {},
+                    statement -> DBCall.readList(
+                            statement, 1, LANGUAGES_FETCH_SIZE, DBLanguageRepository::mapLanguageResultRow
+                    )
             );
         } catch (Exception e) {
             throw new LanguageRepositoryException("Error fetching languages", e);
@@ -3,231 +3,66 @@ package org.bauerbrun0.snippetvault.api.repository;
 import lombok.extern.slf4j.Slf4j;
 import org.bauerbrun0.snippetvault.api.exception.*;
 import org.bauerbrun0.snippetvault.api.model.*;
+import oracle.jdbc.OracleArray;
+import oracle.jdbc.OracleStatement;
 import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.core.SqlOutParameter;
-import org.springframework.jdbc.core.SqlParameter;
-import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
-import org.springframework.jdbc.core.simple.SimpleJdbcCall;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.sql.Array;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Types;
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Predicate;
 
 @Slf4j
 @Repository
 public class DBSnippetRepository implements SnippetRepository {
-    private final JdbcTemplate jdbcTemplate;
+    private static final DBCall CREATE_SNIPPET = DBCall.procedure("SNIPPET_PKG.CREATE_SNIPPET", 4);
+    private static final DBCall ADD_TAG_TO_SNIPPET = DBCall.procedure("SNIPPET_PKG.ADD_TAG_TO_SNIPPET", 3);
+    private static final DBCall REMOVE_TAG_FROM_SNIPPET = DBCall.procedure("SNIPPET_PKG.REMOVE_TAG_FROM_SNIPPET", 3);
+    private static final DBCall GET_PAGINATED_SNIPPETS = DBCall.procedure("SNIPPET_PKG.GET_PAGINATED_SNIPPETS", 14);
+    private static final DBCall GET_SNIPPET = DBCall.function("SNIPPET_PKG.GET_SNIPPET", 1);
+    private static final DBCall DELETE_SNIPPET = DBCall.procedure("SNIPPET_PKG.DELETE_SNIPPET", 3);
+    private static final DBCall UPDATE_SNIPPET = DBCall.procedure("SNIPPET_PKG.UPDATE_SNIPPET", 5);
+    private static final DBCall CREATE_FILE = DBCall.procedure("SNIPPET_PKG.CREATE_FILE", 9);
+    private static final DBCall GET_FILES_OF_SNIPPET = DBCall.function("SNIPPET_PKG.GET_FILES_OF_SNIPPET", 2);
+    private static final DBCall UPDATE_FILE = DBCall.procedure("SNIPPET_PKG.UPDATE_FILE", 10);
+    private static final DBCall DELETE_FILE = DBCall.procedure("SNIPPET_PKG.DELETE_FILE", 4);
+    private static final DBCall GET_TAGS_OF_SNIPPET = DBCall.function("SNIPPET_PKG.GET_TAGS_OF_SNIPPET", 1);
+    private static final DBCall GET_INDEX_ROWS = DBCall.procedure("SEARCH_PKG.GET_INDEX_ROWS", 5);
+    private static final DBCall GET_SUGGESTION_ROWS = DBCall.procedure("SEARCH_PKG.GET_SUGGESTION_ROWS", 3);
+    private static final DBCall GET_FILE_CONTENTS = DBCall.procedure("SEARCH_PKG.GET_FILE_CONTENTS", 3);
+    private static final DBCall GET_FILE_CONTENT = DBCall.function("SNIPPET_PKG.GET_FILE_CONTENT", 2);
+    private static final DBCall GET_BLOBS_WITHOUT_HASH = DBCall.function("SNIPPET_PKG.GET_BLOBS_WITHOUT_HASH", 1);
+    private static final DBCall SET_CONTENT_HASH = DBCall.procedure("SNIPPET_PKG.SET_CONTENT_HASH", 2);
+    private static final DBCall GET_BLOBS_WITHOUT_GZIP = DBCall.function("SNIPPET_PKG.GET_BLOBS_WITHOUT_GZIP", 1);
+    private static final DBCall SET_GZIP_CONTENT = DBCall.procedure("SNIPPET_PKG.SET_GZIP_CONTENT", 2);
+    // Index and suggestion loads read all of a user's rows
+    private static final int USER_ROWS_FETCH_SIZE = 200;
 
-    private final SimpleJdbcCall createSnippetCall;
-    private final SimpleJdbcCall addTagToSnippetCall;
-    private final SimpleJdbcCall removeTagFromSnippetCall;
-    private final SimpleJdbcCall getPaginatedSnippetsCall;
-    private final SimpleJdbcCall getSnippetCall;
-    private final SimpleJdbcCall deleteSnippetCall;
-    private final SimpleJdbcCall updateSnippetCall;
-    private final SimpleJdbcCall createFileCall;
-    private final SimpleJdbcCall getFilesCall;
-    private final SimpleJdbcCall updateFileCall;
-    private final SimpleJdbcCall deleteFileCall;
-    private final SimpleJdbcCall getTagsOfSnippetCall;
+    private final JdbcTemplate jdbcTemplate;
 
     public DBSnippetRepository(JdbcTemplate jdbcTemplate) {
         this.jdbcTemplate = jdbcTemplate;
-        this.createSnippetCall = createCreateSnippetCall(jdbcTemplate);
-        this.addTagToSnippetCall = createAddTagToSnippetCall(jdbcTemplate);
-        this.removeTagFromSnippetCall = createRemoveTagFromSnippetCall(jdbcTemplate);
-        this.getPaginatedSnippetsCall = createGetPaginatedSnippetsCall(jdbcTemplate);
-        this.getSnippetCall = createGetSnippetCall(jdbcTemplate);
-        this.deleteSnippetCall = createDeleteSnippetCall(jdbcTemplate);
-        this.updateSnippetCall = createUpdateSnippetCall(jdbcTemplate);
-        this.createFileCall = createCreateFileCall(jdbcTemplate);
-        this.getFilesCall = createGetFilesCall(jdbcTemplate);
-        this.updateFileCall = createUpdateFileCall(jdbcTemplate);
-        this.deleteFileCall = createDeleteFileCall(jdbcTemplate);
-        this.getTagsOfSnippetCall = createGetTagsOfSnippetCall(jdbcTemplate);
-    }
-
-    private static SimpleJdbcCall createCreateSnippetCall(JdbcTemplate template) {
-        return new SimpleJdbcCall(template)
-                .withCatalogName("SNIPPET_PKG")
-                .withProcedureName("CREATE_SNIPPET")
-                .withoutProcedureColumnMetaDataAccess()
-                .useInParameterNames("P_USER_ID", "P_TITLE", "P_DESCRIPTION")
-                .declareParameters(
-                        new SqlParameter("P_USER_ID", Types.NUMERIC),
-                        new SqlParameter("P_TITLE", Types.VARCHAR),
-                        new SqlParameter("P_DESCRIPTION", Types.VARCHAR),
-                        new SqlOutParameter("P_SNIPPET", Types.REF_CURSOR)
-                )
-                .returningResultSet("P_SNIPPET", DBSnippetRepository::mapSnippetResultRow);
-    }
-
-    private static SimpleJdbcCall createAddTagToSnippetCall(JdbcTemplate template) {
-        return new SimpleJdbcCall(template)
-                .withCatalogName("SNIPPET_PKG")
-                .withProcedureName("ADD_TAG_TO_SNIPPET")
-                .withoutProcedureColumnMetaDataAccess()
-                .useInParameterNames("P_SNIPPET_ID", "P_TAG_ID")
-                .declareParameters(
-                        new SqlParameter("P_SNIPPET_ID", Types.NUMERIC),
-                        new SqlParameter("P_TAG_ID", Types.NUMERIC)
-                );
-    }
-
-    private static SimpleJdbcCall createRemoveTagFromSnippetCall(JdbcTemplate template) {
-        return new SimpleJdbcCall(template)
-                .withCatalogName("SNIPPET_PKG")
-                .withProcedureName("REMOVE_TAG_FROM_SNIPPET")
-                .withoutProcedureColumnMetaDataAccess()
-                .useInParameterNames("P_SNIPPET_ID", "P_TAG_ID")
-                .declareParameters(
-                        new SqlParameter("P_SNIPPET_ID", Types.NUMERIC),
-                        new SqlParameter("P_TAG_ID", Types.NUMERIC)
-                );
     }
 
-    private static SimpleJdbcCall createGetPaginatedSnippetsCall(JdbcTemplate template) {
-        return new SimpleJdbcCall(template)
-                .withCatalogName("SNIPPET_PKG")
-                .withProcedureName("GET_PAGINATED_SNIPPETS")
-                .withoutProcedureColumnMetaDataAccess()
-                .useInParameterNames(
-                        "P_USER_ID", "P_SEARCH_QUERY", "P_TAG_IDS", "P_LANGUAGE_IDS", "P_PAGE_NUMBER", "P_PAGE_SIZE"
-                )
-                .declareParameters(
-                        new SqlParameter("P_USER_ID", Types.NUMERIC),
-                        new SqlParameter("P_SEARCH_QUERY", Types.VARCHAR),
-                        new SqlParameter("P_TAG_IDS", Types.ARRAY),
-                        new SqlParameter("P_LANGUAGE_IDS", Types.ARRAY),
-                        new SqlParameter("P_PAGE_NUMBER", Types.NUMERIC),
-                        new SqlParameter("P_PAGE_SIZE", Types.NUMERIC),
-                        new SqlOutParameter("P_TOTAL_COUNT", Types.NUMERIC),
-                        new SqlOutParameter("P_SNIPPETS", Types.REF_CURSOR)
-                )
-                .returningResultSet("P_SNIPPETS", DBSnippetRepository::mapDetailedSnippetResultRow);
-    }
-
-    private static SimpleJdbcCall createGetSnippetCall(JdbcTemplate template) {
-        return new SimpleJdbcCall(template)
-                .withCatalogName("SNIPPET_PKG")
-                .withFunctionName("GET_SNIPPET")
-                .withoutProcedureColumnMetaDataAccess()
-                .useInParameterNames("P_ID")
-                .declareParameters(
-                        new SqlOutParameter("RESULT", Types.REF_CURSOR),
-                        new SqlParameter("P_ID", Types.NUMERIC)
-                )
-                .returningResultSet("RESULT", DBSnippetRepository::mapSnippetResultRow);
-    }
-
-    private static SimpleJdbcCall createDeleteSnippetCall(JdbcTemplate template) {
-        return new SimpleJdbcCall(template)
-                .withCatalogName("SNIPPET_PKG")
-                .withProcedureName("DELETE_SNIPPET")
-                .withoutProcedureColumnMetaDataAccess()
-                .useInParameterNames("P_ID")
-                .declareParameters(
-                        new SqlParameter("P_ID", Types.NUMERIC),
-                        new SqlOutParameter("P_SNIPPET", Types.REF_CURSOR)
-                )
-                .returningResultSet("P_SNIPPET", DBSnippetRepository::mapSnippetResultRow);
-    }
-
-    private static SimpleJdbcCall createUpdateSnippetCall(JdbcTemplate template) {
-        return new SimpleJdbcCall(template)
-                .withCatalogName("SNIPPET_PKG")
-                .withProcedureName("UPDATE_SNIPPET")
-                .withoutProcedureColumnMetaDataAccess()
-                .useInParameterNames("P_ID")
-                .declareParameters(
-                        new SqlParameter("P_ID", Types.NUMERIC),
-                        new SqlParameter("P_TITLE", Types.VARCHAR),
-                        new SqlParameter("P_DESCRIPTION", Types.VARCHAR),
-                        new SqlOutParameter("P_SNIPPET", Types.REF_CURSOR)
-                )
-                .returningResultSet("P_SNIPPET", DBSnippetRepository::mapSnippetResultRow);
-    }
-
-    private static SimpleJdbcCall createCreateFileCall(JdbcTemplate template) {
-        return new SimpleJdbcCall(template)
-                .withCatalogName("SNIPPET_PKG")
-                .withProcedureName("CREATE_FILE")
-                .withoutProcedureColumnMetaDataAccess()
-                .useInParameterNames("P_SNIPPET_ID", "P_FILENAME", "P_CONTENT", "P_LANGUAGE_ID")
-                .declareParameters(
-                        new SqlParameter("P_SNIPPET_ID", Types.NUMERIC),
-                        new SqlParameter("P_FILENAME", Types.VARCHAR),
-                        new SqlParameter("P_CONTENT", Types.CLOB),
-                        new SqlParameter("P_LANGUAGE_ID", Types.NUMERIC),
-                        new SqlOutParameter("P_FILE", Types.REF_CURSOR)
-                )
-                .returningResultSet("P_FILE", DBSnippetRepository::mapFileResultRow);
-    }
-
-    private static SimpleJdbcCall createGetFilesCall(JdbcTemplate template) {
-        return new SimpleJdbcCall(template)
-                .withCatalogName("SNIPPET_PKG")
-                .withFunctionName("GET_FILES_OF_SNIPPET")
-                .withoutProcedureColumnMetaDataAccess()
-                .useInParameterNames("P_SNIPPET_ID")
-                .declareParameters(
-                        new SqlOutParameter("RESULT", Types.REF_CURSOR),
-                        new SqlParameter("P_SNIPPET_ID", Types.NUMERIC)
-                )
-                .returningResultSet("RESULT", DBSnippetRepository::mapFileResultRow);
-    }
-
-    private static SimpleJdbcCall createUpdateFileCall(JdbcTemplate template) {
-        return new SimpleJdbcCall(template)
-                .withCatalogName("SNIPPET_PKG")
-                .withProcedureName("UPDATE_FILE")
-                .withoutProcedureColumnMetaDataAccess()
-                .useInParameterNames("P_ID", "P_SNIPPET_ID", "P_FILENAME", "P_CONTENT", "P_LANGUAGE_ID")
-                .declareParameters(
-                        new SqlParameter("P_ID", Types.NUMERIC),
-                        new SqlParameter("P_SNIPPET_ID", Types.NUMERIC),
-                        new SqlParameter("P_FILENAME", Types.VARCHAR),
-                        new SqlParameter("P_CONTENT", Types.CLOB),
-                        new SqlParameter("P_LANGUAGE_ID", Types.NUMERIC),
-                        new SqlOutParameter("P_FILE", Types.REF_CURSOR)
-                )
-                .returningResultSet("P_FILE", DBSnippetRepository::mapFileResultRow);
-    }
-
-    private static SimpleJdbcCall createDeleteFileCall(JdbcTemplate template) {
-        return new SimpleJdbcCall(template)
-                .withCatalogName("SNIPPET_PKG")
-                .withProcedureName("DELETE_FILE")
-                .withoutProcedureColumnMetaDataAccess()
-                .useInParameterNames("P_ID", "P_SNIPPET_ID")
-                .declareParameters(
-                        new SqlParameter("P_ID", Types.NUMERIC),
-                        new SqlParameter("P_SNIPPET_ID", Types.NUMERIC),
-                        new SqlOutParameter("P_FILE", Types.REF_CURSOR)
-                )
-                .returningResultSet("P_FILE", DBSnippetRepository::mapFileResultRow);
-    }
-
-    private static SimpleJdbcCall createGetTagsOfSnippetCall(JdbcTemplate template) {
-        return new SimpleJdbcCall(template)
-                .withCatalogName("SNIPPET_PKG")
-                .withFunctionName("GET_TAGS_OF_SNIPPET")
-                .withoutProcedureColumnMetaDataAccess()
-                .useInParameterNames("P_SNIPPET_ID")
-                .declareParameters(
-                        new SqlOutParameter("RESULT", Types.REF_CURSOR),
-                        new SqlParameter("P_SNIPPET_ID", Types.NUMERIC)
-                )
-                .returningResultSet("RESULT", DBTagRepository::mapTagResultRow);
-    }
-
-    private static Object mapSnippetResultRow(ResultSet rs, int rowNum) throws SQLException {
+    private static Snippet mapSnippetResultRow(ResultSet rs, int rowNum) throws SQLException {
         Snippet snippet = new Snippet();
         snippet.setId(rs.getLong("ID"));
         snippet.setUserId(rs.getLong("USER_ID"));
@@ -238,44 +73,117 @@ public class DBSnippetRepository implements SnippetRepository {
         return snippet;
     }
 
-    private static Object mapDetailedSnippetResultRow(ResultSet rs, int rowNum) throws SQLException {
+    private static SuggestionRow mapSuggestionResultRow(ResultSet rs, int rowNum) throws SQLException {
+        SuggestionRow row = new SuggestionRow();
+        row.setType(SuggestionType.valueOf(rs.getString("TYPE")));
+        row.setSnippetId(rs.getObject("SNIPPET_ID") == null ? null : rs.getLong("SNIPPET_ID"));
+        row.setTagId(rs.getObject("TAG_ID") == null ? null : rs.getLong("TAG_ID"));
+        row.setText(rs.getString("TEXT"));
+        return row;
+    }
+
+    private static DetailedSnippet mapDetailedSnippetResultRow(ResultSet rs, SearchColumns columns)
+            throws SQLException {
         DetailedSnippet snippet = new DetailedSnippet();
-        snippet.setId(rs.getLong("ID"));
-        snippet.setUserId(rs.getLong("USER_ID"));
-        snippet.setTitle(rs.getString("TITLE"));
-        snippet.setDescription(rs.getString("DESCRIPTION"));
-        snippet.setCreated(rs.getTimestamp("CREATED").toLocalDateTime());
-        snippet.setUpdated(rs.getTimestamp("UPDATED").toLocalDateTime());
-        snippet.setRelevance(rs.getLong("RELEVANCE"));
-        snippet.setFileCount(rs.getLong("FILE_COUNT"));
+        snippet.setId(rs.getLong(columns.id));
+        snippet.setUserId(rs.getLong(columns.userId));
+        snippet.setTitle(rs.getString(columns.title));
+        snippet.setDescription(rs.getString(columns.description));
+        snippet.setCreated(rs.getTimestamp(columns.created).toLocalDateTime());
+        snippet.setUpdated(rs.getTimestamp(columns.updated).toLocalDateTime());
+        snippet.setRelevance(rs.getLong(columns.relevance));
+        snippet.setFileCount(rs.getLong(columns.fileCount));
+        snippet.setLanguageIds(toLongArray(rs.getArray(columns.languageIds)));
+        snippet.setTagIds(toLongArray(rs.getArray(columns.tagIds)));
+        return snippet;
+    }
 
-        Array langArray = rs.getArray("LANGUAGE_IDS");
-        Array tagArray  = rs.getArray("TAG_IDS");
+    private static SnippetSearchResult extractSnippetSearchResult(ResultSet rs) throws SQLException {
+        SearchColumns columns = new SearchColumns(rs);
+        List<DetailedSnippet> snippets = new ArrayList<>();
+        Long totalCount = null;
+        Map<Long, Long> tagCounts = null;
+        Map<Long, Long> languageCounts = null;
+        boolean first = true;
+        while (rs.next()) {
+            // NULL in count-free mode
+            long count = rs.getLong(columns.totalCount);
+            totalCount = rs.wasNull() ? null : count;
+            // Every row carries the same facets, NULL unless they were requested
+            if (first) {
+                first = false;
+                tagCounts = toFacetCounts(
+                        rs.getArray(columns.facetTagIds),
+                        rs.getArray(columns.facetTagCounts)
+                );
+                languageCounts = toFacetCounts(
+                        rs.getArray(columns.facetLanguageIds),
+                        rs.getArray(columns.facetLanguageCounts)
+                );
+            }
+            // An empty page comes back as a single row carrying only the total count and facets
+            rs.getLong(columns.id);
+            if (rs.wasNull()) {
+                continue;
+            }
+            snippets.add(mapDetailedSnippetResultRow(rs, columns));
+        }
+        return new SnippetSearchResult(snippets, totalCount, false, null, tagCounts, languageCounts);
+    }
 
-        List<Long> languageIds = null;
-        List<Long> tagIds = null;
+    private static Map<Long, Long> toFacetCounts(Array idArray, Array countArray) throws SQLException {
+        long[] ids = toLongArray(idArray);
+        long[] counts = toLongArray(countArray);
+        if (ids == null || counts == null) {
+            return null;
+        }
+        // The procedure orders both arrays by id, so their elements pair up
+        Map<Long, Long> facetCounts = new LinkedHashMap<>();
+        for (int i = 0; i < ids.length; i++) {
+            facetCounts.put(ids[i], counts[i]);
+        }
+        return facetCounts;
+    }
 
-        if (langArray != null) {
-            Object[] arr = (Object[]) langArray.getArray();
-            languageIds = Arrays.stream(arr)
-                    .map(v -> v == null ? null : ((Number) v).longValue())
-                    .toList();
+    // Reads a NUMBER_ARRAY without boxing its elements
+    private static long[] toLongArray(Array array) throws SQLException {
+        if (array == null) {
+            return null;
         }
-        snippet.setLanguageIds(languageIds);
+        try {
+            return array.unwrap(OracleArray.class).getLongArray();
+        } finally {
+            array.free();
+        }
+    }
 
+    // Rows of snippet_pkg's file cursors, which carry the content's metadata
+    private static File mapFileWithMetadataResultRow(ResultSet rs, int rowNum) throws SQLException {
+        File file = mapFileResultRow(rs, rowNum);
+        mapFileMetadata(rs, file);
+        return file;
+    }
 
-        if (tagArray != null) {
-            Object[] arr = (Object[]) tagArray.getArray();
-            tagIds = Arrays.stream(arr)
-                    .map(v -> v == null ? null : ((Number) v).longValue())
-                    .toList();
-        }
-        snippet.setTagIds(tagIds);
+    // The content is left unread in the LOB
+    private static File mapFileWithoutContentResultRow(ResultSet rs, int rowNum) throws SQLException {
+        File file = new File();
+        file.setId(rs.getLong("ID"));
+        file.setSnippetId(rs.getLong("SNIPPET_ID"));
+        file.setFilename(rs.getString("FILENAME"));
+        file.setLanguageId(rs.getLong("LANGUAGE_ID"));
+        file.setCreated(rs.getTimestamp("CREATED").toLocalDateTime());
+        file.setUpdated(rs.getTimestamp("UPDATED").toLocalDateTime());
+        mapFileMetadata(rs, file);
+        return file;
+    }
 
-        return snippet;
+    private static void mapFileMetadata(ResultSet rs, File file) throws SQLException {
+        file.setContentSize(rs.getLong("CONTENT_SIZE"));
+        file.setLineCount(rs.getLong("LINE_COUNT"));
+        file.setContentHash(rs.getString("CONTENT_HASH"));
     }
 
-    private static Object mapFileResultRow(ResultSet rs, int rowNum) throws SQLException {
+    private static File mapFileResultRow(ResultSet rs, int rowNum) throws SQLException {
         File file = new File();
         file.setId(rs.getLong("ID"));
         file.setSnippetId(rs.getLong("SNIPPET_ID"));
@@ -287,16 +195,24 @@ public class DBSnippetRepository implements SnippetRepository {
         return file;
     }
 
+
+    private static Object[] toArray(List<Long> ids) {
+        return ids == null ? null : ids.toArray();
+    }
+
     @Override
     public Snippet createSnippet(Long userId, String title, String description) {
         try {
-            MapSqlParameterSource params = new MapSqlParameterSource()
-                    .addValue("P_USER_ID", userId, Types.NUMERIC)
-                    .addValue("P_TITLE", title, Types.VARCHAR)
-                    .addValue("P_DESCRIPTION", description, Types.VARCHAR);
-            Map<String, Object> result = this.createSnippetCall.execute(params);
-            List<Snippet> snippets = DBRepositoryUtils.getListFromResultObject(result.get("P_SNIPPET"), Snippet.class);
-            return snippets.isEmpty() ? null : snippets.get(0);
+            return CREATE_SNIPPET.execute(
+                    this.jdbcTemplate,
+                    statement -> {
+                        DBCall.setLong(statement, 1, userId);
+                        DBCall.setString(statement, 2, title);
+                        DBCall.setString(statement, 3, description);
+                        DBCall.registerCursor(statement, 4);
+                    },
+                    statement -> DBCall.readFirst(statement, 4, DBSnippetRepository::mapSnippetResultRow)
+            );
         } catch (DataAccessException e) {
             switch (DBErrorCodes.fromCode(DBRepositoryUtils.getSqlErrorCode(e))) {
                 case USER_NOT_FOUND:
@@ -310,18 +226,22 @@ public class DBSnippetRepository implements SnippetRepository {
     }
 
     @Override
-    public void addTagToSnippet(Long snippetId, Long tagId) throws TagNotFoundException, SnippetNotFoundException, DuplicateTagOnSnippetException {
+    public void addTagToSnippet(Long snippetId, Long tagId, Long userId)
+            throws TagNotFoundException, SnippetNotFoundException, NotOwnerException, DuplicateTagOnSnippetException {
         try {
-            MapSqlParameterSource params = new MapSqlParameterSource()
-                    .addValue("P_SNIPPET_ID", snippetId, Types.NUMERIC)
-                    .addValue("P_TAG_ID", tagId, Types.NUMERIC);
-            this.addTagToSnippetCall.execute(params);
+            ADD_TAG_TO_SNIPPET.execute(this.jdbcTemplate, statement -> {
+                DBCall.setLong(statement, 1, snippetId);
+                DBCall.setLong(statement, 2, tagId);
+                DBCall.setLong(statement, 3, userId);
+            });
         } catch (DataAccessException e) {
             switch (DBErrorCodes.fromCode(DBRepositoryUtils.getSqlErrorCode(e))) {
                 case TAG_NOT_FOUND:
                     throw new TagNotFoundException();
                 case SNIPPET_NOT_FOUND:
                     throw new SnippetNotFoundException();
+                case NOT_OWNER:
+                    throw new NotOwnerException();
                 case DUPLICATE_TAG_ON_SNIPPET:
                     throw new DuplicateTagOnSnippetException();
                 default:
@@ -333,14 +253,22 @@ public class DBSnippetRepository implements SnippetRepository {
     }
 
     @Override
-    public void removeTagFromSnippet(Long snippetId, Long tagId) throws TagNotOnSnippetException {
+    public void removeTagFromSnippet(Long snippetId, Long tagId, Long userId)
+            throws TagNotFoundException, SnippetNotFoundException, NotOwnerException, TagNotOnSnippetException {
         try {
-            MapSqlParameterSource params = new MapSqlParameterSource()
-                    .addValue("P_SNIPPET_ID", snippetId, Types.NUMERIC)
-                    .addValue("P_TAG_ID", tagId, Types.NUMERIC);
-            this.removeTagFromSnippetCall.execute(params);
+            REMOVE_TAG_FROM_SNIPPET.execute(this.jdbcTemplate, statement -> {
+                DBCall.setLong(statement, 1, snippetId);
+                DBCall.setLong(statement, 2, tagId);
+                DBCall.setLong(statement, 3, userId);
+            });
         } catch (DataAccessException e) {
             switch (DBErrorCodes.fromCode(DBRepositoryUtils.getSqlErrorCode(e))) {
+                case TAG_NOT_FOUND:
+                    throw new TagNotFoundException();
+                case SNIPPET_NOT_FOUND:
+                    throw new SnippetNotFoundException();
+                case NOT_OWNER:
+                    throw new NotOwnerException();
                 case TAG_NOT_ON_SNIPPET:
                     throw new TagNotOnSnippetException();
                 default:
@@ -353,12 +281,12 @@ public class DBSnippetRepository implements SnippetRepository {
 
     @Override
     public List<Tag> getTagsOfSnippet(Long snippetId) {
-        MapSqlParameterSource params = new MapSqlParameterSource()
-                .addValue("P_SNIPPET_ID", snippetId, Types.NUMERIC);
-        Map<String, Object> result;
         try {
-            result = this.getTagsOfSnippetCall.execute(params);
-            return DBRepositoryUtils.getListFromResultObject(result.get("RESULT"), Tag.class);
+            return GET_TAGS_OF_SNIPPET.execute(
+                    this.jdbcTemplate,
+                    statement -> DBCall.setLong(statement, 2, snippetId),
+                    statement -> DBCall.readList(statement, 1, DBCall.DEFAULT_FETCH_SIZE, DBTagRepository::mapTagResultRow)
+            );
         } catch (Exception e) {
             throw new SnippetRepositoryException("Failed to retrieve tags of snippet", e);
         }
@@ -366,52 +294,71 @@ public class DBSnippetRepository implements SnippetRepository {
 
     @Override
     public SnippetSearchResult getPaginatedSnippets(
-            Long userId, String searchQuery, List<Long> tagIds, List<Long> languageIds, Long pageNumber, Long pageSize
+            Long userId,
+            String searchQuery,
+            List<Long> tagIds,
+            List<Long> languageIds,
+            Long pageNumber,
+            Long pageSize,
+            SearchCursor after,
+            boolean includeTotalCount,
+            boolean includeFacets,
+            RecentContentMatches recentContentMatches
     ) {
-        Map<String, Object> result;
+        long limit = pageSize == null ? DEFAULT_PAGE_SIZE : pageSize;
+        SnippetSearchResult searchResult;
         try {
-            MapSqlParameterSource params = new MapSqlParameterSource()
-                    .addValue("P_USER_ID", userId)
-                    .addValue("P_SEARCH_QUERY", searchQuery)
-                    .addValue(
-                            "P_TAG_IDS",
-                            tagIds == null
-                                    ? null
-                                    : DBRepositoryUtils.toOracleArray(this.jdbcTemplate,"NUMBER_ARRAY", tagIds.toArray()),
-                            Types.ARRAY,
-                            "NUMBER_ARRAY"
-                    )
-                    .addValue(
-                            "P_LANGUAGE_IDS",
-                            languageIds == null
-                                    ? null
-                                    : DBRepositoryUtils.toOracleArray(this.jdbcTemplate,"NUMBER_ARRAY", languageIds.toArray()),
-                            Types.ARRAY,
-                            "NUMBER_ARRAY"
+            searchResult = GET_PAGINATED_SNIPPETS.execute(
+                    this.jdbcTemplate,
+                    statement -> {
+                        DBCall.setLong(statement, 1, userId);
+                        DBCall.setString(statement, 2, searchQuery);
+                        DBCall.setArray(statement, 3, "NUMBER_ARRAY", toArray(tagIds));
+                        DBCall.setArray(statement, 4, "NUMBER_ARRAY", toArray(languageIds));
+                        DBCall.setLong(statement, 5, pageNumber);
+                        DBCall.setLong(statement, 6, pageSize);
+                        DBCall.setLong(statement, 7, after == null ? null : after.getRelevance());
+                        DBCall.setTimestamp(statement, 8, after == null ? null : after.getUpdated());
+                        DBCall.setLong(statement, 9, after == null ? null : after.getId());
+                        DBCall.setLong(statement, 10, includeTotalCount ? 1L : 0L);
+                        DBCall.setArray(
+                                statement, 11, "NUMBER_ARRAY", toArray(recentContentMatches.getWrittenFileIds())
+                        );
+                        DBCall.setArray(
+                                statement, 12, "NUMBER_ARRAY", toArray(recentContentMatches.getMatchingFileIds())
+                        );
+                        DBCall.setLong(statement, 13, includeFacets ? 1L : 0L);
+                        DBCall.registerCursor(statement, 14);
+                    },
+                    // The whole page and the look-ahead row in one round trip
+                    statement -> DBCall.readCursor(
+                            statement,
+                            14,
+                            (int) limit + 1,
+                            DBSnippetRepository::extractSnippetSearchResult
                     )
-                    .addValue("P_PAGE_NUMBER", pageNumber)
-                    .addValue("P_PAGE_SIZE", pageSize);
-            result = this.getPaginatedSnippetsCall.execute(params);
+            );
         } catch (Exception e) {
             throw new SnippetRepositoryException("Failed to retrieve snippets", e);
         }
 
-        List<DetailedSnippet> snippets = DBRepositoryUtils.getListFromResultObject(
-                result.get("P_SNIPPETS"), DetailedSnippet.class
-        );
-        Number totalCountNum = (Number) result.get("P_TOTAL_COUNT");
-        Long totalCount = totalCountNum == null ? 0L : totalCountNum.longValue();
-        return new SnippetSearchResult(snippets, totalCount);
+        // The procedure returns one row past the page to tell whether more results follow
+        List<DetailedSnippet> snippets = searchResult.getSnippets();
+        if (snippets.size() > limit) {
+            searchResult.setSnippets(new ArrayList<>(snippets.subList(0, (int) limit)));
+            searchResult.setHasMore(true);
+        }
+        return searchResult;
     }
 
     @Override
     public Snippet getSnippet(Long snippetId) {
-        MapSqlParameterSource params = new MapSqlParameterSource()
-                .addValue("P_ID", snippetId, Types.NUMERIC);
-
-        Map<String, Object> result;
         try {
-            result = this.getSnippetCall.execute(params);
+            return GET_SNIPPET.execute(
+                    this.jdbcTemplate,
+                    statement -> DBCall.setLong(statement, 2, snippetId),
+                    statement -> DBCall.readFirst(statement, 1, DBSnippetRepository::mapSnippetResultRow)
+            );
         } catch (Exception e) {
             if (e instanceof DataAccessException dae &&
                     DBRepositoryUtils.getSqlErrorCode(dae) == DBErrorCodes.SNIPPET_NOT_FOUND.getCode()) {
@@ -419,76 +366,138 @@ public class DBSnippetRepository implements SnippetRepository {
             }
             throw new SnippetRepositoryException("Failed to retrieve snippet by id", e);
         }
-
-        List<Snippet> snippets = DBRepositoryUtils.getListFromResultObject(result.get("RESULT"), Snippet.class);
-        return snippets.isEmpty() ? null : snippets.get(0);
     }
 
     @Override
-    public Snippet deleteSnippet(Long snippetId) {
-        MapSqlParameterSource params = new MapSqlParameterSource()
-                .addValue("P_ID", snippetId, Types.NUMERIC);
-
-        Map<String, Object> result;
+    public Snippet deleteSnippet(Long snippetId, Long userId) {
         try {
-            result = this.deleteSnippetCall.execute(params);
+            return DELETE_SNIPPET.execute(
+                    this.jdbcTemplate,
+                    statement -> {
+                        DBCall.setLong(statement, 1, snippetId);
+                        DBCall.setLong(statement, 2, userId);
+                        DBCall.registerCursor(statement, 3);
+                    },
+                    statement -> DBCall.readFirst(statement, 3, DBSnippetRepository::mapSnippetResultRow)
+            );
         } catch (DataAccessException e) {
             switch (DBErrorCodes.fromCode(DBRepositoryUtils.getSqlErrorCode(e))) {
                 case SNIPPET_NOT_FOUND:
                     throw new SnippetNotFoundException();
+                case NOT_OWNER:
+                    throw new NotOwnerException();
                 default:
                     throw new SnippetRepositoryException("Failed to delete snippet", e);
             }
         } catch (Exception e) {
             throw new SnippetRepositoryException("Failed to delete snippet", e);
         }
-
-        List<Snippet> snippets = DBRepositoryUtils.getListFromResultObject(result.get("P_SNIPPET"), Snippet.class);
-        return snippets.isEmpty() ? null : snippets.get(0);
     }
 
     @Override
-    public Snippet updateSnippet(Long snippetId, String title, String description) {
-        MapSqlParameterSource params = new MapSqlParameterSource()
-                .addValue("P_ID", snippetId, Types.NUMERIC)
-                .addValue("P_TITLE", title, Types.VARCHAR)
-                .addValue("P_DESCRIPTION", description, Types.VARCHAR);
-
-        Map<String, Object> result;
+    public Snippet updateSnippet(Long snippetId, Long userId, String title, String description) {
         try {
-            result = this.updateSnippetCall.execute(params);
+            return UPDATE_SNIPPET.execute(
+                    this.jdbcTemplate,
+                    statement -> {
+                        DBCall.setLong(statement, 1, snippetId);
+                        DBCall.setLong(statement, 2, userId);
+                        DBCall.setString(statement, 3, title);
+                        DBCall.setString(statement, 4, description);
+                        DBCall.registerCursor(statement, 5);
+                    },
+                    statement -> DBCall.readFirst(statement, 5, DBSnippetRepository::mapSnippetResultRow)
+            );
         } catch (DataAccessException e) {
             switch (DBErrorCodes.fromCode(DBRepositoryUtils.getSqlErrorCode(e))) {
                 case SNIPPET_NOT_FOUND:
                     throw new SnippetNotFoundException();
+                case NOT_OWNER:
+                    throw new NotOwnerException();
                 default:
                     throw new SnippetRepositoryException("Failed to update snippet", e);
             }
         } catch (Exception e) {
             throw new SnippetRepositoryException("Failed to update snippet", e);
         }
+    }
 
-        List<Snippet> snippets = DBRepositoryUtils.getListFromResultObject(result.get("P_SNIPPET"), Snippet.class);
-        return snippets.isEmpty() ? null : snippets.get(0);
+    @Override
+    public File createFile(
+            Long snippetId,
+            Long userId,
+            String filename,
+            String content,
+            Long languageId,
+            FileContentDigest contentDigest
+    ) {
+        return this.callCreateFile(
+                snippetId,
+                userId,
+                filename,
+                statement -> DBCall.setClob(statement, 4, content),
+                languageId,
+                contentDigest,
+                DBSnippetRepository::mapFileWithMetadataResultRow
+        );
     }
 
     @Override
-    public File createFile(Long snippetId, String filename, String content, Long languageId) {
-        MapSqlParameterSource params = new MapSqlParameterSource()
-                .addValue("P_SNIPPET_ID", snippetId, Types.NUMERIC)
-                .addValue("P_FILENAME", filename, Types.VARCHAR)
-                .addValue("P_CONTENT", content, Types.CLOB)
-                .addValue("P_LANGUAGE_ID", languageId, Types.NUMERIC);
-
-        Map<String, Object> result;
+    public File uploadFile(
+            Long snippetId,
+            Long userId,
+            String filename,
+            Long languageId,
+            FileContentSource contentSource
+    ) {
+        Clob content = this.createTemporaryClob();
+        try {
+            FileContentDigest contentDigest = writeContent(content, contentSource);
+            return this.callCreateFile(
+                    snippetId,
+                    userId,
+                    filename,
+                    statement -> statement.setClob(4, content),
+                    languageId,
+                    contentDigest,
+                    DBSnippetRepository::mapFileWithoutContentResultRow
+            );
+        } finally {
+            freeTemporaryLob(content::free);
+        }
+    }
+
+    private File callCreateFile(
+            Long snippetId,
+            Long userId,
+            String filename,
+            DBCall.Binder contentBinder,
+            Long languageId,
+            FileContentDigest contentDigest,
+            RowMapper<File> fileMapper
+    ) {
         try {
-            result = this.createFileCall.execute(params);
-            List<File> files = DBRepositoryUtils.getListFromResultObject(result.get("P_FILE"), File.class);
-            return files.isEmpty() ? null : files.get(0);
+            return CREATE_FILE.execute(
+                    this.jdbcTemplate,
+                    statement -> {
+                        DBCall.setLong(statement, 1, snippetId);
+                        DBCall.setLong(statement, 2, userId);
+                        DBCall.setString(statement, 3, filename);
+                        contentBinder.bind(statement);
+                        DBCall.setLong(statement, 5, languageId);
+                        DBCall.setLong(statement, 6, contentDigest.getSize());
+                        DBCall.setLong(statement, 7, contentDigest.getLineCount());
+                        DBCall.setString(statement, 8, contentDigest.getHash());
+                        DBCall.registerCursor(statement, 9);
+                    },
+                    statement -> DBCall.readFirst(statement, 9, fileMapper)
+            );
         } catch (DataAccessException e) {
             switch (DBErrorCodes.fromCode(DBRepositoryUtils.getSqlErrorCode(e))) {
                 case SNIPPET_NOT_FOUND:
                     throw new SnippetNotFoundException();
+                case NOT_OWNER:
+                    throw new NotOwnerException();
                 case LANGUAGE_NOT_FOUND:
                     throw new LanguageNotFoundException();
                 default:
@@ -500,35 +509,110 @@ public class DBSnippetRepository implements SnippetRepository {
     }
 
     @Override
-    public List<File> getFiles(Long snippetId) {
-        MapSqlParameterSource params = new MapSqlParameterSource()
-                .addValue("P_SNIPPET_ID", snippetId, Types.NUMERIC);
-
-        Map<String, Object> result;
+    public List<File> getFiles(Long snippetId, boolean includeContent) {
         try {
-            result = this.getFilesCall.execute(params);
-            return DBRepositoryUtils.getListFromResultObject(result.get("RESULT"), File.class);
+            return GET_FILES_OF_SNIPPET.execute(
+                    this.jdbcTemplate,
+                    statement -> {
+                        DBCall.setLong(statement, 2, snippetId);
+                        DBCall.setLong(statement, 3, includeContent ? 1L : 0L);
+                    },
+                    statement -> DBCall.readList(
+                            statement,
+                            1,
+                            DBCall.DEFAULT_FETCH_SIZE,
+                            DBSnippetRepository::mapFileWithMetadataResultRow
+                    )
+            );
         } catch (Exception e) {
             throw new SnippetRepositoryException("Failed to retrieve files for snippet", e);
         }
     }
 
     @Override
-    public File updateFile(Long fileId, Long snippetId, String filename, String content, Long languageId) {
-        MapSqlParameterSource params = new MapSqlParameterSource()
-                .addValue("P_ID", fileId, Types.NUMERIC)
-                .addValue("P_SNIPPET_ID", snippetId, Types.NUMERIC)
-                .addValue("P_FILENAME", filename, Types.VARCHAR)
-                .addValue("P_CONTENT", content, Types.CLOB)
-                .addValue("P_LANGUAGE_ID", languageId, Types.NUMERIC);
-
-        Map<String, Object> result;
+    public FileUpdateResult updateFile(
+            Long fileId,
+            Long snippetId,
+            Long userId,
+            String filename,
+            String content,
+            Long languageId,
+            FileContentDigest contentDigest
+    ) {
+        return this.callUpdateFile(
+                fileId,
+                snippetId,
+                userId,
+                filename,
+                statement -> DBCall.setClob(statement, 5, content),
+                languageId,
+                contentDigest,
+                DBSnippetRepository::mapFileWithMetadataResultRow
+        );
+    }
+
+    @Override
+    public FileUpdateResult uploadFileContent(Long fileId, Long snippetId, Long userId, FileContentSource contentSource) {
+        Clob content = this.createTemporaryClob();
         try {
-            result = this.updateFileCall.execute(params);
+            FileContentDigest contentDigest = writeContent(content, contentSource);
+            return this.callUpdateFile(
+                    fileId,
+                    snippetId,
+                    userId,
+                    null,
+                    statement -> statement.setClob(5, content),
+                    null,
+                    contentDigest,
+                    DBSnippetRepository::mapFileWithoutContentResultRow
+            );
+        } finally {
+            freeTemporaryLob(content::free);
+        }
+    }
+
+    private FileUpdateResult callUpdateFile(
+            Long fileId,
+            Long snippetId,
+            Long userId,
+            String filename,
+            DBCall.Binder contentBinder,
+            Long languageId,
+            FileContentDigest contentDigest,
+            RowMapper<File> fileMapper
+    ) {
+        try {
+            return UPDATE_FILE.execute(
+                    this.jdbcTemplate,
+                    statement -> {
+                        DBCall.setLong(statement, 1, fileId);
+                        DBCall.setLong(statement, 2, snippetId);
+                        DBCall.setLong(statement, 3, userId);
+                        DBCall.setString(statement, 4, filename);
+                        contentBinder.bind(statement);
+                        DBCall.setLong(statement, 6, languageId);
+                        DBCall.setLong(statement, 7, contentDigest == null ? null : contentDigest.getSize());
+                        DBCall.setLong(statement, 8, contentDigest == null ? null : contentDigest.getLineCount());
+                        DBCall.setString(statement, 9, contentDigest == null ? null : contentDigest.getHash());
+                        DBCall.registerCursor(statement, 10);
+                    },
+                    statement -> DBCall.readFirst(
+                            statement,
+                            10,
+                            (rs, rowNum) -> new FileUpdateResult(
+                                    fileMapper.mapRow(rs, rowNum),
+                                    rs.getInt("CONTENT_CHANGED") == 1
+                            )
+                    )
+            );
         } catch (DataAccessException e) {
             switch (DBErrorCodes.fromCode(DBRepositoryUtils.getSqlErrorCode(e))) {
                 case FILE_NOT_FOUND:
                     throw new FileNotFoundException();
+                case SNIPPET_NOT_FOUND:
+                    throw new SnippetNotFoundException();
+                case NOT_OWNER:
+                    throw new NotOwnerException();
                 case LANGUAGE_NOT_FOUND:
                     throw new LanguageNotFoundException();
                 default:
@@ -537,32 +621,308 @@ public class DBSnippetRepository implements SnippetRepository {
         } catch (Exception e) {
             throw new SnippetRepositoryException("Failed to update file", e);
         }
+    }
 
-        List<File> files = DBRepositoryUtils.getListFromResultObject(result.get("P_FILE"), File.class);
-        return files.isEmpty() ? null : files.get(0);
+    // Temporary LOBs live as long as the pooled session unless freed, so every upload frees its own
+    private Clob createTemporaryClob() {
+        try {
+            return this.jdbcTemplate.execute((ConnectionCallback<Clob>) Connection::createClob);
+        } catch (DataAccessException e) {
+            throw new SnippetRepositoryException("Failed to create temporary LOB", e);
+        }
     }
 
-    @Override
-    public File deleteFile(Long fileId, Long snippetId) {
-        MapSqlParameterSource params = new MapSqlParameterSource()
-                .addValue("P_ID", fileId, Types.NUMERIC)
-                .addValue("P_SNIPPET_ID", snippetId, Types.NUMERIC);
+    private static FileContentDigest writeContent(Clob content, FileContentSource contentSource) {
+        try (Writer writer = content.setCharacterStream(1)) {
+            return contentSource.writeTo(writer);
+        } catch (SQLException e) {
+            throw new SnippetRepositoryException("Failed to write file content", e);
+        } catch (IOException e) {
+            // Reading the upload failed, most likely because the client went away
+            throw new UncheckedIOException(e);
+        }
+    }
 
-        Map<String, Object> result;
+    // Clob and Blob share no supertype, so a LOB is passed as its free method
+    private static void freeTemporaryLob(TemporaryLob content) {
         try {
-            result = this.deleteFileCall.execute(params);
+            content.free();
+        } catch (SQLException e) {
+            log.warn("Failed to free temporary LOB", e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface TemporaryLob {
+        void free() throws SQLException;
+    }
+
+    @Override
+    public File deleteFile(Long fileId, Long snippetId, Long userId) {
+        try {
+            return DELETE_FILE.execute(
+                    this.jdbcTemplate,
+                    statement -> {
+                        DBCall.setLong(statement, 1, fileId);
+                        DBCall.setLong(statement, 2, snippetId);
+                        DBCall.setLong(statement, 3, userId);
+                        DBCall.registerCursor(statement, 4);
+                    },
+                    statement -> DBCall.readFirst(statement, 4, DBSnippetRepository::mapFileWithMetadataResultRow)
+            );
         } catch (DataAccessException e) {
             switch (DBErrorCodes.fromCode(DBRepositoryUtils.getSqlErrorCode(e))) {
                 case FILE_NOT_FOUND:
                     throw new FileNotFoundException();
+                case SNIPPET_NOT_FOUND:
+                    throw new SnippetNotFoundException();
+                case NOT_OWNER:
+                    throw new NotOwnerException();
                 default:
                     throw new SnippetRepositoryException("Failed to delete file", e);
             }
         } catch (Exception e) {
             throw new SnippetRepositoryException("Failed to delete file", e);
         }
+    }
+
+    @Override
+    public void streamBlobsWithoutHash(int maxRows, BlobContentHandler handler) {
+        try {
+            GET_BLOBS_WITHOUT_HASH.execute(
+                    this.jdbcTemplate,
+                    statement -> DBCall.setLong(statement, 2, (long) maxRows),
+                    statement -> DBCall.readCursor(statement, 1, maxRows, rs -> {
+                        while (rs.next()) {
+                            try (Reader content = rs.getCharacterStream("CONTENT")) {
+                                handler.handle(rs.getLong("ID"), content);
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        }
+                        return null;
+                    })
+            );
+        } catch (Exception e) {
+            throw new SnippetRepositoryException("Failed to stream blobs without content hash", e);
+        }
+    }
+
+    @Override
+    public void setContentHash(Long blobId, String contentHash) {
+        try {
+            SET_CONTENT_HASH.execute(this.jdbcTemplate, statement -> {
+                DBCall.setLong(statement, 1, blobId);
+                DBCall.setString(statement, 2, contentHash);
+            });
+        } catch (Exception e) {
+            throw new SnippetRepositoryException("Failed to set content hash", e);
+        }
+    }
+
+    @Override
+    public int storeGzipContents(int maxRows, FileContentEncoder encoder) {
+        try {
+            return GET_BLOBS_WITHOUT_GZIP.execute(
+                    this.jdbcTemplate,
+                    statement -> DBCall.setLong(statement, 2, (long) maxRows),
+                    statement -> DBCall.readCursor(statement, 1, maxRows, rs -> {
+                        int count = 0;
+                        while (rs.next()) {
+                            this.storeGzipContent(rs.getLong("ID"), rs.getCharacterStream("CONTENT"), encoder);
+                            count++;
+                        }
+                        return count;
+                    })
+            );
+        } catch (Exception e) {
+            throw new SnippetRepositoryException("Failed to store compressed file contents", e);
+        }
+    }
+
+    // Runs on the transaction's connection, where the cursor and the temporary LOB live
+    private void storeGzipContent(long blobId, Reader content, FileContentEncoder encoder) throws SQLException {
+        Blob gzipContent = this.jdbcTemplate.execute((ConnectionCallback<Blob>) Connection::createBlob);
+        try {
+            try (content; OutputStream encoded = gzipContent.setBinaryStream(1)) {
+                encoder.encode(content, encoded);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            SET_GZIP_CONTENT.execute(this.jdbcTemplate, statement -> {
+                DBCall.setLong(statement, 1, blobId);
+                statement.setBlob(2, gzipContent);
+            });
+        } finally {
+            freeTemporaryLob(gzipContent::free);
+        }
+    }
+
+    @Override
+    public SearchIndexRows getSearchIndexRows(Long userId, List<Long> snippetIds) {
+        try {
+            return GET_INDEX_ROWS.execute(
+                    this.jdbcTemplate,
+                    statement -> {
+                        DBCall.setLong(statement, 1, userId);
+                        DBCall.setArray(statement, 2, "NUMBER_ARRAY", toArray(snippetIds));
+                        DBCall.registerCursor(statement, 3);
+                        DBCall.registerCursor(statement, 4);
+                        DBCall.registerCursor(statement, 5);
+                    },
+                    statement -> {
+                        List<Snippet> snippets = DBCall.readList(
+                                statement, 3, USER_ROWS_FETCH_SIZE, DBSnippetRepository::mapSnippetResultRow
+                        );
+                        List<File> files = DBCall.readList(
+                                statement, 4, USER_ROWS_FETCH_SIZE, DBSnippetRepository::mapFileResultRow
+                        );
+                        Map<Long, List<Long>> tagIdsBySnippetId = DBCall.readCursor(
+                                statement, 5, USER_ROWS_FETCH_SIZE, rs -> {
+                                    Map<Long, List<Long>> tagIds = new HashMap<>();
+                                    while (rs.next()) {
+                                        tagIds.computeIfAbsent(rs.getLong("SNIPPET_ID"), id -> new ArrayList<>())
+                                                .add(rs.getLong("TAG_ID"));
+                                    }
+                                    return tagIds;
+                                }
+                        );
+                        return new SearchIndexRows(snippets, files, tagIdsBySnippetId);
+                    }
+            );
+        } catch (Exception e) {
+            throw new SnippetRepositoryException("Failed to retrieve search index rows", e);
+        }
+    }
+
+    @Override
+    public List<SuggestionRow> getSuggestionRows(Long userId, List<Long> snippetIds) {
+        try {
+            return GET_SUGGESTION_ROWS.execute(
+                    this.jdbcTemplate,
+                    statement -> {
+                        DBCall.setLong(statement, 1, userId);
+                        DBCall.setArray(statement, 2, "NUMBER_ARRAY", toArray(snippetIds));
+                        DBCall.registerCursor(statement, 3);
+                    },
+                    statement -> DBCall.readList(
+                            statement, 3, USER_ROWS_FETCH_SIZE, DBSnippetRepository::mapSuggestionResultRow
+                    )
+            );
+        } catch (Exception e) {
+            throw new SnippetRepositoryException("Failed to retrieve suggestion rows", e);
+        }
+    }
 
-        List<File> files = DBRepositoryUtils.getListFromResultObject(result.get("P_FILE"), File.class);
-        return files.isEmpty() ? null : files.get(0);
+    @Override
+    public void streamFileContents(Long userId, List<Long> languageIds, int fetchSize, Predicate<File> handler) {
+        try {
+            GET_FILE_CONTENTS.execute(
+                    this.jdbcTemplate,
+                    statement -> {
+                        DBCall.setLong(statement, 1, userId);
+                        DBCall.setArray(statement, 2, "NUMBER_ARRAY", toArray(languageIds));
+                        DBCall.registerCursor(statement, 3);
+                    },
+                    // Read row by row instead of materializing every file's content
+                    statement -> DBCall.readCursor(statement, 3, fetchSize, rs -> {
+                        int rowNum = 0;
+                        while (rs.next()) {
+                            if (!handler.test(mapFileResultRow(rs, rowNum++))) {
+                                break;
+                            }
+                        }
+                        return null;
+                    })
+            );
+        } catch (Exception e) {
+            throw new SnippetRepositoryException("Failed to stream file contents", e);
+        }
+    }
+
+    @Override
+    public void streamFileContent(Long fileId, Long snippetId, int lobPrefetchSize, FileContentHandler handler) {
+        try {
+            GET_FILE_CONTENT.execute(
+                    this.jdbcTemplate,
+                    statement -> {
+                        DBCall.setLong(statement, 2, fileId);
+                        DBCall.setLong(statement, 3, snippetId);
+                    },
+                    statement -> {
+                        try (ResultSet rs = statement.getObject(1, ResultSet.class)) {
+                            // The cursor's rows are fetched by a statement of its own
+                            rs.getStatement().unwrap(OracleStatement.class).setLobPrefetchSize(lobPrefetchSize);
+                            if (!rs.next()) {
+                                throw new FileNotFoundException();
+                            }
+                            File file = mapFileWithoutContentResultRow(rs, 0);
+                            try (
+                                    Reader content = rs.getCharacterStream("CONTENT");
+                                    InputStream gzipContent = rs.getBinaryStream("GZIP_CONTENT")
+                            ) {
+                                handler.handle(file, content == null ? Reader.nullReader() : content, gzipContent);
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        }
+                        return null;
+                    }
+            );
+        } catch (DataAccessException e) {
+            switch (DBErrorCodes.fromCode(DBRepositoryUtils.getSqlErrorCode(e))) {
+                case FILE_NOT_FOUND:
+                    throw new FileNotFoundException();
+                default:
+                    throw new SnippetRepositoryException("Failed to stream file content", e);
+            }
+        } catch (FileNotFoundException e) {
+            throw e;
+        } catch (UncheckedIOException e) {
+            // The handler failed to write, most likely because the client went away
+            throw e;
+        } catch (Exception e) {
+            throw new SnippetRepositoryException("Failed to stream file content", e);
+        }
+    }
+
+    /**
+     * Column indices of a GET_PAGINATED_SNIPPETS cursor, looked up once instead of by name on
+     * every row.
+     */
+    private static final class SearchColumns {
+        private final int id;
+        private final int userId;
+        private final int title;
+        private final int description;
+        private final int created;
+        private final int updated;
+        private final int relevance;
+        private final int fileCount;
+        private final int languageIds;
+        private final int tagIds;
+        private final int totalCount;
+        private final int facetTagIds;
+        private final int facetTagCounts;
+        private final int facetLanguageIds;
+        private final int facetLanguageCounts;
+
+        private SearchColumns(ResultSet rs) throws SQLException {
+            this.id = rs.findColumn("ID");
+            this.userId = rs.findColumn("USER_ID");
+            this.title = rs.findColumn("TITLE");
+            this.description = rs.findColumn("DESCRIPTION");
+            this.created = rs.findColumn("CREATED");
+            this.updated = rs.findColumn("UPDATED");
+            this.relevance = rs.findColumn("RELEVANCE");
+            this.fileCount = rs.findColumn("FILE_COUNT");
+            this.languageIds = rs.findColumn("LANGUAGE_IDS");
+            this.tagIds = rs.findColumn("TAG_IDS");
+            this.totalCount = rs.findColumn("TOTAL_COUNT");
+            this.facetTagIds = rs.findColumn("FACET_TAG_IDS");
+            this.facetTagCounts = rs.findColumn("FACET_TAG_COUNTS");
+            this.facetLanguageIds = rs.findColumn("FACET_LANGUAGE_IDS");
+            this.facetLanguageCounts = rs.findColumn("FACET_LANGUAGE_COUNTS");
+        }
     }
 }
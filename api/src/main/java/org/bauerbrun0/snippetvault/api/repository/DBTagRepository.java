@@ -4,108 +4,29 @@ import org.bauerbrun0.snippetvault.api.exception.*;
 import org.bauerbrun0.snippetvault.api.model.Tag;
 import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.core.SqlOutParameter;
-import org.springframework.jdbc.core.SqlParameter;
-import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
-import org.springframework.jdbc.core.simple.SimpleJdbcCall;
 import org.springframework.stereotype.Repository;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Types;
 import java.util.List;
-import java.util.Map;
 
 @Repository
 public class DBTagRepository implements TagRepository {
 
-    private final JdbcTemplate jdbcTemplate;
+    private static final DBCall CREATE_TAG = DBCall.procedure("TAG_PKG.CREATE_TAG", 4);
+    private static final DBCall UPDATE_TAG = DBCall.procedure("TAG_PKG.UPDATE_TAG", 5);
+    private static final DBCall DELETE_TAG = DBCall.procedure("TAG_PKG.DELETE_TAG", 3);
+    private static final DBCall GET_TAG = DBCall.function("TAG_PKG.GET_TAG", 1);
+    private static final DBCall GET_TAGS = DBCall.function("TAG_PKG.GET_TAGS", 1);
+    private static final int TAGS_FETCH_SIZE = 50;
 
-    private final SimpleJdbcCall createTagCall;
-    private final SimpleJdbcCall updateTagCall;
-    private final SimpleJdbcCall deleteTagCall;
-    private final SimpleJdbcCall getTagCall;
-    private final SimpleJdbcCall getTagsCall;
+    private final JdbcTemplate jdbcTemplate;
 
     public DBTagRepository(JdbcTemplate jdbcTemplate) {
         this.jdbcTemplate = jdbcTemplate;
-        this.createTagCall = createCreateTagCall(jdbcTemplate);
-        this.updateTagCall = createUpdateTagCall(jdbcTemplate);
-        this.deleteTagCall = createDeleteTagCall(jdbcTemplate);
-        this.getTagCall = createGetTagCall(jdbcTemplate);
-        this.getTagsCall = createGetTagsCall(jdbcTemplate);
-    }
-
-    private static SimpleJdbcCall createCreateTagCall(JdbcTemplate template) {
-        return new SimpleJdbcCall(template)
-                .withCatalogName("TAG_PKG")
-                .withProcedureName("CREATE_TAG")
-                .withoutProcedureColumnMetaDataAccess()
-                .useInParameterNames("P_USER_ID", "P_NAME", "P_COLOR")
-                .declareParameters(
-                        new SqlParameter("P_USER_ID", Types.NUMERIC),
-                        new SqlParameter("P_NAME", Types.VARCHAR),
-                        new SqlParameter("P_COLOR", Types.VARCHAR),
-                        new SqlOutParameter("P_TAG", Types.REF_CURSOR)
-                )
-                .returningResultSet("P_TAG", DBTagRepository::mapTagResultRow);
-    }
-
-    private static SimpleJdbcCall createUpdateTagCall(JdbcTemplate template) {
-        return new SimpleJdbcCall(template)
-                .withCatalogName("TAG_PKG")
-                .withProcedureName("UPDATE_TAG")
-                .withoutProcedureColumnMetaDataAccess()
-                .useInParameterNames("P_ID", "P_NAME", "P_COLOR")
-                .declareParameters(
-                        new SqlParameter("P_ID", Types.NUMERIC),
-                        new SqlParameter("P_NAME", Types.VARCHAR),
-                        new SqlParameter("P_COLOR", Types.VARCHAR),
-                        new SqlOutParameter("P_TAG", Types.REF_CURSOR)
-                )
-                .returningResultSet("P_TAG", DBTagRepository::mapTagResultRow);
-    }
-
-    private static SimpleJdbcCall createDeleteTagCall(JdbcTemplate template) {
-        return new SimpleJdbcCall(template)
-                .withCatalogName("TAG_PKG")
-                .withProcedureName("DELETE_TAG")
-                .withoutProcedureColumnMetaDataAccess()
-                .useInParameterNames("P_ID")
-                .declareParameters(
-                        new SqlParameter("P_ID", Types.NUMERIC),
-                        new SqlOutParameter("P_TAG", Types.REF_CURSOR)
-                )
-                .returningResultSet("P_TAG", DBTagRepository::mapTagResultRow);
-    }
-
-    private static SimpleJdbcCall createGetTagCall(JdbcTemplate template) {
-        return new SimpleJdbcCall(template)
-                .withCatalogName("TAG_PKG")
-                .withFunctionName("GET_TAG")
-                .withoutProcedureColumnMetaDataAccess()
-                .useInParameterNames("P_ID")
-                .declareParameters(
-                        new SqlOutParameter("RESULT", Types.REF_CURSOR),
-                        new SqlParameter("P_ID", Types.NUMERIC)
-                )
-                .returningResultSet("RESULT", DBTagRepository::mapTagResultRow);
-    }
-
-    private static SimpleJdbcCall createGetTagsCall(JdbcTemplate template) {
-        return new SimpleJdbcCall(template)
-                .withCatalogName("TAG_PKG")
-                .withFunctionName("GET_TAGS")
-                .withoutProcedureColumnMetaDataAccess()
-                .useInParameterNames("P_USER_ID")
-                .declareParameters(
-                        new SqlOutParameter("RESULT", Types.REF_CURSOR),
-                        new SqlParameter("P_USER_ID", Types.NUMERIC)
-                )
-                .returningResultSet("RESULT", DBTagRepository::mapTagResultRow);
     }
 
-    public static Object mapTagResultRow(ResultSet rs, int rowNum) throws SQLException {
+    public static Tag mapTagResultRow(ResultSet rs, int rowNum) throws SQLException {
         Tag tag = new Tag();
         tag.setId(rs.getLong("ID"));
         tag.setUserId(rs.getLong("USER_ID"));
@@ -118,13 +39,16 @@ public class DBTagRepository implements TagRepository {
     @Override
     public Tag createTag(Long userId, String name, String color) throws UserNotFoundException, InvalidTagColorException {
         try {
-            MapSqlParameterSource params = new MapSqlParameterSource()
-                    .addValue("P_USER_ID", userId, Types.NUMERIC)
-                    .addValue("P_NAME", name, Types.VARCHAR)
-                    .addValue("P_COLOR", color, Types.VARCHAR);
-            Map<String, Object> result = this.createTagCall.execute(params);
-            List<Tag> tags = DBRepositoryUtils.getListFromResultObject(result.get("P_TAG"), Tag.class);
-            return tags.isEmpty() ? null : tags.get(0);
+            return CREATE_TAG.execute(
+                    this.jdbcTemplate,
+                    statement -> {
+                        DBCall.setLong(statement, 1, userId);
+                        DBCall.setString(statement, 2, name);
+                        DBCall.setString(statement, 3, color);
+                        DBCall.registerCursor(statement, 4);
+                    },
+                    statement -> DBCall.readFirst(statement, 4, DBTagRepository::mapTagResultRow)
+            );
         } catch (DataAccessException e) {
             switch (DBErrorCodes.fromCode(DBRepositoryUtils.getSqlErrorCode(e))) {
                 case USER_NOT_FOUND:
@@ -140,19 +64,26 @@ public class DBTagRepository implements TagRepository {
     }
 
     @Override
-    public Tag updateTag(Long id, String name, String color) throws TagNotFoundException, InvalidTagColorException {
+    public Tag updateTag(Long id, Long userId, String name, String color)
+            throws TagNotFoundException, NotOwnerException, InvalidTagColorException {
         try {
-            MapSqlParameterSource params = new MapSqlParameterSource()
-                    .addValue("P_ID", id, Types.NUMERIC)
-                    .addValue("P_NAME", name, Types.VARCHAR)
-                    .addValue("P_COLOR", color, Types.VARCHAR);
-            Map<String, Object> result = this.updateTagCall.execute(params);
-            List<Tag> tags = DBRepositoryUtils.getListFromResultObject(result.get("P_TAG"), Tag.class);
-            return tags.isEmpty() ? null : tags.get(0);
+            return UPDATE_TAG.execute(
+                    this.jdbcTemplate,
+                    statement -> {
+                        DBCall.setLong(statement, 1, id);
+                        DBCall.setLong(statement, 2, userId);
+                        DBCall.setString(statement, 3, name);
+                        DBCall.setString(statement, 4, color);
+                        DBCall.registerCursor(statement, 5);
+                    },
+                    statement -> DBCall.readFirst(statement, 5, DBTagRepository::mapTagResultRow)
+            );
         } catch (DataAccessException e) {
             switch (DBErrorCodes.fromCode(DBRepositoryUtils.getSqlErrorCode(e))) {
                 case TAG_NOT_FOUND:
                     throw new TagNotFoundException();
+                case NOT_OWNER:
+                    throw new NotOwnerException();
                 case INVALID_TAG_COLOR:
                     throw new InvalidTagColorException();
                 default:
@@ -164,17 +95,23 @@ public class DBTagRepository implements TagRepository {
     }
 
     @Override
-    public Tag deleteTag(Long id) throws TagNotFoundException {
+    public Tag deleteTag(Long id, Long userId) throws TagNotFoundException, NotOwnerException {
         try {
-            MapSqlParameterSource params = new MapSqlParameterSource()
-                    .addValue("P_ID", id, Types.NUMERIC);
-            Map<String, Object> result = this.deleteTagCall.execute(params);
-            List<Tag> tags = DBRepositoryUtils.getListFromResultObject(result.get("P_TAG"), Tag.class);
-            return tags.isEmpty() ? null : tags.get(0);
+            return DELETE_TAG.execute(
+                    this.jdbcTemplate,
+                    statement -> {
+                        DBCall.setLong(statement, 1, id);
+                        DBCall.setLong(statement, 2, userId);
+                        DBCall.registerCursor(statement, 3);
+                    },
+                    statement -> DBCall.readFirst(statement, 3, DBTagRepository::mapTagResultRow)
+            );
         } catch (DataAccessException e) {
             switch (DBErrorCodes.fromCode(DBRepositoryUtils.getSqlErrorCode(e))) {
                 case TAG_NOT_FOUND:
                     throw new TagNotFoundException();
+                case NOT_OWNER:
+                    throw new NotOwnerException();
                 default:
                     throw new UserRepositoryException("Failed to delete tag", e);
             }
@@ -186,11 +123,11 @@ public class DBTagRepository implements TagRepository {
     @Override
     public Tag getTag(Long id) throws TagNotFoundException {
         try {
-            MapSqlParameterSource params = new MapSqlParameterSource()
-                    .addValue("P_ID", id, Types.NUMERIC);
-            Map<String, Object> result = this.getTagCall.execute(params);
-            List<Tag> tags = DBRepositoryUtils.getListFromResultObject(result.get("RESULT"), Tag.class);
-            return tags.isEmpty() ? null : tags.get(0);
+            return GET_TAG.execute(
+                    this.jdbcTemplate,
+                    statement -> DBCall.setLong(statement, 2, id),
+                    statement -> DBCall.readFirst(statement, 1, DBTagRepository::mapTagResultRow)
+            );
         } catch (DataAccessException e) {
             switch (DBErrorCodes.fromCode(DBRepositoryUtils.getSqlErrorCode(e))) {
                 case TAG_NOT_FOUND:
@@ -206,10 +143,11 @@ public class DBTagRepository implements TagRepository {
     @Override
     public List<Tag> getTags(Long userId) {
         try {
-            MapSqlParameterSource params = new MapSqlParameterSource()
-                    .addValue("P_USER_ID", userId, Types.NUMERIC);
-            Map<String, Object> result = this.getTagsCall.execute(params);
-            return DBRepositoryUtils.getListFromResultObject(result.get("RESULT"), Tag.class);
+            return GET_TAGS.execute(
+                    this.jdbcTemplate,
+                    statement -> DBCall.setLong(statement, 2, userId),
+                    statement -> DBCall.readList(statement, 1, TAGS_FETCH_SIZE, DBTagRepository::mapTagResultRow)
+            );
         } catch (Exception e) {
             throw new UserRepositoryException("Failed to get tags", e);
         }
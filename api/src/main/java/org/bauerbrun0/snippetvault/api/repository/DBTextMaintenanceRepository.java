@@ -0,0 +1,53 @@
+package org.bauerbrun0.snippetvault.api.repository;
+
+import org.bauerbrun0.snippetvault.api.exception.TextMaintenanceRepositoryException;
+import org.bauerbrun0.snippetvault.api.model.TextMaintenanceRun;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+@Repository
+public class DBTextMaintenanceRepository implements TextMaintenanceRepository {
+    private static final DBCall GET_LOG = DBCall.function("TEXT_MAINTENANCE_PKG.GET_LOG", 1);
+    // get_log returns pages of up to 1000 rows
+    private static final int LOG_FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public DBTextMaintenanceRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    private static TextMaintenanceRun mapTextMaintenanceRunResultRow(ResultSet rs, int rowNum) throws SQLException {
+        TextMaintenanceRun run = new TextMaintenanceRun();
+        run.setId(rs.getLong("ID"));
+        run.setTime(rs.getTimestamp("TIME").toLocalDateTime());
+        run.setIndexName(rs.getString("INDEX_NAME"));
+        run.setAction(rs.getString("ACTION"));
+        run.setPendingCount(rs.getObject("PENDING_COUNT") == null ? null : rs.getLong("PENDING_COUNT"));
+        run.setFragmentation(rs.getObject("FRAGMENTATION") == null ? null : rs.getDouble("FRAGMENTATION"));
+        run.setDurationMs(rs.getObject("DURATION_MS") == null ? null : rs.getLong("DURATION_MS"));
+        return run;
+    }
+
+    @Override
+    public List<TextMaintenanceRun> getRunsAfter(Long id) {
+        try {
+            return GET_LOG.execute(
+                    this.jdbcTemplate,
+                    statement -> DBCall.setLong(statement, 2, id),
+                    statement -> DBCall.readList(
+                            statement,
+                            1,
+                            LOG_FETCH_SIZE,
+                            DBTextMaintenanceRepository::mapTextMaintenanceRunResultRow
+                    )
+            );
+        } catch (Exception e) {
+            throw new TextMaintenanceRepositoryException("Failed to retrieve text maintenance log", e);
+        }
+    }
+}
@@ -5,134 +5,37 @@ import org.bauerbrun0.snippetvault.api.exception.*;
 import org.bauerbrun0.snippetvault.api.model.Role;
 import org.bauerbrun0.snippetvault.api.model.User;
 import org.springframework.dao.DataAccessException;
-import org.springframework.jdbc.core.*;
-import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
-import org.springframework.jdbc.core.simple.SimpleJdbcCall;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
 
-import java.sql.*;
-import java.util.*;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 
 @Slf4j
 @Repository
 public class DBUserRepository implements UserRepository {
 
-    private final JdbcTemplate jdbcTemplate;
+    private static final DBCall GET_USER_BY_USERNAME = DBCall.function("USER_PKG.GET_USER_BY_USERNAME", 1);
+    private static final DBCall GET_USER = DBCall.function("USER_PKG.GET_USER", 1);
+    private static final DBCall GET_USERS = DBCall.function("USER_PKG.GET_USERS", 0);
+    private static final DBCall DELETE_USER = DBCall.procedure("USER_PKG.DELETE_USER", 2);
+    private static final DBCall CREATE_USER = DBCall.procedure("USER_PKG.CREATE_USER", 4);
+    private static final DBCall UPDATE_USER = DBCall.procedure("USER_PKG.UPDATE_USER", 4);
+    private static final DBCall GET_USER_ROLES = DBCall.function("USER_PKG.GET_USER_ROLES", 1);
+    private static final DBCall GET_USER_EPOCHS = DBCall.function("USER_PKG.GET_USER_EPOCHS", 1);
+    private static final int USERS_FETCH_SIZE = 100;
 
-    private final SimpleJdbcCall getUserByUsernameCall;
-    private final SimpleJdbcCall getUserByIdCall;
-    private final SimpleJdbcCall getUsersCall;
-    private final SimpleJdbcCall deleteUserCall;
-    private final SimpleJdbcCall createUserCall;
-    private final SimpleJdbcCall updateUserCall;
-    private final SimpleJdbcCall getUserRolesCall;
+    private final JdbcTemplate jdbcTemplate;
 
     public DBUserRepository(JdbcTemplate template) {
         this.jdbcTemplate = template;
-        this.getUserByUsernameCall = createGetUserByUsernameCall(template);
-        this.getUserByIdCall = createGetUserByIdCall(template);
-        this.getUsersCall = createGetUsersCall(template);
-        this.deleteUserCall = createDeleteUserCall(template);
-        this.createUserCall = createCreateUserCall(template);
-        this.updateUserCall = createUpdateUserCall(template);
-        this.getUserRolesCall = createGetUserRolesCall(template);
     }
 
-    private static SimpleJdbcCall createGetUserByUsernameCall(JdbcTemplate template) {
-        return new SimpleJdbcCall(template)
-                .withCatalogName("USER_PKG")
-                .withFunctionName("GET_USER_BY_USERNAME")
-                .withoutProcedureColumnMetaDataAccess()
-                .useInParameterNames("P_USERNAME")
-                .declareParameters(
-                        new SqlOutParameter("RESULT", Types.REF_CURSOR),
-                        new SqlParameter("P_USERNAME", Types.VARCHAR)
-                )
-                .returningResultSet("RESULT", DBUserRepository::mapUserResultRow);
-    }
-
-    private static SimpleJdbcCall createGetUserByIdCall(JdbcTemplate template) {
-        return new SimpleJdbcCall(template)
-                .withCatalogName("USER_PKG")
-                .withFunctionName("GET_USER")
-                .withoutProcedureColumnMetaDataAccess()
-                .useInParameterNames("P_ID")
-                .declareParameters(
-                        new SqlOutParameter("RESULT", Types.REF_CURSOR),
-                        new SqlParameter("P_ID", Types.VARCHAR)
-                )
-                .returningResultSet("RESULT", DBUserRepository::mapUserResultRow);
-    }
-
-    private static SimpleJdbcCall createGetUsersCall(JdbcTemplate template) {
-        return new SimpleJdbcCall(template)
-                .withCatalogName("USER_PKG")
-                .withFunctionName("GET_USERS")
-                .withoutProcedureColumnMetaDataAccess()
-                .declareParameters(
-                        new SqlOutParameter("RESULT", Types.REF_CURSOR)
-                )
-                .returningResultSet("RESULT", DBUserRepository::mapUserResultRow);
-    }
-
-    private static SimpleJdbcCall createDeleteUserCall(JdbcTemplate template) {
-        return new SimpleJdbcCall(template)
-                .withCatalogName("USER_PKG")
-                .withProcedureName("DELETE_USER")
-                .withoutProcedureColumnMetaDataAccess()
-                .useInParameterNames("P_ID")
-                .declareParameters(
-                        new SqlInOutParameter("P_ID", Types.NUMERIC),
-                        new SqlOutParameter("P_USER", Types.REF_CURSOR)
-                )
-                .returningResultSet("P_USER", DBUserRepository::mapUserResultRow);
-    }
-
-    private static SimpleJdbcCall createCreateUserCall(JdbcTemplate template) {
-        return new SimpleJdbcCall(template)
-                .withCatalogName("USER_PKG")
-                .withProcedureName("CREATE_USER")
-                .withoutProcedureColumnMetaDataAccess()
-                .useInParameterNames("P_USERNAME", "P_PASSWORD_HASH", "P_ROLES")
-                .declareParameters(
-                        new SqlParameter("P_USERNAME", Types.VARCHAR),
-                        new SqlParameter("P_PASSWORD_HASH", Types.VARCHAR),
-                        new SqlParameter("P_ROLES", Types.ARRAY),
-                        new SqlOutParameter("P_USER", Types.REF_CURSOR)
-                )
-                .returningResultSet("P_USER", DBUserRepository::mapUserResultRow);
-    }
-
-    private static SimpleJdbcCall createUpdateUserCall(JdbcTemplate template) {
-        return new SimpleJdbcCall(template)
-                .withCatalogName("USER_PKG")
-                .withProcedureName("UPDATE_USER")
-                .withoutProcedureColumnMetaDataAccess()
-                .useInParameterNames("P_ID", "P_USERNAME", "P_PASSWORD_HASH")
-                .declareParameters(
-                        new SqlParameter("P_ID", Types.NUMERIC),
-                        new SqlParameter("P_USERNAME", Types.VARCHAR),
-                        new SqlParameter("P_PASSWORD_HASH", Types.VARCHAR),
-                        new SqlOutParameter("P_USER", Types.REF_CURSOR)
-                )
-                .returningResultSet("P_USER", DBUserRepository::mapUserResultRow);
-    }
-
-    private static SimpleJdbcCall createGetUserRolesCall(JdbcTemplate template) {
-        return new SimpleJdbcCall(template)
-                .withCatalogName("USER_PKG")
-                .withFunctionName("GET_USER_ROLES")
-                .withoutProcedureColumnMetaDataAccess()
-                .useInParameterNames("P_ID")
-                .declareParameters(
-                        new SqlOutParameter("RESULT", Types.REF_CURSOR),
-                        new SqlParameter("P_ID", Types.NUMERIC)
-                )
-                .returningResultSet("RESULT", DBUserRepository::mapRoleResultRow);
-    }
-
-    private static Object mapUserResultRow(ResultSet rs, int rowNum) throws SQLException {
+    private static User mapUserResultRow(ResultSet rs, int rowNum) throws SQLException {
         User user = new User();
         user.setId(rs.getLong("ID"));
         user.setUsername(rs.getString("USERNAME"));
@@ -141,7 +44,7 @@ public class DBUserRepository implements UserRepository {
         return user;
     }
 
-    private static Object mapRoleResultRow(ResultSet rs, int rowNum) throws SQLException {
+    private static Role mapRoleResultRow(ResultSet rs, int rowNum) throws SQLException {
         Role role = new Role();
         role.setId(rs.getLong("ID"));
         role.setName(rs.getString("NAME"));
@@ -150,12 +53,12 @@ public class DBUserRepository implements UserRepository {
 
     @Override
     public User getUserByUsername(String username) throws UserNotFoundException {
-        MapSqlParameterSource params = new MapSqlParameterSource()
-                .addValue("P_USERNAME", username, Types.VARCHAR);
-
-        Map<String, Object> result;
         try {
-            result = this.getUserByUsernameCall.execute(params);
+            return GET_USER_BY_USERNAME.execute(
+                    this.jdbcTemplate,
+                    statement -> DBCall.setString(statement, 2, username),
+                    statement -> DBCall.readFirst(statement, 1, DBUserRepository::mapUserResultRow)
+            );
         } catch (Exception e) {
             if (e instanceof DataAccessException dae &&
                     DBRepositoryUtils.getSqlErrorCode(dae) == DBErrorCodes.USER_NOT_FOUND.getCode()) {
@@ -163,19 +66,16 @@ public class DBUserRepository implements UserRepository {
             }
             throw new UserRepositoryException("Failed to retrieve user by username", e);
         }
-
-        List<User> users = DBRepositoryUtils.getListFromResultObject(result.get("RESULT"), User.class);
-        return users.isEmpty() ? null : users.get(0);
     }
 
     @Override
     public User getUser(Long id) throws UserNotFoundException {
-        MapSqlParameterSource params = new MapSqlParameterSource()
-                .addValue("P_ID", id, Types.NUMERIC);
-
-        Map<String, Object> result;
         try {
-            result = this.getUserByIdCall.execute(params);
+            return GET_USER.execute(
+                    this.jdbcTemplate,
+                    statement -> DBCall.setLong(statement, 2, id),
+                    statement -> DBCall.readFirst(statement, 1, DBUserRepository::mapUserResultRow)
+            );
         } catch (Exception e) {
             if (e instanceof DataAccessException dae &&
                     DBRepositoryUtils.getSqlErrorCode(dae) == DBErrorCodes.USER_NOT_FOUND.getCode()) {
@@ -183,31 +83,32 @@ public class DBUserRepository implements UserRepository {
             }
             throw new UserRepositoryException("Failed to retrieve user by id", e);
         }
-
-        List<User> users = DBRepositoryUtils.getListFromResultObject(result.get("RESULT"), User.class);
-        return users.isEmpty() ? null : users.get(0);
     }
 
     @Override
     public List<User> getUsers() {
-        Map<String, Object> result;
         try {
-            result = this.getUsersCall.execute();
+            return GET_USERS.execute(
+                    this.jdbcTemplate,
+                    statement -> {},
+                    statement -> DBCall.readList(statement, 1, USERS_FETCH_SIZE, DBUserRepository::mapUserResultRow)
+            );
         } catch (Exception e) {
             throw new UserRepositoryException("Failed to retrieve users", e);
         }
-
-        return DBRepositoryUtils.getListFromResultObject(result.get("RESULT"), User.class);
     }
 
     @Override
     public User deleteUser(Long id) throws UserNotFoundException {
-        MapSqlParameterSource params = new MapSqlParameterSource()
-                .addValue("P_ID", id, Types.NUMERIC);
-
-        Map<String, Object> result;
         try {
-            result = this.deleteUserCall.execute(params);
+            return DELETE_USER.execute(
+                    this.jdbcTemplate,
+                    statement -> {
+                        DBCall.setLong(statement, 1, id);
+                        DBCall.registerCursor(statement, 2);
+                    },
+                    statement -> DBCall.readFirst(statement, 2, DBUserRepository::mapUserResultRow)
+            );
         } catch (DataAccessException e) {
             switch (DBErrorCodes.fromCode(DBRepositoryUtils.getSqlErrorCode(e))) {
                 case USER_NOT_FOUND:
@@ -220,21 +121,21 @@ public class DBUserRepository implements UserRepository {
         } catch (Exception e) {
             throw new UserRepositoryException("Failed to delete user", e);
         }
-
-        List<User> users = DBRepositoryUtils.getListFromResultObject(result.get("P_USER"), User.class);
-        return users.isEmpty() ? null : users.get(0);
     }
 
     @Override
     public User createUser(String username, String passwordHash, String[] roles) throws DuplicateUsernameException, RoleNotFoundException {
         try {
-            MapSqlParameterSource params = new MapSqlParameterSource()
-                    .addValue("P_USERNAME", username, Types.VARCHAR)
-                    .addValue("P_PASSWORD_HASH", passwordHash, Types.VARCHAR)
-                    .addValue("P_ROLES", DBRepositoryUtils.toOracleArray(this.jdbcTemplate,"ROLE_ARRAY", roles));
-            Map<String, Object> result = this.createUserCall.execute(params);
-            List<User> users = DBRepositoryUtils.getListFromResultObject(result.get("P_USER"), User.class);
-            return users.isEmpty() ? null : users.get(0);
+            return CREATE_USER.execute(
+                    this.jdbcTemplate,
+                    statement -> {
+                        DBCall.setString(statement, 1, username);
+                        DBCall.setString(statement, 2, passwordHash);
+                        DBCall.setArray(statement, 3, "ROLE_ARRAY", roles);
+                        DBCall.registerCursor(statement, 4);
+                    },
+                    statement -> DBCall.readFirst(statement, 4, DBUserRepository::mapUserResultRow)
+            );
         } catch (DataAccessException e) {
             switch (DBErrorCodes.fromCode(DBRepositoryUtils.getSqlErrorCode(e))) {
                 case DUPLICATE_USERNAME:
@@ -251,14 +152,17 @@ public class DBUserRepository implements UserRepository {
 
     @Override
     public User updateUser(Long id, String username, String passwordHash) throws UserNotFoundException, DuplicateUsernameException {
-        MapSqlParameterSource params = new MapSqlParameterSource()
-                .addValue("P_ID", id, Types.NUMERIC)
-                .addValue("P_USERNAME", username, Types.VARCHAR)
-                .addValue("P_PASSWORD_HASH", passwordHash, Types.VARCHAR);
-
-        Map<String, Object> result;
         try {
-            result = this.updateUserCall.execute(params);
+            return UPDATE_USER.execute(
+                    this.jdbcTemplate,
+                    statement -> {
+                        DBCall.setLong(statement, 1, id);
+                        DBCall.setString(statement, 2, username);
+                        DBCall.setString(statement, 3, passwordHash);
+                        DBCall.registerCursor(statement, 4);
+                    },
+                    statement -> DBCall.readFirst(statement, 4, DBUserRepository::mapUserResultRow)
+            );
         } catch (DataAccessException e) {
             switch (DBErrorCodes.fromCode(DBRepositoryUtils.getSqlErrorCode(e))) {
                 case USER_NOT_FOUND:
@@ -271,25 +175,46 @@ public class DBUserRepository implements UserRepository {
         } catch (Exception e) {
             throw new UserRepositoryException("Failed to update user", e);
         }
-
-        List<User> users = DBRepositoryUtils.getListFromResultObject(result.get("P_USER"), User.class);
-        return users.isEmpty() ? null : users.get(0);
     }
 
     @Override
     public List<Role> getUserRoles(Long id) {
-        MapSqlParameterSource params = new MapSqlParameterSource()
-                .addValue("P_ID", id, Types.NUMERIC);
-
-        Map<String, Object> result;
         try {
-            result = this.getUserRolesCall.execute(params);
+            return GET_USER_ROLES.execute(
+                    this.jdbcTemplate,
+                    statement -> DBCall.setLong(statement, 2, id),
+                    statement -> DBCall.readList(statement, 1, DBCall.DEFAULT_FETCH_SIZE, DBUserRepository::mapRoleResultRow)
+            );
         } catch (Exception e) {
             throw new UserRepositoryException("Failed to get user roles", e);
         }
+    }
 
-        return DBRepositoryUtils.getListFromResultObject(result.get("RESULT"), Role.class);
+    @Override
+    public Map<Long, Long> getUserEpochs() {
+        return this.executeGetUserEpochs(null);
     }
 
+    @Override
+    public Long getUserEpoch(Long id) {
+        return this.executeGetUserEpochs(id).get(id);
+    }
 
+    private Map<Long, Long> executeGetUserEpochs(Long id) {
+        try {
+            return GET_USER_EPOCHS.execute(
+                    this.jdbcTemplate,
+                    statement -> DBCall.setLong(statement, 2, id),
+                    statement -> DBCall.readCursor(statement, 1, id == null ? USERS_FETCH_SIZE : 1, rs -> {
+                        Map<Long, Long> epochs = new HashMap<>();
+                        while (rs.next()) {
+                            epochs.put(rs.getLong("ID"), rs.getLong("EPOCH"));
+                        }
+                        return epochs;
+                    })
+            );
+        } catch (Exception e) {
+            throw new UserRepositoryException("Failed to get user token epochs", e);
+        }
+    }
 }
@@ -0,0 +1,13 @@
+package org.bauerbrun0.snippetvault.api.repository;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+
+/**
+ * Writes an encoded form of a file's content, read from the database LOB, to the stream.
+ */
+@FunctionalInterface
+public interface FileContentEncoder {
+    void encode(Reader content, OutputStream encoded) throws IOException;
+}
@@ -0,0 +1,21 @@
+package org.bauerbrun0.snippetvault.api.repository;
+
+import org.bauerbrun0.snippetvault.api.model.File;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+
+/**
+ * Receives a file's metadata and its content as a reader over the database LOB, which is only
+ * readable until the handler returns. The gzip compressed copy of the content is readable the
+ * same way.
+ */
+@FunctionalInterface
+public interface FileContentHandler {
+    /**
+     * @param file the file with its metadata but without its content
+     * @param gzipContent the content's UTF-8 bytes compressed with gzip, null when not stored yet
+     */
+    void handle(File file, Reader content, InputStream gzipContent) throws IOException;
+}
@@ -0,0 +1,18 @@
+package org.bauerbrun0.snippetvault.api.repository;
+
+import org.bauerbrun0.snippetvault.api.model.FileContentDigest;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes a file's content into a database LOB as it is received, so the content is never held
+ * in memory as a whole.
+ */
+@FunctionalInterface
+public interface FileContentSource {
+    /**
+     * @return the digest of everything written
+     */
+    FileContentDigest writeTo(Writer content) throws IOException;
+}
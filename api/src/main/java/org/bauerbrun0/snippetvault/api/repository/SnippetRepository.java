@@ -3,26 +3,107 @@ package org.bauerbrun0.snippetvault.api.repository;
 
 import org.bauerbrun0.snippetvault.api.exception.*;
 import org.bauerbrun0.snippetvault.api.model.File;
+import org.bauerbrun0.snippetvault.api.model.FileContentDigest;
+import org.bauerbrun0.snippetvault.api.model.FileUpdateResult;
+import org.bauerbrun0.snippetvault.api.model.RecentContentMatches;
+import org.bauerbrun0.snippetvault.api.model.SearchCursor;
+import org.bauerbrun0.snippetvault.api.model.SearchIndexRows;
 import org.bauerbrun0.snippetvault.api.model.Snippet;
 import org.bauerbrun0.snippetvault.api.model.SnippetSearchResult;
+import org.bauerbrun0.snippetvault.api.model.SuggestionRow;
 import org.bauerbrun0.snippetvault.api.model.Tag;
 
 import java.util.List;
+import java.util.function.Predicate;
 
 public interface SnippetRepository {
+    // Page size of a search that doesn't ask for one, the same as SNIPPET_PKG.GET_PAGINATED_SNIPPETS's
+    long DEFAULT_PAGE_SIZE = 20;
+
     Snippet createSnippet(Long userId, String title, String description) throws UserNotFoundException;
-    void addTagToSnippet(Long snippetId, Long tagId) throws TagNotFoundException, SnippetNotFoundException, DuplicateTagOnSnippetException;
-    void removeTagFromSnippet(Long snippetId, Long tagId) throws TagNotOnSnippetException;
+    void addTagToSnippet(Long snippetId, Long tagId, Long userId)
+            throws TagNotFoundException, SnippetNotFoundException, NotOwnerException, DuplicateTagOnSnippetException;
+    void removeTagFromSnippet(Long snippetId, Long tagId, Long userId)
+            throws TagNotFoundException, SnippetNotFoundException, NotOwnerException, TagNotOnSnippetException;
     List<Tag> getTagsOfSnippet(Long snippetId);
     SnippetSearchResult getPaginatedSnippets(
-            Long userId, String searchQuery, List<Long> tagIds, List<Long> languageIds, Long pageNumber, Long pageSize
+            Long userId,
+            String searchQuery,
+            List<Long> tagIds,
+            List<Long> languageIds,
+            Long pageNumber,
+            Long pageSize,
+            SearchCursor after,
+            boolean includeTotalCount,
+            boolean includeFacets,
+            RecentContentMatches recentContentMatches
     );
     Snippet getSnippet(Long snippetId);
-    Snippet deleteSnippet(Long snippetId);
-    Snippet updateSnippet(Long snippetId, String title, String description);
+    Snippet deleteSnippet(Long snippetId, Long userId);
+    Snippet updateSnippet(Long snippetId, Long userId, String title, String description);
+
+    File createFile(
+            Long snippetId,
+            Long userId,
+            String filename,
+            String content,
+            Long languageId,
+            FileContentDigest contentDigest
+    );
+    // Without the content only the files' metadata is read
+    List<File> getFiles(Long snippetId, boolean includeContent);
+    // contentDigest describes the content and is only stored with it
+    FileUpdateResult updateFile(
+            Long fileId,
+            Long snippetId,
+            Long userId,
+            String filename,
+            String content,
+            Long languageId,
+            FileContentDigest contentDigest
+    );
+    File deleteFile(Long fileId, Long snippetId, Long userId);
+
+    /**
+     * Creates a file with the content the source writes into a temporary LOB, which the procedure
+     * copies; the returned file comes without its content. The LOB belongs to the transaction's
+     * connection, so this has to run in a transaction.
+     */
+    File uploadFile(Long snippetId, Long userId, String filename, Long languageId, FileContentSource contentSource);
+
+    /**
+     * Replaces a file's content like {@link #uploadFile}, keeping its filename and language.
+     */
+    FileUpdateResult uploadFileContent(Long fileId, Long snippetId, Long userId, FileContentSource contentSource);
+
+    /**
+     * Passes up to maxRows blobs stored before content digests were known to the handler, their
+     * content read straight from the LOB.
+     */
+    void streamBlobsWithoutHash(int maxRows, BlobContentHandler handler);
+    void setContentHash(Long blobId, String contentHash);
+
+    /**
+     * Stores the gzip wire copy of up to maxRows blobs of files that have none, each written by
+     * the encoder from the blob's LOB into a temporary LOB. The LOB belongs to the transaction's
+     * connection, so this has to run in a transaction. Returns the number of blobs stored.
+     */
+    int storeGzipContents(int maxRows, FileContentEncoder encoder);
+
+    SearchIndexRows getSearchIndexRows(Long userId, List<Long> snippetIds);
+    List<SuggestionRow> getSuggestionRows(Long userId, List<Long> snippetIds);
+
+    /**
+     * Passes the user's files, optionally of the given languages, to the handler one by one while
+     * they are read from the database; stops reading as soon as the handler returns false.
+     */
+    void streamFileContents(Long userId, List<Long> languageIds, int fetchSize, Predicate<File> handler);
 
-    File createFile(Long snippetId, String filename, String content, Long languageId);
-    List<File> getFiles(Long snippetId);
-    File updateFile(Long fileId, Long snippetId, String filename, String content, Long languageId);
-    File deleteFile(Long fileId, Long snippetId);
+    /**
+     * Passes the file of the snippet to the handler with its content read straight from the LOB,
+     * of which the first lobPrefetchSize characters come with the row, and its compressed copy
+     * if one has been stored.
+     */
+    void streamFileContent(Long fileId, Long snippetId, int lobPrefetchSize, FileContentHandler handler)
+            throws FileNotFoundException;
 }
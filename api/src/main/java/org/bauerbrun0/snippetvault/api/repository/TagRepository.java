@@ -1,6 +1,7 @@
 package org.bauerbrun0.snippetvault.api.repository;
 
 import org.bauerbrun0.snippetvault.api.exception.InvalidTagColorException;
+import org.bauerbrun0.snippetvault.api.exception.NotOwnerException;
 import org.bauerbrun0.snippetvault.api.exception.TagNotFoundException;
 import org.bauerbrun0.snippetvault.api.exception.UserNotFoundException;
 import org.bauerbrun0.snippetvault.api.model.Tag;
@@ -9,8 +10,9 @@ import java.util.List;
 
 public interface TagRepository {
     Tag createTag(Long userId, String name, String color) throws UserNotFoundException, InvalidTagColorException;
-    Tag updateTag(Long id, String name, String color) throws TagNotFoundException, InvalidTagColorException;
-    Tag deleteTag(Long id) throws TagNotFoundException;
+    Tag updateTag(Long id, Long userId, String name, String color)
+            throws TagNotFoundException, NotOwnerException, InvalidTagColorException;
+    Tag deleteTag(Long id, Long userId) throws TagNotFoundException, NotOwnerException;
     Tag getTag(Long id) throws TagNotFoundException;
     List<Tag> getTags(Long userId);
 }
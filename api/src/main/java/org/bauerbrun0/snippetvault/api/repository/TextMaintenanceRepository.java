@@ -0,0 +1,9 @@
+package org.bauerbrun0.snippetvault.api.repository;
+
+import org.bauerbrun0.snippetvault.api.model.TextMaintenanceRun;
+
+import java.util.List;
+
+public interface TextMaintenanceRepository {
+    List<TextMaintenanceRun> getRunsAfter(Long id);
+}
@@ -7,6 +7,7 @@ import org.bauerbrun0.snippetvault.api.model.Role;
 import org.bauerbrun0.snippetvault.api.model.User;
 
 import java.util.List;
+import java.util.Map;
 
 public interface UserRepository {
     User getUserByUsername(String username) throws UserNotFoundException;
@@ -16,4 +17,6 @@ public interface UserRepository {
     User createUser(String username, String passwordHash, String[] roles) throws DuplicateUsernameException, RoleNotFoundException;
     User updateUser(Long id, String username, String passwordHash) throws UserNotFoundException, DuplicateUsernameException;
     List<Role> getUserRoles(Long id);
+    Map<Long, Long> getUserEpochs();
+    Long getUserEpoch(Long id);
 }
@@ -0,0 +1,327 @@
+package org.bauerbrun0.snippetvault.api.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.bauerbrun0.snippetvault.api.config.SearchProperties;
+import org.bauerbrun0.snippetvault.api.exception.SnippetRepositoryException;
+import org.bauerbrun0.snippetvault.api.model.DetailedSnippet;
+import org.bauerbrun0.snippetvault.api.model.File;
+import org.bauerbrun0.snippetvault.api.model.SearchCursor;
+import org.bauerbrun0.snippetvault.api.model.SearchIndexRows;
+import org.bauerbrun0.snippetvault.api.model.Snippet;
+import org.bauerbrun0.snippetvault.api.model.SnippetSearchResult;
+import org.bauerbrun0.snippetvault.api.repository.SnippetRepository;
+import org.bauerbrun0.snippetvault.api.service.TransactionCallbacks;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Snippet search answered from a per-user trigram index kept in the API's memory
+ * (search.engine=memory). The index is built from Oracle once the application is ready and
+ * every snippet touched by a write is reloaded after its transaction commits. A failed build is
+ * retried every search.index-retry-interval.
+ * Until the index is built, for users whose reload failed, and for queries holding LIKE
+ * wildcards, {@link #search} returns empty and the caller falls back to snippet_pkg.
+ * Content matches are case-insensitive substring matches, not Oracle Text word queries.
+ */
+@Slf4j
+@Component
+public class InMemorySnippetSearch {
+    private static final Comparator<UserSearchIndex.Match> ORDER = Comparator
+            .comparingInt(UserSearchIndex.Match::getRelevance)
+            .thenComparing(match -> match.getSnippet().getUpdated(), Comparator.reverseOrder())
+            .thenComparingLong(match -> match.getSnippet().getId());
+
+    private final SnippetRepository snippetRepository;
+    private final SearchProperties searchProperties;
+    private final Map<Long, UserSearchIndex> users = new ConcurrentHashMap<>();
+    private final Set<Long> staleUsers = ConcurrentHashMap.newKeySet();
+
+    // Writes committed while the index is being built are replayed once it is ready. Writes
+    // committed while no build runs are dropped, as the next build reads them anyway.
+    private final Object readyLock = new Object();
+    private final List<Runnable> pendingUpdates = new ArrayList<>();
+    private boolean building;
+    private volatile boolean ready;
+
+    public InMemorySnippetSearch(SnippetRepository snippetRepository, SearchProperties searchProperties) {
+        this.snippetRepository = snippetRepository;
+        this.searchProperties = searchProperties;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        if (!this.isEnabled()) {
+            return;
+        }
+        synchronized (this.readyLock) {
+            if (this.ready || this.building) {
+                return;
+            }
+            this.building = true;
+        }
+
+        SearchIndexRows rows;
+        try {
+            rows = this.snippetRepository.getSearchIndexRows(null, null);
+        } catch (SnippetRepositoryException e) {
+            log.error("Failed to build the in-memory search index, searching in Oracle until a retry succeeds", e);
+            synchronized (this.readyLock) {
+                this.building = false;
+                this.pendingUpdates.clear();
+            }
+            return;
+        }
+
+        Map<Long, UserSearchIndex> built = new HashMap<>();
+        for (IndexedSnippet snippet : toIndexedSnippets(rows)) {
+            built.computeIfAbsent(snippet.getUserId(), userId -> new UserSearchIndex()).put(snippet);
+        }
+
+        List<Runnable> replay;
+        synchronized (this.readyLock) {
+            this.users.putAll(built);
+            this.ready = true;
+            this.building = false;
+            replay = new ArrayList<>(this.pendingUpdates);
+            this.pendingUpdates.clear();
+        }
+        replay.forEach(Runnable::run);
+        log.info("Built the in-memory search index with {} snippets of {} users", rows.getSnippets().size(), built.size());
+    }
+
+    @Scheduled(
+            initialDelayString = "${search.index-retry-interval:1m}",
+            fixedDelayString = "${search.index-retry-interval:1m}"
+    )
+    public void retryBuild() {
+        if (!this.ready) {
+            this.build();
+        }
+    }
+
+    public Optional<SnippetSearchResult> search(
+            Long userId,
+            String searchQuery,
+            List<Long> tagIds,
+            List<Long> languageIds,
+            Long pageNumber,
+            Long pageSize,
+            SearchCursor after,
+            boolean includeTotalCount,
+            boolean includeFacets
+    ) {
+        if (!this.isEnabled() || !this.ready) {
+            return Optional.empty();
+        }
+
+        String query = searchQuery == null || searchQuery.isBlank() ? null : IndexedSnippet.lower(searchQuery.trim());
+        if (query != null && (query.contains("%") || query.contains("_"))) {
+            return Optional.empty();
+        }
+        if (this.staleUsers.contains(userId) && !this.reloadUser(userId)) {
+            return Optional.empty();
+        }
+
+        UserSearchIndex index = this.users.get(userId);
+        List<UserSearchIndex.Match> matches = index == null
+                ? new ArrayList<>()
+                : index.search(query, toSet(tagIds), toSet(languageIds));
+        matches.sort(ORDER);
+
+        long size = pageSize == null ? SnippetRepository.DEFAULT_PAGE_SIZE : pageSize;
+        int from;
+        if (after != null) {
+            from = 0;
+            while (from < matches.size() && !isAfter(matches.get(from), after)) {
+                from++;
+            }
+        } else {
+            long page = pageNumber == null ? 1 : pageNumber;
+            from = (int) Math.min(Math.max((page - 1) * size, 0), matches.size());
+        }
+        int to = (int) Math.min(from + Math.max(size, 0), matches.size());
+
+        List<DetailedSnippet> snippets = new ArrayList<>(to - from);
+        for (UserSearchIndex.Match match : matches.subList(from, to)) {
+            snippets.add(toDetailedSnippet(match));
+        }
+        SnippetSearchResult result = new SnippetSearchResult(
+                snippets,
+                includeTotalCount ? (long) matches.size() : null,
+                to < matches.size(),
+                null,
+                null,
+                null
+        );
+        if (includeFacets) {
+            setFacetCounts(result, matches);
+        }
+        return Optional.of(result);
+    }
+
+    /**
+     * Reloads the snippet once the current transaction has committed; a deleted snippet is dropped.
+     */
+    public void refreshSnippet(Long userId, Long snippetId) {
+        this.afterCommit(() -> this.reload(userId, List.of(snippetId)));
+    }
+
+    /**
+     * Reloads the snippets carrying the tag once the current transaction has committed.
+     */
+    public void refreshTag(Long userId, Long tagId) {
+        this.afterCommit(() -> {
+            UserSearchIndex index = this.users.get(userId);
+            if (index != null) {
+                this.reload(userId, index.getSnippetIdsWithTag(tagId));
+            }
+        });
+    }
+
+    private void afterCommit(Runnable update) {
+        if (!this.isEnabled()) {
+            return;
+        }
+        TransactionCallbacks.runAfterCommit(() -> {
+            synchronized (this.readyLock) {
+                if (!this.ready) {
+                    if (this.building) {
+                        this.pendingUpdates.add(update);
+                    }
+                    return;
+                }
+            }
+            update.run();
+        });
+    }
+
+    private void reload(Long userId, List<Long> snippetIds) {
+        if (snippetIds.isEmpty()) {
+            return;
+        }
+
+        UserSearchIndex index = this.users.computeIfAbsent(userId, id -> new UserSearchIndex());
+        // Loading under the index's monitor applies concurrent reloads in the order they read
+        synchronized (index) {
+            try {
+                List<IndexedSnippet> loaded = toIndexedSnippets(this.snippetRepository.getSearchIndexRows(userId, snippetIds));
+                Set<Long> found = new HashSet<>();
+                for (IndexedSnippet snippet : loaded) {
+                    index.put(snippet);
+                    found.add(snippet.getId());
+                }
+                for (Long snippetId : snippetIds) {
+                    if (!found.contains(snippetId)) {
+                        index.remove(snippetId);
+                    }
+                }
+            } catch (SnippetRepositoryException e) {
+                log.warn("Failed to refresh the in-memory search index of user {}, searching in Oracle", userId, e);
+                this.staleUsers.add(userId);
+            }
+        }
+    }
+
+    private boolean reloadUser(Long userId) {
+        UserSearchIndex index = this.users.computeIfAbsent(userId, id -> new UserSearchIndex());
+        synchronized (index) {
+            try {
+                List<IndexedSnippet> loaded = toIndexedSnippets(this.snippetRepository.getSearchIndexRows(userId, null));
+                index.clear();
+                loaded.forEach(index::put);
+                this.staleUsers.remove(userId);
+                return true;
+            } catch (SnippetRepositoryException e) {
+                log.warn("Failed to reload the in-memory search index of user {}", userId, e);
+                return false;
+            }
+        }
+    }
+
+    private boolean isEnabled() {
+        return this.searchProperties.getEngine() == SearchProperties.Engine.MEMORY;
+    }
+
+    private static boolean isAfter(UserSearchIndex.Match match, SearchCursor cursor) {
+        if (match.getRelevance() != cursor.getRelevance()) {
+            return match.getRelevance() > cursor.getRelevance();
+        }
+        int updated = match.getSnippet().getUpdated().compareTo(cursor.getUpdated());
+        if (updated != 0) {
+            return updated < 0;
+        }
+        return match.getSnippet().getId() > cursor.getId();
+    }
+
+    private static List<IndexedSnippet> toIndexedSnippets(SearchIndexRows rows) {
+        Map<Long, List<File>> filesBySnippetId = new HashMap<>();
+        for (File file : rows.getFiles()) {
+            filesBySnippetId.computeIfAbsent(file.getSnippetId(), id -> new ArrayList<>()).add(file);
+        }
+
+        List<IndexedSnippet> snippets = new ArrayList<>(rows.getSnippets().size());
+        for (Snippet snippet : rows.getSnippets()) {
+            snippets.add(new IndexedSnippet(
+                    snippet,
+                    filesBySnippetId.getOrDefault(snippet.getId(), List.of()),
+                    rows.getTagIdsBySnippetId().getOrDefault(snippet.getId(), List.of())
+            ));
+        }
+        return snippets;
+    }
+
+    private static void setFacetCounts(SnippetSearchResult result, List<UserSearchIndex.Match> matches) {
+        // Same counts as SNIPPET_PKG.GET_PAGINATED_SNIPPETS: matching snippets per tag and per language
+        Map<Long, Long> tagCounts = new TreeMap<>();
+        Map<Long, Long> languageCounts = new TreeMap<>();
+        for (UserSearchIndex.Match match : matches) {
+            IndexedSnippet snippet = match.getSnippet();
+            for (long tagId : snippet.getTagIds()) {
+                tagCounts.merge(tagId, 1L, Long::sum);
+            }
+            snippet.getFiles().stream()
+                    .map(IndexedSnippet.IndexedFile::getLanguageId)
+                    .distinct()
+                    .forEach(languageId -> languageCounts.merge(languageId, 1L, Long::sum));
+        }
+        result.setTagCounts(tagCounts);
+        result.setLanguageCounts(languageCounts);
+    }
+
+    private static DetailedSnippet toDetailedSnippet(UserSearchIndex.Match match) {
+        IndexedSnippet snippet = match.getSnippet();
+        long[] languageIds = snippet.getFiles().stream()
+                .mapToLong(IndexedSnippet.IndexedFile::getLanguageId)
+                .distinct()
+                .toArray();
+        return new DetailedSnippet(
+                snippet.getId(),
+                snippet.getUserId(),
+                snippet.getTitle(),
+                snippet.getDescription(),
+                snippet.getCreated(),
+                snippet.getUpdated(),
+                (long) match.getRelevance(),
+                (long) snippet.getFiles().size(),
+                languageIds,
+                snippet.getTagIds().clone()
+        );
+    }
+
+    private static Set<Long> toSet(List<Long> ids) {
+        return ids == null ? Set.of() : new HashSet<>(ids);
+    }
+}
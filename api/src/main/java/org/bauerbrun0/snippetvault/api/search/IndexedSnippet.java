@@ -0,0 +1,72 @@
+package org.bauerbrun0.snippetvault.api.search;
+
+import lombok.Getter;
+import org.bauerbrun0.snippetvault.api.model.File;
+import org.bauerbrun0.snippetvault.api.model.Snippet;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Immutable copy of a snippet, its files and tag ids as the in-memory search needs them.
+ * Searched text is stored lowercased.
+ */
+@Getter
+final class IndexedSnippet {
+    private final long id;
+    private final long userId;
+    private final String title;
+    private final String description;
+    private final LocalDateTime created;
+    private final LocalDateTime updated;
+    private final String titleLower;
+    private final String descriptionLower;
+    private final List<IndexedFile> files;
+    private final long[] tagIds;
+    private final long[] trigrams;
+
+    IndexedSnippet(Snippet snippet, List<File> files, List<Long> tagIds) {
+        this.id = snippet.getId();
+        this.userId = snippet.getUserId();
+        this.title = snippet.getTitle();
+        this.description = snippet.getDescription();
+        this.created = snippet.getCreated();
+        this.updated = snippet.getUpdated();
+        this.titleLower = lower(snippet.getTitle());
+        this.descriptionLower = lower(snippet.getDescription());
+        this.files = files.stream().map(IndexedFile::new).toList();
+        this.tagIds = tagIds.stream().mapToLong(Long::longValue).sorted().toArray();
+
+        long[][] parts = new long[this.files.size() * 2 + 2][];
+        parts[0] = Trigrams.of(this.titleLower);
+        parts[1] = Trigrams.of(this.descriptionLower);
+        for (int i = 0; i < this.files.size(); i++) {
+            parts[2 + i * 2] = Trigrams.of(this.files.get(i).getFilenameLower());
+            parts[3 + i * 2] = Trigrams.of(this.files.get(i).getContentLower());
+        }
+        this.trigrams = Trigrams.union(parts);
+    }
+
+    boolean hasTag(long tagId) {
+        return Arrays.binarySearch(this.tagIds, tagId) >= 0;
+    }
+
+    static String lower(String text) {
+        return text == null ? null : text.toLowerCase(Locale.ROOT);
+    }
+
+    @Getter
+    static final class IndexedFile {
+        private final long languageId;
+        private final String filenameLower;
+        private final String contentLower;
+
+        IndexedFile(File file) {
+            this.languageId = file.getLanguageId();
+            this.filenameLower = lower(file.getFilename());
+            this.contentLower = lower(file.getContent());
+        }
+    }
+}
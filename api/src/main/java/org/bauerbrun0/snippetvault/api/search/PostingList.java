@@ -0,0 +1,50 @@
+package org.bauerbrun0.snippetvault.api.search;
+
+import java.util.Arrays;
+
+/**
+ * Sorted, duplicate free list of snippet ids backed by a primitive array.
+ */
+final class PostingList {
+    private long[] ids = new long[4];
+    private int size;
+
+    void add(long id) {
+        int index = Arrays.binarySearch(this.ids, 0, this.size, id);
+        if (index >= 0) {
+            return;
+        }
+        index = -index - 1;
+        if (this.size == this.ids.length) {
+            this.ids = Arrays.copyOf(this.ids, this.size * 2);
+        }
+        System.arraycopy(this.ids, index, this.ids, index + 1, this.size - index);
+        this.ids[index] = id;
+        this.size++;
+    }
+
+    void remove(long id) {
+        int index = Arrays.binarySearch(this.ids, 0, this.size, id);
+        if (index < 0) {
+            return;
+        }
+        System.arraycopy(this.ids, index + 1, this.ids, index, this.size - index - 1);
+        this.size--;
+    }
+
+    boolean contains(long id) {
+        return Arrays.binarySearch(this.ids, 0, this.size, id) >= 0;
+    }
+
+    long get(int index) {
+        return this.ids[index];
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    boolean isEmpty() {
+        return this.size == 0;
+    }
+}
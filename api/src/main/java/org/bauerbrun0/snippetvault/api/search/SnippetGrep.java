@@ -0,0 +1,301 @@
+package org.bauerbrun0.snippetvault.api.search;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bauerbrun0.snippetvault.api.config.SearchProperties;
+import org.bauerbrun0.snippetvault.api.model.File;
+import org.bauerbrun0.snippetvault.api.model.GrepMatch;
+import org.bauerbrun0.snippetvault.api.model.GrepSummary;
+import org.bauerbrun0.snippetvault.api.repository.SnippetRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Line by line regex search over a user's file contents. Files are read from a cursor by the
+ * calling thread and scanned on a shared pool of search.grep.parallelism threads, at most two
+ * files per thread in flight. The pool threads only match: they queue what they find, and the
+ * calling thread hands it to the caller's sink in between reading files, so writing to a slow
+ * client blocks the request rather than the pool, which at most waits on a full queue until the
+ * deadline. Matches are reported until the match cap or the deadline is reached; a pattern still
+ * matching at the deadline is aborted. Before returning, also on failure, the search waits for
+ * the scans it submitted, bounded by the deadline.
+ */
+@Slf4j
+@Component
+public class SnippetGrep {
+    private static final int MAX_LINE_LENGTH = 500;
+    // Matches found but not yet written; a scan facing a full queue waits for it until the deadline
+    private static final int MATCH_QUEUE_CAPACITY = 256;
+    private static final long POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    // Time past the deadline for scans to notice it, after which they are left to finish alone
+    private static final long SHUTDOWN_GRACE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final SnippetRepository snippetRepository;
+    private final SearchProperties.Grep properties;
+    private final ForkJoinPool pool;
+
+    public SnippetGrep(SnippetRepository snippetRepository, SearchProperties searchProperties) {
+        this.snippetRepository = snippetRepository;
+        this.properties = searchProperties.getGrep();
+        int parallelism = this.properties.getParallelism() > 0
+                ? this.properties.getParallelism()
+                : Runtime.getRuntime().availableProcessors();
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        this.pool.shutdownNow();
+    }
+
+    public GrepSummary grep(
+            Long userId,
+            String regex,
+            boolean ignoreCase,
+            List<Long> languageIds,
+            Integer maxMatches,
+            Consumer<GrepMatch> sink
+    ) {
+        Pattern pattern = Pattern.compile(regex, ignoreCase ? Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE : 0);
+        long deadline = System.nanoTime() + this.properties.getTimeout().toNanos();
+        long cap = maxMatches == null
+                ? this.properties.getMaxMatches()
+                : Math.min(maxMatches, this.properties.getMaxMatches());
+        Scan scan = new Scan(pattern, deadline, cap);
+
+        int permits = this.pool.getParallelism() * 2;
+        Semaphore inFlight = new Semaphore(permits);
+        boolean completed = false;
+        try {
+            this.snippetRepository.streamFileContents(userId, languageIds, this.properties.getFetchSize(), file -> {
+                scan.forward(sink);
+                if (scan.stopped.get()) {
+                    return false;
+                }
+                if (!acquire(inFlight, scan, sink)) {
+                    return false;
+                }
+                scan.fileCount.incrementAndGet();
+                this.pool.execute(() -> {
+                    try {
+                        scan.scan(file);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+                return true;
+            });
+            completed = true;
+        } finally {
+            if (!completed) {
+                // Reading the files or writing a match failed; scans already submitted report nothing more
+                scan.stopped.set(true);
+            }
+            awaitScans(inFlight, permits, scan, completed ? sink : match -> {
+            });
+        }
+        scan.forward(sink);
+
+        return new GrepSummary(
+                scan.fileCount.get(),
+                Math.min(scan.matchCount.get(), cap),
+                scan.truncated.get(),
+                scan.timedOut.get()
+        );
+    }
+
+    /**
+     * Waits for a free scan slot, forwarding matches meanwhile; false once the deadline has passed.
+     */
+    private static boolean acquire(Semaphore inFlight, Scan scan, Consumer<GrepMatch> sink) {
+        while (!inFlight.tryAcquire()) {
+            long remaining = scan.remainingNanos();
+            if (remaining <= 0) {
+                scan.timeOut();
+                return false;
+            }
+            if (!scan.forward(sink, Math.min(remaining, POLL_NANOS))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Waits for every submitted scan to finish, forwarding their matches meanwhile. Scans stop at
+     * the deadline, so the wait is bounded by it plus a grace period.
+     */
+    private static void awaitScans(Semaphore inFlight, int permits, Scan scan, Consumer<GrepMatch> sink) {
+        long waitUntil = scan.deadline + SHUTDOWN_GRACE_NANOS;
+        while (inFlight.availablePermits() < permits) {
+            long remaining = waitUntil - System.nanoTime();
+            if (remaining <= 0) {
+                log.warn("Regex scans still running past the deadline, leaving them to finish");
+                scan.stopped.set(true);
+                return;
+            }
+            if (!scan.forward(sink, Math.min(remaining, POLL_NANOS))) {
+                return;
+            }
+        }
+    }
+
+    private static final class Scan {
+        private final Pattern pattern;
+        private final long deadline;
+        private final long cap;
+        private final BlockingQueue<GrepMatch> matches = new ArrayBlockingQueue<>(MATCH_QUEUE_CAPACITY);
+        private final AtomicLong fileCount = new AtomicLong();
+        private final AtomicLong matchCount = new AtomicLong();
+        private final AtomicBoolean stopped = new AtomicBoolean();
+        private final AtomicBoolean truncated = new AtomicBoolean();
+        private final AtomicBoolean timedOut = new AtomicBoolean();
+
+        private Scan(Pattern pattern, long deadline, long cap) {
+            this.pattern = pattern;
+            this.deadline = deadline;
+            this.cap = cap;
+        }
+
+        private long remainingNanos() {
+            return this.deadline - System.nanoTime();
+        }
+
+        private void timeOut() {
+            this.timedOut.set(true);
+            this.stopped.set(true);
+        }
+
+        // Called on the searching thread only
+        private void forward(Consumer<GrepMatch> sink) {
+            GrepMatch match;
+            while ((match = this.matches.poll()) != null) {
+                sink.accept(match);
+            }
+        }
+
+        /**
+         * Forwards the queued matches, first waiting up to the timeout for one; false if interrupted.
+         */
+        private boolean forward(Consumer<GrepMatch> sink, long timeoutNanos) {
+            try {
+                GrepMatch match = this.matches.poll(timeoutNanos, TimeUnit.NANOSECONDS);
+                if (match != null) {
+                    sink.accept(match);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                this.stopped.set(true);
+                return false;
+            }
+            this.forward(sink);
+            return true;
+        }
+
+        private void scan(File file) {
+            String content = file.getContent();
+            if (content == null || this.stopped.get()) {
+                return;
+            }
+
+            Matcher matcher = this.pattern.matcher(new DeadlineCharSequence(content, this.deadline));
+            long lineNumber = 0;
+            int start = 0;
+            try {
+                while (start < content.length() && !this.stopped.get()) {
+                    int end = content.indexOf('\n', start);
+                    if (end < 0) {
+                        end = content.length();
+                    }
+                    lineNumber++;
+                    // Anchoring bounds make ^ and $ match at the line's ends
+                    if (matcher.region(start, end).find()) {
+                        this.emit(file, lineNumber, content, start, end);
+                    }
+                    start = end + 1;
+                }
+            } catch (DeadlineExceededException e) {
+                this.timeOut();
+            } catch (InterruptedException e) {
+                // The pool is shutting down
+                Thread.currentThread().interrupt();
+                this.stopped.set(true);
+            }
+        }
+
+        private void emit(File file, long lineNumber, String content, int start, int end) throws InterruptedException {
+            long count = this.matchCount.incrementAndGet();
+            if (count > this.cap) {
+                this.truncated.set(true);
+                this.stopped.set(true);
+                return;
+            }
+
+            if (end > start && content.charAt(end - 1) == '\r') {
+                end--;
+            }
+            String line = content.substring(start, Math.min(end, start + MAX_LINE_LENGTH));
+            GrepMatch match = new GrepMatch(file.getSnippetId(), file.getId(), file.getFilename(), lineNumber, line);
+            // Full while the client is slow to read; waiting is bounded by the deadline like the matching
+            if (!this.matches.offer(match, this.remainingNanos(), TimeUnit.NANOSECONDS)) {
+                this.timeOut();
+            }
+        }
+    }
+
+    /**
+     * Lets a runaway pattern (catastrophic backtracking) be aborted: the regex engine reads the
+     * text through charAt, which throws once the deadline has passed.
+     */
+    private static final class DeadlineCharSequence implements CharSequence {
+        private final CharSequence text;
+        private final long deadline;
+        private int reads;
+
+        private DeadlineCharSequence(CharSequence text, long deadline) {
+            this.text = text;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public int length() {
+            return this.text.length();
+        }
+
+        @Override
+        public char charAt(int index) {
+            // Reading the clock on every character would dominate the scan
+            if ((++this.reads & 0xFFF) == 0 && System.nanoTime() > this.deadline) {
+                throw new DeadlineExceededException();
+            }
+            return this.text.charAt(index);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new DeadlineCharSequence(this.text.subSequence(start, end), this.deadline);
+        }
+
+        @Override
+        public String toString() {
+            return this.text.toString();
+        }
+    }
+
+    private static final class DeadlineExceededException extends RuntimeException {
+        private DeadlineExceededException() {
+            super(null, null, false, false);
+        }
+    }
+}
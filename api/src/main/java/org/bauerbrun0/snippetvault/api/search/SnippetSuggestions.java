@@ -0,0 +1,120 @@
+package org.bauerbrun0.snippetvault.api.search;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.bauerbrun0.snippetvault.api.config.CacheProperties;
+import org.bauerbrun0.snippetvault.api.exception.SnippetRepositoryException;
+import org.bauerbrun0.snippetvault.api.model.Suggestion;
+import org.bauerbrun0.snippetvault.api.model.Tag;
+import org.bauerbrun0.snippetvault.api.repository.SnippetRepository;
+import org.bauerbrun0.snippetvault.api.service.TransactionCallbacks;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Typeahead completions of a user's snippet titles, filenames and tag names, answered from a
+ * per-user {@link UserSuggestionIndex}. A user's index is loaded on their first suggestion
+ * request and kept up to date by the writes committed afterwards; idle users are evicted.
+ * Cache statistics are registered as "snippetSuggestions".
+ */
+@Slf4j
+@Component
+public class SnippetSuggestions {
+    private static final int MAX_LIMIT = 50;
+
+    private final SnippetRepository snippetRepository;
+    private final Cache<Long, UserSuggestionIndex> users;
+    // Counts the writes of each user, a load that raced with one is not cached
+    private final Map<Long, Long> generations = new ConcurrentHashMap<>();
+    private final Object generationLock = new Object();
+
+    public SnippetSuggestions(
+            SnippetRepository snippetRepository,
+            CacheProperties cacheProperties,
+            MeterRegistry meterRegistry
+    ) {
+        this.snippetRepository = snippetRepository;
+        CacheProperties.Suggestions properties = cacheProperties.getSuggestions();
+        this.users = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterAccess(properties.getExpireAfterAccess())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, this.users, "snippetSuggestions");
+    }
+
+    public List<Suggestion> suggest(Long userId, String query, int limit) {
+        if (query == null || query.isBlank()) {
+            return List.of();
+        }
+        return this.getIndex(userId).suggest(query, Math.min(Math.max(limit, 1), MAX_LIMIT));
+    }
+
+    /**
+     * Reloads the snippet's title and filenames once the current transaction has committed;
+     * a deleted snippet is dropped.
+     */
+    public void refreshSnippet(Long userId, Long snippetId) {
+        this.afterCommit(userId, index -> {
+            // Loading under the index's monitor applies concurrent reloads in the order they read
+            synchronized (index) {
+                try {
+                    index.replaceSnippets(
+                            List.of(snippetId),
+                            this.snippetRepository.getSuggestionRows(userId, List.of(snippetId))
+                    );
+                } catch (SnippetRepositoryException e) {
+                    log.warn("Failed to refresh the suggestions of user {}, reloading them on next use", userId, e);
+                    this.users.invalidate(userId);
+                }
+            }
+        });
+    }
+
+    public void putTag(Long userId, Tag tag) {
+        this.afterCommit(userId, index -> index.putTag(tag.getId(), tag.getName()));
+    }
+
+    public void removeTag(Long userId, Long tagId) {
+        this.afterCommit(userId, index -> index.removeTag(tagId));
+    }
+
+    private void afterCommit(Long userId, Consumer<UserSuggestionIndex> update) {
+        TransactionCallbacks.runAfterCommit(() -> {
+            UserSuggestionIndex index;
+            synchronized (this.generationLock) {
+                this.generations.merge(userId, 1L, Long::sum);
+                index = this.users.getIfPresent(userId);
+            }
+            // Users without an index read the write when it is loaded
+            if (index != null) {
+                update.accept(index);
+            }
+        });
+    }
+
+    private UserSuggestionIndex getIndex(Long userId) {
+        UserSuggestionIndex index = this.users.getIfPresent(userId);
+        if (index != null) {
+            return index;
+        }
+
+        long generation = this.generations.getOrDefault(userId, 0L);
+        UserSuggestionIndex loaded = new UserSuggestionIndex();
+        loaded.load(this.snippetRepository.getSuggestionRows(userId, null));
+        synchronized (this.generationLock) {
+            // The rows may miss a write committed while loading; the next request loads again
+            if (this.generations.getOrDefault(userId, 0L) == generation) {
+                index = this.users.asMap().putIfAbsent(userId, loaded);
+            }
+        }
+        return index == null ? loaded : index;
+    }
+}
@@ -0,0 +1,59 @@
+package org.bauerbrun0.snippetvault.api.search;
+
+import java.util.Arrays;
+
+/**
+ * Trigrams packed into a long (three 16 bit chars), so posting lists can be keyed without
+ * allocating strings.
+ */
+final class Trigrams {
+    static final long[] NONE = new long[0];
+
+    private Trigrams() {
+    }
+
+    /**
+     * Sorted, distinct trigrams of an already lowercased text.
+     */
+    static long[] of(String text) {
+        if (text == null || text.length() < 3) {
+            return NONE;
+        }
+
+        long[] trigrams = new long[text.length() - 2];
+        for (int i = 0; i < trigrams.length; i++) {
+            trigrams[i] = ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+        }
+        return distinct(trigrams);
+    }
+
+    static long[] union(long[]... parts) {
+        int length = 0;
+        for (long[] part : parts) {
+            length += part.length;
+        }
+
+        long[] all = new long[length];
+        int offset = 0;
+        for (long[] part : parts) {
+            System.arraycopy(part, 0, all, offset, part.length);
+            offset += part.length;
+        }
+        return distinct(all);
+    }
+
+    private static long[] distinct(long[] values) {
+        if (values.length == 0) {
+            return NONE;
+        }
+
+        Arrays.sort(values);
+        int size = 1;
+        for (int i = 1; i < values.length; i++) {
+            if (values[i] != values[size - 1]) {
+                values[size++] = values[i];
+            }
+        }
+        return size == values.length ? values : Arrays.copyOf(values, size);
+    }
+}
@@ -0,0 +1,178 @@
+package org.bauerbrun0.snippetvault.api.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Snippets of one user with an inverted index from trigram to snippet ids. All access goes
+ * through the instance's monitor.
+ */
+final class UserSearchIndex {
+    // Same tiers as snippet_pkg.get_paginated_snippets
+    static final int TITLE = 1;
+    static final int DESCRIPTION = 2;
+    static final int FILENAME = 3;
+    static final int CONTENT = 4;
+
+    private final Map<Long, IndexedSnippet> snippets = new HashMap<>();
+    private final Map<Long, PostingList> postings = new HashMap<>();
+
+    synchronized void put(IndexedSnippet snippet) {
+        this.remove(snippet.getId());
+        this.snippets.put(snippet.getId(), snippet);
+        for (long trigram : snippet.getTrigrams()) {
+            this.postings.computeIfAbsent(trigram, key -> new PostingList()).add(snippet.getId());
+        }
+    }
+
+    synchronized void remove(long snippetId) {
+        IndexedSnippet removed = this.snippets.remove(snippetId);
+        if (removed == null) {
+            return;
+        }
+        for (long trigram : removed.getTrigrams()) {
+            PostingList postingList = this.postings.get(trigram);
+            if (postingList != null) {
+                postingList.remove(snippetId);
+                if (postingList.isEmpty()) {
+                    this.postings.remove(trigram);
+                }
+            }
+        }
+    }
+
+    synchronized void clear() {
+        this.snippets.clear();
+        this.postings.clear();
+    }
+
+    synchronized int size() {
+        return this.snippets.size();
+    }
+
+    synchronized List<Long> getSnippetIdsWithTag(long tagId) {
+        return this.snippets.values().stream()
+                .filter(snippet -> snippet.hasTag(tagId))
+                .map(IndexedSnippet::getId)
+                .toList();
+    }
+
+    /**
+     * Matches of the lowercased query (null for no query); empty tag and language sets don't filter.
+     */
+    synchronized List<Match> search(String query, Set<Long> tagIds, Set<Long> languageIds) {
+        List<Match> matches = new ArrayList<>();
+        for (IndexedSnippet snippet : this.getCandidates(query)) {
+            if (!tagIds.isEmpty() && !hasAnyTag(snippet, tagIds)) {
+                continue;
+            }
+            if (!languageIds.isEmpty() && !hasAnyLanguage(snippet, languageIds)) {
+                continue;
+            }
+
+            int relevance = getRelevance(snippet, query, languageIds);
+            if (relevance > 0) {
+                matches.add(new Match(snippet, relevance));
+            }
+        }
+        return matches;
+    }
+
+    private Collection<IndexedSnippet> getCandidates(String query) {
+        long[] trigrams = Trigrams.of(query);
+        if (trigrams.length == 0) {
+            return this.snippets.values();
+        }
+
+        // Intersect starting from the shortest posting list
+        PostingList shortest = null;
+        List<PostingList> lists = new ArrayList<>(trigrams.length);
+        for (long trigram : trigrams) {
+            PostingList postingList = this.postings.get(trigram);
+            if (postingList == null) {
+                return List.of();
+            }
+            lists.add(postingList);
+            if (shortest == null || postingList.size() < shortest.size()) {
+                shortest = postingList;
+            }
+        }
+
+        List<IndexedSnippet> candidates = new ArrayList<>();
+        for (int i = 0; i < shortest.size(); i++) {
+            long id = shortest.get(i);
+            boolean inAll = true;
+            for (PostingList postingList : lists) {
+                if (postingList != shortest && !postingList.contains(id)) {
+                    inAll = false;
+                    break;
+                }
+            }
+            if (inAll) {
+                candidates.add(this.snippets.get(id));
+            }
+        }
+        return candidates;
+    }
+
+    private static int getRelevance(IndexedSnippet snippet, String query, Set<Long> languageIds) {
+        if (query == null) {
+            return TITLE;
+        }
+        if (contains(snippet.getTitleLower(), query)) {
+            return TITLE;
+        }
+        if (contains(snippet.getDescriptionLower(), query)) {
+            return DESCRIPTION;
+        }
+
+        // Like the SQL, file matches only count for files of the filtered languages
+        boolean contentMatch = false;
+        for (IndexedSnippet.IndexedFile file : snippet.getFiles()) {
+            if (!languageIds.isEmpty() && !languageIds.contains(file.getLanguageId())) {
+                continue;
+            }
+            if (contains(file.getFilenameLower(), query)) {
+                return FILENAME;
+            }
+            contentMatch = contentMatch || contains(file.getContentLower(), query);
+        }
+        return contentMatch ? CONTENT : 0;
+    }
+
+    private static boolean hasAnyTag(IndexedSnippet snippet, Set<Long> tagIds) {
+        for (long tagId : snippet.getTagIds()) {
+            if (tagIds.contains(tagId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasAnyLanguage(IndexedSnippet snippet, Set<Long> languageIds) {
+        for (IndexedSnippet.IndexedFile file : snippet.getFiles()) {
+            if (languageIds.contains(file.getLanguageId())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean contains(String text, String query) {
+        return text != null && text.contains(query);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    static final class Match {
+        private final IndexedSnippet snippet;
+        private final int relevance;
+    }
+}
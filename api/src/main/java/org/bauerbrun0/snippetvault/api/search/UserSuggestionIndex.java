@@ -0,0 +1,177 @@
+package org.bauerbrun0.snippetvault.api.search;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.bauerbrun0.snippetvault.api.model.Suggestion;
+import org.bauerbrun0.snippetvault.api.model.SuggestionRow;
+import org.bauerbrun0.snippetvault.api.model.SuggestionType;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Titles, filenames and tag names of one user, sorted by every word start of their lowercased
+ * text, so a prefix is looked up as a range of the sorted map. Titles and filenames shared by
+ * several snippets are stored once and counted.
+ */
+final class UserSuggestionIndex {
+    private final TreeMap<String, Set<Completion>> byWordStart = new TreeMap<>();
+    private final Map<Completion, Integer> counts = new HashMap<>();
+    private final Map<Long, List<Completion>> bySnippetId = new HashMap<>();
+    private final Map<Long, Completion> byTagId = new HashMap<>();
+
+    synchronized void load(List<SuggestionRow> rows) {
+        Map<Long, List<Completion>> snippets = new HashMap<>();
+        for (SuggestionRow row : rows) {
+            if (row.getText() == null) {
+                continue;
+            }
+            Completion completion = new Completion(row.getType(), row.getText());
+            if (row.getType() == SuggestionType.TAG) {
+                this.putTag(row.getTagId(), completion);
+            } else {
+                snippets.computeIfAbsent(row.getSnippetId(), id -> new ArrayList<>()).add(completion);
+            }
+        }
+        snippets.forEach(this::putSnippet);
+    }
+
+    /**
+     * Replaces the titles and filenames of the given snippets with the rows loaded for them;
+     * snippets without rows were deleted.
+     */
+    synchronized void replaceSnippets(List<Long> snippetIds, List<SuggestionRow> rows) {
+        Map<Long, List<Completion>> snippets = new HashMap<>();
+        for (Long snippetId : snippetIds) {
+            snippets.put(snippetId, new ArrayList<>());
+        }
+        for (SuggestionRow row : rows) {
+            if (row.getText() != null && row.getSnippetId() != null) {
+                snippets.computeIfAbsent(row.getSnippetId(), id -> new ArrayList<>())
+                        .add(new Completion(row.getType(), row.getText()));
+            }
+        }
+        snippets.forEach(this::putSnippet);
+    }
+
+    synchronized void putTag(long tagId, String name) {
+        this.putTag(tagId, new Completion(SuggestionType.TAG, name));
+    }
+
+    synchronized void removeTag(long tagId) {
+        Completion previous = this.byTagId.remove(tagId);
+        if (previous != null) {
+            this.remove(previous);
+        }
+    }
+
+    synchronized List<Suggestion> suggest(String prefix, int limit) {
+        String key = IndexedSnippet.lower(prefix.trim());
+        if (key.isEmpty()) {
+            return List.of();
+        }
+
+        Set<Completion> found = new LinkedHashSet<>();
+        for (Set<Completion> completions : this.byWordStart.subMap(key, key + Character.MAX_VALUE).values()) {
+            found.addAll(completions);
+        }
+
+        // Completions of the whole text first, then the most used and the shortest ones
+        Comparator<Completion> order = Comparator
+                .comparing((Completion completion) -> !completion.getLower().startsWith(key))
+                .thenComparing(completion -> this.counts.get(completion), Comparator.reverseOrder())
+                .thenComparingInt(completion -> completion.getText().length())
+                .thenComparing(Completion::getLower)
+                .thenComparing(Completion::getType);
+        return found.stream()
+                .sorted(order)
+                .limit(limit)
+                .map(completion -> new Suggestion(
+                        completion.getType(),
+                        completion.getText(),
+                        (long) this.counts.get(completion)
+                ))
+                .toList();
+    }
+
+    private void putSnippet(long snippetId, List<Completion> completions) {
+        List<Completion> previous = completions.isEmpty()
+                ? this.bySnippetId.remove(snippetId)
+                : this.bySnippetId.put(snippetId, completions);
+        // Added before removing, so completions kept by the snippet are not re-indexed
+        completions.forEach(this::add);
+        if (previous != null) {
+            previous.forEach(this::remove);
+        }
+    }
+
+    private void putTag(long tagId, Completion completion) {
+        Completion previous = this.byTagId.put(tagId, completion);
+        this.add(completion);
+        if (previous != null) {
+            this.remove(previous);
+        }
+    }
+
+    private void add(Completion completion) {
+        if (this.counts.merge(completion, 1, Integer::sum) > 1) {
+            return;
+        }
+        for (String wordStart : getWordStarts(completion)) {
+            this.byWordStart.computeIfAbsent(wordStart, key -> new HashSet<>()).add(completion);
+        }
+    }
+
+    private void remove(Completion completion) {
+        Integer count = this.counts.computeIfPresent(completion, (key, current) -> current > 1 ? current - 1 : null);
+        if (count != null) {
+            return;
+        }
+        for (String wordStart : getWordStarts(completion)) {
+            Set<Completion> completions = this.byWordStart.get(wordStart);
+            if (completions != null && completions.remove(completion) && completions.isEmpty()) {
+                this.byWordStart.remove(wordStart);
+            }
+        }
+    }
+
+    // "QuickSort-utils.py" is found by "quick", "sort", "utils" and "py"
+    private static Set<String> getWordStarts(Completion completion) {
+        String text = completion.getText();
+        String lower = completion.getLower();
+        Set<String> wordStarts = new LinkedHashSet<>();
+        wordStarts.add(lower);
+        for (int i = 1; i < text.length(); i++) {
+            char previous = text.charAt(i - 1);
+            char current = text.charAt(i);
+            boolean wordStart = Character.isLetterOrDigit(current) && !Character.isLetterOrDigit(previous);
+            boolean camelCase = Character.isUpperCase(current) && Character.isLowerCase(previous);
+            // Lowercasing keeps the length of text without special-cased characters
+            if ((wordStart || camelCase) && lower.length() == text.length()) {
+                wordStarts.add(lower.substring(i));
+            }
+        }
+        return wordStarts;
+    }
+
+    @Getter
+    @EqualsAndHashCode(exclude = "lower")
+    private static final class Completion {
+        private final SuggestionType type;
+        private final String text;
+        private final String lower;
+
+        Completion(SuggestionType type, String text) {
+            this.type = type;
+            this.text = text;
+            this.lower = IndexedSnippet.lower(text);
+        }
+    }
+}
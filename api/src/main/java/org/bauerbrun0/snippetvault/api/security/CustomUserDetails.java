@@ -17,6 +17,16 @@ public class CustomUserDetails implements UserDetails {
         this.authorities = authorities;
     }
 
+    /**
+     * Builds the principal from a self-contained token's claims. The password hash and creation
+     * time are not part of the token, so they are left empty.
+     */
+    public static CustomUserDetails fromToken(VerifiedToken token) {
+        User user = new User(token.getUserId(), token.getUsername(), null, null);
+        List<Role> roles = token.getRoles().stream().map(name -> new Role(null, name)).toList();
+        return new CustomUserDetails(user, roles);
+    }
+
     public Long getId() {
         return this.user.getId();
     }
@@ -5,6 +5,7 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.bauerbrun0.snippetvault.api.config.JwtProperties;
 import org.bauerbrun0.snippetvault.api.service.CustomUserDetailsService;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -19,15 +20,21 @@ public class JwtRequestFilter extends OncePerRequestFilter {
     private final JwtUtil jwtUtil;
     private final CustomUserDetailsService customUserDetailsService;
     private final HandlerExceptionResolver handlerExceptionResolver;
+    private final TokenEpochRegistry tokenEpochRegistry;
+    private final JwtProperties jwtProperties;
 
     public JwtRequestFilter(
             JwtUtil jwtUtil,
             CustomUserDetailsService customUserDetailsService,
-            HandlerExceptionResolver handlerExceptionResolver
+            HandlerExceptionResolver handlerExceptionResolver,
+            TokenEpochRegistry tokenEpochRegistry,
+            JwtProperties jwtProperties
     ) {
         this.jwtUtil = jwtUtil;
         this.customUserDetailsService = customUserDetailsService;
         this.handlerExceptionResolver = handlerExceptionResolver;
+        this.tokenEpochRegistry = tokenEpochRegistry;
+        this.jwtProperties = jwtProperties;
     }
 
     @Override
@@ -36,18 +43,20 @@ public class JwtRequestFilter extends OncePerRequestFilter {
     ) throws ServletException, IOException {
         String authorizationHeader = request.getHeader("Authorization");
 
-        String username = null;
-        String jwt = null;
+        VerifiedToken verifiedToken = null;
 
         try {
             if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-                jwt = authorizationHeader.substring(7);
-                username = this.jwtUtil.extractUsername(jwt);
+                verifiedToken = this.jwtUtil.verifyToken(authorizationHeader.substring(7));
             }
 
-            if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = this.customUserDetailsService.loadUserByUsername(username);
-                if (this.jwtUtil.validateToken(jwt, userDetails)) {
+            if (
+                    verifiedToken != null
+                    && verifiedToken.getUsername() != null
+                    && SecurityContextHolder.getContext().getAuthentication() == null
+            ) {
+                UserDetails userDetails = this.resolveUserDetails(verifiedToken);
+                if (userDetails != null && this.jwtUtil.validateToken(verifiedToken, userDetails)) {
                     UsernamePasswordAuthenticationToken token = new UsernamePasswordAuthenticationToken(
                             userDetails,
                             null,
@@ -63,4 +72,16 @@ public class JwtRequestFilter extends OncePerRequestFilter {
         }
         filterChain.doFilter(request, response);
     }
+
+    private UserDetails resolveUserDetails(VerifiedToken verifiedToken) {
+        if (!this.jwtProperties.isSelfContained() || !verifiedToken.isSelfContained()) {
+            return this.customUserDetailsService.loadUserByUsername(verifiedToken.getUsername());
+        }
+
+        // Tokens issued before the user was updated or deleted carry an outdated epoch
+        if (!this.tokenEpochRegistry.isCurrent(verifiedToken.getUserId(), verifiedToken.getEpoch())) {
+            return null;
+        }
+        return CustomUserDetails.fromToken(verifiedToken);
+    }
 }
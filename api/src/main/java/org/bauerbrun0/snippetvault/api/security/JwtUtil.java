@@ -1,43 +1,57 @@
 package org.bauerbrun0.snippetvault.api.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import org.bauerbrun0.snippetvault.api.config.JwtProperties;
+import org.bauerbrun0.snippetvault.api.model.Role;
+import org.bauerbrun0.snippetvault.api.model.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.function.Function;
 
 @Component
 public class JwtUtil {
+    private static final String USER_ID_CLAIM = "uid";
+    private static final String ROLES_CLAIM = "roles";
+    private static final String EPOCH_CLAIM = "epoch";
+
     private final JwtProperties jwtProperties;
+    private final SecretKey secretKey;
+    private final JwtParser jwtParser;
 
     public JwtUtil(JwtProperties jwtProperties) {
         this.jwtProperties = jwtProperties;
+        this.secretKey = Keys.hmacShaKeyFor(jwtProperties.getSecret().getBytes(StandardCharsets.UTF_8));
+        this.jwtParser = Jwts.parser().verifyWith(this.secretKey).build();
     }
 
-    public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
-    }
-
-    public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    /**
+     * Parses and verifies the token exactly once. Expired tokens are rejected by the parser
+     * with an {@link io.jsonwebtoken.ExpiredJwtException}.
+     */
+    public VerifiedToken verifyToken(String token) {
+        Claims claims = this.jwtParser.parseSignedClaims(token).getPayload();
+        return new VerifiedToken(
+                claims.getSubject(),
+                toInstant(claims.getIssuedAt()),
+                toInstant(claims.getExpiration()),
+                claims.get(USER_ID_CLAIM, Long.class),
+                toRoleNames(claims.get(ROLES_CLAIM)),
+                claims.get(EPOCH_CLAIM, Long.class)
+        );
     }
 
-    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractClaims(token);
-        return claimsResolver.apply(claims);
-    }
-
-    public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+    public boolean validateToken(VerifiedToken token, UserDetails userDetails) {
+        return token.getUsername().equals(userDetails.getUsername()) && !token.isExpired();
     }
 
     public String generateToken(String username) {
@@ -45,31 +59,34 @@ public class JwtUtil {
         return createToken(claims, username);
     }
 
-    private SecretKey getSecretKey() {
-        return Keys.hmacShaKeyFor(this.jwtProperties.getSecret().getBytes(StandardCharsets.UTF_8));
+    public String generateToken(User user, List<Role> roles, long epoch) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(USER_ID_CLAIM, user.getId());
+        claims.put(ROLES_CLAIM, roles.stream().map(Role::getName).toList());
+        claims.put(EPOCH_CLAIM, epoch);
+        return createToken(claims, user.getUsername());
     }
 
-    private Claims extractClaims(String token) {
-        return Jwts
-                .parser()
-                .verifyWith(getSecretKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    private static List<String> toRoleNames(Object claim) {
+        if (!(claim instanceof List<?> list)) {
+            return null;
+        }
+        return list.stream().map(String::valueOf).toList();
     }
 
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    private static Instant toInstant(Date date) {
+        return date == null ? null : date.toInstant();
     }
 
     private String createToken(Map<String, Object> claims, String subject) {
+        long now = System.currentTimeMillis();
         return Jwts
                 .builder()
                 .claims(claims)
                 .subject(subject)
-                .issuedAt(new Date(System.currentTimeMillis()))
-                .expiration(new Date(System.currentTimeMillis() + this.jwtProperties.getExpiration()))
-                .signWith(getSecretKey())
+                .issuedAt(new Date(now))
+                .expiration(new Date(now + this.jwtProperties.getExpiration()))
+                .signWith(this.secretKey)
                 .compact();
     }
 }
@@ -0,0 +1,40 @@
+package org.bauerbrun0.snippetvault.api.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.bauerbrun0.snippetvault.api.config.CacheProperties;
+import org.bauerbrun0.snippetvault.api.service.TransactionCallbacks;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Function;
+
+/**
+ * Bounded, expiring cache of authenticated principals keyed by username.
+ * Hit/miss/eviction counts are published as the "principal" cache metrics.
+ */
+@Component
+public class PrincipalCache {
+    private final Cache<String, CustomUserDetails> cache;
+
+    public PrincipalCache(CacheProperties cacheProperties, MeterRegistry meterRegistry) {
+        CacheProperties.Principal properties = cacheProperties.getPrincipal();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getExpireAfterWrite())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, this.cache, "principal");
+    }
+
+    public CustomUserDetails get(String username, Function<String, CustomUserDetails> loader) {
+        return this.cache.get(username, loader);
+    }
+
+    public void evictUser(Long userId) {
+        TransactionCallbacks.runAfterCommit(() ->
+                this.cache.asMap().values().removeIf(userDetails -> userDetails.getId().equals(userId))
+        );
+    }
+}
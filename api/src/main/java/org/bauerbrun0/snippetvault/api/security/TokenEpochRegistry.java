@@ -0,0 +1,92 @@
+package org.bauerbrun0.snippetvault.api.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.bauerbrun0.snippetvault.api.config.JwtProperties;
+import org.bauerbrun0.snippetvault.api.repository.UserRepository;
+import org.bauerbrun0.snippetvault.api.service.TransactionCallbacks;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory table of the current token epoch (the user row's version) for every user.
+ * Self-contained tokens are only accepted while their epoch claim matches this table, so
+ * updating or deleting a user revokes the tokens issued before the change. Epochs only go up and
+ * a deleted user's is the highest, so every write keeps the larger value and a snapshot read
+ * before a change can never put back the epoch it replaced.
+ */
+@Slf4j
+@Component
+public class TokenEpochRegistry {
+    // Versions start at 1; a user that doesn't exist (anymore) is past every version
+    private static final long NO_USER = Long.MAX_VALUE;
+
+    private final UserRepository userRepository;
+    private final JwtProperties jwtProperties;
+    private final ConcurrentHashMap<Long, Long> epochs = new ConcurrentHashMap<>();
+
+    public TokenEpochRegistry(UserRepository userRepository, JwtProperties jwtProperties) {
+        this.userRepository = userRepository;
+        this.jwtProperties = jwtProperties;
+    }
+
+    public boolean isCurrent(Long userId, Long epoch) {
+        Long current = this.epochs.get(userId);
+        if (current == null) {
+            // Users created on another node since the last refresh
+            current = this.reload(userId);
+        }
+        return current != NO_USER && current.equals(epoch);
+    }
+
+    /**
+     * Reads the user's epoch straight from the database, bypassing the table. Used when
+     * issuing tokens so a stale entry never ends up in a freshly signed token.
+     */
+    public long reload(Long userId) {
+        Long epoch = this.userRepository.getUserEpoch(userId);
+        return this.epochs.merge(userId, epoch == null ? NO_USER : epoch, Math::max);
+    }
+
+    // Reads the committed epoch rather than dropping the entry, which a running refresh could put back
+    public void invalidate(Long userId) {
+        TransactionCallbacks.runAfterCommit(() -> {
+            try {
+                this.reload(userId);
+            } catch (Exception e) {
+                log.error("Failed to reload the token epoch of user {}: {}", userId, e.getMessage(), e);
+                this.epochs.remove(userId);
+            }
+        });
+    }
+
+    /**
+     * Picks up changes made through other API nodes.
+     */
+    @Scheduled(
+            initialDelayString = "${jwt.epoch-refresh-interval:30s}",
+            fixedDelayString = "${jwt.epoch-refresh-interval:30s}"
+    )
+    public void refresh() {
+        if (!this.jwtProperties.isSelfContained()) {
+            return;
+        }
+
+        try {
+            Map<Long, Long> before = new HashMap<>(this.epochs);
+            Map<Long, Long> loaded = this.userRepository.getUserEpochs();
+            loaded.forEach((userId, epoch) -> this.epochs.merge(userId, epoch, Math::max));
+            // Users deleted on another node; entries changed meanwhile are newer than the snapshot
+            before.forEach((userId, epoch) -> {
+                if (!loaded.containsKey(userId)) {
+                    this.epochs.remove(userId, epoch);
+                }
+            });
+        } catch (Exception e) {
+            log.error("Failed to refresh token epochs: {}", e.getMessage(), e);
+        }
+    }
+}
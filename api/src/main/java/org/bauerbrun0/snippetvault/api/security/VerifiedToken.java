@@ -0,0 +1,42 @@
+package org.bauerbrun0.snippetvault.api.security;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Instant;
+import java.util.List;
+
+@Getter
+@ToString
+public final class VerifiedToken {
+    private final String username;
+    private final Instant issuedAt;
+    private final Instant expiration;
+    private final Long userId;
+    private final List<String> roles;
+    private final Long epoch;
+
+    public VerifiedToken(
+            String username,
+            Instant issuedAt,
+            Instant expiration,
+            Long userId,
+            List<String> roles,
+            Long epoch
+    ) {
+        this.username = username;
+        this.issuedAt = issuedAt;
+        this.expiration = expiration;
+        this.userId = userId;
+        this.roles = roles == null ? null : List.copyOf(roles);
+        this.epoch = epoch;
+    }
+
+    public boolean isExpired() {
+        return this.expiration != null && this.expiration.isBefore(Instant.now());
+    }
+
+    public boolean isSelfContained() {
+        return this.userId != null && this.roles != null && this.epoch != null;
+    }
+}
@@ -0,0 +1,42 @@
+package org.bauerbrun0.snippetvault.api.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * One run of a background job working through a backlog in small batches. Every @Scheduled job
+ * shares the single scheduler thread, so a run stops after MAX_RUN_NANOS and leaves the rest of
+ * the backlog to the job's next run.
+ */
+class BatchedRun {
+    static final int BATCH_SIZE = 10;
+    private static final long MAX_RUN_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private long count;
+    private boolean exhausted;
+
+    /**
+     * Runs batches until one handles fewer than BATCH_SIZE items or the run is out of time.
+     *
+     * @param batch handles up to the given number of items, returning how many it handled
+     */
+    void run(IntUnaryOperator batch) {
+        long startedAt = System.nanoTime();
+        int handled;
+        do {
+            handled = batch.applyAsInt(BATCH_SIZE);
+            this.count += handled;
+        } while (handled == BATCH_SIZE && System.nanoTime() - startedAt < MAX_RUN_NANOS);
+        this.exhausted = handled < BATCH_SIZE;
+    }
+
+    // Items handled so far, including the batches before a failed one
+    long getCount() {
+        return this.count;
+    }
+
+    // The last batch came back short, so the backlog was empty
+    boolean isExhausted() {
+        return this.exhausted;
+    }
+}
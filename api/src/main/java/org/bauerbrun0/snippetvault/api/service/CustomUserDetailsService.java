@@ -7,11 +7,13 @@ import org.bauerbrun0.snippetvault.api.model.Role;
 import org.bauerbrun0.snippetvault.api.model.User;
 import org.bauerbrun0.snippetvault.api.repository.UserRepository;
 import org.bauerbrun0.snippetvault.api.security.CustomUserDetails;
+import org.bauerbrun0.snippetvault.api.security.PrincipalCache;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.List;
 
@@ -20,14 +22,30 @@ import java.util.List;
 public class CustomUserDetailsService implements UserDetailsService {
 
     private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
+    private final TransactionTemplate readOnlyTransactionTemplate;
 
-    public CustomUserDetailsService(UserRepository userRepository) {
+    public CustomUserDetailsService(
+            UserRepository userRepository,
+            PrincipalCache principalCache,
+            PlatformTransactionManager transactionManager
+    ) {
         this.userRepository = userRepository;
+        this.principalCache = principalCache;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
     }
 
     @Override
-    @Transactional(readOnly = true)
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        // The transaction is only opened on a cache miss, so cache hits don't borrow a connection
+        return this.principalCache.get(
+                username,
+                key -> this.readOnlyTransactionTemplate.execute(status -> this.loadFromRepository(key))
+        );
+    }
+
+    private CustomUserDetails loadFromRepository(String username) {
         try {
             User user = this.userRepository.getUserByUsername(username);
             List<Role> roles = this.userRepository.getUserRoles(user.getId());
@@ -0,0 +1,90 @@
+package org.bauerbrun0.snippetvault.api.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.bauerbrun0.snippetvault.api.config.FileProperties;
+import org.bauerbrun0.snippetvault.api.exception.SnippetRepositoryException;
+import org.bauerbrun0.snippetvault.api.repository.SnippetRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps a precompressed wire copy of the files' contents when files.precompress-content is set:
+ * the gzip of the content's UTF-8 bytes, sent as is to clients accepting gzip so the raw content
+ * isn't compressed per request. The text stays stored as well, as the database searches it, so
+ * the copy costs tablespace rather than saving it. Contents are streamed from their LOB through
+ * the compressor into a temporary LOB, a small batch per transaction, at the best compression
+ * level since each content is compressed once. Until a content is compressed, it goes out
+ * uncompressed.
+ */
+@Slf4j
+@Component
+public class FileContentPrecompressor {
+    private final SnippetRepository snippetRepository;
+    private final FileProperties fileProperties;
+    private final TransactionTemplate transactionTemplate;
+
+    public FileContentPrecompressor(
+            SnippetRepository snippetRepository,
+            FileProperties fileProperties,
+            PlatformTransactionManager transactionManager
+    ) {
+        this.snippetRepository = snippetRepository;
+        this.fileProperties = fileProperties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(fixedDelayString = "${files.precompression-interval:1m}")
+    public void precompress() {
+        if (!this.fileProperties.isPrecompressContent()) {
+            return;
+        }
+
+        BatchedRun run = new BatchedRun();
+        try {
+            run.run(batchSize -> {
+                Integer stored = this.transactionTemplate.execute(status ->
+                        this.snippetRepository.storeGzipContents(batchSize, this::gzip)
+                );
+                return stored == null ? 0 : stored;
+            });
+        } catch (SnippetRepositoryException e) {
+            log.warn("Failed to precompress file contents after {} blobs: {}", run.getCount(), e.getMessage());
+            return;
+        }
+        if (run.getCount() > 0) {
+            log.debug("Precompressed the contents of {} blobs", run.getCount());
+        }
+    }
+
+    private void gzip(Reader content, OutputStream encoded) throws IOException {
+        int bufferSize = this.fileProperties.getStreamBufferSize();
+        try (Writer writer = new OutputStreamWriter(
+                new BestCompressionGzipOutputStream(encoded, bufferSize),
+                StandardCharsets.UTF_8
+        )) {
+            char[] buffer = new char[bufferSize];
+            int read;
+            while ((read = content.read(buffer)) != -1) {
+                writer.write(buffer, 0, read);
+            }
+        }
+    }
+
+    private static final class BestCompressionGzipOutputStream extends GZIPOutputStream {
+        private BestCompressionGzipOutputStream(OutputStream out, int bufferSize) throws IOException {
+            super(out, bufferSize);
+            this.def.setLevel(Deflater.BEST_COMPRESSION);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package org.bauerbrun0.snippetvault.api.service;
+
+import org.bauerbrun0.snippetvault.api.exception.FileTooLargeException;
+import org.bauerbrun0.snippetvault.api.exception.InvalidFileContentException;
+import org.bauerbrun0.snippetvault.api.model.FileContentDigest;
+import org.bauerbrun0.snippetvault.api.repository.FileContentSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Copies an uploaded body into the file's LOB through buffers of a fixed size, decoding it as
+ * UTF-8 and measuring it on the way. Fails as soon as the body grows past the size limit or holds
+ * bytes that aren't UTF-8, so neither is read to its end first. Content of up to maxCopyLength
+ * characters is also kept as a copy, which search matches until the text index has it.
+ */
+class FileContentUpload implements FileContentSource {
+    private final InputStream body;
+    private final long maxSize;
+    private final int bufferSize;
+    private final int maxCopyLength;
+    // Null once the content is longer than maxCopyLength
+    private StringBuilder copy;
+
+    FileContentUpload(InputStream body, long maxSize, int bufferSize, int maxCopyLength) {
+        this.body = body;
+        this.maxSize = maxSize;
+        this.bufferSize = bufferSize;
+        this.maxCopyLength = maxCopyLength;
+    }
+
+    /**
+     * @return the content written, or null when it was longer than maxCopyLength
+     */
+    String getCopy() {
+        return this.copy == null ? null : this.copy.toString();
+    }
+
+    @Override
+    public FileContentDigest writeTo(Writer content) throws IOException {
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+        FileContentDigest digest = new FileContentDigest();
+        ByteBuffer bytes = ByteBuffer.allocate(this.bufferSize);
+        CharBuffer chars = CharBuffer.allocate(this.bufferSize);
+        this.copy = new StringBuilder();
+
+        boolean endOfInput = false;
+        while (!endOfInput) {
+            // Holds at most the start of a character split by the previous read
+            int read = this.body.read(bytes.array(), bytes.position(), bytes.remaining());
+            if (read == -1) {
+                endOfInput = true;
+            } else {
+                if (digest.getSize() + read > this.maxSize) {
+                    throw new FileTooLargeException();
+                }
+                digest.update(bytes.array(), bytes.position(), read);
+                bytes.position(bytes.position() + read);
+            }
+            bytes.flip();
+            CoderResult result;
+            do {
+                result = decoder.decode(bytes, chars, endOfInput);
+                if (result.isError()) {
+                    throw new InvalidFileContentException();
+                }
+                this.write(chars, content);
+            } while (result.isOverflow());
+            bytes.compact();
+        }
+        decoder.flush(chars);
+        this.write(chars, content);
+
+        if (digest.getSize() == 0) {
+            throw new InvalidFileContentException();
+        }
+        return digest;
+    }
+
+    private void write(CharBuffer chars, Writer content) throws IOException {
+        chars.flip();
+        content.write(chars.array(), 0, chars.limit());
+        if (this.copy != null) {
+            if (this.copy.length() + chars.limit() > this.maxCopyLength) {
+                this.copy = null;
+            } else {
+                this.copy.append(chars.array(), 0, chars.limit());
+            }
+        }
+        chars.clear();
+    }
+}
@@ -0,0 +1,62 @@
+package org.bauerbrun0.snippetvault.api.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.bauerbrun0.snippetvault.api.config.FileProperties;
+import org.bauerbrun0.snippetvault.api.exception.SnippetRepositoryException;
+import org.bauerbrun0.snippetvault.api.model.FileContentDigest;
+import org.bauerbrun0.snippetvault.api.repository.SnippetRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hashes the file contents stored before content hashes were known. Oracle XE 11g can't
+ * compute SHA-256, so the migrations leave the digest of those blobs (and of their files) empty
+ * and the API fills it in small batches in the background, each content streamed from its LOB
+ * through the digest. Until a blob is hashed, new content equal to it is stored again instead of being shared.
+ */
+@Slf4j
+@Component
+public class FileHashBackfill {
+    private final SnippetRepository snippetRepository;
+    private final FileProperties fileProperties;
+    // New content is always stored with its digest, so once none is left the job is done
+    private volatile boolean done;
+
+    public FileHashBackfill(SnippetRepository snippetRepository, FileProperties fileProperties) {
+        this.snippetRepository = snippetRepository;
+        this.fileProperties = fileProperties;
+    }
+
+    @Scheduled(initialDelay = 1, fixedDelay = 10, timeUnit = TimeUnit.SECONDS)
+    public void backfill() {
+        if (this.done) {
+            return;
+        }
+
+        BatchedRun run = new BatchedRun();
+        try {
+            run.run(batchSize -> {
+                Map<Long, String> hashes = new LinkedHashMap<>();
+                this.snippetRepository.streamBlobsWithoutHash(batchSize, (blobId, content) ->
+                        hashes.put(
+                                blobId,
+                                FileContentDigest.of(content, this.fileProperties.getStreamBufferSize()).getHash()
+                        )
+                );
+                hashes.forEach(this.snippetRepository::setContentHash);
+                return hashes.size();
+            });
+            this.done = run.isExhausted();
+        } catch (SnippetRepositoryException e) {
+            log.error("Failed to hash file contents after {} blobs, retrying on the next run", run.getCount(), e);
+            return;
+        }
+        if (run.getCount() > 0) {
+            log.info("Hashed the contents of {} blobs", run.getCount());
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package org.bauerbrun0.snippetvault.api.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.bauerbrun0.snippetvault.api.config.SearchProperties;
+import org.bauerbrun0.snippetvault.api.model.File;
+import org.bauerbrun0.snippetvault.api.model.RecentContentMatches;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Content of the files written within search.recent-writes-window, which may still be
+ * missing from the Oracle Text index (synced once a minute by JOB_SYNC_IDX_FILE_CONTENT).
+ * Searches match these files here, so a saved file is found right away. Only writes that
+ * changed the content are recorded, as only those can leave the index behind.
+ * <p>
+ * The match approximates CONTAINS with the default lexer: the content and the query are
+ * split into lowercase letter and digit tokens, and the query's tokens have to appear next
+ * to each other as whole words, whatever whitespace or punctuation separates them. The
+ * stoplist and the query operators aren't applied.
+ */
+@Component
+public class RecentFileWrites {
+    private final Map<Long, Map<Long, RecentFile>> filesByUserId = new ConcurrentHashMap<>();
+    private final SearchProperties searchProperties;
+
+    public RecentFileWrites(SearchProperties searchProperties) {
+        this.searchProperties = searchProperties;
+    }
+
+    public void record(Long userId, File file) {
+        this.record(userId, file, file.getContent());
+    }
+
+    /**
+     * Records a write of the given content, which may be null when it wasn't kept: the file's stale
+     * index entry is still left out of the search, but the file only matches once the index is synced.
+     */
+    public void record(Long userId, File file, String content) {
+        RecentFile recentFile = new RecentFile(
+                file.getId(),
+                file.getLanguageId(),
+                content == null ? null : tokens(content),
+                System.nanoTime()
+        );
+        TransactionCallbacks.runAfterCommit(() ->
+                this.filesByUserId.computeIfAbsent(userId, id -> new ConcurrentHashMap<>()).put(file.getId(), recentFile)
+        );
+    }
+
+    public RecentContentMatches match(Long userId, String searchQuery, List<Long> languageIds) {
+        Map<Long, RecentFile> files = this.filesByUserId.get(userId);
+        if (files == null || searchQuery == null || searchQuery.isBlank()) {
+            return RecentContentMatches.NONE;
+        }
+
+        String query = tokens(searchQuery);
+        long writtenAfter = System.nanoTime() - this.searchProperties.getRecentWritesWindow().toNanos();
+        List<Long> written = new ArrayList<>();
+        List<Long> matching = new ArrayList<>();
+        for (RecentFile file : files.values()) {
+            if (file.getWrittenAtNanos() - writtenAfter < 0) {
+                continue;
+            }
+            written.add(file.getId());
+            boolean languageMatches = languageIds == null
+                    || languageIds.isEmpty()
+                    || languageIds.contains(file.getLanguageId());
+            if (languageMatches
+                    && !query.isBlank()
+                    && file.getContent() != null
+                    && file.getContent().contains(query)) {
+                matching.add(file.getId());
+            }
+        }
+        return written.isEmpty() ? RecentContentMatches.NONE : new RecentContentMatches(written, matching);
+    }
+
+    // The text's tokens, each followed and preceded by a single space, so a contains() matches whole tokens
+    static String tokens(String text) {
+        StringBuilder tokens = new StringBuilder(text.length() + 2).append(' ');
+        text.codePoints().forEach(codePoint -> {
+            if (Character.isLetterOrDigit(codePoint)) {
+                tokens.appendCodePoint(Character.toLowerCase(codePoint));
+            } else if (tokens.charAt(tokens.length() - 1) != ' ') {
+                tokens.append(' ');
+            }
+        });
+        if (tokens.charAt(tokens.length() - 1) != ' ') {
+            tokens.append(' ');
+        }
+        return tokens.toString();
+    }
+
+    @Scheduled(
+            initialDelayString = "${search.recent-writes-window:2m}",
+            fixedDelayString = "${search.recent-writes-window:2m}"
+    )
+    public void prune() {
+        long writtenAfter = System.nanoTime() - this.searchProperties.getRecentWritesWindow().toNanos();
+        this.filesByUserId.values().forEach(files ->
+                files.values().removeIf(file -> file.getWrittenAtNanos() - writtenAfter < 0)
+        );
+        this.filesByUserId.values().removeIf(Map::isEmpty);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class RecentFile {
+        private final Long id;
+        private final Long languageId;
+        // The content's tokens, null when the content wasn't kept
+        private final String content;
+        private final long writtenAtNanos;
+    }
+}
@@ -0,0 +1,122 @@
+package org.bauerbrun0.snippetvault.api.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Memoizes rows loaded while serving a single HTTP request, so the ownership checks and the
+ * service calls behind them fetch a given snippet or tag at most once. Outside a request
+ * (jobs, startup) every call goes straight to the loader.
+ * Each avoided load increments "snippetvault.request.loads.saved", tagged by entity and endpoint.
+ */
+@Component
+public class RequestLoadingContext {
+    private static final String ATTRIBUTE = RequestLoadingContext.class.getName() + ".LOADED";
+    private static final String SNIPPET = "snippet";
+    private static final String TAG = "tag";
+
+    private final MeterRegistry meterRegistry;
+
+    public RequestLoadingContext(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public <T> T getSnippet(Long id, Function<Long, T> loader) {
+        return this.load(SNIPPET, id, loader);
+    }
+
+    public <T> T getTag(Long id, Function<Long, T> loader) {
+        return this.load(TAG, id, loader);
+    }
+
+    public void putSnippet(Long id, Object snippet) {
+        this.put(SNIPPET, id, snippet);
+    }
+
+    public void putTag(Long id, Object tag) {
+        this.put(TAG, id, tag);
+    }
+
+    public void evictSnippet(Long id) {
+        this.evict(SNIPPET, id);
+    }
+
+    public void evictTag(Long id) {
+        this.evict(TAG, id);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T load(String entity, Long id, Function<Long, T> loader) {
+        Map<String, Object> loaded = this.getLoaded(true);
+        if (loaded == null) {
+            return loader.apply(id);
+        }
+
+        String key = entity + ":" + id;
+        if (loaded.containsKey(key)) {
+            this.meterRegistry.counter(
+                    "snippetvault.request.loads.saved",
+                    "entity", entity,
+                    "endpoint", this.getEndpoint()
+            ).increment();
+            return (T) loaded.get(key);
+        }
+
+        // Failed loads (not found, repository errors) propagate and are not memoized
+        T value = loader.apply(id);
+        loaded.put(key, value);
+        return value;
+    }
+
+    private void put(String entity, Long id, Object value) {
+        Map<String, Object> loaded = this.getLoaded(true);
+        if (loaded != null) {
+            loaded.put(entity + ":" + id, value);
+        }
+    }
+
+    private void evict(String entity, Long id) {
+        Map<String, Object> loaded = this.getLoaded(false);
+        if (loaded != null) {
+            loaded.remove(entity + ":" + id);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> getLoaded(boolean create) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+
+        Map<String, Object> loaded =
+                (Map<String, Object>) attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (loaded == null && create) {
+            loaded = new HashMap<>();
+            attributes.setAttribute(ATTRIBUTE, loaded, RequestAttributes.SCOPE_REQUEST);
+        }
+        return loaded;
+    }
+
+    private String getEndpoint() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        Object pattern = attributes == null
+                ? null
+                : attributes.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (pattern == null) {
+            return "UNKNOWN";
+        }
+        if (attributes instanceof ServletRequestAttributes servletAttributes) {
+            return servletAttributes.getRequest().getMethod() + " " + pattern;
+        }
+        return pattern.toString();
+    }
+}
@@ -0,0 +1,157 @@
+package org.bauerbrun0.snippetvault.api.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.bauerbrun0.snippetvault.api.config.CacheProperties;
+import org.bauerbrun0.snippetvault.api.model.SnippetSearchResult;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Caches search results per user. Every key carries the user's generation, which is bumped
+ * after each committed mutation, so stale entries are never read again and simply age out.
+ * Results loaded shortly after a mutation only live until the Oracle Text index has been
+ * synced, since file content matches may lag behind until then.
+ * Hit/miss/eviction counts are published as the "snippetSearch" cache metrics.
+ */
+@Component
+public class SnippetSearchCache {
+    private final Cache<Key, Entry> cache;
+    private final Map<Long, Generation> generations = new ConcurrentHashMap<>();
+    private final long expireAfterWriteNanos;
+    private final long contentSyncWindowNanos;
+
+    public SnippetSearchCache(CacheProperties cacheProperties, MeterRegistry meterRegistry) {
+        CacheProperties.Search properties = cacheProperties.getSearch();
+        this.expireAfterWriteNanos = properties.getExpireAfterWrite().toNanos();
+        this.contentSyncWindowNanos = properties.getContentSyncWindow().toNanos();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfter(new Expiry<Key, Entry>() {
+                    @Override
+                    public long expireAfterCreate(Key key, Entry entry, long currentTime) {
+                        return entry.getTimeToLiveNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Key key, Entry entry, long currentTime, long currentDuration) {
+                        return entry.getTimeToLiveNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(Key key, Entry entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, this.cache, "snippetSearch");
+    }
+
+    public SnippetSearchResult get(
+            Long userId,
+            String searchQuery,
+            List<Long> tagIds,
+            List<Long> languageIds,
+            Long pageNumber,
+            Long pageSize,
+            String cursor,
+            boolean includeTotalCount,
+            boolean includeFacets,
+            Supplier<SnippetSearchResult> loader
+    ) {
+        // Read before loading: a mutation committing meanwhile moves the user to a new generation
+        Generation generation = this.generations.getOrDefault(userId, Generation.INITIAL);
+        Key key = new Key(
+                userId,
+                generation.getValue(),
+                normalizeQuery(searchQuery),
+                normalizeIds(tagIds),
+                normalizeIds(languageIds),
+                cursor == null || cursor.isBlank() ? pageNumber : null,
+                pageSize,
+                cursor == null || cursor.isBlank() ? null : cursor,
+                includeTotalCount,
+                includeFacets
+        );
+        return this.cache.get(key, k -> new Entry(loader.get(), this.timeToLive(generation))).getResult();
+    }
+
+    public void bump(Long userId) {
+        TransactionCallbacks.runAfterCommit(() -> this.generations.compute(
+                userId,
+                (id, current) -> new Generation(
+                        (current == null ? Generation.INITIAL : current).getValue() + 1,
+                        System.nanoTime()
+                )
+        ));
+    }
+
+    private long timeToLive(Generation generation) {
+        if (generation == Generation.INITIAL) {
+            return this.expireAfterWriteNanos;
+        }
+        long sinceMutation = System.nanoTime() - generation.getBumpedAtNanos();
+        long untilSynced = this.contentSyncWindowNanos - sinceMutation;
+        return untilSynced > 0 ? Math.min(untilSynced, this.expireAfterWriteNanos) : this.expireAfterWriteNanos;
+    }
+
+    private static String normalizeQuery(String searchQuery) {
+        // The search compares case-insensitively and trims the query
+        if (searchQuery == null || searchQuery.isBlank()) {
+            return null;
+        }
+        return searchQuery.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static List<Long> normalizeIds(List<Long> ids) {
+        // Id filters are sets, an empty or missing filter matches everything
+        if (ids == null) {
+            return List.of();
+        }
+        return ids.stream().distinct().sorted(Comparator.nullsFirst(Comparator.naturalOrder())).toList();
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class Generation {
+        private static final Generation INITIAL = new Generation(0, 0);
+
+        private final long value;
+        private final long bumpedAtNanos;
+    }
+
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static class Key {
+        private final Long userId;
+        private final long generation;
+        private final String searchQuery;
+        private final List<Long> tagIds;
+        private final List<Long> languageIds;
+        private final Long pageNumber;
+        private final Long pageSize;
+        private final String cursor;
+        private final boolean includeTotalCount;
+        private final boolean includeFacets;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class Entry {
+        private final SnippetSearchResult result;
+        private final long timeToLiveNanos;
+    }
+}
@@ -1,36 +1,83 @@
 package org.bauerbrun0.snippetvault.api.service;
 
+import org.bauerbrun0.snippetvault.api.config.FileProperties;
+import org.bauerbrun0.snippetvault.api.model.DetailedSnippet;
 import org.bauerbrun0.snippetvault.api.model.File;
+import org.bauerbrun0.snippetvault.api.model.FileContentDigest;
+import org.bauerbrun0.snippetvault.api.model.FileUpdateResult;
+import org.bauerbrun0.snippetvault.api.model.GrepMatch;
+import org.bauerbrun0.snippetvault.api.model.GrepSummary;
+import org.bauerbrun0.snippetvault.api.model.SearchCursor;
 import org.bauerbrun0.snippetvault.api.model.Snippet;
 import org.bauerbrun0.snippetvault.api.model.SnippetSearchResult;
+import org.bauerbrun0.snippetvault.api.model.Suggestion;
 import org.bauerbrun0.snippetvault.api.model.Tag;
+import org.bauerbrun0.snippetvault.api.repository.FileContentHandler;
 import org.bauerbrun0.snippetvault.api.repository.SnippetRepository;
+import org.bauerbrun0.snippetvault.api.search.InMemorySnippetSearch;
+import org.bauerbrun0.snippetvault.api.search.SnippetGrep;
+import org.bauerbrun0.snippetvault.api.search.SnippetSuggestions;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.InputStream;
 import java.util.List;
+import java.util.function.Consumer;
 
 @Service
 public class SnippetService {
     private final SnippetRepository snippetRepository;
+    private final RequestLoadingContext requestLoadingContext;
+    private final SnippetSearchCache snippetSearchCache;
+    private final InMemorySnippetSearch inMemorySnippetSearch;
+    private final RecentFileWrites recentFileWrites;
+    private final SnippetSuggestions snippetSuggestions;
+    private final SnippetGrep snippetGrep;
+    private final FileProperties fileProperties;
 
-    public SnippetService(SnippetRepository snippetRepository) {
+    public SnippetService(
+            SnippetRepository snippetRepository,
+            RequestLoadingContext requestLoadingContext,
+            SnippetSearchCache snippetSearchCache,
+            InMemorySnippetSearch inMemorySnippetSearch,
+            RecentFileWrites recentFileWrites,
+            SnippetSuggestions snippetSuggestions,
+            SnippetGrep snippetGrep,
+            FileProperties fileProperties
+    ) {
         this.snippetRepository = snippetRepository;
+        this.requestLoadingContext = requestLoadingContext;
+        this.snippetSearchCache = snippetSearchCache;
+        this.inMemorySnippetSearch = inMemorySnippetSearch;
+        this.recentFileWrites = recentFileWrites;
+        this.snippetSuggestions = snippetSuggestions;
+        this.snippetGrep = snippetGrep;
+        this.fileProperties = fileProperties;
     }
 
     @Transactional
     public Snippet create(Long userId, String title, String description) {
-        return this.snippetRepository.createSnippet(userId, title, description);
+        Snippet snippet = this.snippetRepository.createSnippet(userId, title, description);
+        this.inMemorySnippetSearch.refreshSnippet(userId, snippet.getId());
+        this.snippetSuggestions.refreshSnippet(userId, snippet.getId());
+        this.snippetSearchCache.bump(userId);
+        return snippet;
     }
 
     @Transactional
-    public void addTagToSnippet(Long snippetId, Long tagId) {
-        this.snippetRepository.addTagToSnippet(snippetId, tagId);
+    public void addTagToSnippet(Long snippetId, Long tagId, Long userId) {
+        this.snippetRepository.addTagToSnippet(snippetId, tagId, userId);
+        this.requestLoadingContext.evictSnippet(snippetId);
+        this.inMemorySnippetSearch.refreshSnippet(userId, snippetId);
+        this.snippetSearchCache.bump(userId);
     }
 
     @Transactional
-    public void removeTagFromSnippet(Long snippetId, Long tagId) {
-        this.snippetRepository.removeTagFromSnippet(snippetId, tagId);
+    public void removeTagFromSnippet(Long snippetId, Long tagId, Long userId) {
+        this.snippetRepository.removeTagFromSnippet(snippetId, tagId, userId);
+        this.requestLoadingContext.evictSnippet(snippetId);
+        this.inMemorySnippetSearch.refreshSnippet(userId, snippetId);
+        this.snippetSearchCache.bump(userId);
     }
 
     @Transactional
@@ -40,45 +87,217 @@ public class SnippetService {
 
     @Transactional(readOnly = true)
     public SnippetSearchResult getPaginatedSnippets(
-            Long userId, String searchQuery, List<Long> tagIds, List<Long> languageIds, Long pageNumber, Long pageSize
+            Long userId,
+            String searchQuery,
+            List<Long> tagIds,
+            List<Long> languageIds,
+            Long pageNumber,
+            Long pageSize,
+            String cursor,
+            Boolean includeTotalCount,
+            Boolean includeFacets
     ) {
-        return this.snippetRepository.getPaginatedSnippets(
-                userId, searchQuery, tagIds, languageIds, pageNumber, pageSize
+        boolean withTotalCount = includeTotalCount == null || includeTotalCount;
+        boolean withFacets = includeFacets != null && includeFacets;
+        return this.snippetSearchCache.get(
+                userId,
+                searchQuery,
+                tagIds,
+                languageIds,
+                pageNumber,
+                pageSize,
+                cursor,
+                withTotalCount,
+                withFacets,
+                () -> this.searchSnippets(
+                        userId, searchQuery, tagIds, languageIds, pageNumber, pageSize, cursor, withTotalCount, withFacets
+                )
+        );
+    }
+
+    private SnippetSearchResult searchSnippets(
+            Long userId,
+            String searchQuery,
+            List<Long> tagIds,
+            List<Long> languageIds,
+            Long pageNumber,
+            Long pageSize,
+            String cursor,
+            boolean includeTotalCount,
+            boolean includeFacets
+    ) {
+        SearchCursor after = cursor == null || cursor.isBlank() ? null : SearchCursor.decode(cursor);
+        SnippetSearchResult result = this.inMemorySnippetSearch
+                .search(
+                        userId, searchQuery, tagIds, languageIds, pageNumber, pageSize, after, includeTotalCount, includeFacets
+                )
+                .orElseGet(() -> this.snippetRepository.getPaginatedSnippets(
+                        userId,
+                        searchQuery,
+                        tagIds,
+                        languageIds,
+                        pageNumber,
+                        pageSize,
+                        after,
+                        includeTotalCount,
+                        includeFacets,
+                        this.recentFileWrites.match(userId, searchQuery, languageIds)
+                ));
+
+        List<DetailedSnippet> snippets = result.getSnippets();
+        if (result.getHasMore() && !snippets.isEmpty()) {
+            result.setNextCursor(SearchCursor.after(snippets.get(snippets.size() - 1)).encode());
+        }
+        return result;
+    }
+
+    @Transactional(readOnly = true)
+    public List<Suggestion> suggest(Long userId, String query, int limit) {
+        return this.snippetSuggestions.suggest(userId, query, limit);
+    }
+
+    // Not transactional: the files are streamed over a connection of their own for the whole scan
+    public GrepSummary grep(
+            Long userId,
+            String pattern,
+            Boolean ignoreCase,
+            List<Long> languageIds,
+            Integer maxMatches,
+            Consumer<GrepMatch> sink
+    ) {
+        return this.snippetGrep.grep(
+                userId, pattern, ignoreCase != null && ignoreCase, languageIds, maxMatches, sink
         );
     }
 
     @Transactional(readOnly = true)
     public Snippet getSnippet(Long snippetId) {
-        return this.snippetRepository.getSnippet(snippetId);
+        return this.requestLoadingContext.getSnippet(snippetId, this.snippetRepository::getSnippet);
+    }
+
+    @Transactional
+    public Snippet deleteSnippet(Long snippetId, Long userId) {
+        Snippet snippet = this.snippetRepository.deleteSnippet(snippetId, userId);
+        this.requestLoadingContext.evictSnippet(snippetId);
+        this.inMemorySnippetSearch.refreshSnippet(userId, snippetId);
+        this.snippetSuggestions.refreshSnippet(userId, snippetId);
+        this.snippetSearchCache.bump(userId);
+        return snippet;
     }
 
     @Transactional
-    public Snippet deleteSnippet(Long snippetId) {
-        return this.snippetRepository.deleteSnippet(snippetId);
+    public Snippet updateSnippet(Long snippetId, Long userId, String title, String description) {
+        Snippet snippet = this.snippetRepository.updateSnippet(snippetId, userId, title, description);
+        this.requestLoadingContext.putSnippet(snippetId, snippet);
+        this.inMemorySnippetSearch.refreshSnippet(userId, snippetId);
+        this.snippetSuggestions.refreshSnippet(userId, snippetId);
+        this.snippetSearchCache.bump(userId);
+        return snippet;
     }
 
     @Transactional
-    public Snippet updateSnippet(Long snippetId, String title, String description) {
-        return this.snippetRepository.updateSnippet(snippetId, title, description);
+    public File createFile(Long snippetId, Long userId, String filename, String content, Long languageId) {
+        File file = this.snippetRepository.createFile(
+                snippetId,
+                userId,
+                filename,
+                content,
+                languageId,
+                FileContentDigest.of(content)
+        );
+        this.requestLoadingContext.evictSnippet(snippetId);
+        this.recentFileWrites.record(userId, file);
+        this.inMemorySnippetSearch.refreshSnippet(userId, snippetId);
+        this.snippetSuggestions.refreshSnippet(userId, snippetId);
+        this.snippetSearchCache.bump(userId);
+        return file;
+    }
+
+    @Transactional
+    public File uploadFile(Long snippetId, Long userId, String filename, Long languageId, InputStream content) {
+        FileContentUpload upload = this.upload(content);
+        File file = this.snippetRepository.uploadFile(snippetId, userId, filename, languageId, upload);
+        this.recentFileWrites.record(userId, file, upload.getCopy());
+        this.afterUpload(snippetId, userId);
+        return file;
     }
 
     @Transactional
-    public File createFile(Long snippetId, String filename, String content, Long languageId) {
-        return this.snippetRepository.createFile(snippetId, filename, content, languageId);
+    public File uploadFileContent(Long fileId, Long snippetId, Long userId, InputStream content) {
+        FileContentUpload upload = this.upload(content);
+        FileUpdateResult result = this.snippetRepository.uploadFileContent(fileId, snippetId, userId, upload);
+        File file = result.getFile();
+        if (result.getContentChanged()) {
+            this.recentFileWrites.record(userId, file, upload.getCopy());
+        }
+        this.afterUpload(snippetId, userId);
+        return file;
+    }
+
+    private FileContentUpload upload(InputStream content) {
+        return new FileContentUpload(
+                content,
+                this.fileProperties.getMaxUploadSize().toBytes(),
+                this.fileProperties.getStreamBufferSize(),
+                this.fileProperties.getMaxUploadCopyLength()
+        );
+    }
+
+    private void afterUpload(Long snippetId, Long userId) {
+        this.requestLoadingContext.evictSnippet(snippetId);
+        this.inMemorySnippetSearch.refreshSnippet(userId, snippetId);
+        this.snippetSuggestions.refreshSnippet(userId, snippetId);
+        this.snippetSearchCache.bump(userId);
     }
 
     @Transactional(readOnly = true)
-    public List<File> getFiles(Long snippetId) {
-        return this.snippetRepository.getFiles(snippetId);
+    public List<File> getFiles(Long snippetId, boolean includeContent) {
+        return this.snippetRepository.getFiles(snippetId, includeContent);
+    }
+
+    // The handler reads the content from the open cursor, so the response is written in the transaction
+    @Transactional(readOnly = true)
+    public void streamFileContent(Long fileId, Long snippetId, FileContentHandler handler) {
+        this.snippetRepository.streamFileContent(
+                fileId,
+                snippetId,
+                this.fileProperties.getLobPrefetchSize(),
+                handler
+        );
     }
 
     @Transactional
-    public File updateFile(Long fileId, Long snippetId, String filename, String content, Long languageId) {
-        return this.snippetRepository.updateFile(fileId, snippetId, filename, content, languageId);
+    public File updateFile(
+            Long fileId, Long snippetId, Long userId, String filename, String content, Long languageId
+    ) {
+        FileUpdateResult result = this.snippetRepository.updateFile(
+                fileId,
+                snippetId,
+                userId,
+                filename,
+                content,
+                languageId,
+                content == null ? null : FileContentDigest.of(content)
+        );
+        File file = result.getFile();
+        this.requestLoadingContext.evictSnippet(snippetId);
+        // A rename or a language change leaves the indexed content as it was
+        if (result.getContentChanged()) {
+            this.recentFileWrites.record(userId, file);
+        }
+        this.inMemorySnippetSearch.refreshSnippet(userId, snippetId);
+        this.snippetSuggestions.refreshSnippet(userId, snippetId);
+        this.snippetSearchCache.bump(userId);
+        return file;
     }
 
     @Transactional
-    public File deleteFile(Long fileId, Long snippetId) {
-        return this.snippetRepository.deleteFile(fileId, snippetId);
+    public File deleteFile(Long fileId, Long snippetId, Long userId) {
+        File file = this.snippetRepository.deleteFile(fileId, snippetId, userId);
+        this.requestLoadingContext.evictSnippet(snippetId);
+        this.inMemorySnippetSearch.refreshSnippet(userId, snippetId);
+        this.snippetSuggestions.refreshSnippet(userId, snippetId);
+        this.snippetSearchCache.bump(userId);
+        return file;
     }
 }
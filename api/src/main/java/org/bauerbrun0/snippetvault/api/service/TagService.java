@@ -2,6 +2,8 @@ package org.bauerbrun0.snippetvault.api.service;
 
 import org.bauerbrun0.snippetvault.api.model.Tag;
 import org.bauerbrun0.snippetvault.api.repository.TagRepository;
+import org.bauerbrun0.snippetvault.api.search.InMemorySnippetSearch;
+import org.bauerbrun0.snippetvault.api.search.SnippetSuggestions;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -10,29 +12,55 @@ import java.util.List;
 @Service
 public class TagService {
     private final TagRepository tagRepository;
+    private final RequestLoadingContext requestLoadingContext;
+    private final SnippetSearchCache snippetSearchCache;
+    private final InMemorySnippetSearch inMemorySnippetSearch;
+    private final SnippetSuggestions snippetSuggestions;
 
-    public TagService(TagRepository tagRepository) {
+    public TagService(
+            TagRepository tagRepository,
+            RequestLoadingContext requestLoadingContext,
+            SnippetSearchCache snippetSearchCache,
+            InMemorySnippetSearch inMemorySnippetSearch,
+            SnippetSuggestions snippetSuggestions
+    ) {
         this.tagRepository = tagRepository;
+        this.requestLoadingContext = requestLoadingContext;
+        this.snippetSearchCache = snippetSearchCache;
+        this.inMemorySnippetSearch = inMemorySnippetSearch;
+        this.snippetSuggestions = snippetSuggestions;
     }
 
     @Transactional
     public Tag createTag(Long userId, String name, String color) {
-        return this.tagRepository.createTag(userId, name, color);
+        Tag tag = this.tagRepository.createTag(userId, name, color);
+        this.snippetSuggestions.putTag(userId, tag);
+        this.snippetSearchCache.bump(userId);
+        return tag;
     }
 
     @Transactional
-    public Tag updateTag(Long id, String name, String color) {
-        return this.tagRepository.updateTag(id, name, color);
+    public Tag updateTag(Long id, Long userId, String name, String color) {
+        Tag tag = this.tagRepository.updateTag(id, userId, name, color);
+        this.requestLoadingContext.putTag(id, tag);
+        this.snippetSuggestions.putTag(userId, tag);
+        this.snippetSearchCache.bump(userId);
+        return tag;
     }
 
     @Transactional
-    public Tag deleteTag(Long id) {
-        return this.tagRepository.deleteTag(id);
+    public Tag deleteTag(Long id, Long userId) {
+        Tag tag = this.tagRepository.deleteTag(id, userId);
+        this.requestLoadingContext.evictTag(id);
+        this.inMemorySnippetSearch.refreshTag(userId, id);
+        this.snippetSuggestions.removeTag(userId, id);
+        this.snippetSearchCache.bump(userId);
+        return tag;
     }
 
     @Transactional(readOnly = true)
     public Tag getTag(Long id) {
-        return this.tagRepository.getTag(id);
+        return this.requestLoadingContext.getTag(id, this.tagRepository::getTag);
     }
 
     @Transactional(readOnly = true)
@@ -0,0 +1,97 @@
+package org.bauerbrun0.snippetvault.api.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.bauerbrun0.snippetvault.api.exception.TextMaintenanceRepositoryException;
+import org.bauerbrun0.snippetvault.api.model.TextMaintenanceRun;
+import org.bauerbrun0.snippetvault.api.repository.TextMaintenanceRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Publishes the runs recorded by text_maintenance_pkg, tagged by index and action:
+ * "snippetvault.text.maintenance.runs" counts the decisions, "snippetvault.text.maintenance.duration"
+ * times the syncs and optimizations, and the "pending" / "fragmentation" gauges hold the last
+ * measured values. Runs logged before the application started are not counted. A SYNC_SKIPPED
+ * run is only logged when the index turns idle, so it counts idle stretches, not idle minutes.
+ */
+@Slf4j
+@Component
+public class TextMaintenanceMetrics {
+    private final TextMaintenanceRepository textMaintenanceRepository;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, AtomicReference<Double>> gauges = new ConcurrentHashMap<>();
+    private Long lastRunId;
+
+    public TextMaintenanceMetrics(TextMaintenanceRepository textMaintenanceRepository, MeterRegistry meterRegistry) {
+        this.textMaintenanceRepository = textMaintenanceRepository;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Scheduled(fixedDelay = 1, timeUnit = TimeUnit.MINUTES)
+    public void poll() {
+        boolean backlog = this.lastRunId == null;
+        List<TextMaintenanceRun> runs;
+        do {
+            try {
+                runs = this.textMaintenanceRepository.getRunsAfter(this.lastRunId);
+            } catch (TextMaintenanceRepositoryException e) {
+                log.warn("Failed to read the text maintenance log: {}", e.getMessage());
+                return;
+            }
+            this.publish(runs, backlog);
+        } while (!runs.isEmpty());
+
+        if (this.lastRunId == null) {
+            // Empty log: count everything from now on
+            this.lastRunId = 0L;
+        }
+    }
+
+    private void publish(List<TextMaintenanceRun> runs, boolean backlog) {
+        for (TextMaintenanceRun run : runs) {
+            this.lastRunId = run.getId();
+            if (run.getPendingCount() != null) {
+                this.gauge("snippetvault.text.maintenance.pending", run.getIndexName()).set(run.getPendingCount().doubleValue());
+            }
+            if (run.getFragmentation() != null) {
+                this.gauge("snippetvault.text.maintenance.fragmentation", run.getIndexName()).set(run.getFragmentation());
+            }
+            if (backlog) {
+                continue;
+            }
+
+            this.meterRegistry.counter(
+                    "snippetvault.text.maintenance.runs",
+                    "index", run.getIndexName(),
+                    "action", run.getAction()
+            ).increment();
+            if (run.getDurationMs() != null) {
+                Timer.builder("snippetvault.text.maintenance.duration")
+                        .tag("index", run.getIndexName())
+                        .tag("action", run.getAction())
+                        .register(this.meterRegistry)
+                        .record(Duration.ofMillis(run.getDurationMs()));
+            }
+        }
+    }
+
+    private AtomicReference<Double> gauge(String name, String indexName) {
+        return this.gauges.computeIfAbsent(name + ":" + indexName, key -> {
+            AtomicReference<Double> value = new AtomicReference<>(0.0);
+            Gauge.builder(name, value, AtomicReference::get)
+                    .tag("index", indexName)
+                    .register(this.meterRegistry);
+            return value;
+        });
+    }
+}
@@ -0,0 +1,25 @@
+package org.bauerbrun0.snippetvault.api.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class TransactionCallbacks {
+    /**
+     * Runs the action once the current transaction has committed, or immediately when
+     * no transaction is active. Used to invalidate in-memory state only after the
+     * database change is visible to other sessions.
+     */
+    public static void runAfterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
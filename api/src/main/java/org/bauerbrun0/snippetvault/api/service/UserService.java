@@ -6,6 +6,8 @@ import org.bauerbrun0.snippetvault.api.exception.UserNotFoundException;
 import org.bauerbrun0.snippetvault.api.model.Role;
 import org.bauerbrun0.snippetvault.api.model.User;
 import org.bauerbrun0.snippetvault.api.repository.UserRepository;
+import org.bauerbrun0.snippetvault.api.security.PrincipalCache;
+import org.bauerbrun0.snippetvault.api.security.TokenEpochRegistry;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -14,9 +16,17 @@ import java.util.List;
 @Service
 public class UserService {
     private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
+    private final TokenEpochRegistry tokenEpochRegistry;
 
-    public UserService(UserRepository userRepository) {
+    public UserService(
+            UserRepository userRepository,
+            PrincipalCache principalCache,
+            TokenEpochRegistry tokenEpochRegistry
+    ) {
         this.userRepository = userRepository;
+        this.principalCache = principalCache;
+        this.tokenEpochRegistry = tokenEpochRegistry;
     }
 
     @Transactional(readOnly = true)
@@ -36,7 +46,10 @@ public class UserService {
 
     @Transactional
     public User deleteUser(Long id) throws UserNotFoundException {
-        return this.userRepository.deleteUser(id);
+        User user = this.userRepository.deleteUser(id);
+        this.principalCache.evictUser(id);
+        this.tokenEpochRegistry.invalidate(id);
+        return user;
     }
 
     @Transactional
@@ -48,7 +61,10 @@ public class UserService {
     @Transactional
     public User updateUser(Long id, String username, String passwordHash)
             throws UserNotFoundException, DuplicateUsernameException {
-        return this.userRepository.updateUser(id, username, passwordHash);
+        User user = this.userRepository.updateUser(id, username, passwordHash);
+        this.principalCache.evictUser(id);
+        this.tokenEpochRegistry.invalidate(id);
+        return user;
     }
 
     @Transactional(readOnly = true)
@@ -0,0 +1,210 @@
+package org.bauerbrun0.snippetvault.api.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bauerbrun0.snippetvault.api.config.FileProperties;
+import org.bauerbrun0.snippetvault.api.model.File;
+import org.bauerbrun0.snippetvault.api.repository.FileContentHandler;
+import org.bauerbrun0.snippetvault.api.service.SnippetService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class SnippetControllerRawContentTests {
+    private static final long SNIPPET_ID = 1L;
+    private static final long FILE_ID = 2L;
+    // 14 UTF-8 bytes, the accented letters taking two each
+    private static final String CONTENT = "héllo\nwörld\n";
+    private static final byte[] CONTENT_BYTES = CONTENT.getBytes(StandardCharsets.UTF_8);
+    private static final byte[] GZIP_CONTENT = {31, -117, 8, 0, 0, 0, 0, 0, 0, -1, 1, 2, 3};
+    private static final LocalDateTime UPDATED = LocalDateTime.of(2024, 3, 10, 8, 30, 15, 500_000_000);
+
+    private SnippetService snippetService;
+    private SnippetController controller;
+    private byte[] gzipContent;
+
+    @BeforeEach
+    void setUp() {
+        this.snippetService = mock(SnippetService.class);
+        FileProperties fileProperties = new FileProperties();
+        // Smaller than the content, so ranges span several reads
+        fileProperties.setStreamBufferSize(4);
+        this.controller = new SnippetController(this.snippetService, new ObjectMapper(), fileProperties);
+        this.gzipContent = null;
+
+        File file = new File();
+        file.setId(FILE_ID);
+        file.setSnippetId(SNIPPET_ID);
+        file.setFilename("hello.txt");
+        file.setUpdated(UPDATED);
+        file.setContentSize((long) CONTENT_BYTES.length);
+        doAnswer(invocation -> {
+            FileContentHandler handler = invocation.getArgument(2);
+            handler.handle(
+                    file,
+                    new StringReader(CONTENT),
+                    this.gzipContent == null ? null : new ByteArrayInputStream(this.gzipContent)
+            );
+            return null;
+        }).when(this.snippetService).streamFileContent(eq(FILE_ID), eq(SNIPPET_ID), any());
+    }
+
+    @Test
+    void sendsWholeContentWithoutRange() throws Exception {
+        MockHttpServletResponse response = this.get(new HttpHeaders());
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsByteArray()).isEqualTo(CONTENT_BYTES);
+        assertThat(response.getContentLengthLong()).isEqualTo(CONTENT_BYTES.length);
+        assertThat(response.getContentType()).isEqualTo("text/plain;charset=UTF-8");
+        assertThat(response.getHeader(HttpHeaders.ACCEPT_RANGES)).isEqualTo("bytes");
+        assertThat(response.getHeader(HttpHeaders.LAST_MODIFIED)).isEqualTo(lastModified());
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isNull();
+    }
+
+    @Test
+    void sendsByteRangeSplittingCharacters() throws Exception {
+        MockHttpServletResponse response = this.get(headers(HttpHeaders.RANGE, "bytes=2-9"));
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 2-9/14");
+        assertThat(response.getContentLengthLong()).isEqualTo(8);
+        assertThat(response.getContentAsByteArray()).isEqualTo(Arrays.copyOfRange(CONTENT_BYTES, 2, 10));
+    }
+
+    @Test
+    void sendsSuffixAndOpenEndedRanges() throws Exception {
+        MockHttpServletResponse suffix = this.get(headers(HttpHeaders.RANGE, "bytes=-4"));
+        MockHttpServletResponse openEnded = this.get(headers(HttpHeaders.RANGE, "bytes=10-"));
+        MockHttpServletResponse pastEnd = this.get(headers(HttpHeaders.RANGE, "bytes=10-100"));
+
+        assertThat(suffix.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 10-13/14");
+        assertThat(suffix.getContentAsString(StandardCharsets.UTF_8)).isEqualTo("rld\n");
+        assertThat(openEnded.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 10-13/14");
+        assertThat(openEnded.getContentAsString(StandardCharsets.UTF_8)).isEqualTo("rld\n");
+        assertThat(pastEnd.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 10-13/14");
+        assertThat(pastEnd.getContentAsString(StandardCharsets.UTF_8)).isEqualTo("rld\n");
+    }
+
+    @Test
+    void rejectsRangeStartingPastTheEnd() throws Exception {
+        MockHttpServletResponse response = this.get(headers(HttpHeaders.RANGE, "bytes=14-20"));
+
+        assertThat(response.getStatus()).isEqualTo(416);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes */14");
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    void sendsWholeContentForMultipleOrMalformedRanges() throws Exception {
+        MockHttpServletResponse multiple = this.get(headers(HttpHeaders.RANGE, "bytes=0-1,4-5"));
+        MockHttpServletResponse malformed = this.get(headers(HttpHeaders.RANGE, "lines=1-2"));
+
+        assertThat(multiple.getStatus()).isEqualTo(200);
+        assertThat(multiple.getContentAsByteArray()).isEqualTo(CONTENT_BYTES);
+        assertThat(malformed.getStatus()).isEqualTo(200);
+        assertThat(malformed.getContentAsByteArray()).isEqualTo(CONTENT_BYTES);
+    }
+
+    @Test
+    void sendsRangeWhenIfRangeMatchesLastModified() throws Exception {
+        HttpHeaders headers = headers(HttpHeaders.RANGE, "bytes=0-4");
+        headers.set(HttpHeaders.IF_RANGE, lastModified());
+
+        MockHttpServletResponse response = this.get(headers);
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getContentAsString(StandardCharsets.UTF_8)).isEqualTo("héll");
+    }
+
+    @Test
+    void sendsWholeContentWhenIfRangeDoesNotMatch() throws Exception {
+        HttpHeaders stale = headers(HttpHeaders.RANGE, "bytes=0-4");
+        stale.set(HttpHeaders.IF_RANGE, formatDate(UPDATED.minusSeconds(1)));
+        HttpHeaders entityTag = headers(HttpHeaders.RANGE, "bytes=0-4");
+        entityTag.set(HttpHeaders.IF_RANGE, "\"abc\"");
+
+        MockHttpServletResponse staleResponse = this.get(stale);
+        MockHttpServletResponse entityTagResponse = this.get(entityTag);
+
+        assertThat(staleResponse.getStatus()).isEqualTo(200);
+        assertThat(staleResponse.getContentAsByteArray()).isEqualTo(CONTENT_BYTES);
+        assertThat(entityTagResponse.getStatus()).isEqualTo(200);
+        assertThat(entityTagResponse.getContentAsByteArray()).isEqualTo(CONTENT_BYTES);
+    }
+
+    @Test
+    void sendsStoredGzipToClientsAcceptingIt() throws Exception {
+        this.gzipContent = GZIP_CONTENT;
+
+        MockHttpServletResponse response = this.get(headers(HttpHeaders.ACCEPT_ENCODING, "deflate, gzip;q=0.8"));
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(response.getHeader(HttpHeaders.VARY)).isEqualTo(HttpHeaders.ACCEPT_ENCODING);
+        assertThat(response.getContentAsByteArray()).isEqualTo(GZIP_CONTENT);
+    }
+
+    @Test
+    void sendsUncompressedContentOtherwise() throws Exception {
+        this.gzipContent = GZIP_CONTENT;
+        HttpHeaders rangeHeaders = headers(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        rangeHeaders.set(HttpHeaders.RANGE, "bytes=0-4");
+
+        MockHttpServletResponse refused = this.get(headers(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, br"));
+        MockHttpServletResponse wildcard = this.get(headers(HttpHeaders.ACCEPT_ENCODING, "*"));
+        MockHttpServletResponse range = this.get(rangeHeaders);
+
+        assertThat(refused.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(refused.getContentAsByteArray()).isEqualTo(CONTENT_BYTES);
+        assertThat(wildcard.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(range.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(range.getStatus()).isEqualTo(206);
+        assertThat(range.getContentAsString(StandardCharsets.UTF_8)).isEqualTo("héll");
+    }
+
+    @Test
+    void sendsUncompressedContentBeforeItIsPrecompressed() throws Exception {
+        MockHttpServletResponse response = this.get(headers(HttpHeaders.ACCEPT_ENCODING, "gzip"));
+
+        assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(response.getContentAsByteArray()).isEqualTo(CONTENT_BYTES);
+    }
+
+    private MockHttpServletResponse get(HttpHeaders requestHeaders) {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        this.controller.getRawFileContent(SNIPPET_ID, FILE_ID, requestHeaders, response);
+        return response;
+    }
+
+    private static HttpHeaders headers(String name, String value) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(name, value);
+        return headers;
+    }
+
+    private static String lastModified() {
+        return formatDate(UPDATED);
+    }
+
+    private static String formatDate(LocalDateTime dateTime) {
+        return DateTimeFormatter.RFC_1123_DATE_TIME.format(
+                dateTime.atZone(ZoneId.systemDefault()).withZoneSameInstant(ZoneOffset.UTC)
+        );
+    }
+}
@@ -0,0 +1,106 @@
+package org.bauerbrun0.snippetvault.api.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FileContentDigestTests {
+
+    @Test
+    void hashesEmptyContent() {
+        FileContentDigest digest = FileContentDigest.of("");
+
+        assertThat(digest.getSize()).isZero();
+        assertThat(digest.getLineCount()).isZero();
+        assertThat(digest.getHash()).isEqualTo("e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855");
+    }
+
+    @Test
+    void hashesAsLowercaseHex() {
+        assertThat(FileContentDigest.of("abc").getHash())
+                .isEqualTo("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad");
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "a|1",
+            "a\\n|1",
+            "a\\nb|2",
+            "a\\r\\nb\\r\\n|2",
+            "a\\r\\nb|2",
+            "\\n|1",
+            "\\n\\n|2",
+            "\\r|1",
+            "a\\n\\nb|3"
+    })
+    void countsLinesLikeTheMigration(String escaped, long lineCount) {
+        String content = escaped.replace("\\r", "\r").replace("\\n", "\n");
+
+        assertThat(FileContentDigest.of(content).getLineCount()).isEqualTo(lineCount);
+    }
+
+    @Test
+    void measuresUtf8Bytes() throws Exception {
+        String content = "grüße\r\n😀\n";
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+
+        FileContentDigest digest = FileContentDigest.of(content);
+
+        assertThat(digest.getSize()).isEqualTo(bytes.length).isEqualTo(14);
+        assertThat(digest.getLineCount()).isEqualTo(2);
+        assertThat(digest.getHash()).isEqualTo(sha256(bytes));
+    }
+
+    @Test
+    void measuresContentPassedInParts() {
+        byte[] bytes = "line one\r\nline two".getBytes(StandardCharsets.UTF_8);
+        FileContentDigest digest = new FileContentDigest();
+
+        digest.update(bytes, 0, 5);
+        digest.update(bytes, 5, 0);
+        digest.update(bytes, 5, 5);
+        digest.update(bytes, 10, bytes.length - 10);
+
+        FileContentDigest whole = FileContentDigest.of("line one\r\nline two");
+        assertThat(digest.getSize()).isEqualTo(whole.getSize());
+        assertThat(digest.getLineCount()).isEqualTo(2);
+        assertThat(digest.getHash()).isEqualTo(whole.getHash());
+    }
+
+    @Test
+    void measuresReaderLikeString() throws Exception {
+        // Surrogate pairs and multi-byte characters split across the three char buffer
+        String content = "ab😀cdé\r\n\n😀😀 end";
+
+        FileContentDigest read = FileContentDigest.of(new StringReader(content), 3);
+        FileContentDigest whole = FileContentDigest.of(content);
+
+        assertThat(read.getSize()).isEqualTo(whole.getSize());
+        assertThat(read.getLineCount()).isEqualTo(whole.getLineCount()).isEqualTo(3);
+        assertThat(read.getHash()).isEqualTo(whole.getHash());
+    }
+
+    @Test
+    void keepsHashOnceComputed() {
+        FileContentDigest digest = FileContentDigest.of("abc");
+        String hash = digest.getHash();
+
+        assertThat(digest.getHash()).isEqualTo(hash);
+        assertThatThrownBy(() -> digest.update(new byte[] {'d'}, 0, 1)).isInstanceOf(IllegalStateException.class);
+    }
+
+    private static String sha256(byte[] bytes) throws Exception {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : MessageDigest.getInstance("SHA-256").digest(bytes)) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
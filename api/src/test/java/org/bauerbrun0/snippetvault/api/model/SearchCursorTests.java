@@ -0,0 +1,78 @@
+package org.bauerbrun0.snippetvault.api.model;
+
+import org.bauerbrun0.snippetvault.api.exception.InvalidSearchCursorException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SearchCursorTests {
+
+    @Test
+    void decodesWhatItEncodes() {
+        SearchCursor cursor = new SearchCursor(3L, LocalDateTime.of(2024, 5, 17, 13, 45, 7, 123_000_000), 991L);
+
+        SearchCursor decoded = SearchCursor.decode(cursor.encode());
+
+        assertThat(decoded.getRelevance()).isEqualTo(3L);
+        assertThat(decoded.getUpdated()).isEqualTo(cursor.getUpdated());
+        assertThat(decoded.getId()).isEqualTo(991L);
+    }
+
+    @Test
+    void encodesAsUrlSafeTokenWithoutPadding() {
+        String token = new SearchCursor(1L, LocalDateTime.of(2024, 1, 1, 0, 0), 1L).encode();
+
+        assertThat(token).matches("[A-Za-z0-9_-]+");
+    }
+
+    @Test
+    void pointsAfterTheSnippet() {
+        DetailedSnippet snippet = new DetailedSnippet();
+        snippet.setId(5L);
+        snippet.setRelevance(2L);
+        snippet.setUpdated(LocalDateTime.of(2024, 2, 29, 23, 59, 59));
+
+        SearchCursor cursor = SearchCursor.after(snippet);
+
+        assertThat(cursor.getRelevance()).isEqualTo(2L);
+        assertThat(cursor.getUpdated()).isEqualTo(snippet.getUpdated());
+        assertThat(cursor.getId()).isEqualTo(5L);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "",
+            "1|2024-01-01T00:00",
+            "1|2024-01-01T00:00|2|3",
+            "x|2024-01-01T00:00|2",
+            "1|2024-01-01T00:00|",
+            "1|yesterday|2",
+            "1||2"
+    })
+    void rejectsTamperedToken(String raw) {
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> SearchCursor.decode(token)).isInstanceOf(InvalidSearchCursorException.class);
+    }
+
+    @Test
+    void rejectsTokenThatIsNotBase64() {
+        assertThatThrownBy(() -> SearchCursor.decode("not a cursor!"))
+                .isInstanceOf(InvalidSearchCursorException.class);
+    }
+
+    @Test
+    void rejectsTruncatedToken() {
+        String token = new SearchCursor(1L, LocalDateTime.of(2024, 1, 1, 12, 30), 77L).encode();
+
+        assertThatThrownBy(() -> SearchCursor.decode(token.substring(0, token.length() - 3)))
+                .isInstanceOf(InvalidSearchCursorException.class);
+    }
+}
@@ -0,0 +1,228 @@
+package org.bauerbrun0.snippetvault.api.search;
+
+import org.bauerbrun0.snippetvault.api.config.SearchProperties;
+import org.bauerbrun0.snippetvault.api.exception.SnippetRepositoryException;
+import org.bauerbrun0.snippetvault.api.model.DetailedSnippet;
+import org.bauerbrun0.snippetvault.api.model.File;
+import org.bauerbrun0.snippetvault.api.model.SearchCursor;
+import org.bauerbrun0.snippetvault.api.model.SearchIndexRows;
+import org.bauerbrun0.snippetvault.api.model.Snippet;
+import org.bauerbrun0.snippetvault.api.model.SnippetSearchResult;
+import org.bauerbrun0.snippetvault.api.repository.SnippetRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class InMemorySnippetSearchTests {
+    private static final long USER_ID = 1L;
+    private static final long OTHER_USER_ID = 2L;
+    private static final LocalDateTime DAY_1 = LocalDateTime.of(2024, 1, 1, 12, 0);
+    private static final LocalDateTime DAY_2 = LocalDateTime.of(2024, 1, 2, 12, 0);
+    private static final LocalDateTime DAY_3 = LocalDateTime.of(2024, 1, 3, 12, 0);
+
+    private SnippetRepository snippetRepository;
+    private SearchProperties searchProperties;
+    private InMemorySnippetSearch search;
+    private SearchIndexRows rows;
+
+    @BeforeEach
+    void setUp() {
+        this.snippetRepository = mock(SnippetRepository.class);
+        this.searchProperties = new SearchProperties();
+        this.searchProperties.setEngine(SearchProperties.Engine.MEMORY);
+        this.search = new InMemorySnippetSearch(this.snippetRepository, this.searchProperties);
+
+        this.rows = new SearchIndexRows(
+                List.of(
+                        snippet(1L, USER_ID, "Quick sort", null, DAY_1),
+                        snippet(2L, USER_ID, "Notes", "How to sort a list", DAY_3),
+                        snippet(3L, USER_ID, "Misc", null, DAY_2),
+                        snippet(4L, USER_ID, "Other", null, DAY_2),
+                        snippet(5L, USER_ID, "Sorted set", null, DAY_2),
+                        snippet(6L, USER_ID, "Unrelated", null, DAY_3),
+                        snippet(7L, OTHER_USER_ID, "Sort of someone else", null, DAY_3)
+                ),
+                List.of(
+                        file(1L, 10L, "quicksort.py", "def quicksort(xs): pass"),
+                        file(3L, 11L, "sorting.js", "x"),
+                        file(4L, 10L, "a.py", "arr.sort()")
+                ),
+                Map.of(1L, List.of(100L), 4L, List.of(100L, 200L))
+        );
+        when(this.snippetRepository.getSearchIndexRows(null, null)).thenReturn(this.rows);
+    }
+
+    @Test
+    void ordersByRelevanceThenMostRecentlyUpdatedThenId() {
+        this.search.build();
+
+        SnippetSearchResult result = this.search(" SORT ", null, null, 1L, 10L, null, true, false);
+
+        assertThat(ids(result)).containsExactly(5L, 1L, 2L, 3L, 4L);
+        assertThat(result.getSnippets()).extracting(DetailedSnippet::getRelevance).containsExactly(1L, 1L, 2L, 3L, 4L);
+        assertThat(result.getTotalCount()).isEqualTo(5L);
+        assertThat(result.getHasMore()).isFalse();
+    }
+
+    @Test
+    void pagesByPageNumber() {
+        this.search.build();
+
+        SnippetSearchResult first = this.search("sort", null, null, 1L, 2L, null, true, false);
+        SnippetSearchResult third = this.search("sort", null, null, 3L, 2L, null, true, false);
+        SnippetSearchResult past = this.search("sort", null, null, 4L, 2L, null, true, false);
+
+        assertThat(ids(first)).containsExactly(5L, 1L);
+        assertThat(first.getHasMore()).isTrue();
+        assertThat(ids(third)).containsExactly(4L);
+        assertThat(third.getHasMore()).isFalse();
+        assertThat(ids(past)).isEmpty();
+        assertThat(past.getTotalCount()).isEqualTo(5L);
+    }
+
+    @Test
+    void pagesAfterCursor() {
+        this.search.build();
+
+        SnippetSearchResult first = this.search("sort", null, null, null, 2L, null, false, false);
+        SnippetSearchResult second = this.search("sort", null, null, null, 2L, lastOf(first), false, false);
+        SnippetSearchResult third = this.search("sort", null, null, null, 2L, lastOf(second), false, false);
+
+        assertThat(ids(first)).containsExactly(5L, 1L);
+        assertThat(ids(second)).containsExactly(2L, 3L);
+        assertThat(second.getHasMore()).isTrue();
+        assertThat(second.getTotalCount()).isNull();
+        assertThat(ids(third)).containsExactly(4L);
+        assertThat(third.getHasMore()).isFalse();
+    }
+
+    @Test
+    void pagesAfterCursorOfSnippetNoLongerMatching() {
+        this.search.build();
+
+        // Between snippets 1 and 2 in the order
+        SearchCursor cursor = new SearchCursor(1L, DAY_1.minusDays(1), 1L);
+
+        assertThat(ids(this.search("sort", null, null, null, 10L, cursor, false, false))).containsExactly(2L, 3L, 4L);
+    }
+
+    @Test
+    void filtersByTagsAndLanguagesWithFacetCounts() {
+        this.search.build();
+
+        SnippetSearchResult tagged = this.search("sort", List.of(100L), null, null, 10L, null, false, true);
+        SnippetSearchResult python = this.search("sort", null, List.of(10L), null, 10L, null, false, false);
+        SnippetSearchResult javascript = this.search("sort", null, List.of(11L), null, 10L, null, false, false);
+        SnippetSearchResult all = this.search("sort", null, null, null, 10L, null, false, true);
+
+        assertThat(ids(tagged)).containsExactly(1L, 4L);
+        assertThat(tagged.getTagCounts()).containsExactly(Map.entry(100L, 2L), Map.entry(200L, 1L));
+        assertThat(ids(python)).containsExactly(1L, 4L);
+        assertThat(ids(javascript)).containsExactly(3L);
+        assertThat(python.getTagCounts()).isNull();
+        assertThat(all.getLanguageCounts()).containsExactly(Map.entry(10L, 2L), Map.entry(11L, 1L));
+    }
+
+    @Test
+    void searchesOnlyTheUsersSnippets() {
+        this.search.build();
+
+        assertThat(ids(this.search("someone", null, null, null, 10L, null, false, false))).isEmpty();
+        assertThat(this.search.search(3L, "sort", null, null, null, 10L, null, true, false))
+                .hasValueSatisfying(result -> assertThat(result.getTotalCount()).isZero());
+    }
+
+    @Test
+    void leavesSearchesToOracleUntilBuilt() {
+        assertThat(this.search.search(USER_ID, "sort", null, null, null, 10L, null, false, false)).isEmpty();
+    }
+
+    @Test
+    void leavesWildcardQueriesToOracle() {
+        this.search.build();
+
+        assertThat(this.search.search(USER_ID, "so%t", null, null, null, 10L, null, false, false)).isEmpty();
+        assertThat(this.search.search(USER_ID, "so_t", null, null, null, 10L, null, false, false)).isEmpty();
+    }
+
+    @Test
+    void retriesFailedBuildWithoutQueueingWrites() {
+        when(this.snippetRepository.getSearchIndexRows(null, null))
+                .thenThrow(new SnippetRepositoryException("database down"))
+                .thenReturn(this.rows);
+
+        this.search.build();
+        // Committed while no build runs: dropped, the retried build reads the snippet anyway
+        this.search.refreshSnippet(USER_ID, 1L);
+
+        assertThat(this.search.search(USER_ID, "sort", null, null, null, 10L, null, false, false)).isEmpty();
+        verify(this.snippetRepository, never()).getSearchIndexRows(USER_ID, List.of(1L));
+
+        this.search.retryBuild();
+
+        assertThat(ids(this.search("sort", null, null, null, 10L, null, false, false))).containsExactly(5L, 1L, 2L, 3L, 4L);
+        verify(this.snippetRepository, times(2)).getSearchIndexRows(null, null);
+    }
+
+    @Test
+    void retriesOnlyUntilBuilt() {
+        this.search.build();
+        this.search.retryBuild();
+
+        verify(this.snippetRepository, times(1)).getSearchIndexRows(null, null);
+    }
+
+    @Test
+    void staysOffWithOracleEngine() {
+        this.searchProperties.setEngine(SearchProperties.Engine.ORACLE);
+        this.search.build();
+
+        assertThat(this.search.search(USER_ID, "sort", null, null, null, 10L, null, false, false)).isEmpty();
+    }
+
+    private SnippetSearchResult search(
+            String query,
+            List<Long> tagIds,
+            List<Long> languageIds,
+            Long pageNumber,
+            Long pageSize,
+            SearchCursor after,
+            boolean includeTotalCount,
+            boolean includeFacets
+    ) {
+        return this.search.search(
+                USER_ID, query, tagIds, languageIds, pageNumber, pageSize, after, includeTotalCount, includeFacets
+        ).orElseThrow();
+    }
+
+    private static SearchCursor lastOf(SnippetSearchResult result) {
+        return SearchCursor.after(result.getSnippets().get(result.getSnippets().size() - 1));
+    }
+
+    private static List<Long> ids(SnippetSearchResult result) {
+        return result.getSnippets().stream().map(DetailedSnippet::getId).toList();
+    }
+
+    private static Snippet snippet(Long id, Long userId, String title, String description, LocalDateTime updated) {
+        return new Snippet(id, userId, title, description, updated, updated);
+    }
+
+    private static File file(Long snippetId, Long languageId, String filename, String content) {
+        File file = new File();
+        file.setSnippetId(snippetId);
+        file.setLanguageId(languageId);
+        file.setFilename(filename);
+        file.setContent(content);
+        return file;
+    }
+}
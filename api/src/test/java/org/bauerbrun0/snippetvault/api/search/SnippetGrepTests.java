@@ -0,0 +1,159 @@
+package org.bauerbrun0.snippetvault.api.search;
+
+import org.bauerbrun0.snippetvault.api.config.SearchProperties;
+import org.bauerbrun0.snippetvault.api.exception.SnippetRepositoryException;
+import org.bauerbrun0.snippetvault.api.model.File;
+import org.bauerbrun0.snippetvault.api.model.GrepMatch;
+import org.bauerbrun0.snippetvault.api.model.GrepSummary;
+import org.bauerbrun0.snippetvault.api.repository.SnippetRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class SnippetGrepTests {
+    private static final long USER_ID = 1L;
+
+    private SnippetRepository snippetRepository;
+    private SearchProperties searchProperties;
+    private SnippetGrep grep;
+
+    @BeforeEach
+    void setUp() {
+        this.snippetRepository = mock(SnippetRepository.class);
+        this.searchProperties = new SearchProperties();
+        this.searchProperties.getGrep().setParallelism(2);
+        this.searchProperties.getGrep().setTimeout(Duration.ofSeconds(10));
+        this.grep = new SnippetGrep(this.snippetRepository, this.searchProperties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.grep.shutdown();
+    }
+
+    @Test
+    void reportsEveryMatchingLineOnTheCallingThread() {
+        this.streamFiles(files(20, "alpha\r\nneedle one\nbeta\nneedle two"), null);
+        List<GrepMatch> matches = new CopyOnWriteArrayList<>();
+        Set<Thread> threads = ConcurrentHashMap.newKeySet();
+
+        GrepSummary summary = this.grep.grep(USER_ID, "^needle", false, null, null, match -> {
+            threads.add(Thread.currentThread());
+            matches.add(match);
+        });
+
+        assertThat(threads).containsExactly(Thread.currentThread());
+        assertThat(matches).hasSize(40);
+        assertThat(matches).extracting(GrepMatch::getLineNumber).containsOnly(2L, 4L);
+        assertThat(matches).extracting(GrepMatch::getLine).containsOnly("needle one", "needle two");
+        assertThat(summary.getFileCount()).isEqualTo(20);
+        assertThat(summary.getMatchCount()).isEqualTo(40);
+        assertThat(summary.getTruncated()).isFalse();
+        assertThat(summary.getTimedOut()).isFalse();
+    }
+
+    @Test
+    void stopsAtTheMatchCap() {
+        this.streamFiles(files(20, "needle\nneedle\nneedle"), null);
+        List<GrepMatch> matches = new CopyOnWriteArrayList<>();
+
+        GrepSummary summary = this.grep.grep(USER_ID, "NEEDLE", true, null, 5, matches::add);
+
+        assertThat(matches).hasSize(5);
+        assertThat(summary.getMatchCount()).isEqualTo(5);
+        assertThat(summary.getTruncated()).isTrue();
+    }
+
+    @Test
+    void abortsRunawayPatternAtTheDeadline() {
+        this.searchProperties.getGrep().setTimeout(Duration.ofMillis(200));
+        this.streamFiles(files(1, "a".repeat(40)), null);
+
+        GrepSummary summary = this.grep.grep(USER_ID, "(a+)+b", false, null, null, match -> {
+        });
+
+        assertThat(summary.getTimedOut()).isTrue();
+    }
+
+    @Test
+    void waitsForSubmittedScansWhenReadingFails() throws Exception {
+        this.streamFiles(files(8, "needle\n".repeat(2_000)), new SnippetRepositoryException("cursor closed"));
+        AtomicInteger written = new AtomicInteger();
+
+        assertThatThrownBy(() -> this.grep.grep(USER_ID, "needle", false, null, null, match -> written.incrementAndGet()))
+                .isInstanceOf(SnippetRepositoryException.class);
+        int writtenOnReturn = written.get();
+        Thread.sleep(100);
+
+        assertThat(written.get()).isEqualTo(writtenOnReturn);
+    }
+
+    @Test
+    void deliversEveryMatchToASlowSink() {
+        this.searchProperties.getGrep().setMaxMatches(10_000);
+        this.streamFiles(files(4, "needle\n".repeat(1_000)), null);
+        AtomicInteger written = new AtomicInteger();
+
+        GrepSummary summary = this.grep.grep(USER_ID, "needle", false, null, null, match -> {
+            // A client reading slowly for the first matches
+            if (written.incrementAndGet() <= 3) {
+                sleep(50);
+            }
+        });
+
+        assertThat(written.get()).isEqualTo(4_000);
+        assertThat(summary.getMatchCount()).isEqualTo(4_000);
+        assertThat(summary.getTimedOut()).isFalse();
+    }
+
+    private void streamFiles(List<File> files, RuntimeException failure) {
+        doAnswer(invocation -> {
+            Predicate<File> handler = invocation.getArgument(3);
+            for (File file : files) {
+                if (!handler.test(file)) {
+                    return null;
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            return null;
+        }).when(this.snippetRepository).streamFileContents(eq(USER_ID), any(), anyInt(), any());
+    }
+
+    private static List<File> files(int count, String content) {
+        return LongStream.rangeClosed(1, count).mapToObj(id -> {
+            File file = new File();
+            file.setId(id);
+            file.setSnippetId(id);
+            file.setFilename("file" + id + ".txt");
+            file.setContent(content);
+            return file;
+        }).toList();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package org.bauerbrun0.snippetvault.api.search;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrigramsTests {
+
+    @Test
+    void packsThreeCharsIntoOneTrigram() {
+        assertThat(Trigrams.of("abc")).containsExactly(trigram('a', 'b', 'c'));
+    }
+
+    @Test
+    void hasNoTrigramsForShortText() {
+        assertThat(Trigrams.of(null)).isEmpty();
+        assertThat(Trigrams.of("")).isEmpty();
+        assertThat(Trigrams.of("ab")).isEmpty();
+    }
+
+    @Test
+    void returnsSortedDistinctTrigrams() {
+        long[] trigrams = Trigrams.of("abcabc");
+
+        assertThat(trigrams).containsExactly(
+                trigram('a', 'b', 'c'),
+                trigram('b', 'c', 'a'),
+                trigram('c', 'a', 'b')
+        );
+        assertThat(Trigrams.of("aaaaaa")).containsExactly(trigram('a', 'a', 'a'));
+    }
+
+    @Test
+    void packsCharsOutsideAscii() {
+        assertThat(Trigrams.of("été")).containsExactly(trigram('é', 't', 'é'));
+        assertThat(Trigrams.of("一丁丂")).containsExactly(trigram('一', '丁', '丂'));
+    }
+
+    @Test
+    void unitesDistinctTrigramsOfAllParts() {
+        long[] union = Trigrams.union(Trigrams.of("abcd"), Trigrams.NONE, Trigrams.of("bcde"));
+
+        assertThat(union).containsExactly(
+                trigram('a', 'b', 'c'),
+                trigram('b', 'c', 'd'),
+                trigram('c', 'd', 'e')
+        );
+        assertThat(Trigrams.union()).isEmpty();
+    }
+
+    private static long trigram(char first, char second, char third) {
+        return ((long) first << 32) | ((long) second << 16) | third;
+    }
+}
@@ -0,0 +1,110 @@
+package org.bauerbrun0.snippetvault.api.search;
+
+import org.bauerbrun0.snippetvault.api.model.File;
+import org.bauerbrun0.snippetvault.api.model.Snippet;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserSearchIndexTests {
+    private static final LocalDateTime UPDATED = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    @Test
+    void ranksMatchesByWhereTheQueryIsFound() {
+        UserSearchIndex index = new UserSearchIndex();
+        index.put(snippet(1L, "Quick sort", null, List.of()));
+        index.put(snippet(2L, "Notes", "How to sort a list", List.of()));
+        index.put(snippet(3L, "Misc", null, List.of(file(10L, "Sorting.js", "x"))));
+        index.put(snippet(4L, "Other", null, List.of(file(10L, "a.py", "arr.SORT()"))));
+        index.put(snippet(5L, "Unrelated", "nothing here", List.of(file(10L, "b.py", "pass"))));
+
+        assertThat(relevanceById(index.search("sort", Set.of(), Set.of()))).containsExactlyInAnyOrder(
+                "1:" + UserSearchIndex.TITLE,
+                "2:" + UserSearchIndex.DESCRIPTION,
+                "3:" + UserSearchIndex.FILENAME,
+                "4:" + UserSearchIndex.CONTENT
+        );
+    }
+
+    @Test
+    void matchesEverySnippetWithoutQuery() {
+        UserSearchIndex index = new UserSearchIndex();
+        index.put(snippet(1L, "One", null, List.of()));
+        index.put(snippet(2L, "Two", null, List.of()));
+
+        assertThat(relevanceById(index.search(null, Set.of(), Set.of())))
+                .containsExactlyInAnyOrder("1:" + UserSearchIndex.TITLE, "2:" + UserSearchIndex.TITLE);
+    }
+
+    @Test
+    void matchesQueriesShorterThanATrigram() {
+        UserSearchIndex index = new UserSearchIndex();
+        index.put(snippet(1L, "Go", null, List.of()));
+        index.put(snippet(2L, "Rust", null, List.of()));
+
+        assertThat(relevanceById(index.search("go", Set.of(), Set.of()))).containsExactly("1:" + UserSearchIndex.TITLE);
+    }
+
+    @Test
+    void filtersByTagsAndLanguages() {
+        UserSearchIndex index = new UserSearchIndex();
+        index.put(new IndexedSnippet(snippetRow(1L, "Sort in Python", null), List.of(file(10L, "a.py", "")), List.of(100L)));
+        index.put(new IndexedSnippet(snippetRow(2L, "Sort in JS", null), List.of(file(11L, "a.js", "")), List.of(200L)));
+
+        assertThat(relevanceById(index.search("sort", Set.of(100L), Set.of()))).containsExactly("1:" + UserSearchIndex.TITLE);
+        assertThat(relevanceById(index.search("sort", Set.of(), Set.of(11L)))).containsExactly("2:" + UserSearchIndex.TITLE);
+        assertThat(index.search("sort", Set.of(100L), Set.of(11L))).isEmpty();
+    }
+
+    @Test
+    void countsFileMatchesOnlyForFilteredLanguages() {
+        UserSearchIndex index = new UserSearchIndex();
+        index.put(snippet(1L, "Misc", null, List.of(file(10L, "sort.py", ""), file(11L, "a.js", "sort()"))));
+
+        assertThat(relevanceById(index.search("sort", Set.of(), Set.of(11L))))
+                .containsExactly("1:" + UserSearchIndex.CONTENT);
+    }
+
+    @Test
+    void replacesAndRemovesSnippets() {
+        UserSearchIndex index = new UserSearchIndex();
+        index.put(new IndexedSnippet(snippetRow(1L, "Quick sort", null), List.of(), List.of(100L)));
+        index.put(new IndexedSnippet(snippetRow(1L, "Merge", null), List.of(), List.of(200L)));
+
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.search("sort", Set.of(), Set.of())).isEmpty();
+        assertThat(relevanceById(index.search("merge", Set.of(), Set.of()))).containsExactly("1:" + UserSearchIndex.TITLE);
+        assertThat(index.getSnippetIdsWithTag(100L)).isEmpty();
+        assertThat(index.getSnippetIdsWithTag(200L)).containsExactly(1L);
+
+        index.remove(1L);
+        index.remove(1L);
+
+        assertThat(index.size()).isZero();
+        assertThat(index.search("merge", Set.of(), Set.of())).isEmpty();
+    }
+
+    private static List<String> relevanceById(List<UserSearchIndex.Match> matches) {
+        return matches.stream().map(match -> match.getSnippet().getId() + ":" + match.getRelevance()).toList();
+    }
+
+    private static IndexedSnippet snippet(Long id, String title, String description, List<File> files) {
+        return new IndexedSnippet(snippetRow(id, title, description), files, List.of());
+    }
+
+    private static Snippet snippetRow(Long id, String title, String description) {
+        return new Snippet(id, 1L, title, description, UPDATED, UPDATED);
+    }
+
+    private static File file(Long languageId, String filename, String content) {
+        File file = new File();
+        file.setLanguageId(languageId);
+        file.setFilename(filename);
+        file.setContent(content);
+        return file;
+    }
+}
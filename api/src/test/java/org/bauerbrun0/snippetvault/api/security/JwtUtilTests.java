@@ -0,0 +1,97 @@
+package org.bauerbrun0.snippetvault.api.security;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import org.bauerbrun0.snippetvault.api.config.JwtProperties;
+import org.bauerbrun0.snippetvault.api.model.Role;
+import org.bauerbrun0.snippetvault.api.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtUtilTests {
+    private static final String SECRET = "a-test-secret-that-is-long-enough-for-hmac-sha-256";
+
+    @Test
+    void verifiesSelfContainedToken() {
+        JwtUtil jwtUtil = jwtUtil(SECRET, 60_000L);
+        User user = new User(42L, "alice", "hash", null);
+        String token = jwtUtil.generateToken(user, List.of(new Role(1L, Role.USER), new Role(2L, Role.ADMIN)), 7L);
+
+        VerifiedToken verified = jwtUtil.verifyToken(token);
+
+        assertThat(verified.getUsername()).isEqualTo("alice");
+        assertThat(verified.getUserId()).isEqualTo(42L);
+        assertThat(verified.getRoles()).containsExactly(Role.USER, Role.ADMIN);
+        assertThat(verified.getEpoch()).isEqualTo(7L);
+        assertThat(verified.getIssuedAt()).isNotNull();
+        assertThat(verified.getExpiration()).isAfter(verified.getIssuedAt());
+        assertThat(verified.isExpired()).isFalse();
+        assertThat(verified.isSelfContained()).isTrue();
+    }
+
+    @Test
+    void verifiesTokenWithoutClaims() {
+        JwtUtil jwtUtil = jwtUtil(SECRET, 60_000L);
+
+        VerifiedToken verified = jwtUtil.verifyToken(jwtUtil.generateToken("alice"));
+
+        assertThat(verified.getUsername()).isEqualTo("alice");
+        assertThat(verified.getUserId()).isNull();
+        assertThat(verified.getRoles()).isNull();
+        assertThat(verified.getEpoch()).isNull();
+        assertThat(verified.isSelfContained()).isFalse();
+    }
+
+    @Test
+    void rejectsExpiredToken() {
+        JwtUtil jwtUtil = jwtUtil(SECRET, -60_000L);
+        String token = jwtUtil.generateToken("alice");
+
+        assertThatThrownBy(() -> jwtUtil.verifyToken(token)).isInstanceOf(ExpiredJwtException.class);
+    }
+
+    @Test
+    void rejectsTamperedToken() {
+        JwtUtil jwtUtil = jwtUtil(SECRET, 60_000L);
+        String token = jwtUtil.generateToken("alice");
+        String[] parts = token.split("\\.");
+        String forged = parts[0] + "." + jwtUtil.generateToken("mallory").split("\\.")[1] + "." + parts[2];
+
+        assertThatThrownBy(() -> jwtUtil.verifyToken(forged)).isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    void rejectsTokenSignedWithAnotherKey() {
+        String token = jwtUtil("another-test-secret-that-is-long-enough-for-hmac", 60_000L).generateToken("alice");
+
+        assertThatThrownBy(() -> jwtUtil(SECRET, 60_000L).verifyToken(token)).isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    void validatesTokenAgainstUserDetails() {
+        JwtUtil jwtUtil = jwtUtil(SECRET, 60_000L);
+        VerifiedToken verified = jwtUtil.verifyToken(jwtUtil.generateToken("alice"));
+
+        assertThat(jwtUtil.validateToken(verified, userDetails("alice"))).isTrue();
+        assertThat(jwtUtil.validateToken(verified, userDetails("bob"))).isFalse();
+    }
+
+    private static JwtUtil jwtUtil(String secret, long expiration) {
+        JwtProperties jwtProperties = new JwtProperties();
+        jwtProperties.setSecret(secret);
+        jwtProperties.setExpiration(expiration);
+        return new JwtUtil(jwtProperties);
+    }
+
+    private static UserDetails userDetails(String username) {
+        return org.springframework.security.core.userdetails.User.withUsername(username)
+                .password("hash")
+                .roles(Role.USER)
+                .build();
+    }
+}
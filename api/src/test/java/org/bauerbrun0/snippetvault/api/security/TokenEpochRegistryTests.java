@@ -0,0 +1,155 @@
+package org.bauerbrun0.snippetvault.api.security;
+
+import org.bauerbrun0.snippetvault.api.config.JwtProperties;
+import org.bauerbrun0.snippetvault.api.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TokenEpochRegistryTests {
+    private UserRepository userRepository;
+    private TokenEpochRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        this.userRepository = mock(UserRepository.class);
+        JwtProperties jwtProperties = new JwtProperties();
+        jwtProperties.setSelfContained(true);
+        this.registry = new TokenEpochRegistry(this.userRepository, jwtProperties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void acceptsOnlyTheCurrentEpoch() {
+        when(this.userRepository.getUserEpochs()).thenReturn(Map.of(1L, 3L));
+        this.registry.refresh();
+
+        assertThat(this.registry.isCurrent(1L, 3L)).isTrue();
+        assertThat(this.registry.isCurrent(1L, 2L)).isFalse();
+        assertThat(this.registry.isCurrent(1L, null)).isFalse();
+        verify(this.userRepository, never()).getUserEpoch(1L);
+    }
+
+    @Test
+    void loadsUsersMissingFromTheTable() {
+        when(this.userRepository.getUserEpoch(1L)).thenReturn(1L);
+        when(this.userRepository.getUserEpoch(2L)).thenReturn(null);
+
+        assertThat(this.registry.isCurrent(1L, 1L)).isTrue();
+        assertThat(this.registry.isCurrent(2L, 1L)).isFalse();
+        assertThat(this.registry.isCurrent(2L, Long.MAX_VALUE)).isFalse();
+    }
+
+    @Test
+    void revokesAfterCommit() {
+        when(this.userRepository.getUserEpochs()).thenReturn(Map.of(1L, 1L));
+        this.registry.refresh();
+        when(this.userRepository.getUserEpoch(1L)).thenReturn(2L);
+
+        TransactionSynchronizationManager.initSynchronization();
+        this.registry.invalidate(1L);
+
+        // Still the old epoch until the update is committed
+        assertThat(this.registry.isCurrent(1L, 1L)).isTrue();
+        verify(this.userRepository, never()).getUserEpoch(1L);
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        assertThat(this.registry.isCurrent(1L, 1L)).isFalse();
+        assertThat(this.registry.isCurrent(1L, 2L)).isTrue();
+    }
+
+    @Test
+    void keepsRevocationCommittedDuringRefresh() {
+        when(this.userRepository.getUserEpochs()).thenReturn(Map.of(1L, 1L));
+        this.registry.refresh();
+        when(this.userRepository.getUserEpoch(1L)).thenReturn(2L);
+        // The refresh reads its snapshot before the update and applies it after the invalidation
+        when(this.userRepository.getUserEpochs()).thenAnswer(invocation -> {
+            this.registry.invalidate(1L);
+            return Map.of(1L, 1L);
+        });
+
+        this.registry.refresh();
+
+        assertThat(this.registry.isCurrent(1L, 1L)).isFalse();
+        assertThat(this.registry.isCurrent(1L, 2L)).isTrue();
+    }
+
+    @Test
+    void revokesUserDeletedOnAnotherNode() {
+        when(this.userRepository.getUserEpochs()).thenReturn(Map.of(1L, 3L, 2L, 1L));
+        this.registry.refresh();
+        when(this.userRepository.getUserEpochs()).thenReturn(Map.of(2L, 1L));
+        when(this.userRepository.getUserEpoch(1L)).thenReturn(null);
+
+        this.registry.refresh();
+
+        assertThat(this.registry.isCurrent(1L, 3L)).isFalse();
+        assertThat(this.registry.isCurrent(2L, 1L)).isTrue();
+    }
+
+    @Test
+    void keepsDeletedUserRevokedAcrossStaleRefresh() {
+        when(this.userRepository.getUserEpochs()).thenReturn(Map.of(1L, 3L));
+        this.registry.refresh();
+        when(this.userRepository.getUserEpoch(1L)).thenReturn(null);
+        // Deleted locally while a refresh still reads the user
+        when(this.userRepository.getUserEpochs()).thenAnswer(invocation -> {
+            this.registry.invalidate(1L);
+            return Map.of(1L, 3L);
+        });
+
+        this.registry.refresh();
+
+        assertThat(this.registry.isCurrent(1L, 3L)).isFalse();
+        verify(this.userRepository).getUserEpoch(1L);
+    }
+
+    @Test
+    void keepsDeletionCommittedDuringRefreshThatNoLongerSeesTheUser() {
+        when(this.userRepository.getUserEpochs()).thenReturn(Map.of(1L, 3L));
+        this.registry.refresh();
+        when(this.userRepository.getUserEpoch(1L)).thenReturn(null);
+        when(this.userRepository.getUserEpochs()).thenAnswer(invocation -> {
+            this.registry.invalidate(1L);
+            return Map.of();
+        });
+
+        this.registry.refresh();
+
+        assertThat(this.registry.isCurrent(1L, 3L)).isFalse();
+        // The deleted user's entry was kept, so it isn't read again
+        verify(this.userRepository).getUserEpoch(1L);
+    }
+
+    @Test
+    void rereadsEpochWhenReloadAfterCommitFails() {
+        when(this.userRepository.getUserEpochs()).thenReturn(Map.of(1L, 1L));
+        this.registry.refresh();
+        when(this.userRepository.getUserEpoch(1L))
+                .thenThrow(new IllegalStateException("connection lost"))
+                .thenReturn(2L);
+
+        this.registry.invalidate(1L);
+
+        assertThat(this.registry.isCurrent(1L, 1L)).isFalse();
+        assertThat(this.registry.isCurrent(1L, 2L)).isTrue();
+    }
+}
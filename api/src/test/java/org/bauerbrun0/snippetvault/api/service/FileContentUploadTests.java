@@ -0,0 +1,135 @@
+package org.bauerbrun0.snippetvault.api.service;
+
+import org.bauerbrun0.snippetvault.api.exception.FileTooLargeException;
+import org.bauerbrun0.snippetvault.api.exception.InvalidFileContentException;
+import org.bauerbrun0.snippetvault.api.model.FileContentDigest;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FileContentUploadTests {
+    // Small enough for characters to be split between reads
+    private static final int BUFFER_SIZE = 4;
+    private static final int MAX_COPY_LENGTH = 10;
+
+    @Test
+    void copiesAndMeasuresContent() throws Exception {
+        String content = "héllo 😀\r\nwörld\n€";
+        StringWriter writer = new StringWriter();
+
+        FileContentDigest digest = upload(content.getBytes(StandardCharsets.UTF_8), 1_000).writeTo(writer);
+
+        FileContentDigest expected = FileContentDigest.of(content);
+        assertThat(writer.toString()).isEqualTo(content);
+        assertThat(digest.getSize()).isEqualTo(expected.getSize());
+        assertThat(digest.getLineCount()).isEqualTo(3);
+        assertThat(digest.getHash()).isEqualTo(expected.getHash());
+    }
+
+    @Test
+    void acceptsContentOfExactlyTheMaxSize() throws Exception {
+        StringWriter writer = new StringWriter();
+
+        FileContentDigest digest = upload("12345678".getBytes(StandardCharsets.UTF_8), 8).writeTo(writer);
+
+        assertThat(digest.getSize()).isEqualTo(8);
+        assertThat(writer.toString()).isEqualTo("12345678");
+    }
+
+    @Test
+    void keepsCopyOfShortContent() throws Exception {
+        FileContentUpload upload = upload("grüße 😀".getBytes(StandardCharsets.UTF_8), 1_000);
+
+        upload.writeTo(new StringWriter());
+
+        assertThat(upload.getCopy()).isEqualTo("grüße 😀");
+    }
+
+    @Test
+    void dropsCopyOfContentPastTheMaxCopyLength() throws Exception {
+        StringWriter writer = new StringWriter();
+        FileContentUpload upload = upload("12345678901".getBytes(StandardCharsets.UTF_8), 1_000);
+
+        upload.writeTo(writer);
+
+        assertThat(writer.toString()).isEqualTo("12345678901");
+        assertThat(upload.getCopy()).isNull();
+    }
+
+    @Test
+    void rejectsContentPastTheMaxSize() {
+        FileContentUpload upload = upload("123456789".getBytes(StandardCharsets.UTF_8), 8);
+
+        assertThatThrownBy(() -> upload.writeTo(new StringWriter())).isInstanceOf(FileTooLargeException.class);
+    }
+
+    @Test
+    void stopsReadingOnceContentIsPastTheMaxSize() {
+        EndlessInputStream body = new EndlessInputStream();
+        FileContentUpload upload = new FileContentUpload(body, 100, BUFFER_SIZE, MAX_COPY_LENGTH);
+
+        assertThatThrownBy(() -> upload.writeTo(new StringWriter())).isInstanceOf(FileTooLargeException.class);
+        assertThat(body.read).isLessThanOrEqualTo(100 + BUFFER_SIZE);
+    }
+
+    @Test
+    void rejectsEmptyBody() {
+        FileContentUpload upload = upload(new byte[0], 8);
+
+        assertThatThrownBy(() -> upload.writeTo(new StringWriter())).isInstanceOf(InvalidFileContentException.class);
+    }
+
+    @Test
+    void rejectsMalformedUtf8() {
+        byte[] body = {'a', 'b', (byte) 0xC3, '(', 'c'};
+
+        assertThatThrownBy(() -> upload(body, 1_000).writeTo(new StringWriter()))
+                .isInstanceOf(InvalidFileContentException.class);
+    }
+
+    @Test
+    void rejectsContentEndingInsideACharacter() {
+        // The first two of the three bytes of the euro sign
+        byte[] body = {'a', (byte) 0xE2, (byte) 0x82};
+
+        assertThatThrownBy(() -> upload(body, 1_000).writeTo(new StringWriter()))
+                .isInstanceOf(InvalidFileContentException.class);
+    }
+
+    @Test
+    void rejectsLatin1() {
+        byte[] body = "grüße".getBytes(StandardCharsets.ISO_8859_1);
+
+        assertThatThrownBy(() -> upload(body, 1_000).writeTo(new StringWriter()))
+                .isInstanceOf(InvalidFileContentException.class);
+    }
+
+    private static FileContentUpload upload(byte[] body, long maxSize) {
+        return new FileContentUpload(new ByteArrayInputStream(body), maxSize, BUFFER_SIZE, MAX_COPY_LENGTH);
+    }
+
+    private static final class EndlessInputStream extends InputStream {
+        private long read;
+
+        @Override
+        public int read() {
+            this.read++;
+            return 'a';
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                b[i] = 'a';
+            }
+            this.read += len;
+            return len;
+        }
+    }
+}
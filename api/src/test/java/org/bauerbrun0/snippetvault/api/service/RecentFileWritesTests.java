@@ -0,0 +1,87 @@
+package org.bauerbrun0.snippetvault.api.service;
+
+import org.bauerbrun0.snippetvault.api.config.SearchProperties;
+import org.bauerbrun0.snippetvault.api.model.File;
+import org.bauerbrun0.snippetvault.api.model.RecentContentMatches;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecentFileWritesTests {
+    private static final Long USER_ID = 1L;
+
+    private final SearchProperties searchProperties = new SearchProperties();
+    private final RecentFileWrites recentFileWrites = new RecentFileWrites(this.searchProperties);
+
+    @Test
+    void matchesWholeTokensOnly() {
+        this.record(10L, 1L, "void quicksort(int[] values)");
+
+        assertThat(this.match("sort").getMatchingFileIds()).isEmpty();
+        assertThat(this.match("QuickSort").getMatchingFileIds()).containsExactly(10L);
+        assertThat(this.match("int").getMatchingFileIds()).containsExactly(10L);
+    }
+
+    @Test
+    void matchesPhrasesAcrossWhitespaceAndPunctuation() {
+        this.record(10L, 1L, "foo\n    bar();\nbaz");
+
+        assertThat(this.match("foo bar").getMatchingFileIds()).containsExactly(10L);
+        assertThat(this.match("  bar,   baz ").getMatchingFileIds()).containsExactly(10L);
+        assertThat(this.match("foo baz").getMatchingFileIds()).isEmpty();
+    }
+
+    @Test
+    void reportsWrittenFilesThatDoNotMatch() {
+        this.record(10L, 1L, "alpha");
+        this.record(11L, 2L, "beta");
+
+        RecentContentMatches matches = this.recentFileWrites.match(USER_ID, "alpha", List.of(2L));
+
+        assertThat(matches.getWrittenFileIds()).containsExactlyInAnyOrder(10L, 11L);
+        assertThat(matches.getMatchingFileIds()).isEmpty();
+    }
+
+    @Test
+    void queryWithoutTokensMatchesNothing() {
+        this.record(10L, 1L, "a -> b");
+
+        RecentContentMatches matches = this.match("->");
+
+        assertThat(matches.getWrittenFileIds()).containsExactly(10L);
+        assertThat(matches.getMatchingFileIds()).isEmpty();
+    }
+
+    @Test
+    void leavesOutWrittenFileWithoutContent() {
+        File file = new File();
+        file.setId(10L);
+        file.setLanguageId(1L);
+        this.recentFileWrites.record(USER_ID, file, null);
+
+        RecentContentMatches matches = this.match("alpha");
+
+        assertThat(matches.getWrittenFileIds()).containsExactly(10L);
+        assertThat(matches.getMatchingFileIds()).isEmpty();
+    }
+
+    @Test
+    void splitsTextIntoSpaceDelimitedTokens() {
+        assertThat(RecentFileWrites.tokens("Grüße, WELT!\tx_1")).isEqualTo(" grüße welt x 1 ");
+        assertThat(RecentFileWrites.tokens("")).isEqualTo(" ");
+    }
+
+    private void record(Long fileId, Long languageId, String content) {
+        File file = new File();
+        file.setId(fileId);
+        file.setLanguageId(languageId);
+        file.setContent(content);
+        this.recentFileWrites.record(USER_ID, file);
+    }
+
+    private RecentContentMatches match(String query) {
+        return this.recentFileWrites.match(USER_ID, query, null);
+    }
+}
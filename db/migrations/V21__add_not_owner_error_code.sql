@@ -0,0 +1,26 @@
+-------------------------------------------------------------------------
+-- V21__add_not_owner_error_code.sql                                   --
+-------------------------------------------------------------------------
+-- Adds the error code raised when a user acts on a snippet, file      --
+-- or tag owned by another user                                        --
+-------------------------------------------------------------------------
+
+CREATE OR REPLACE PACKAGE constants_pkg AS
+    -----------------
+    -- error codes --
+    -----------------
+
+    ERR_DUPLICATE_USERNAME CONSTANT NUMBER := -20001;
+    ERR_ROLE_NOT_FOUND CONSTANT NUMBER := -20002;
+    ERR_USER_NOT_FOUND CONSTANT NUMBER := -20003;
+    ERR_CANNOT_DELETE_LAST_ADMIN CONSTANT NUMBER := -20004;
+    ERR_TAG_COLOR_INVALID CONSTANT NUMBER := -20005;
+    ERR_TAG_NOT_FOUND CONSTANT NUMBER := -20006;
+    ERR_DUPLICATE_TAG_ON_SNIPPET CONSTANT NUMBER := -20007;
+    ERR_SNIPPET_NOT_FOUND CONSTANT NUMBER := -20008;
+    ERR_TAG_NOT_ON_SNIPPET CONSTANT NUMBER :=  -20009;
+    ERR_LANGUAGE_NOT_FOUND CONSTANT NUMBER :=  -20010;
+    ERR_FILE_NOT_FOUND CONSTANT NUMBER := -20011;
+    ERR_NOT_OWNER CONSTANT NUMBER := -20012;
+END constants_pkg;
+/
\ No newline at end of file
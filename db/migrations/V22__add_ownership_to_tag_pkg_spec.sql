@@ -0,0 +1,28 @@
+-------------------------------------------------------------------------
+-- V22__add_ownership_to_tag_pkg_spec.sql                              --
+-------------------------------------------------------------------------
+-- Recreates the tag package's specification with ownership-checked    --
+-- update and delete procedures                                        --
+-------------------------------------------------------------------------
+
+
+CREATE OR REPLACE PACKAGE tag_pkg AS
+    PROCEDURE create_tag(
+        p_user_id IN NUMBER,
+        p_name IN VARCHAR2,
+        p_color IN VARCHAR2,
+        p_tag OUT SYS_REFCURSOR
+    );
+    PROCEDURE update_tag(
+        p_id IN NUMBER,
+        p_user_id IN NUMBER,
+        p_name IN VARCHAR2 DEFAULT NULL,
+        p_color IN VARCHAR2 DEFAULT NULL,
+        p_tag OUT SYS_REFCURSOR
+    );
+    PROCEDURE delete_tag(p_id IN NUMBER, p_user_id IN NUMBER, p_tag OUT SYS_REFCURSOR);
+    FUNCTION get_tags(p_user_id IN NUMBER) RETURN SYS_REFCURSOR;
+    FUNCTION get_tag(p_id IN NUMBER) RETURN SYS_REFCURSOR;
+    PROCEDURE check_tag_owner(p_id IN NUMBER, p_user_id IN NUMBER);
+END tag_pkg;
+/
\ No newline at end of file
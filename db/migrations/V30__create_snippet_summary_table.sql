@@ -0,0 +1,40 @@
+-------------------------------------------------------------------------
+-- V30__create_snippet_summary_table.sql                               --
+-------------------------------------------------------------------------
+-- Creates SNIPPET_SUMMARY, holding the per snippet aggregates used by --
+-- the snippet search (file count, language and tag id sets, content   --
+-- length in characters), and fills it from the existing snippets.     --
+-- The table is kept current by snippet_pkg and tag_pkg                --
+-------------------------------------------------------------------------
+
+
+CREATE TABLE snippet_summary (
+    snippet_id     NUMBER,
+    file_count     NUMBER DEFAULT 0 NOT NULL,
+    content_length NUMBER DEFAULT 0 NOT NULL,
+    language_ids   number_array,
+    tag_ids        number_array
+)
+    NESTED TABLE language_ids STORE AS snippet_summary_language_ids
+    NESTED TABLE tag_ids STORE AS snippet_summary_tag_ids;
+
+ALTER TABLE snippet_summary
+    ADD CONSTRAINT pk_snippet_summary PRIMARY KEY (snippet_id);
+ALTER TABLE snippet_summary
+    ADD CONSTRAINT fk_snippet_summary_snippet
+    FOREIGN KEY (snippet_id) REFERENCES snippet (id)
+    ON DELETE CASCADE;
+
+INSERT INTO snippet_summary (snippet_id, file_count, content_length, language_ids, tag_ids)
+    SELECT s.id,
+           (SELECT COUNT(*) FROM snippetvault_file f WHERE f.snippet_id = s.id),
+           (SELECT NVL(SUM(DBMS_LOB.GETLENGTH(f.content)), 0) FROM snippetvault_file f WHERE f.snippet_id = s.id),
+           CAST(MULTISET(
+               SELECT DISTINCT f.language_id FROM snippetvault_file f WHERE f.snippet_id = s.id
+           ) AS number_array),
+           CAST(MULTISET(
+               SELECT st.tag_id FROM snippet_tag st WHERE st.snippet_id = s.id
+           ) AS number_array)
+    FROM snippet s;
+
+COMMIT;
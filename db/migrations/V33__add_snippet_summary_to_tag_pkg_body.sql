@@ -0,0 +1,231 @@
+-------------------------------------------------------------------------
+-- V33__add_snippet_summary_to_tag_pkg_body.sql                        --
+-------------------------------------------------------------------------
+-- Recreates the tag package's body. delete_tag refreshes the          --
+-- SNIPPET_SUMMARY rows of the snippets the tag was on                 --
+-------------------------------------------------------------------------
+
+
+CREATE OR REPLACE PACKAGE BODY tag_pkg AS
+    PROCEDURE create_tag(
+        p_user_id IN NUMBER,
+        p_name IN VARCHAR2,
+        p_color IN VARCHAR2,
+        p_tag OUT SYS_REFCURSOR
+    ) AS
+        v_id NUMBER;
+    BEGIN
+        INSERT INTO tag (user_id, name, color)
+        VALUES (p_user_id, p_name, p_color)
+        RETURNING id INTO v_id;
+
+        OPEN p_tag FOR
+            SELECT t.id      as id,
+                   t.user_id as user_id,
+                   t.name    as name,
+                   t.color   as color,
+                   t.created as created
+            FROM tag t
+            WHERE t.id = v_id;
+
+    EXCEPTION
+        WHEN OTHERS THEN
+            IF SQLCODE = -2291 THEN
+                IF SQLERRM LIKE '%FK_SNIPPET_USER%' THEN
+                    RAISE_APPLICATION_ERROR(constants_pkg.ERR_USER_NOT_FOUND, 'User not found');
+                ELSE
+                    error_log_pkg.log_error(
+                        p_error_message => SQLERRM,
+                        p_error_backtrace => DBMS_UTILITY.FORMAT_ERROR_BACKTRACE,
+                        p_context => 'Creating tag for user',
+                        p_value => 'user_id=' || p_user_id || ', name=' || p_name || ', color=' || p_color,
+                        p_api => 'tag_pkg.create_tag'
+                    );
+                    RAISE;
+                END IF;
+            ELSIF SQLCODE = -2290 THEN
+                IF SQLERRM LIKE '%CHK_TAG_COLOR%' THEN
+                    RAISE_APPLICATION_ERROR(constants_pkg.ERR_TAG_COLOR_INVALID, 'Tag color must be a valid hex code');
+                ELSE
+                    error_log_pkg.log_error(
+                            p_error_message => SQLERRM,
+                            p_error_backtrace => DBMS_UTILITY.FORMAT_ERROR_BACKTRACE,
+                            p_context => 'Creating tag for user',
+                            p_value => 'user_id=' || p_user_id || ', name=' || p_name || ', color=' || p_color,
+                            p_api => 'tag_pkg.create_tag'
+                    );
+                    RAISE;
+                END IF;
+            ELSE
+                error_log_pkg.log_error(
+                        p_error_message => SQLERRM,
+                        p_error_backtrace => DBMS_UTILITY.FORMAT_ERROR_BACKTRACE,
+                        p_context => 'Creating tag for user',
+                        p_value => 'user_id=' || p_user_id || ', name=' || p_name || ', color=' || p_color,
+                        p_api => 'tag_pkg.create_tag'
+                );
+                RAISE;
+            END IF;
+    END create_tag;
+
+    PROCEDURE update_tag(
+        p_id IN NUMBER,
+        p_user_id IN NUMBER,
+        p_name IN VARCHAR2 DEFAULT NULL,
+        p_color IN VARCHAR2 DEFAULT NULL,
+        p_tag OUT SYS_REFCURSOR
+    ) AS
+        v_id NUMBER;
+    BEGIN
+        UPDATE tag
+        SET name  = COALESCE(p_name, name),
+            color = COALESCE(p_color, color)
+        WHERE id = p_id
+          AND user_id = p_user_id
+        RETURNING id INTO v_id;
+
+        IF SQL%ROWCOUNT = 0 THEN
+            check_tag_owner(p_id, p_user_id);
+            RAISE_APPLICATION_ERROR(constants_pkg.ERR_TAG_NOT_FOUND, 'Tag not found');
+        END IF;
+
+        OPEN p_tag FOR
+            SELECT t.id      AS id,
+                   t.user_id AS user_id,
+                   t.name    AS name,
+                   t.color   AS color,
+                   t.created AS created
+            FROM tag t
+            WHERE id = v_id;
+
+    EXCEPTION
+        WHEN OTHERS THEN
+            IF SQLCODE = -2290 THEN
+                IF SQLERRM LIKE '%CHK_TAG_COLOR%' THEN
+                    RAISE_APPLICATION_ERROR(constants_pkg.ERR_TAG_COLOR_INVALID, 'Tag color must be a valid hex code');
+                ELSE
+                    error_log_pkg.log_error(
+                            p_error_message => SQLERRM,
+                            p_error_backtrace => DBMS_UTILITY.FORMAT_ERROR_BACKTRACE,
+                            p_context => 'Updating tag',
+                            p_value => 'p_id=' || p_id || ', p_user_id=' || p_user_id || ', p_name=' || p_name || ', p_color=' || p_color,
+                            p_api => 'tag_pkg.update_tag'
+                    );
+                    RAISE;
+                END IF;
+            ELSE
+                error_log_pkg.log_error(
+                        p_error_message => SQLERRM,
+                        p_error_backtrace => DBMS_UTILITY.FORMAT_ERROR_BACKTRACE,
+                        p_context => 'Updating tag',
+                        p_value => 'p_id=' || p_id || ', p_user_id=' || p_user_id || ', p_name=' || p_name || ', p_color=' || p_color,
+                        p_api => 'tag_pkg.update_tag'
+                );
+                RAISE;
+            END IF;
+    END update_tag;
+
+    PROCEDURE delete_tag(p_id IN NUMBER, p_user_id IN NUMBER, p_tag OUT SYS_REFCURSOR) AS
+        v_id      NUMBER;
+        v_user_id NUMBER;
+        v_name    VARCHAR2(150 CHAR);
+        v_color   VARCHAR2(7 CHAR);
+        v_created TIMESTAMP;
+        v_snippet_ids number_array;
+    BEGIN
+        -- The tag's snippet_tag rows go with it (ON DELETE CASCADE)
+        SELECT st.snippet_id
+        BULK COLLECT INTO v_snippet_ids
+        FROM snippet_tag st
+        WHERE st.tag_id = p_id;
+
+        DELETE
+        FROM tag
+        WHERE id = p_id
+          AND user_id = p_user_id
+        RETURNING id,
+            user_id,
+            name,
+            color,
+            created
+        INTO v_id,
+            v_user_id,
+            v_name,
+            v_color,
+            v_created;
+
+        IF SQL%ROWCOUNT = 0 THEN
+            check_tag_owner(p_id, p_user_id);
+            RAISE_APPLICATION_ERROR(constants_pkg.ERR_TAG_NOT_FOUND, 'Tag not found');
+        END IF;
+
+        snippet_pkg.refresh_snippet_summary(v_snippet_ids);
+
+        OPEN p_tag FOR
+            SELECT v_id      AS id,
+                   v_user_id AS user_id,
+                   v_name    AS name,
+                   v_color   AS color,
+                   v_created AS created
+            FROM dual;
+    END delete_tag;
+
+    FUNCTION get_tags(p_user_id IN NUMBER) RETURN SYS_REFCURSOR AS
+        v_cur SYS_REFCURSOR;
+    BEGIN
+        OPEN v_cur FOR
+            SELECT id,
+                   user_id,
+                   name,
+                   color,
+                   created
+            FROM tag
+            WHERE user_id = p_user_id
+            ORDER BY created;
+
+        RETURN v_cur;
+    END get_tags;
+
+    FUNCTION get_tag(p_id IN NUMBER) RETURN SYS_REFCURSOR AS
+        v_cur   SYS_REFCURSOR;
+        v_count NUMBER;
+    BEGIN
+        SELECT COUNT(*)
+        INTO v_count
+        FROM tag
+        WHERE id = p_id;
+
+        IF v_count = 0 THEN
+            RAISE_APPLICATION_ERROR(constants_pkg.ERR_TAG_NOT_FOUND, 'Tag not found');
+        END IF;
+
+        OPEN v_cur FOR
+            SELECT id,
+                   user_id,
+                   name,
+                   color,
+                   created
+            FROM tag
+            WHERE id = p_id;
+
+        RETURN v_cur;
+    END get_tag;
+
+    -- Raises ERR_TAG_NOT_FOUND or ERR_NOT_OWNER unless the tag belongs to the user
+    PROCEDURE check_tag_owner(p_id IN NUMBER, p_user_id IN NUMBER) AS
+        v_user_id NUMBER;
+    BEGIN
+        SELECT user_id
+        INTO v_user_id
+        FROM tag
+        WHERE id = p_id;
+
+        IF v_user_id <> p_user_id THEN
+            RAISE_APPLICATION_ERROR(constants_pkg.ERR_NOT_OWNER, 'Tag belongs to another user');
+        END IF;
+    EXCEPTION
+        WHEN NO_DATA_FOUND THEN
+            RAISE_APPLICATION_ERROR(constants_pkg.ERR_TAG_NOT_FOUND, 'Tag not found');
+    END check_tag_owner;
+END tag_pkg;
+/
\ No newline at end of file
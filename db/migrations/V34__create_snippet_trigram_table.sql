@@ -0,0 +1,38 @@
+-------------------------------------------------------------------------
+-- V34__create_snippet_trigram_table.sql                               --
+-------------------------------------------------------------------------
+-- Creates the TRIGRAM_ARRAY type and the SNIPPET_TRIGRAM table, an    --
+-- index of the lowercase trigrams of snippet titles, descriptions     --
+-- and filenames used to narrow down the substring search              --
+-------------------------------------------------------------------------
+
+
+CREATE OR REPLACE TYPE trigram_array AS TABLE OF VARCHAR2(3 CHAR);
+/
+
+-- source: 'T' title, 'D' description, 'F' filename (file_id is set)
+CREATE TABLE snippet_trigram (
+    user_id    NUMBER           NOT NULL,
+    snippet_id NUMBER           NOT NULL,
+    file_id    NUMBER,
+    source     VARCHAR2(1)      NOT NULL,
+    trigram    VARCHAR2(3 CHAR) NOT NULL
+);
+
+ALTER TABLE snippet_trigram
+    ADD CONSTRAINT fk_snippet_trigram_snippet
+    FOREIGN KEY (snippet_id) REFERENCES snippet (id)
+    ON DELETE CASCADE;
+ALTER TABLE snippet_trigram
+    ADD CONSTRAINT fk_snippet_trigram_file
+    FOREIGN KEY (file_id) REFERENCES snippetvault_file (id)
+    ON DELETE CASCADE;
+ALTER TABLE snippet_trigram ADD CONSTRAINT chk_snippet_trigram_source
+    CHECK (source IN ('T', 'D', 'F'));
+
+CREATE INDEX idx_snippet_trigram_lookup
+    ON snippet_trigram (user_id, trigram, snippet_id, source, file_id);
+CREATE INDEX idx_snippet_trigram_snippet
+    ON snippet_trigram (snippet_id);
+CREATE INDEX idx_snippet_trigram_file
+    ON snippet_trigram (file_id);
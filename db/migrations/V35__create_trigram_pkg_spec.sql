@@ -0,0 +1,13 @@
+-------------------------------------------------------------------------
+-- V35__create_trigram_pkg_spec.sql                                    --
+-------------------------------------------------------------------------
+-- Creates the trigram package's specification                         --
+-------------------------------------------------------------------------
+
+
+CREATE OR REPLACE PACKAGE trigram_pkg AS
+    FUNCTION get_trigrams(p_text IN VARCHAR2) RETURN trigram_array;
+    PROCEDURE index_snippet(p_snippet_id IN NUMBER);
+    PROCEDURE index_file(p_file_id IN NUMBER);
+END trigram_pkg;
+/
@@ -0,0 +1,59 @@
+-------------------------------------------------------------------------
+-- V36__create_trigram_pkg_body.sql                                    --
+-------------------------------------------------------------------------
+-- Creates the trigram package's body                                  --
+-------------------------------------------------------------------------
+
+
+CREATE OR REPLACE PACKAGE BODY trigram_pkg AS
+    -- Distinct trigrams of the lowercased text, empty below three characters
+    FUNCTION get_trigrams(p_text IN VARCHAR2) RETURN trigram_array AS
+        v_text     VARCHAR2(32767 CHAR);
+        v_trigrams trigram_array := trigram_array();
+    BEGIN
+        v_text := LOWER(p_text);
+        IF v_text IS NULL OR LENGTH(v_text) < 3 THEN
+            RETURN v_trigrams;
+        END IF;
+
+        FOR i IN 1 .. LENGTH(v_text) - 2 LOOP
+            v_trigrams.EXTEND;
+            v_trigrams(v_trigrams.LAST) := SUBSTR(v_text, i, 3);
+        END LOOP;
+
+        RETURN SET(v_trigrams);
+    END get_trigrams;
+
+    PROCEDURE index_snippet(p_snippet_id IN NUMBER) AS
+    BEGIN
+        DELETE
+        FROM snippet_trigram
+        WHERE snippet_id = p_snippet_id
+          AND file_id IS NULL;
+
+        INSERT INTO snippet_trigram (user_id, snippet_id, file_id, source, trigram)
+        SELECT s.user_id, s.id, NULL, 'T', t.COLUMN_VALUE
+        FROM snippet s, TABLE(get_trigrams(s.title)) t
+        WHERE s.id = p_snippet_id;
+
+        INSERT INTO snippet_trigram (user_id, snippet_id, file_id, source, trigram)
+        SELECT s.user_id, s.id, NULL, 'D', t.COLUMN_VALUE
+        FROM snippet s, TABLE(get_trigrams(s.description)) t
+        WHERE s.id = p_snippet_id;
+    END index_snippet;
+
+    PROCEDURE index_file(p_file_id IN NUMBER) AS
+    BEGIN
+        DELETE
+        FROM snippet_trigram
+        WHERE file_id = p_file_id;
+
+        INSERT INTO snippet_trigram (user_id, snippet_id, file_id, source, trigram)
+        SELECT s.user_id, s.id, f.id, 'F', t.COLUMN_VALUE
+        FROM snippetvault_file f
+        JOIN snippet s ON s.id = f.snippet_id,
+        TABLE(get_trigrams(f.filename)) t
+        WHERE f.id = p_file_id;
+    END index_file;
+END trigram_pkg;
+/
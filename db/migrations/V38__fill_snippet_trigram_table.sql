@@ -0,0 +1,19 @@
+-------------------------------------------------------------------------
+-- V38__fill_snippet_trigram_table.sql                                 --
+-------------------------------------------------------------------------
+-- Indexes the trigrams of the existing snippets and files             --
+-------------------------------------------------------------------------
+
+
+BEGIN
+    FOR s IN (SELECT id FROM snippet) LOOP
+        trigram_pkg.index_snippet(s.id);
+    END LOOP;
+
+    FOR f IN (SELECT id FROM snippetvault_file) LOOP
+        trigram_pkg.index_file(f.id);
+    END LOOP;
+
+    COMMIT;
+END;
+/
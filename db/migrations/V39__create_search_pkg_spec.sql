@@ -0,0 +1,17 @@
+-------------------------------------------------------------------------
+-- V39__create_search_pkg_spec.sql                                     --
+-------------------------------------------------------------------------
+-- Creates the search package's specification                          --
+-------------------------------------------------------------------------
+
+
+CREATE OR REPLACE PACKAGE search_pkg AS
+    PROCEDURE get_index_rows(
+        p_user_id IN NUMBER DEFAULT NULL,
+        p_snippet_ids IN number_array DEFAULT NULL,
+        p_snippets OUT SYS_REFCURSOR,
+        p_files OUT SYS_REFCURSOR,
+        p_snippet_tags OUT SYS_REFCURSOR
+    );
+END search_pkg;
+/
@@ -0,0 +1,52 @@
+-------------------------------------------------------------------------
+-- V40__create_search_pkg_body.sql                                     --
+-------------------------------------------------------------------------
+-- Creates the search package's body. get_index_rows returns the       --
+-- snippets, files and tag links the API's in-memory search index is   --
+-- built from, optionally restricted to a user and/or snippet ids      --
+-------------------------------------------------------------------------
+
+
+CREATE OR REPLACE PACKAGE BODY search_pkg AS
+    PROCEDURE get_index_rows(
+        p_user_id IN NUMBER DEFAULT NULL,
+        p_snippet_ids IN number_array DEFAULT NULL,
+        p_snippets OUT SYS_REFCURSOR,
+        p_files OUT SYS_REFCURSOR,
+        p_snippet_tags OUT SYS_REFCURSOR
+    ) AS
+    BEGIN
+        OPEN p_snippets FOR
+            SELECT s.id,
+                   s.user_id,
+                   s.title,
+                   s.description,
+                   s.created,
+                   s.updated
+            FROM snippet s
+            WHERE (p_user_id IS NULL OR s.user_id = p_user_id)
+              AND (p_snippet_ids IS NULL OR s.id IN (SELECT COLUMN_VALUE FROM TABLE(p_snippet_ids)));
+
+        OPEN p_files FOR
+            SELECT f.id,
+                   f.snippet_id,
+                   f.filename,
+                   f.content,
+                   f.language_id,
+                   f.created,
+                   f.updated
+            FROM snippetvault_file f
+            JOIN snippet s ON s.id = f.snippet_id
+            WHERE (p_user_id IS NULL OR s.user_id = p_user_id)
+              AND (p_snippet_ids IS NULL OR s.id IN (SELECT COLUMN_VALUE FROM TABLE(p_snippet_ids)));
+
+        OPEN p_snippet_tags FOR
+            SELECT st.snippet_id,
+                   st.tag_id
+            FROM snippet_tag st
+            JOIN snippet s ON s.id = st.snippet_id
+            WHERE (p_user_id IS NULL OR s.user_id = p_user_id)
+              AND (p_snippet_ids IS NULL OR s.id IN (SELECT COLUMN_VALUE FROM TABLE(p_snippet_ids)));
+    END get_index_rows;
+END search_pkg;
+/
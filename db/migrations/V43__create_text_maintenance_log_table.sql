@@ -0,0 +1,44 @@
+-------------------------------------------------------------------------
+-- V43__create_text_maintenance_log_table.sql                          --
+-------------------------------------------------------------------------
+-- Creates the text_maintenance_log table, sequence and trigger        --
+-- recording the Oracle Text maintenance decisions and timings         --
+-------------------------------------------------------------------------
+
+
+-- Sequence --
+
+CREATE SEQUENCE text_maintenance_log_seq
+    START WITH 10000
+    INCREMENT BY 1;
+
+-- Table --
+
+-- action: SYNC, SYNC_SKIPPED, OPTIMIZE, OPTIMIZE_SKIPPED
+CREATE TABLE text_maintenance_log (
+    id            NUMBER,
+    time          TIMESTAMP DEFAULT SYSTIMESTAMP,
+    index_name    VARCHAR2(128) NOT NULL,
+    action        VARCHAR2(20)  NOT NULL,
+    pending_count NUMBER,
+    fragmentation NUMBER,
+    duration_ms   NUMBER
+);
+
+-- Constraint --
+
+ALTER TABLE text_maintenance_log
+    ADD CONSTRAINT pk_text_maintenance_log PRIMARY KEY (id);
+
+-- Trigger --
+
+CREATE OR REPLACE TRIGGER trg_text_maint_log_before_ins
+    BEFORE INSERT
+    ON text_maintenance_log
+    FOR EACH ROW
+BEGIN
+    IF :NEW.id IS NULL THEN
+        SELECT text_maintenance_log_seq.nextval INTO :NEW.id FROM dual;
+    END IF;
+END;
+/
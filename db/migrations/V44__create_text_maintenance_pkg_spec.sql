@@ -0,0 +1,17 @@
+-------------------------------------------------------------------------
+-- V44__create_text_maintenance_pkg_spec.sql                           --
+-------------------------------------------------------------------------
+-- Creates the text maintenance package's specification                --
+-------------------------------------------------------------------------
+
+
+CREATE OR REPLACE PACKAGE text_maintenance_pkg AS
+    PROCEDURE sync_if_pending(p_index_name IN VARCHAR2 DEFAULT 'IDX_FILE_CONTENT');
+    PROCEDURE optimize_if_fragmented(
+        p_index_name IN VARCHAR2 DEFAULT 'IDX_FILE_CONTENT',
+        p_max_minutes IN NUMBER DEFAULT 10,
+        p_min_fragmentation IN NUMBER DEFAULT 1.5
+    );
+    FUNCTION get_log(p_after_id IN NUMBER DEFAULT NULL) RETURN SYS_REFCURSOR;
+END text_maintenance_pkg;
+/
@@ -0,0 +1,60 @@
+-------------------------------------------------------------------------
+-- V46__recreate_file_content_index_jobs.sql                           --
+-------------------------------------------------------------------------
+-- Replaces the fixed Oracle Text jobs of V16                          --
+--                                                                     --
+-- 1) JOB_SYNC_IDX_FILE_CONTENT                                        --
+--    - Runs every minute, but only syncs IDX_FILE_CONTENT when it has --
+--      pending DML                                                    --
+--                                                                     --
+-- 2) JOB_OPTIMIZE_IDX_FILE_CONTENT                                    --
+--    - Runs daily at 03:30, 04:30 and 05:30, clear of the 02:00       --
+--      history cleanup                                                --
+--    - Optimizes IDX_FILE_CONTENT for at most 10 minutes per run, and --
+--      only when its token rows are fragmented                        --
+-------------------------------------------------------------------------
+
+DECLARE
+    job_exists EXCEPTION;
+    PRAGMA EXCEPTION_INIT(job_exists, -27475); -- ORA-27475: job does not exist
+BEGIN
+    BEGIN
+        DBMS_SCHEDULER.DROP_JOB('JOB_SYNC_IDX_FILE_CONTENT', force => TRUE);
+    EXCEPTION
+        WHEN job_exists THEN NULL;
+    END;
+
+    BEGIN
+        DBMS_SCHEDULER.DROP_JOB('JOB_OPTIMIZE_IDX_FILE_CONTENT', force => TRUE);
+    EXCEPTION
+        WHEN job_exists THEN NULL;
+    END;
+
+    DBMS_SCHEDULER.CREATE_JOB(
+            job_name        => 'JOB_SYNC_IDX_FILE_CONTENT',
+            job_type        => 'PLSQL_BLOCK',
+            job_action      => '
+                BEGIN
+                    text_maintenance_pkg.sync_if_pending(''IDX_FILE_CONTENT'');
+                END;',
+            start_date      => SYSTIMESTAMP,
+            repeat_interval => 'FREQ=MINUTELY; INTERVAL=1',
+            enabled         => TRUE
+    );
+
+    DBMS_SCHEDULER.CREATE_JOB(
+            job_name        => 'JOB_OPTIMIZE_IDX_FILE_CONTENT',
+            job_type        => 'PLSQL_BLOCK',
+            job_action      => '
+                BEGIN
+                    text_maintenance_pkg.optimize_if_fragmented(
+                        p_index_name => ''IDX_FILE_CONTENT'',
+                        p_max_minutes => 10
+                    );
+                END;',
+            start_date      => SYSTIMESTAMP,
+            repeat_interval => 'FREQ=DAILY; BYHOUR=3,4,5; BYMINUTE=30; BYSECOND=0',
+            enabled         => TRUE
+    );
+END;
+/
@@ -0,0 +1,23 @@
+-------------------------------------------------------------------------
+-- V49__add_suggestions_to_search_pkg_spec.sql                         --
+-------------------------------------------------------------------------
+-- Recreates the search package's specification with the rows of the   --
+-- typeahead suggestions                                               --
+-------------------------------------------------------------------------
+
+
+CREATE OR REPLACE PACKAGE search_pkg AS
+    PROCEDURE get_index_rows(
+        p_user_id IN NUMBER DEFAULT NULL,
+        p_snippet_ids IN number_array DEFAULT NULL,
+        p_snippets OUT SYS_REFCURSOR,
+        p_files OUT SYS_REFCURSOR,
+        p_snippet_tags OUT SYS_REFCURSOR
+    );
+    PROCEDURE get_suggestion_rows(
+        p_user_id IN NUMBER,
+        p_snippet_ids IN number_array DEFAULT NULL,
+        p_rows OUT SYS_REFCURSOR
+    );
+END search_pkg;
+/
@@ -0,0 +1,28 @@
+-------------------------------------------------------------------------
+-- V51__add_file_contents_to_search_pkg_spec.sql                       --
+-------------------------------------------------------------------------
+-- Recreates the search package's specification with the file          --
+-- contents scanned by the API's regex search                          --
+-------------------------------------------------------------------------
+
+
+CREATE OR REPLACE PACKAGE search_pkg AS
+    PROCEDURE get_index_rows(
+        p_user_id IN NUMBER DEFAULT NULL,
+        p_snippet_ids IN number_array DEFAULT NULL,
+        p_snippets OUT SYS_REFCURSOR,
+        p_files OUT SYS_REFCURSOR,
+        p_snippet_tags OUT SYS_REFCURSOR
+    );
+    PROCEDURE get_suggestion_rows(
+        p_user_id IN NUMBER,
+        p_snippet_ids IN number_array DEFAULT NULL,
+        p_rows OUT SYS_REFCURSOR
+    );
+    PROCEDURE get_file_contents(
+        p_user_id IN NUMBER,
+        p_language_ids IN number_array DEFAULT NULL,
+        p_files OUT SYS_REFCURSOR
+    );
+END search_pkg;
+/
@@ -0,0 +1,1029 @@
+-------------------------------------------------------------------------
+-- V54__add_file_content_to_snippet_pkg_body.sql                       --
+-------------------------------------------------------------------------
+-- Recreates the snippet package's body. get_file_content returns one  --
+-- file's content locator with its size in UTF-8 bytes, so the API can --
+-- answer byte ranges without reading the content first                --
+-------------------------------------------------------------------------
+
+
+CREATE OR REPLACE PACKAGE BODY snippet_pkg AS
+    PROCEDURE create_snippet(
+        p_user_id IN NUMBER,
+        p_title IN VARCHAR2,
+        p_description IN VARCHAR2,
+        p_snippet OUT SYS_REFCURSOR
+    ) AS
+        v_id          NUMBER;
+        v_user_id     NUMBER;
+        v_title       VARCHAR2(255 CHAR);
+        v_description VARCHAR2(4000 CHAR);
+        v_created     TIMESTAMP;
+        v_updated     TIMESTAMP;
+    BEGIN
+        INSERT INTO snippet (user_id, title, description)
+        VALUES (p_user_id, p_title, p_description)
+        RETURN id,
+            user_id,
+            title,
+            description,
+            created,
+            updated
+        INTO v_id,
+            v_user_id,
+            v_title,
+            v_description,
+            v_created,
+            v_updated;
+
+        refresh_snippet_summary(number_array(v_id));
+        trigram_pkg.index_snippet(v_id);
+
+        OPEN p_snippet FOR
+            SELECT v_id          AS id,
+                   v_user_id     AS user_id,
+                   v_title       AS title,
+                   v_description AS description,
+                   v_created     AS created,
+                   v_updated     AS updated
+            FROM dual;
+    EXCEPTION
+        WHEN OTHERS THEN
+            IF SQLCODE = -2291 THEN
+                IF SQLERRM LIKE '%FK_SNIPPET_USER%' THEN
+                    RAISE_APPLICATION_ERROR(constants_pkg.ERR_USER_NOT_FOUND, 'User not found');
+                ELSE
+                    error_log_pkg.log_error(
+                            p_error_message => SQLERRM,
+                            p_error_backtrace => DBMS_UTILITY.FORMAT_ERROR_BACKTRACE,
+                            p_context => 'Creating snippet',
+                            p_value => 'p_user_id=' || p_user_id || ', p_title=' || p_title || ', p_description=' || p_description,
+                            p_api => 'snippet_pkg.create_snippet'
+                    );
+                    RAISE;
+                END IF;
+            ELSE
+                error_log_pkg.log_error(
+                        p_error_message => SQLERRM,
+                        p_error_backtrace => DBMS_UTILITY.FORMAT_ERROR_BACKTRACE,
+                        p_context => 'Creating snippet',
+                        p_value => 'p_user_id=' || p_user_id || ', p_title=' || p_title || ', p_description=' || p_description,
+                        p_api => 'snippet_pkg.create_snippet'
+                );
+                RAISE;
+            END IF;
+    END create_snippet;
+    PROCEDURE get_paginated_snippets(
+        p_user_id IN NUMBER,
+        p_search_query IN VARCHAR2,
+        p_tag_ids IN number_array,
+        p_language_ids IN number_array,
+        p_page_number IN NUMBER,
+        p_page_size IN NUMBER,
+        p_after_relevance IN NUMBER,
+        p_after_updated IN TIMESTAMP,
+        p_after_id IN NUMBER,
+        p_include_total_count IN NUMBER,
+        p_written_file_ids IN number_array,
+        p_matching_file_ids IN number_array,
+        p_include_facets IN NUMBER,
+        p_snippets OUT SYS_REFCURSOR
+    ) AS
+        v_search_query VARCHAR2(4000);
+        v_page_number NUMBER;
+        v_page_size   NUMBER;
+        v_first_row   NUMBER;
+        v_last_row    NUMBER;
+        v_filter_tags      NUMBER;
+        v_filter_languages NUMBER;
+        v_trigrams         trigram_array;
+        v_trigram_count    NUMBER;
+        v_written_file_ids  number_array;
+        v_matching_file_ids number_array;
+        v_include_total_count NUMBER;
+        v_include_facets      NUMBER;
+    BEGIN
+        v_search_query := TRIM(p_search_query);
+        v_include_total_count := NVL(p_include_total_count, 1);
+        v_include_facets := NVL(p_include_facets, 0);
+
+        -- Files written since the last sync of IDX_FILE_CONTENT: their content is matched by
+        -- the caller (p_matching_file_ids) instead of the not yet updated index
+        v_written_file_ids := NVL(p_written_file_ids, number_array());
+        v_matching_file_ids := NVL(p_matching_file_ids, number_array());
+
+        -- Title, description and filename matches are only looked for in snippets whose
+        -- field holds every trigram of the query. LIKE wildcards in the query can't be
+        -- mapped to trigrams, and shorter queries have none, so those still scan.
+        IF v_search_query IS NOT NULL
+            AND LENGTH(v_search_query) >= 3
+            AND INSTR(v_search_query, '%') = 0
+            AND INSTR(v_search_query, '_') = 0
+        THEN
+            v_trigrams := trigram_pkg.get_trigrams(v_search_query);
+            v_trigram_count := v_trigrams.COUNT;
+        ELSE
+            v_trigrams := trigram_array();
+            v_trigram_count := 0;
+        END IF;
+
+        v_filter_tags := CASE WHEN p_tag_ids IS NULL OR CARDINALITY(p_tag_ids) = 0 THEN 0 ELSE 1 END;
+        v_filter_languages := CASE WHEN p_language_ids IS NULL OR CARDINALITY(p_language_ids) = 0 THEN 0 ELSE 1 END;
+        v_page_number := NVL(p_page_number, 1);
+        v_page_size := NVL(p_page_size, 20);
+
+        -- With a keyset (p_after_*) the page starts right after the given
+        -- (relevance, updated, id) position, otherwise at the page number's offset.
+        -- One extra row is returned so the caller can tell whether more follow.
+        IF p_after_id IS NULL THEN
+            v_first_row := (v_page_number - 1) * v_page_size + 1;
+        ELSE
+            v_first_row := 1;
+        END IF;
+        v_last_row := v_first_row + v_page_size;
+
+        IF v_include_total_count = 1 OR v_include_facets = 1 THEN
+            -- Every page row carries the total count and the facets; when the page is
+            -- empty a single row with a NULL id is returned so the caller still gets them.
+            -- The facets count the matches per tag and per language, aggregated over
+            -- the same matched set as the page instead of a second search.
+            OPEN p_snippets FOR
+            WITH candidates AS (
+                -- Semi-joins keep one row per snippet, however many files and tags it has
+                SELECT s.id,
+                       CASE
+                           WHEN v_search_query IS NULL THEN 1
+                           WHEN LOWER(s.title) LIKE '%' || LOWER(v_search_query) || '%' THEN 1
+                           WHEN LOWER(s.description) LIKE '%' || LOWER(v_search_query) || '%' THEN 2
+                           WHEN EXISTS (
+                               SELECT 1
+                               FROM snippetvault_file f
+                               WHERE f.snippet_id = s.id
+                                 AND (v_filter_languages = 0 OR f.language_id MEMBER OF p_language_ids)
+                                 AND LOWER(f.filename) LIKE '%' || LOWER(v_search_query) || '%'
+                           ) THEN 3
+                           WHEN EXISTS (
+                               SELECT 1
+                               FROM snippetvault_file f
+                               WHERE f.snippet_id = s.id
+                                 AND (v_filter_languages = 0 OR f.language_id MEMBER OF p_language_ids)
+                                 AND (
+                                     (
+                                         f.id NOT MEMBER OF v_written_file_ids
+                                         AND CONTAINS(f.content, v_search_query) > 0
+                                     )
+                                     OR f.id MEMBER OF v_matching_file_ids
+                                 )
+                           ) THEN 4
+                           ELSE 5
+                       END AS relevance
+                FROM snippet s
+                WHERE s.user_id = p_user_id
+                  AND (
+                      v_trigram_count = 0
+                      OR s.id IN (
+                          SELECT tg.snippet_id
+                          FROM snippet_trigram tg
+                          WHERE tg.user_id = p_user_id
+                            AND tg.trigram IN (SELECT COLUMN_VALUE FROM TABLE(v_trigrams))
+                          GROUP BY tg.snippet_id, tg.source, tg.file_id
+                          HAVING COUNT(*) = v_trigram_count
+                      )
+                      OR s.id IN (
+                          SELECT f.snippet_id
+                          FROM snippetvault_file f
+                          WHERE CONTAINS(f.content, v_search_query) > 0
+                      )
+                      OR s.id IN (
+                          SELECT f.snippet_id
+                          FROM snippetvault_file f
+                          WHERE f.id IN (SELECT COLUMN_VALUE FROM TABLE(v_matching_file_ids))
+                      )
+                  )
+                  AND (
+                      v_filter_tags = 0
+                      OR EXISTS (
+                          SELECT 1
+                          FROM snippet_tag st
+                          WHERE st.snippet_id = s.id
+                            AND st.tag_id MEMBER OF p_tag_ids
+                      )
+                  )
+                  AND (
+                      v_filter_languages = 0
+                      OR EXISTS (
+                          SELECT 1
+                          FROM snippetvault_file f
+                          WHERE f.snippet_id = s.id
+                            AND f.language_id MEMBER OF p_language_ids
+                      )
+                  )
+                ), matched AS (
+                    SELECT c.id, c.relevance
+                    FROM candidates c
+                    WHERE v_search_query IS NULL OR c.relevance < 5
+                ), ranked AS (
+                    SELECT d.id,
+                           d.relevance,
+                           s.user_id,
+                           s.title,
+                           s.description,
+                           s.created,
+                           s.updated,
+                           COUNT(*) OVER () AS total_count
+                    FROM matched d
+                    JOIN snippet s ON s.id = d.id
+                ), page AS (
+                    SELECT *
+                    FROM (
+                        SELECT r.*,
+                               ROW_NUMBER() OVER (
+                                    ORDER BY r.relevance, r.updated DESC, r.id
+                                ) AS row_number
+                        FROM ranked r
+                        WHERE
+                            p_after_id IS NULL
+                            OR r.relevance > p_after_relevance
+                            OR (r.relevance = p_after_relevance AND r.updated < p_after_updated)
+                            OR (
+                                r.relevance = p_after_relevance
+                                AND r.updated = p_after_updated
+                                AND r.id > p_after_id
+                            )
+                    )
+                    WHERE row_number BETWEEN v_first_row AND v_last_row
+                ), extended AS (
+                    SELECT p.id,
+                           p.relevance,
+                           p.user_id,
+                           p.title,
+                           p.description,
+                           p.created,
+                           p.updated,
+                           p.row_number,
+                           NVL(ss.file_count, 0) AS file_count,
+                           ss.language_ids,
+                           ss.tag_ids
+                    FROM page p
+                    LEFT JOIN snippet_summary ss ON ss.snippet_id = p.id
+                ), total AS (
+                    SELECT NVL(MAX(r.total_count), 0) AS total_count
+                    FROM ranked r
+                    WHERE ROWNUM = 1
+                ), tag_facets AS (
+                    SELECT t.COLUMN_VALUE AS id,
+                           COUNT(*) AS match_count
+                    FROM matched d,
+                         snippet_summary ss,
+                         TABLE(ss.tag_ids) t
+                    WHERE v_include_facets = 1
+                      AND ss.snippet_id = d.id
+                    GROUP BY t.COLUMN_VALUE
+                ), language_facets AS (
+                    SELECT l.COLUMN_VALUE AS id,
+                           COUNT(*) AS match_count
+                    FROM matched d,
+                         snippet_summary ss,
+                         TABLE(ss.language_ids) l
+                    WHERE v_include_facets = 1
+                      AND ss.snippet_id = d.id
+                    GROUP BY l.COLUMN_VALUE
+                ), facets AS (
+                    -- Ids and counts are ordered alike, so their elements pair up
+                    SELECT CAST(MULTISET(
+                               SELECT tf.id FROM tag_facets tf ORDER BY tf.id
+                           ) AS number_array) AS facet_tag_ids,
+                           CAST(MULTISET(
+                               SELECT tf.match_count FROM tag_facets tf ORDER BY tf.id
+                           ) AS number_array) AS facet_tag_counts,
+                           CAST(MULTISET(
+                               SELECT lf.id FROM language_facets lf ORDER BY lf.id
+                           ) AS number_array) AS facet_language_ids,
+                           CAST(MULTISET(
+                               SELECT lf.match_count FROM language_facets lf ORDER BY lf.id
+                           ) AS number_array) AS facet_language_counts
+                    FROM dual
+                    WHERE v_include_facets = 1
+                )
+                SELECT e.id,
+                       e.user_id,
+                       e.title,
+                       e.description,
+                       e.created,
+                       e.updated,
+                       e.relevance,
+                       e.file_count,
+                       e.language_ids,
+                       e.tag_ids,
+                       CASE WHEN v_include_total_count = 1 THEN t.total_count END AS total_count,
+                       fc.facet_tag_ids,
+                       fc.facet_tag_counts,
+                       fc.facet_language_ids,
+                       fc.facet_language_counts
+                FROM total t
+                LEFT JOIN facets fc ON 1 = 1
+                LEFT JOIN extended e ON 1 = 1
+                ORDER BY e.row_number;
+        ELSE
+            -- Count-free mode: a top-N query that stops after the last requested row
+            -- instead of sorting every match
+            OPEN p_snippets FOR
+            WITH candidates AS (
+                -- Semi-joins keep one row per snippet, however many files and tags it has
+                SELECT s.id,
+                       CASE
+                           WHEN v_search_query IS NULL THEN 1
+                           WHEN LOWER(s.title) LIKE '%' || LOWER(v_search_query) || '%' THEN 1
+                           WHEN LOWER(s.description) LIKE '%' || LOWER(v_search_query) || '%' THEN 2
+                           WHEN EXISTS (
+                               SELECT 1
+                               FROM snippetvault_file f
+                               WHERE f.snippet_id = s.id
+                                 AND (v_filter_languages = 0 OR f.language_id MEMBER OF p_language_ids)
+                                 AND LOWER(f.filename) LIKE '%' || LOWER(v_search_query) || '%'
+                           ) THEN 3
+                           WHEN EXISTS (
+                               SELECT 1
+                               FROM snippetvault_file f
+                               WHERE f.snippet_id = s.id
+                                 AND (v_filter_languages = 0 OR f.language_id MEMBER OF p_language_ids)
+                                 AND (
+                                     (
+                                         f.id NOT MEMBER OF v_written_file_ids
+                                         AND CONTAINS(f.content, v_search_query) > 0
+                                     )
+                                     OR f.id MEMBER OF v_matching_file_ids
+                                 )
+                           ) THEN 4
+                           ELSE 5
+                       END AS relevance
+                FROM snippet s
+                WHERE s.user_id = p_user_id
+                  AND (
+                      v_trigram_count = 0
+                      OR s.id IN (
+                          SELECT tg.snippet_id
+                          FROM snippet_trigram tg
+                          WHERE tg.user_id = p_user_id
+                            AND tg.trigram IN (SELECT COLUMN_VALUE FROM TABLE(v_trigrams))
+                          GROUP BY tg.snippet_id, tg.source, tg.file_id
+                          HAVING COUNT(*) = v_trigram_count
+                      )
+                      OR s.id IN (
+                          SELECT f.snippet_id
+                          FROM snippetvault_file f
+                          WHERE CONTAINS(f.content, v_search_query) > 0
+                      )
+                      OR s.id IN (
+                          SELECT f.snippet_id
+                          FROM snippetvault_file f
+                          WHERE f.id IN (SELECT COLUMN_VALUE FROM TABLE(v_matching_file_ids))
+                      )
+                  )
+                  AND (
+                      v_filter_tags = 0
+                      OR EXISTS (
+                          SELECT 1
+                          FROM snippet_tag st
+                          WHERE st.snippet_id = s.id
+                            AND st.tag_id MEMBER OF p_tag_ids
+                      )
+                  )
+                  AND (
+                      v_filter_languages = 0
+                      OR EXISTS (
+                          SELECT 1
+                          FROM snippetvault_file f
+                          WHERE f.snippet_id = s.id
+                            AND f.language_id MEMBER OF p_language_ids
+                      )
+                  )
+                ), matched AS (
+                    SELECT c.id, c.relevance
+                    FROM candidates c
+                    WHERE v_search_query IS NULL OR c.relevance < 5
+                ), ordered AS (
+                    SELECT d.id,
+                           d.relevance,
+                           s.user_id,
+                           s.title,
+                           s.description,
+                           s.created,
+                           s.updated
+                    FROM matched d
+                    JOIN snippet s ON s.id = d.id
+                    WHERE
+                            p_after_id IS NULL
+                            OR d.relevance > p_after_relevance
+                            OR (d.relevance = p_after_relevance AND s.updated < p_after_updated)
+                            OR (
+                                d.relevance = p_after_relevance
+                                AND s.updated = p_after_updated
+                                AND d.id > p_after_id
+                            )
+                    ORDER BY d.relevance, s.updated DESC, d.id
+                ), page AS (
+                    SELECT *
+                    FROM (
+                        SELECT o.*,
+                               ROWNUM AS row_number
+                        FROM ordered o
+                        WHERE ROWNUM <= v_last_row
+                    )
+                    WHERE row_number >= v_first_row
+                ), extended AS (
+                    SELECT p.id,
+                           p.relevance,
+                           p.user_id,
+                           p.title,
+                           p.description,
+                           p.created,
+                           p.updated,
+                           p.row_number,
+                           NVL(ss.file_count, 0) AS file_count,
+                           ss.language_ids,
+                           ss.tag_ids
+                    FROM page p
+                    LEFT JOIN snippet_summary ss ON ss.snippet_id = p.id
+                )
+                SELECT e.id,
+                       e.user_id,
+                       e.title,
+                       e.description,
+                       e.created,
+                       e.updated,
+                       e.relevance,
+                       e.file_count,
+                       e.language_ids,
+                       e.tag_ids,
+                       CAST(NULL AS NUMBER) AS total_count,
+                       CAST(NULL AS number_array) AS facet_tag_ids,
+                       CAST(NULL AS number_array) AS facet_tag_counts,
+                       CAST(NULL AS number_array) AS facet_language_ids,
+                       CAST(NULL AS number_array) AS facet_language_counts
+                FROM extended e
+                ORDER BY e.row_number;
+        END IF;
+    END get_paginated_snippets;
+
+    FUNCTION get_snippet(p_id IN NUMBER) RETURN  SYS_REFCURSOR AS
+        v_count NUMBER;
+        v_snippet SYS_REFCURSOR;
+    BEGIN
+        SELECT COUNT(*) INTO v_count
+        FROM snippet
+        WHERE id = p_id;
+
+        IF v_count = 0 THEN
+            RAISE_APPLICATION_ERROR(constants_pkg.ERR_SNIPPET_NOT_FOUND, 'Snippet not found');
+        END IF;
+
+        OPEN v_snippet FOR
+            SELECT id,
+                   user_id,
+                   title,
+                   description,
+                   created,
+                   updated
+            FROM snippet
+            WHERE id = p_id;
+        RETURN v_snippet;
+    END get_snippet;
+
+    PROCEDURE delete_snippet(p_id IN NUMBER, p_user_id IN NUMBER, p_snippet OUT SYS_REFCURSOR) AS
+        v_id NUMBER;
+        v_user_id NUMBER;
+        v_title VARCHAR2(255 CHAR);
+        v_description VARCHAR2(4000 CHAR);
+        v_created TIMESTAMP;
+        v_updated TIMESTAMP;
+    BEGIN
+        DELETE FROM snippet WHERE id = p_id AND user_id = p_user_id
+        RETURNING id,
+            user_id,
+            title,
+            description,
+            created,
+            updated
+        INTO v_id,
+            v_user_id,
+            v_title,
+            v_description,
+            v_created,
+            v_updated;
+
+        IF SQL%ROWCOUNT = 0 THEN
+            check_snippet_owner(p_id, p_user_id);
+            RAISE_APPLICATION_ERROR(constants_pkg.ERR_SNIPPET_NOT_FOUND, 'Snippet not found');
+        END IF;
+
+        OPEN p_snippet FOR
+            SELECT v_id AS id,
+                   v_user_id AS user_id,
+                   v_title AS title,
+                   v_description AS description,
+                   v_created AS created,
+                   v_updated AS updated
+            FROM dual;
+    END delete_snippet;
+
+    PROCEDURE update_snippet(
+        p_id IN NUMBER,
+        p_user_id IN NUMBER,
+        p_title IN VARCHAR2,
+        p_description IN VARCHAR2,
+        p_snippet OUT SYS_REFCURSOR
+    ) AS
+        v_id NUMBER;
+        v_user_id NUMBER;
+        v_title VARCHAR2(255 CHAR);
+        v_description VARCHAR2(4000 CHAR);
+        v_created TIMESTAMP;
+        v_updated TIMESTAMP;
+    BEGIN
+        UPDATE snippet
+        SET title = COALESCE(p_title, title),
+            description = COALESCE(p_description, description)
+        WHERE id = p_id
+          AND user_id = p_user_id
+        RETURNING id,
+            user_id,
+            title,
+            description,
+            created,
+            updated
+        INTO v_id,
+            v_user_id,
+            v_title,
+            v_description,
+            v_created,
+            v_updated;
+
+        IF SQL%ROWCOUNT = 0 THEN
+            check_snippet_owner(p_id, p_user_id);
+            RAISE_APPLICATION_ERROR(constants_pkg.ERR_SNIPPET_NOT_FOUND, 'Snippet not found');
+        END IF;
+
+        trigram_pkg.index_snippet(v_id);
+
+        OPEN p_snippet FOR
+            SELECT v_id AS id,
+                   v_user_id AS user_id,
+                   v_title AS title,
+                   v_description AS description,
+                   v_created AS created,
+                   v_updated AS updated
+            FROM dual;
+    END update_snippet;
+
+    PROCEDURE add_tag_to_snippet(p_snippet_id IN NUMBER, p_tag_id IN NUMBER, p_user_id IN NUMBER) AS
+    BEGIN
+        INSERT INTO snippet_tag (tag_id, snippet_id)
+        SELECT t.id, s.id
+        FROM snippet s
+        JOIN tag t ON t.user_id = s.user_id
+        WHERE s.id = p_snippet_id
+          AND s.user_id = p_user_id
+          AND t.id = p_tag_id;
+
+        IF SQL%ROWCOUNT = 0 THEN
+            check_snippet_owner(p_snippet_id, p_user_id);
+            tag_pkg.check_tag_owner(p_tag_id, p_user_id);
+        END IF;
+
+        refresh_snippet_summary(number_array(p_snippet_id));
+
+    EXCEPTION
+        WHEN DUP_VAL_ON_INDEX THEN
+            IF SQLERRM LIKE '%UQ_SNIPPET_TAG%' THEN
+                RAISE_APPLICATION_ERROR(constants_pkg.ERR_DUPLICATE_TAG_ON_SNIPPET, 'Tag already exists on snippet');
+            ELSE
+                error_log_pkg.log_error(
+                        p_error_message => SQLERRM,
+                        p_error_backtrace => DBMS_UTILITY.FORMAT_ERROR_BACKTRACE,
+                        p_context => 'Adding tag to snippet',
+                        p_value => 'p_snippet_id=' || p_snippet_id || ', p_tag_id=' || p_tag_id || ', p_user_id=' || p_user_id,
+                        p_api => 'snippet_pkg.add_tag_to_snippet'
+                );
+                RAISE;
+            END IF;
+        WHEN OTHERS THEN
+            IF SQLCODE = -2291 THEN
+                IF SQLERRM LIKE '%FK_SNIPPET_TAG_SNIPPET%' THEN
+                    RAISE_APPLICATION_ERROR(constants_pkg.ERR_SNIPPET_NOT_FOUND, 'Snippet not found');
+                ELSIF SQLERRM LIKE '%FK_SNIPPET_TAG_TAG%' THEN
+                    RAISE_APPLICATION_ERROR(constants_pkg.ERR_TAG_NOT_FOUND, 'Tag not found');
+                ELSE
+                    error_log_pkg.log_error(
+                            p_error_message => SQLERRM,
+                            p_error_backtrace => DBMS_UTILITY.FORMAT_ERROR_BACKTRACE,
+                            p_context => 'Adding tag to snippet',
+                            p_value => 'p_snippet_id=' || p_snippet_id || ', p_tag_id=' || p_tag_id || ', p_user_id=' || p_user_id,
+                            p_api => 'snippet_pkg.add_tag_to_snippet'
+                    );
+                    RAISE;
+                END IF;
+            ELSE
+                error_log_pkg.log_error(
+                        p_error_message => SQLERRM,
+                        p_error_backtrace => DBMS_UTILITY.FORMAT_ERROR_BACKTRACE,
+                        p_context => 'Adding tag to snippet',
+                        p_value => 'p_snippet_id=' || p_snippet_id || ', p_tag_id=' || p_tag_id || ', p_user_id=' || p_user_id,
+                        p_api => 'snippet_pkg.add_tag_to_snippet'
+                );
+                RAISE;
+            END IF;
+    END add_tag_to_snippet;
+
+    PROCEDURE remove_tag_from_snippet(p_snippet_id IN NUMBER, p_tag_id IN NUMBER, p_user_id IN NUMBER) AS
+    BEGIN
+        DELETE
+        FROM snippet_tag st
+        WHERE st.snippet_id = p_snippet_id
+          AND st.tag_id = p_tag_id
+          AND EXISTS (
+              SELECT 1
+              FROM snippet s
+              JOIN tag t ON t.user_id = s.user_id
+              WHERE s.id = st.snippet_id
+                AND t.id = st.tag_id
+                AND s.user_id = p_user_id
+          );
+
+        IF SQL%ROWCOUNT = 0 THEN
+            check_snippet_owner(p_snippet_id, p_user_id);
+            tag_pkg.check_tag_owner(p_tag_id, p_user_id);
+            RAISE_APPLICATION_ERROR(constants_pkg.ERR_TAG_NOT_ON_SNIPPET, 'Tag is not on snippet');
+        END IF;
+
+        refresh_snippet_summary(number_array(p_snippet_id));
+    END;
+
+    FUNCTION get_tags_of_snippet(p_snippet_id IN NUMBER) RETURN SYS_REFCURSOR AS
+        v_tags SYS_REFCURSOR;
+    BEGIN
+        OPEN v_tags FOR
+            SELECT t.id,
+                    t.name,
+                    t.user_id,
+                    t.color,
+                    t.created
+            FROM tag t
+            JOIN snippet_tag st ON st.tag_id = t.id
+            WHERE st.snippet_id = p_snippet_id;
+        RETURN v_tags;
+    END get_tags_of_snippet;
+
+    PROCEDURE create_file(
+        p_snippet_id IN NUMBER,
+        p_user_id IN NUMBER,
+        p_filename IN VARCHAR2,
+        p_content IN CLOB,
+        p_language_id IN NUMBER,
+        p_file OUT SYS_REFCURSOR
+    ) AS
+        v_id NUMBER;
+        v_snippet_id NUMBER;
+        v_title VARCHAR2(255 CHAR);
+        v_content CLOB;
+        v_language_id NUMBER;
+        v_created TIMESTAMP;
+        v_updated TIMESTAMP;
+    BEGIN
+        check_snippet_owner(p_snippet_id, p_user_id);
+
+        INSERT INTO snippetvault_file (snippet_id, filename, content, language_id)
+        VALUES (
+                   p_snippet_id, p_filename, p_content, p_language_id
+               ) RETURNING id,
+            snippet_id,
+            filename,
+            content,
+            language_id,
+            created,
+            updated
+        INTO v_id,
+            v_snippet_id,
+            v_title,
+            v_content,
+            v_language_id,
+            v_created,
+            v_updated;
+
+        refresh_snippet_summary(number_array(p_snippet_id));
+        trigram_pkg.index_file(v_id);
+
+        OPEN p_file FOR
+            SELECT v_id          AS id,
+                   v_snippet_id  AS snippet_id,
+                   v_title       AS filename,
+                   v_content     AS content,
+                   v_language_id AS language_id,
+                   v_created     AS created,
+                   v_updated     AS updated
+            FROM dual;
+
+    EXCEPTION
+        WHEN OTHERS THEN
+            IF SQLCODE = -2291 THEN
+                IF SQLERRM LIKE '%FK_FILE_SNIPPET%' THEN
+                    RAISE_APPLICATION_ERROR(constants_pkg.ERR_SNIPPET_NOT_FOUND, 'Snippet not found');
+                ELSIF SQLERRM LIKE '%FK_FILE_LANGUAGE%' THEN
+                    RAISE_APPLICATION_ERROR(constants_pkg.ERR_LANGUAGE_NOT_FOUND, 'Language not found');
+                ELSE
+                    error_log_pkg.log_error(
+                            p_error_message => SQLERRM,
+                            p_error_backtrace => DBMS_UTILITY.FORMAT_ERROR_BACKTRACE,
+                            p_context => 'Creating file',
+                            p_value => 'p_snippet_id=' || p_snippet_id || ', p_user_id=' || p_user_id || ', p_filename=' || p_filename || ', p_language_id=' || p_language_id,
+                            p_api => 'snippet_pkg.create_file'
+                    );
+                    RAISE;
+                END IF;
+            ELSE
+                error_log_pkg.log_error(
+                        p_error_message => SQLERRM,
+                        p_error_backtrace => DBMS_UTILITY.FORMAT_ERROR_BACKTRACE,
+                        p_context => 'Creating file',
+                        p_value => 'p_snippet_id=' || p_snippet_id || ', p_user_id=' || p_user_id || ', p_filename=' || p_filename || ', p_language_id=' || p_language_id,
+                        p_api => 'snippet_pkg.create_file'
+                );
+                RAISE;
+            end if;
+    END create_file;
+
+    FUNCTION get_files_of_snippet(p_snippet_id IN NUMBER) RETURN SYS_REFCURSOR AS
+        v_files SYS_REFCURSOR;
+    BEGIN
+        OPEN v_files FOR
+            SELECT id,
+                   snippet_id,
+                   filename,
+                   content,
+                   language_id,
+                   created,
+                   updated
+            FROM snippetvault_file
+            WHERE snippet_id = p_snippet_id;
+        RETURN v_files;
+    END get_files_of_snippet;
+
+    -- Bytes of the content in UTF-8, summed over chunks that fit a VARCHAR2
+    FUNCTION get_utf8_length(p_content IN CLOB) RETURN NUMBER AS
+        c_chunk_size CONSTANT PLS_INTEGER := 8000;
+        v_length NUMBER;
+        v_offset NUMBER := 1;
+        v_utf8_length NUMBER := 0;
+    BEGIN
+        v_length := NVL(DBMS_LOB.GETLENGTH(p_content), 0);
+        WHILE v_offset <= v_length LOOP
+            v_utf8_length := v_utf8_length
+                + LENGTHB(CONVERT(DBMS_LOB.SUBSTR(p_content, c_chunk_size, v_offset), 'AL32UTF8'));
+            v_offset := v_offset + c_chunk_size;
+        END LOOP;
+        RETURN v_utf8_length;
+    END get_utf8_length;
+
+    FUNCTION get_file_content(p_id IN NUMBER, p_snippet_id IN NUMBER) RETURN SYS_REFCURSOR AS
+        v_content CLOB;
+        v_content_size NUMBER;
+        v_file SYS_REFCURSOR;
+    BEGIN
+        BEGIN
+            SELECT content
+            INTO v_content
+            FROM snippetvault_file
+            WHERE id = p_id AND snippet_id = p_snippet_id;
+        EXCEPTION
+            WHEN NO_DATA_FOUND THEN
+                RAISE_APPLICATION_ERROR(constants_pkg.ERR_FILE_NOT_FOUND, 'File not found');
+        END;
+        v_content_size := get_utf8_length(v_content);
+
+        -- The content goes out as a locator, read by the client in chunks
+        OPEN v_file FOR
+            SELECT id,
+                   snippet_id,
+                   filename,
+                   language_id,
+                   created,
+                   updated,
+                   v_content_size AS content_size,
+                   content
+            FROM snippetvault_file
+            WHERE id = p_id AND snippet_id = p_snippet_id;
+        RETURN v_file;
+    END get_file_content;
+
+    PROCEDURE update_file(
+        p_id IN NUMBER,
+        p_snippet_id IN NUMBER,
+        p_user_id IN NUMBER,
+        p_filename IN VARCHAR2 DEFAULT NULL,
+        p_content IN CLOB DEFAULT NULL,
+        p_language_id IN NUMBER DEFAULT NULL,
+        p_file OUT SYS_REFCURSOR
+    ) AS
+        v_id NUMBER;
+        v_snippet_id NUMBER;
+        v_title VARCHAR2(255 CHAR);
+        v_content CLOB;
+        v_language_id NUMBER;
+        v_created TIMESTAMP;
+        v_updated TIMESTAMP;
+    BEGIN
+        UPDATE snippetvault_file
+        SET filename = COALESCE(p_filename, filename),
+            content = COALESCE(p_content, content),
+            language_id = COALESCE(p_language_id, language_id)
+        WHERE id = p_id
+          AND snippet_id = p_snippet_id
+          AND EXISTS (
+              SELECT 1
+              FROM snippet s
+              WHERE s.id = p_snippet_id
+                AND s.user_id = p_user_id
+          )
+        RETURNING id,
+            snippet_id,
+            filename,
+            content,
+            language_id,
+            created,
+            updated
+        INTO v_id,
+            v_snippet_id,
+            v_title,
+            v_content,
+            v_language_id,
+            v_created,
+            v_updated;
+
+        IF SQL%ROWCOUNT = 0 THEN
+            check_snippet_owner(p_snippet_id, p_user_id);
+            RAISE_APPLICATION_ERROR(constants_pkg.ERR_FILE_NOT_FOUND, 'File not found');
+        END IF;
+
+        refresh_snippet_summary(number_array(p_snippet_id));
+        trigram_pkg.index_file(v_id);
+
+        OPEN p_file FOR
+            SELECT v_id          AS id,
+                   v_snippet_id  AS snippet_id,
+                   v_title       AS filename,
+                   v_content     AS content,
+                   v_language_id AS language_id,
+                   v_created     AS created,
+                   v_updated     AS updated
+            FROM dual;
+
+        EXCEPTION
+        WHEN OTHERS THEN
+            IF SQLCODE = -2291 THEN
+                IF SQLERRM LIKE '%FK_FILE_LANGUAGE%' THEN
+                    RAISE_APPLICATION_ERROR(constants_pkg.ERR_LANGUAGE_NOT_FOUND, 'Language not found');
+                ELSE
+                    error_log_pkg.log_error(
+                            p_error_message => SQLERRM,
+                            p_error_backtrace => DBMS_UTILITY.FORMAT_ERROR_BACKTRACE,
+                            p_context => 'Updating file',
+                            p_value => 'p_id=' || p_id || ', p_snippet_id=' || p_snippet_id || ', p_user_id=' || p_user_id || ', p_language_id=' || p_language_id || ', p_filename=' || p_filename,
+                            p_api => 'snippet_pkg.update_file'
+                    );
+                    RAISE;
+                END IF;
+            ELSE
+                error_log_pkg.log_error(
+                        p_error_message => SQLERRM,
+                        p_error_backtrace => DBMS_UTILITY.FORMAT_ERROR_BACKTRACE,
+                        p_context => 'Updating file',
+                        p_value => 'p_id=' || p_id || ', p_snippet_id=' || p_snippet_id || ', p_user_id=' || p_user_id || ', p_language_id=' || p_language_id || ', p_filename=' || p_filename,
+                        p_api => 'snippet_pkg.update_file'
+                );
+                RAISE;
+            END IF;
+    END update_file;
+
+    PROCEDURE delete_file(
+        p_id IN NUMBER,
+        p_snippet_id IN NUMBER,
+        p_user_id IN NUMBER,
+        p_file OUT SYS_REFCURSOR
+    ) AS
+        v_id NUMBER;
+        v_snippet_id NUMBER;
+        v_title VARCHAR2(255 CHAR);
+        v_content CLOB;
+        v_language_id NUMBER;
+        v_created TIMESTAMP;
+        v_updated TIMESTAMP;
+    BEGIN
+        DELETE FROM snippetvault_file
+        WHERE id = p_id
+          AND snippet_id = p_snippet_id
+          AND EXISTS (
+              SELECT 1
+              FROM snippet s
+              WHERE s.id = p_snippet_id
+                AND s.user_id = p_user_id
+          )
+        RETURNING id,
+            snippet_id,
+            filename,
+            content,
+            language_id,
+            created,
+            updated
+        INTO v_id,
+            v_snippet_id,
+            v_title,
+            v_content,
+            v_language_id,
+            v_created,
+            v_updated;
+
+        IF SQL%ROWCOUNT = 0 THEN
+            check_snippet_owner(p_snippet_id, p_user_id);
+            RAISE_APPLICATION_ERROR(constants_pkg.ERR_FILE_NOT_FOUND, 'File not found');
+        END IF;
+
+        refresh_snippet_summary(number_array(p_snippet_id));
+
+        OPEN p_file FOR
+            SELECT v_id          AS id,
+                   v_snippet_id  AS snippet_id,
+                   v_title       AS filename,
+                   v_content     AS content,
+                   v_language_id AS language_id,
+                   v_created     AS created,
+                   v_updated     AS updated
+            FROM dual;
+    END delete_file;
+
+    -- Raises ERR_SNIPPET_NOT_FOUND or ERR_NOT_OWNER unless the snippet belongs to the user
+    PROCEDURE check_snippet_owner(p_id IN NUMBER, p_user_id IN NUMBER) AS
+        v_user_id NUMBER;
+    BEGIN
+        SELECT user_id
+        INTO v_user_id
+        FROM snippet
+        WHERE id = p_id;
+
+        IF v_user_id <> p_user_id THEN
+            RAISE_APPLICATION_ERROR(constants_pkg.ERR_NOT_OWNER, 'Snippet belongs to another user');
+        END IF;
+    EXCEPTION
+        WHEN NO_DATA_FOUND THEN
+            RAISE_APPLICATION_ERROR(constants_pkg.ERR_SNIPPET_NOT_FOUND, 'Snippet not found');
+    END check_snippet_owner;
+
+    -- Recomputes the SNIPPET_SUMMARY rows of the given snippets from their files and tags
+    PROCEDURE refresh_snippet_summary(p_snippet_ids IN number_array) AS
+        v_locked number_array;
+    BEGIN
+        -- Serializes concurrent refreshes of a snippet, so the MERGE below
+        -- sees the files and tags committed by the previous one
+        SELECT ss.snippet_id
+        BULK COLLECT INTO v_locked
+        FROM snippet_summary ss
+        WHERE ss.snippet_id IN (SELECT COLUMN_VALUE FROM TABLE(p_snippet_ids))
+        FOR UPDATE;
+
+        MERGE INTO snippet_summary ss
+        USING (
+            SELECT s.id AS snippet_id,
+                   (
+                       SELECT COUNT(*)
+                       FROM snippetvault_file f
+                       WHERE f.snippet_id = s.id
+                   ) AS file_count,
+                   (
+                       SELECT NVL(SUM(DBMS_LOB.GETLENGTH(f.content)), 0)
+                       FROM snippetvault_file f
+                       WHERE f.snippet_id = s.id
+                   ) AS content_length,
+                   CAST(MULTISET(
+                       SELECT DISTINCT f.language_id
+                       FROM snippetvault_file f
+                       WHERE f.snippet_id = s.id
+                   ) AS number_array) AS language_ids,
+                   CAST(MULTISET(
+                       SELECT st.tag_id
+                       FROM snippet_tag st
+                       WHERE st.snippet_id = s.id
+                   ) AS number_array) AS tag_ids
+            FROM snippet s
+            WHERE s.id IN (SELECT COLUMN_VALUE FROM TABLE(p_snippet_ids))
+        ) src
+        ON (ss.snippet_id = src.snippet_id)
+        WHEN MATCHED THEN
+            UPDATE SET ss.file_count = src.file_count,
+                       ss.content_length = src.content_length,
+                       ss.language_ids = src.language_ids,
+                       ss.tag_ids = src.tag_ids
+        WHEN NOT MATCHED THEN
+            INSERT (snippet_id, file_count, content_length, language_ids, tag_ids)
+            VALUES (src.snippet_id, src.file_count, src.content_length, src.language_ids, src.tag_ids);
+    END refresh_snippet_summary;
+END snippet_pkg;
+/
\ No newline at end of file
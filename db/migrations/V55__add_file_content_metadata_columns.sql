@@ -0,0 +1,112 @@
+-------------------------------------------------------------------------
+-- V55__add_file_content_metadata_columns.sql                          --
+-------------------------------------------------------------------------
+-- Adds the content's size in UTF-8 bytes, line count and SHA-256      --
+-- digest to SNIPPETVAULT_FILE, written by snippet_pkg with the        --
+-- content so file listings don't read the CLOB. The file triggers now --
+-- only fire for changes of the file itself, not of these derived      --
+-- columns. Sizes and line counts of existing files are filled in      --
+-- here; their digests are filled in by the API, as DBMS_CRYPTO is not --
+-- available                                                           --
+-------------------------------------------------------------------------
+
+
+ALTER TABLE snippetvault_file ADD (
+    content_size NUMBER,
+    line_count   NUMBER,
+    content_hash VARCHAR2(64)
+);
+
+CREATE OR REPLACE TRIGGER trg_file_before_insert_update
+    BEFORE INSERT OR UPDATE OF snippet_id, filename, content, language_id ON snippetvault_file
+    FOR EACH ROW
+BEGIN
+    IF INSERTING THEN
+        IF :NEW.id IS NULL THEN
+            SELECT file_seq.nextval INTO :NEW.id FROM dual;
+        END IF;
+        :NEW.created := SYSTIMESTAMP;
+        :NEW.updated := SYSTIMESTAMP;
+        :NEW.version := 1;
+        :NEW.dml_flag := 'I';
+    ELSIF UPDATING THEN
+        :NEW.updated := SYSTIMESTAMP;
+        :NEW.created := :OLD.created;
+        :NEW.version := NVL(:OLD.version, 0) + 1;
+        :NEW.dml_flag := 'U';
+    END IF;
+END;
+/
+
+CREATE OR REPLACE TRIGGER trg_file_after_dml
+    AFTER INSERT OR UPDATE OF snippet_id, filename, content, language_id OR DELETE ON snippetvault_file
+    FOR EACH ROW
+BEGIN
+    IF DELETING THEN
+        INSERT INTO snippetvault_file_history (
+            history_id, history_dml_flag, history_timestamp,
+            id, snippet_id, filename, content, language_id,
+            created, updated, dml_flag, version
+        )
+        VALUES (
+            file_history_seq.NEXTVAL, 'D', SYSTIMESTAMP,
+            :OLD.id, :OLD.snippet_id, :OLD.filename, :OLD.content, :OLD.language_id,
+            :OLD.created, :OLD.updated, :OLD.dml_flag, :OLD.version
+        );
+    ELSE
+        INSERT INTO snippetvault_file_history (
+            history_id, history_dml_flag, history_timestamp,
+            id, snippet_id, filename, content, language_id,
+            created, updated, dml_flag, version
+        )
+        VALUES (
+            file_history_seq.NEXTVAL, :NEW.dml_flag, SYSTIMESTAMP,
+            :NEW.id, :NEW.snippet_id, :NEW.filename, :NEW.content, :NEW.language_id,
+            :NEW.created, :NEW.updated, :NEW.dml_flag, :NEW.version
+        );
+        IF UPDATING THEN
+            UPDATE snippet
+            SET updated = SYSTIMESTAMP
+            WHERE id = :NEW.snippet_id;
+        END IF;
+    END IF;
+END;
+/
+
+-- Lines are counted like the API does: newlines, plus one for a last line without one
+DECLARE
+    c_chunk_size CONSTANT PLS_INTEGER := 8000;
+    v_length     NUMBER;
+    v_offset     NUMBER;
+    v_chunk      VARCHAR2(32767);
+    v_size       NUMBER;
+    v_line_count NUMBER;
+BEGIN
+    FOR f IN (SELECT id, content FROM snippetvault_file) LOOP
+        v_length := NVL(DBMS_LOB.GETLENGTH(f.content), 0);
+        v_offset := 1;
+        v_size := 0;
+        v_line_count := 0;
+        WHILE v_offset <= v_length LOOP
+            v_chunk := DBMS_LOB.SUBSTR(f.content, c_chunk_size, v_offset);
+            v_size := v_size + LENGTHB(CONVERT(v_chunk, 'AL32UTF8'));
+            v_line_count := v_line_count + REGEXP_COUNT(v_chunk, CHR(10));
+            v_offset := v_offset + c_chunk_size;
+        END LOOP;
+        IF v_length > 0 AND DBMS_LOB.SUBSTR(f.content, 1, v_length) <> CHR(10) THEN
+            v_line_count := v_line_count + 1;
+        END IF;
+
+        UPDATE snippetvault_file
+        SET content_size = v_size,
+            line_count = v_line_count
+        WHERE id = f.id;
+    END LOOP;
+    COMMIT;
+END;
+/
+
+ALTER TABLE snippetvault_file MODIFY (
+    content_size NOT NULL,
+    line_count   NOT NULL
+);
@@ -0,0 +1,271 @@
+-------------------------------------------------------------------------
+-- V58__create_file_blob_table.sql                                     --
+-------------------------------------------------------------------------
+-- Moves file content into FILE_BLOB, which stores each content once   --
+-- and counts the file and history rows referencing it. Files and      --
+-- their history rows point at a blob instead of holding a CLOB copy,  --
+-- so renames and language changes don't copy the content. New         --
+-- content is looked up by its SHA-256 digest (set by the API) and     --
+-- shared. Existing versions of a file equal to the one before share   --
+-- a blob here; their digests are filled in by the API.                --
+-- IDX_FILE_CONTENT now indexes the blobs. Unreferenced blobs are      --
+-- deleted by JOB_CLEANUP_HISTORY                                      --
+-------------------------------------------------------------------------
+
+
+CREATE SEQUENCE file_blob_seq
+    START WITH 10000
+    INCREMENT BY 1;
+
+-- content_hash: hex SHA-256 of the content's UTF-8 bytes, NULL until the API has computed it
+CREATE TABLE file_blob (
+    id           NUMBER,
+    content_hash VARCHAR2(64),
+    content      CLOB             NOT NULL,
+    ref_count    NUMBER DEFAULT 0 NOT NULL
+);
+
+ALTER TABLE file_blob
+    ADD CONSTRAINT pk_file_blob PRIMARY KEY (id);
+
+-- Not unique: contents stored before their digest was known may be stored more than once
+CREATE INDEX idx_file_blob_hash
+    ON file_blob (content_hash);
+
+CREATE OR REPLACE TRIGGER trg_file_blob_before_insert
+    BEFORE INSERT ON file_blob
+    FOR EACH ROW
+BEGIN
+    IF :NEW.id IS NULL THEN
+        SELECT file_blob_seq.nextval INTO :NEW.id FROM dual;
+    END IF;
+END;
+/
+
+ALTER TABLE snippetvault_file ADD (
+    blob_id NUMBER
+);
+
+ALTER TABLE snippetvault_file_history ADD (
+    blob_id NUMBER
+);
+
+-- History rows of a file are walked in order, a version equal to the one before sharing
+-- its blob. A file's current version is its last history row, unless that was cleaned up.
+DECLARE
+    v_file_id NUMBER;
+    v_content CLOB;
+    v_blob_id NUMBER;
+BEGIN
+    FOR h IN (
+        SELECT history_id, id, content
+        FROM snippetvault_file_history
+        ORDER BY id, history_id
+    ) LOOP
+        IF v_file_id IS NULL
+            OR v_file_id <> h.id
+            OR NVL(DBMS_LOB.COMPARE(h.content, v_content), 1) <> 0
+        THEN
+            INSERT INTO file_blob (content)
+            VALUES (h.content)
+            RETURNING id INTO v_blob_id;
+            v_content := h.content;
+        END IF;
+        v_file_id := h.id;
+
+        UPDATE snippetvault_file_history
+        SET blob_id = v_blob_id
+        WHERE history_id = h.history_id;
+    END LOOP;
+
+    FOR f IN (SELECT id, content FROM snippetvault_file) LOOP
+        BEGIN
+            SELECT blob_id
+            INTO v_blob_id
+            FROM (
+                SELECT h.blob_id
+                FROM snippetvault_file_history h
+                WHERE h.id = f.id
+                ORDER BY h.history_id DESC
+            )
+            WHERE ROWNUM = 1;
+
+            SELECT content INTO v_content FROM file_blob WHERE id = v_blob_id;
+            IF NVL(DBMS_LOB.COMPARE(f.content, v_content), 1) <> 0 THEN
+                v_blob_id := NULL;
+            END IF;
+        EXCEPTION
+            WHEN NO_DATA_FOUND THEN
+                v_blob_id := NULL;
+        END;
+
+        IF v_blob_id IS NULL THEN
+            INSERT INTO file_blob (content)
+            VALUES (f.content)
+            RETURNING id INTO v_blob_id;
+        END IF;
+
+        UPDATE snippetvault_file
+        SET blob_id = v_blob_id
+        WHERE id = f.id;
+    END LOOP;
+    COMMIT;
+END;
+/
+
+CREATE INDEX idx_file_blob
+    ON snippetvault_file (blob_id);
+CREATE INDEX idx_file_history_blob
+    ON snippetvault_file_history (blob_id);
+
+-- Digests the API has already set on files carry over to their blobs
+UPDATE file_blob b
+SET ref_count = (
+        SELECT COUNT(*) FROM snippetvault_file f WHERE f.blob_id = b.id
+    ) + (
+        SELECT COUNT(*) FROM snippetvault_file_history h WHERE h.blob_id = b.id
+    ),
+    content_hash = (
+        SELECT MAX(f.content_hash) FROM snippetvault_file f WHERE f.blob_id = b.id
+    );
+
+COMMIT;
+
+ALTER TABLE snippetvault_file MODIFY (
+    blob_id NOT NULL
+);
+ALTER TABLE snippetvault_file
+    ADD CONSTRAINT fk_file_blob
+    FOREIGN KEY (blob_id) REFERENCES file_blob (id);
+
+DROP INDEX idx_file_content;
+
+ALTER TABLE snippetvault_file DROP COLUMN content;
+ALTER TABLE snippetvault_file_history DROP COLUMN content;
+
+CREATE INDEX idx_file_content
+    ON file_blob(content)
+    INDEXTYPE IS CTXSYS.CONTEXT;
+
+
+--------------
+-- Triggers --
+--------------
+
+
+CREATE OR REPLACE TRIGGER trg_file_before_insert_update
+    BEFORE INSERT OR UPDATE OF snippet_id, filename, blob_id, language_id ON snippetvault_file
+    FOR EACH ROW
+BEGIN
+    IF INSERTING THEN
+        IF :NEW.id IS NULL THEN
+            SELECT file_seq.nextval INTO :NEW.id FROM dual;
+        END IF;
+        :NEW.created := SYSTIMESTAMP;
+        :NEW.updated := SYSTIMESTAMP;
+        :NEW.version := 1;
+        :NEW.dml_flag := 'I';
+    ELSIF UPDATING THEN
+        :NEW.updated := SYSTIMESTAMP;
+        :NEW.created := :OLD.created;
+        :NEW.version := NVL(:OLD.version, 0) + 1;
+        :NEW.dml_flag := 'U';
+    END IF;
+END;
+/
+
+-- The history row is written before the file's own reference is dropped,
+-- so the blob of a deleted file stays referenced
+CREATE OR REPLACE TRIGGER trg_file_after_dml
+    AFTER INSERT OR UPDATE OF snippet_id, filename, blob_id, language_id OR DELETE ON snippetvault_file
+    FOR EACH ROW
+BEGIN
+    IF DELETING THEN
+        INSERT INTO snippetvault_file_history (
+            history_id, history_dml_flag, history_timestamp,
+            id, snippet_id, filename, blob_id, language_id,
+            created, updated, dml_flag, version
+        )
+        VALUES (
+            file_history_seq.NEXTVAL, 'D', SYSTIMESTAMP,
+            :OLD.id, :OLD.snippet_id, :OLD.filename, :OLD.blob_id, :OLD.language_id,
+            :OLD.created, :OLD.updated, :OLD.dml_flag, :OLD.version
+        );
+
+        UPDATE file_blob
+        SET ref_count = ref_count - 1
+        WHERE id = :OLD.blob_id;
+    ELSE
+        INSERT INTO snippetvault_file_history (
+            history_id, history_dml_flag, history_timestamp,
+            id, snippet_id, filename, blob_id, language_id,
+            created, updated, dml_flag, version
+        )
+        VALUES (
+            file_history_seq.NEXTVAL, :NEW.dml_flag, SYSTIMESTAMP,
+            :NEW.id, :NEW.snippet_id, :NEW.filename, :NEW.blob_id, :NEW.language_id,
+            :NEW.created, :NEW.updated, :NEW.dml_flag, :NEW.version
+        );
+
+        IF INSERTING THEN
+            UPDATE file_blob
+            SET ref_count = ref_count + 1
+            WHERE id = :NEW.blob_id;
+        ELSIF :NEW.blob_id <> :OLD.blob_id THEN
+            UPDATE file_blob
+            SET ref_count = ref_count - 1
+            WHERE id = :OLD.blob_id;
+
+            UPDATE file_blob
+            SET ref_count = ref_count + 1
+            WHERE id = :NEW.blob_id;
+        END IF;
+
+        IF UPDATING THEN
+            UPDATE snippet
+            SET updated = SYSTIMESTAMP
+            WHERE id = :NEW.snippet_id;
+        END IF;
+    END IF;
+END;
+/
+
+CREATE OR REPLACE TRIGGER trg_file_history_after_ins_del
+    AFTER INSERT OR DELETE ON snippetvault_file_history
+    FOR EACH ROW
+BEGIN
+    IF INSERTING THEN
+        UPDATE file_blob
+        SET ref_count = ref_count + 1
+        WHERE id = :NEW.blob_id;
+    ELSE
+        UPDATE file_blob
+        SET ref_count = ref_count - 1
+        WHERE id = :OLD.blob_id;
+    END IF;
+END;
+/
+
+
+-----------
+-- Views --
+-----------
+
+
+CREATE OR REPLACE VIEW vw_snippet_search AS
+    SELECT s.id as id,
+           s.user_id as user_id,
+           s.title as title,
+           s.description as description,
+           s.created as created,
+           s.updated as updated,
+           f.filename as filename,
+           f.id as file_id,
+           b.content as content,
+           f.language_id as language_id,
+           st.tag_id as tag_id
+    FROM snippet s
+    LEFT JOIN snippetvault_file f ON f.snippet_id = s.id
+    LEFT JOIN file_blob b ON b.id = f.blob_id
+    LEFT JOIN snippet_tag st ON st.snippet_id = s.id
+/
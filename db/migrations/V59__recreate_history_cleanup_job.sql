@@ -0,0 +1,68 @@
+-------------------------------------------------------------------------
+-- V59__recreate_history_cleanup_job.sql                               --
+-------------------------------------------------------------------------
+-- Recreates the scheduled Oracle job that performs periodic cleanup   --
+-- of history tables. It also deletes the file blobs that are no       --
+-- longer referenced once old file history rows are gone               --
+-------------------------------------------------------------------------
+
+DECLARE
+    job_exists EXCEPTION;
+    PRAGMA EXCEPTION_INIT(job_exists, -27475); -- ORA-27475: job does not exist
+BEGIN
+    BEGIN
+        DBMS_SCHEDULER.DROP_JOB('JOB_CLEANUP_HISTORY', force => TRUE);
+    EXCEPTION
+        WHEN job_exists THEN NULL;
+    END;
+
+    DBMS_SCHEDULER.CREATE_JOB(
+        job_name        => 'JOB_CLEANUP_HISTORY',
+        job_type        => 'PLSQL_BLOCK',
+        job_action      => '
+            BEGIN
+                DELETE FROM snippetvault_user_history
+                WHERE history_timestamp < ADD_MONTHS(SYSTIMESTAMP, -1);
+
+                DELETE FROM role_history
+                WHERE history_timestamp < ADD_MONTHS(SYSTIMESTAMP, -1);
+
+                DELETE FROM user_role_history
+                WHERE history_timestamp < ADD_MONTHS(SYSTIMESTAMP, -1);
+
+                DELETE FROM snippet_history
+                WHERE history_timestamp < ADD_MONTHS(SYSTIMESTAMP, -1);
+
+                DELETE FROM snippetvault_file_history
+                WHERE history_timestamp < ADD_MONTHS(SYSTIMESTAMP, -1);
+
+                DELETE FROM language_history
+                WHERE history_timestamp < ADD_MONTHS(SYSTIMESTAMP, -1);
+
+                DELETE FROM tag_history
+                WHERE history_timestamp < ADD_MONTHS(SYSTIMESTAMP, -1);
+
+                DELETE FROM snippet_tag_history
+                WHERE history_timestamp < ADD_MONTHS(SYSTIMESTAMP, -1);
+
+                -- Blobs of deleted history rows no file refers to anymore
+                DELETE FROM file_blob
+                WHERE ref_count = 0;
+
+            EXCEPTION
+                WHEN OTHERS THEN
+                    error_log_pkg.log_error(
+                        p_error_message => SQLERRM,
+                        p_error_backtrace => DBMS_UTILITY.FORMAT_ERROR_BACKTRACE,
+                        p_context => ''Cleaning up history'',
+                        p_value => ''N/A'',
+                        p_api => ''JOB_CLEANUP_HISTORY''
+                    );
+                RAISE;
+            END;',
+        start_date      => SYSTIMESTAMP,
+        repeat_interval => 'FREQ=DAILY; BYHOUR=2',
+        enabled         => TRUE
+    );
+END;
+/
@@ -0,0 +1,113 @@
+-------------------------------------------------------------------------
+-- V62__add_file_blobs_to_search_pkg_body.sql                          --
+-------------------------------------------------------------------------
+-- Recreates the search package's body. File contents are read from    --
+-- their blobs in FILE_BLOB                                            --
+-------------------------------------------------------------------------
+
+
+CREATE OR REPLACE PACKAGE BODY search_pkg AS
+    PROCEDURE get_index_rows(
+        p_user_id IN NUMBER DEFAULT NULL,
+        p_snippet_ids IN number_array DEFAULT NULL,
+        p_snippets OUT SYS_REFCURSOR,
+        p_files OUT SYS_REFCURSOR,
+        p_snippet_tags OUT SYS_REFCURSOR
+    ) AS
+    BEGIN
+        OPEN p_snippets FOR
+            SELECT s.id,
+                   s.user_id,
+                   s.title,
+                   s.description,
+                   s.created,
+                   s.updated
+            FROM snippet s
+            WHERE (p_user_id IS NULL OR s.user_id = p_user_id)
+              AND (p_snippet_ids IS NULL OR s.id IN (SELECT COLUMN_VALUE FROM TABLE(p_snippet_ids)));
+
+        OPEN p_files FOR
+            SELECT f.id,
+                   f.snippet_id,
+                   f.filename,
+                   b.content,
+                   f.language_id,
+                   f.created,
+                   f.updated
+            FROM snippetvault_file f
+            JOIN snippet s ON s.id = f.snippet_id
+            JOIN file_blob b ON b.id = f.blob_id
+            WHERE (p_user_id IS NULL OR s.user_id = p_user_id)
+              AND (p_snippet_ids IS NULL OR s.id IN (SELECT COLUMN_VALUE FROM TABLE(p_snippet_ids)));
+
+        OPEN p_snippet_tags FOR
+            SELECT st.snippet_id,
+                   st.tag_id
+            FROM snippet_tag st
+            JOIN snippet s ON s.id = st.snippet_id
+            WHERE (p_user_id IS NULL OR s.user_id = p_user_id)
+              AND (p_snippet_ids IS NULL OR s.id IN (SELECT COLUMN_VALUE FROM TABLE(p_snippet_ids)));
+    END get_index_rows;
+
+    PROCEDURE get_suggestion_rows(
+        p_user_id IN NUMBER,
+        p_snippet_ids IN number_array DEFAULT NULL,
+        p_rows OUT SYS_REFCURSOR
+    ) AS
+    BEGIN
+        -- Tags only come with the whole user, they are not bound to the given snippets
+        OPEN p_rows FOR
+            SELECT 'TITLE' AS type,
+                   s.id AS snippet_id,
+                   CAST(NULL AS NUMBER) AS tag_id,
+                   s.title AS text
+            FROM snippet s
+            WHERE s.user_id = p_user_id
+              AND (p_snippet_ids IS NULL OR s.id IN (SELECT COLUMN_VALUE FROM TABLE(p_snippet_ids)))
+            UNION ALL
+            SELECT 'FILENAME',
+                   f.snippet_id,
+                   NULL,
+                   f.filename
+            FROM snippetvault_file f
+            JOIN snippet s ON s.id = f.snippet_id
+            WHERE s.user_id = p_user_id
+              AND (p_snippet_ids IS NULL OR s.id IN (SELECT COLUMN_VALUE FROM TABLE(p_snippet_ids)))
+            UNION ALL
+            SELECT 'TAG',
+                   NULL,
+                   t.id,
+                   t.name
+            FROM tag t
+            WHERE t.user_id = p_user_id
+              AND p_snippet_ids IS NULL;
+    END get_suggestion_rows;
+
+    PROCEDURE get_file_contents(
+        p_user_id IN NUMBER,
+        p_language_ids IN number_array DEFAULT NULL,
+        p_files OUT SYS_REFCURSOR
+    ) AS
+    BEGIN
+        -- Read row by row by the caller, which may close the cursor before the end
+        OPEN p_files FOR
+            SELECT f.id,
+                   f.snippet_id,
+                   f.filename,
+                   b.content,
+                   f.language_id,
+                   f.created,
+                   f.updated
+            FROM snippetvault_file f
+            JOIN snippet s ON s.id = f.snippet_id
+            JOIN file_blob b ON b.id = f.blob_id
+            WHERE s.user_id = p_user_id
+              AND (
+                  p_language_ids IS NULL
+                  OR CARDINALITY(p_language_ids) = 0
+                  OR f.language_id IN (SELECT COLUMN_VALUE FROM TABLE(p_language_ids))
+              )
+            ORDER BY f.snippet_id, f.id;
+    END get_file_contents;
+END search_pkg;
+/
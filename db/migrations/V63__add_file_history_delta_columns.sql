@@ -0,0 +1,68 @@
+-------------------------------------------------------------------------
+-- V63__add_file_history_delta_columns.sql                             --
+-------------------------------------------------------------------------
+-- Adds the columns that let a file history row hold its content as a  --
+-- delta against the file's next content version instead of a blob.    --
+-- CONTENT_VERSION counts the content changes of a file, so the        --
+-- history rows written while the file held one content are found      --
+-- together                                                            --
+-------------------------------------------------------------------------
+
+
+ALTER TABLE snippetvault_file ADD (
+    content_version NUMBER
+);
+
+-- delta_prefix, delta_suffix: characters of the next version's content kept at its start and end,
+-- delta_text: the content between them. A row without a blob and without a delta has the same
+-- content as the next history row of the file.
+ALTER TABLE snippetvault_file_history ADD (
+    content_version NUMBER,
+    delta_prefix    NUMBER,
+    delta_suffix    NUMBER,
+    delta_text      CLOB
+);
+
+-- History rows of a file are walked in order, the version growing where the blob changes
+DECLARE
+    v_file_id NUMBER;
+    v_blob_id NUMBER;
+    v_version NUMBER;
+BEGIN
+    FOR h IN (
+        SELECT history_id, id, blob_id
+        FROM snippetvault_file_history
+        ORDER BY id, history_id
+    ) LOOP
+        IF v_file_id IS NULL OR v_file_id <> h.id THEN
+            v_version := 1;
+        ELSIF h.blob_id <> v_blob_id THEN
+            v_version := v_version + 1;
+        END IF;
+        v_file_id := h.id;
+        v_blob_id := h.blob_id;
+
+        UPDATE snippetvault_file_history
+        SET content_version = v_version
+        WHERE history_id = h.history_id;
+    END LOOP;
+    COMMIT;
+END;
+/
+
+UPDATE snippetvault_file f
+SET content_version = NVL((
+        SELECT MAX(h.content_version)
+        FROM snippetvault_file_history h
+        WHERE h.id = f.id
+          AND h.blob_id = f.blob_id
+    ), 1);
+
+COMMIT;
+
+ALTER TABLE snippetvault_file MODIFY (
+    content_version DEFAULT 1 NOT NULL
+);
+
+CREATE INDEX idx_file_history_version
+    ON snippetvault_file_history (id, content_version);
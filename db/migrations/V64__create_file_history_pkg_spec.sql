@@ -0,0 +1,17 @@
+-------------------------------------------------------------------------
+-- V64__create_file_history_pkg_spec.sql                               --
+-------------------------------------------------------------------------
+-- Creates the file history package's specification                    --
+-------------------------------------------------------------------------
+
+
+CREATE OR REPLACE PACKAGE file_history_pkg AS
+    PROCEDURE encode_version(
+        p_file_id IN NUMBER,
+        p_content_version IN NUMBER,
+        p_blob_id IN NUMBER,
+        p_next_blob_id IN NUMBER
+    );
+    FUNCTION get_content(p_history_id IN NUMBER) RETURN CLOB;
+END file_history_pkg;
+/
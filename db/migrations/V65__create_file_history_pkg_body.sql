@@ -0,0 +1,238 @@
+-------------------------------------------------------------------------
+-- V65__create_file_history_pkg_body.sql                               --
+-------------------------------------------------------------------------
+-- Creates the file history package's body. A content version of a     --
+-- file is stored as the lines that differ from the next version, the  --
+-- rest being taken from that version when it is reconstructed. Deltas --
+-- only point forward, so deleting a file's oldest history rows never  --
+-- leaves a delta without its base                                     --
+-------------------------------------------------------------------------
+
+
+CREATE OR REPLACE PACKAGE BODY file_history_pkg AS
+    -- Versions that are a multiple of it keep their blob, bounding the deltas applied to reconstruct one
+    c_keyframe_interval CONSTANT NUMBER := 20;
+    -- Characters compared at a time, fitting a VARCHAR2 even as four byte characters
+    c_chunk_size CONSTANT NUMBER := 8000;
+
+    -- Length of the start the contents have in common, in characters
+    FUNCTION get_common_prefix(p_content IN CLOB, p_other IN CLOB) RETURN NUMBER AS
+        v_max    NUMBER := LEAST(DBMS_LOB.GETLENGTH(p_content), DBMS_LOB.GETLENGTH(p_other));
+        v_offset NUMBER := 1;
+        v_amount NUMBER;
+        v_chunk  VARCHAR2(32767);
+        v_other  VARCHAR2(32767);
+        v_index  NUMBER;
+    BEGIN
+        WHILE v_offset <= v_max LOOP
+            v_amount := LEAST(c_chunk_size, v_max - v_offset + 1);
+            v_chunk := DBMS_LOB.SUBSTR(p_content, v_amount, v_offset);
+            v_other := DBMS_LOB.SUBSTR(p_other, v_amount, v_offset);
+            IF v_chunk <> v_other THEN
+                v_index := 1;
+                WHILE SUBSTR(v_chunk, v_index, 1) = SUBSTR(v_other, v_index, 1) LOOP
+                    v_index := v_index + 1;
+                END LOOP;
+                RETURN v_offset + v_index - 2;
+            END IF;
+            v_offset := v_offset + v_amount;
+        END LOOP;
+        RETURN v_max;
+    END get_common_prefix;
+
+    -- Length of the end the contents have in common, at most p_max characters
+    FUNCTION get_common_suffix(p_content IN CLOB, p_other IN CLOB, p_max IN NUMBER) RETURN NUMBER AS
+        v_length       NUMBER := DBMS_LOB.GETLENGTH(p_content);
+        v_other_length NUMBER := DBMS_LOB.GETLENGTH(p_other);
+        v_matched      NUMBER := 0;
+        v_amount       NUMBER;
+        v_chunk        VARCHAR2(32767);
+        v_other        VARCHAR2(32767);
+        v_index        NUMBER;
+    BEGIN
+        WHILE v_matched < p_max LOOP
+            v_amount := LEAST(c_chunk_size, p_max - v_matched);
+            v_chunk := DBMS_LOB.SUBSTR(p_content, v_amount, v_length - v_matched - v_amount + 1);
+            v_other := DBMS_LOB.SUBSTR(p_other, v_amount, v_other_length - v_matched - v_amount + 1);
+            IF v_chunk <> v_other THEN
+                v_index := 0;
+                WHILE SUBSTR(v_chunk, v_amount - v_index, 1) = SUBSTR(v_other, v_amount - v_index, 1) LOOP
+                    v_index := v_index + 1;
+                END LOOP;
+                RETURN v_matched + v_index;
+            END IF;
+            v_matched := v_matched + v_amount;
+        END LOOP;
+        RETURN v_matched;
+    END get_common_suffix;
+
+    -- The content with the characters between its first p_prefix and last p_suffix replaced by p_text
+    FUNCTION apply_delta(
+        p_content IN CLOB,
+        p_prefix IN NUMBER,
+        p_suffix IN NUMBER,
+        p_text IN CLOB
+    ) RETURN CLOB AS
+        v_length NUMBER := DBMS_LOB.GETLENGTH(p_content);
+        v_result CLOB;
+    BEGIN
+        DBMS_LOB.CREATETEMPORARY(v_result, TRUE);
+        IF p_prefix > 0 THEN
+            DBMS_LOB.COPY(v_result, p_content, p_prefix, 1, 1);
+        END IF;
+        IF DBMS_LOB.GETLENGTH(p_text) > 0 THEN
+            DBMS_LOB.APPEND(v_result, p_text);
+        END IF;
+        IF p_suffix > 0 THEN
+            DBMS_LOB.COPY(
+                v_result,
+                p_content,
+                p_suffix,
+                DBMS_LOB.GETLENGTH(v_result) + 1,
+                v_length - p_suffix + 1
+            );
+        END IF;
+        RETURN v_result;
+    END apply_delta;
+
+    -- Called once the file holds p_next_blob_id. The last history row of the version gets the
+    -- delta against the next version, the ones before it are left with neither blob nor delta.
+    PROCEDURE encode_version(
+        p_file_id IN NUMBER,
+        p_content_version IN NUMBER,
+        p_blob_id IN NUMBER,
+        p_next_blob_id IN NUMBER
+    ) AS
+        v_row_count    NUMBER;
+        v_history_id   NUMBER;
+        v_ref_count    NUMBER;
+        v_content      CLOB;
+        v_next_content CLOB;
+        v_length       NUMBER;
+        v_prefix       NUMBER;
+        v_suffix       NUMBER;
+        v_amount       NUMBER;
+        v_newline      NUMBER;
+        v_delta_text   CLOB;
+    BEGIN
+        IF MOD(p_content_version, c_keyframe_interval) = 0 THEN
+            RETURN;
+        END IF;
+
+        SELECT COUNT(*), MAX(history_id)
+        INTO v_row_count, v_history_id
+        FROM snippetvault_file_history
+        WHERE id = p_file_id
+          AND content_version = p_content_version
+          AND blob_id = p_blob_id;
+
+        SELECT ref_count, content
+        INTO v_ref_count, v_content
+        FROM file_blob
+        WHERE id = p_blob_id;
+
+        -- A blob other files or versions refer to is kept anyway, a delta would only add to it
+        IF v_row_count = 0 OR v_ref_count > v_row_count THEN
+            RETURN;
+        END IF;
+
+        SELECT content
+        INTO v_next_content
+        FROM file_blob
+        WHERE id = p_next_blob_id;
+
+        v_length := DBMS_LOB.GETLENGTH(v_content);
+
+        -- Both ends are cut back to whole lines; within a line longer than a chunk, to characters
+        v_prefix := get_common_prefix(v_content, v_next_content);
+        IF v_prefix > 0 THEN
+            v_amount := LEAST(c_chunk_size, v_prefix);
+            v_newline := INSTR(DBMS_LOB.SUBSTR(v_content, v_amount, v_prefix - v_amount + 1), CHR(10), -1);
+            IF v_newline > 0 THEN
+                v_prefix := v_prefix - v_amount + v_newline;
+            ELSIF v_amount = v_prefix THEN
+                v_prefix := 0;
+            END IF;
+        END IF;
+
+        v_suffix := get_common_suffix(
+            v_content,
+            v_next_content,
+            LEAST(v_length, DBMS_LOB.GETLENGTH(v_next_content)) - v_prefix
+        );
+        IF v_suffix > 0 AND v_suffix < v_length THEN
+            v_newline := DBMS_LOB.INSTR(v_content, CHR(10), v_length - v_suffix);
+            v_suffix := CASE WHEN v_newline > 0 THEN v_length - v_newline ELSE 0 END;
+        END IF;
+
+        UPDATE snippetvault_file_history
+        SET blob_id = NULL,
+            delta_prefix = v_prefix,
+            delta_suffix = v_suffix,
+            delta_text = EMPTY_CLOB()
+        WHERE history_id = v_history_id
+        RETURNING delta_text INTO v_delta_text;
+
+        v_amount := v_length - v_prefix - v_suffix;
+        IF v_amount > 0 THEN
+            DBMS_LOB.COPY(v_delta_text, v_content, v_amount, 1, v_prefix + 1);
+        END IF;
+
+        UPDATE snippetvault_file_history
+        SET blob_id = NULL
+        WHERE id = p_file_id
+          AND content_version = p_content_version
+          AND blob_id = p_blob_id;
+    END encode_version;
+
+    -- The base is the first history row of the file from this one on that still holds a blob,
+    -- the deltas between them are applied from the newest back
+    FUNCTION get_content(p_history_id IN NUMBER) RETURN CLOB AS
+        v_file_id         NUMBER;
+        v_base_history_id NUMBER;
+        v_content         CLOB;
+        v_next_content    CLOB;
+    BEGIN
+        BEGIN
+            SELECT id
+            INTO v_file_id
+            FROM snippetvault_file_history
+            WHERE history_id = p_history_id;
+        EXCEPTION
+            WHEN NO_DATA_FOUND THEN
+                RAISE_APPLICATION_ERROR(constants_pkg.ERR_FILE_NOT_FOUND, 'File not found');
+        END;
+
+        SELECT MIN(history_id)
+        INTO v_base_history_id
+        FROM snippetvault_file_history
+        WHERE id = v_file_id
+          AND history_id >= p_history_id
+          AND blob_id IS NOT NULL;
+
+        SELECT b.content
+        INTO v_content
+        FROM snippetvault_file_history h
+        JOIN file_blob b ON b.id = h.blob_id
+        WHERE h.history_id = v_base_history_id;
+
+        FOR d IN (
+            SELECT delta_prefix, delta_suffix, delta_text
+            FROM snippetvault_file_history
+            WHERE id = v_file_id
+              AND history_id >= p_history_id
+              AND history_id < v_base_history_id
+              AND delta_prefix IS NOT NULL
+            ORDER BY history_id DESC
+        ) LOOP
+            v_next_content := v_content;
+            v_content := apply_delta(v_next_content, d.delta_prefix, d.delta_suffix, d.delta_text);
+            IF DBMS_LOB.ISTEMPORARY(v_next_content) = 1 THEN
+                DBMS_LOB.FREETEMPORARY(v_next_content);
+            END IF;
+        END LOOP;
+
+        RETURN v_content;
+    END get_content;
+END file_history_pkg;
+/
@@ -0,0 +1,144 @@
+-------------------------------------------------------------------------
+-- V66__encode_file_history_deltas.sql                                 --
+-------------------------------------------------------------------------
+-- Recreates the file triggers so each content change of a file turns  --
+-- the history rows of its previous content into a delta against the   --
+-- new content, dropping their blob references. Existing history is    --
+-- encoded the same way and the blobs nothing refers to anymore are    --
+-- deleted. JOB_CLEANUP_HISTORY is unchanged: it deletes the oldest    --
+-- rows, and a delta only depends on later rows of its file            --
+-------------------------------------------------------------------------
+
+
+CREATE OR REPLACE TRIGGER trg_file_before_insert_update
+    BEFORE INSERT OR UPDATE OF snippet_id, filename, blob_id, language_id ON snippetvault_file
+    FOR EACH ROW
+BEGIN
+    IF INSERTING THEN
+        IF :NEW.id IS NULL THEN
+            SELECT file_seq.nextval INTO :NEW.id FROM dual;
+        END IF;
+        :NEW.created := SYSTIMESTAMP;
+        :NEW.updated := SYSTIMESTAMP;
+        :NEW.version := 1;
+        :NEW.content_version := 1;
+        :NEW.dml_flag := 'I';
+    ELSIF UPDATING THEN
+        :NEW.updated := SYSTIMESTAMP;
+        :NEW.created := :OLD.created;
+        :NEW.version := NVL(:OLD.version, 0) + 1;
+        IF :NEW.blob_id = :OLD.blob_id THEN
+            :NEW.content_version := :OLD.content_version;
+        ELSE
+            :NEW.content_version := :OLD.content_version + 1;
+        END IF;
+        :NEW.dml_flag := 'U';
+    END IF;
+END;
+/
+
+-- The history row is written before the file's own reference is dropped,
+-- so the blob of a deleted file stays referenced
+CREATE OR REPLACE TRIGGER trg_file_after_dml
+    AFTER INSERT OR UPDATE OF snippet_id, filename, blob_id, language_id OR DELETE ON snippetvault_file
+    FOR EACH ROW
+BEGIN
+    IF DELETING THEN
+        INSERT INTO snippetvault_file_history (
+            history_id, history_dml_flag, history_timestamp,
+            id, snippet_id, filename, blob_id, language_id,
+            created, updated, dml_flag, version, content_version
+        )
+        VALUES (
+            file_history_seq.NEXTVAL, 'D', SYSTIMESTAMP,
+            :OLD.id, :OLD.snippet_id, :OLD.filename, :OLD.blob_id, :OLD.language_id,
+            :OLD.created, :OLD.updated, :OLD.dml_flag, :OLD.version, :OLD.content_version
+        );
+
+        UPDATE file_blob
+        SET ref_count = ref_count - 1
+        WHERE id = :OLD.blob_id;
+    ELSE
+        INSERT INTO snippetvault_file_history (
+            history_id, history_dml_flag, history_timestamp,
+            id, snippet_id, filename, blob_id, language_id,
+            created, updated, dml_flag, version, content_version
+        )
+        VALUES (
+            file_history_seq.NEXTVAL, :NEW.dml_flag, SYSTIMESTAMP,
+            :NEW.id, :NEW.snippet_id, :NEW.filename, :NEW.blob_id, :NEW.language_id,
+            :NEW.created, :NEW.updated, :NEW.dml_flag, :NEW.version, :NEW.content_version
+        );
+
+        IF INSERTING THEN
+            UPDATE file_blob
+            SET ref_count = ref_count + 1
+            WHERE id = :NEW.blob_id;
+        ELSIF :NEW.blob_id <> :OLD.blob_id THEN
+            UPDATE file_blob
+            SET ref_count = ref_count - 1
+            WHERE id = :OLD.blob_id;
+
+            UPDATE file_blob
+            SET ref_count = ref_count + 1
+            WHERE id = :NEW.blob_id;
+
+            file_history_pkg.encode_version(:NEW.id, :OLD.content_version, :OLD.blob_id, :NEW.blob_id);
+        END IF;
+
+        IF UPDATING THEN
+            UPDATE snippet
+            SET updated = SYSTIMESTAMP
+            WHERE id = :NEW.snippet_id;
+        END IF;
+    END IF;
+END;
+/
+
+DROP TRIGGER trg_file_history_after_ins_del;
+
+-- History rows encoded as deltas let go of their blob
+CREATE OR REPLACE TRIGGER trg_file_history_after_dml
+    AFTER INSERT OR UPDATE OF blob_id OR DELETE ON snippetvault_file_history
+    FOR EACH ROW
+BEGIN
+    IF INSERTING OR UPDATING THEN
+        UPDATE file_blob
+        SET ref_count = ref_count + 1
+        WHERE id = :NEW.blob_id;
+    END IF;
+    IF UPDATING OR DELETING THEN
+        UPDATE file_blob
+        SET ref_count = ref_count - 1
+        WHERE id = :OLD.blob_id;
+    END IF;
+END;
+/
+
+-- Every version of a file but its last one is encoded against the version after it
+BEGIN
+    FOR v IN (
+        SELECT id, content_version, blob_id, next_blob_id
+        FROM (
+            SELECT id,
+                   content_version,
+                   blob_id,
+                   LEAD(blob_id) OVER (PARTITION BY id ORDER BY content_version) AS next_blob_id
+            FROM (
+                SELECT id, content_version, MAX(blob_id) AS blob_id
+                FROM snippetvault_file_history
+                GROUP BY id, content_version
+            )
+        )
+        WHERE next_blob_id IS NOT NULL
+    ) LOOP
+        file_history_pkg.encode_version(v.id, v.content_version, v.blob_id, v.next_blob_id);
+    END LOOP;
+    COMMIT;
+END;
+/
+
+DELETE FROM file_blob
+WHERE ref_count = 0;
+
+COMMIT;
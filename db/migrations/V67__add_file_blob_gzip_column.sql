@@ -0,0 +1,14 @@
+-------------------------------------------------------------------------
+-- V67__add_file_blob_gzip_column.sql                                  --
+-------------------------------------------------------------------------
+-- Adds a gzip compressed copy of a blob's content, written by the API --
+-- when content compression is enabled. It is sent as is to clients    --
+-- accepting gzip. The text itself stays in CONTENT, which the Oracle  --
+-- Text index, the trigram index and the searches read                 --
+-------------------------------------------------------------------------
+
+
+-- gzip_content: gzip of the content's UTF-8 bytes, NULL until the API has compressed it
+ALTER TABLE file_blob ADD (
+    gzip_content BLOB
+);
@@ -0,0 +1,12 @@
+-------------------------------------------------------------------------
+-- V73__index_text_maintenance_log_by_index.sql                        --
+-------------------------------------------------------------------------
+-- Indexes text_maintenance_log by index and id, so the last decision  --
+-- logged for an index is found without scanning the log               --
+-------------------------------------------------------------------------
+
+
+-- Index --
+
+CREATE INDEX idx_text_maint_log_index
+    ON text_maintenance_log (index_name, id);
@@ -0,0 +1,167 @@
+-------------------------------------------------------------------------
+-- V74__log_idle_text_index_once_in_text_maintenance_pkg_body.sql      --
+-------------------------------------------------------------------------
+-- Recreates the text maintenance package's body. A skipped sync is    --
+-- only logged when the index turns idle after a sync, not on every    --
+-- minute it stays idle                                                --
+-------------------------------------------------------------------------
+
+
+CREATE OR REPLACE PACKAGE BODY text_maintenance_pkg AS
+    c_log_retention_days CONSTANT NUMBER := 7;
+    c_log_page_size      CONSTANT NUMBER := 1000;
+
+    PROCEDURE log_run(
+        p_index_name IN VARCHAR2,
+        p_action IN VARCHAR2,
+        p_pending_count IN NUMBER,
+        p_fragmentation IN NUMBER,
+        p_duration_ms IN NUMBER
+    ) IS
+        PRAGMA AUTONOMOUS_TRANSACTION;
+    BEGIN
+        INSERT INTO text_maintenance_log (index_name, action, pending_count, fragmentation, duration_ms)
+        VALUES (p_index_name, p_action, p_pending_count, p_fragmentation, p_duration_ms);
+        COMMIT;
+    END log_run;
+
+    -- The action of the last sync decision logged for the index, NULL before the first one
+    FUNCTION get_last_sync_action(p_index_name IN VARCHAR2) RETURN VARCHAR2 AS
+        v_action VARCHAR2(20);
+    BEGIN
+        SELECT action
+        INTO v_action
+        FROM (
+            SELECT action
+            FROM text_maintenance_log
+            WHERE index_name = p_index_name
+              AND action IN ('SYNC', 'SYNC_SKIPPED')
+            ORDER BY id DESC
+        )
+        WHERE ROWNUM = 1;
+        RETURN v_action;
+    EXCEPTION
+        WHEN NO_DATA_FOUND THEN
+            RETURN NULL;
+    END get_last_sync_action;
+
+    FUNCTION elapsed_ms(p_started IN TIMESTAMP) RETURN NUMBER AS
+        v_elapsed INTERVAL DAY(9) TO SECOND(6);
+    BEGIN
+        v_elapsed := SYSTIMESTAMP - p_started;
+        RETURN ROUND(
+            EXTRACT(DAY FROM v_elapsed) * 86400000
+            + EXTRACT(HOUR FROM v_elapsed) * 3600000
+            + EXTRACT(MINUTE FROM v_elapsed) * 60000
+            + EXTRACT(SECOND FROM v_elapsed) * 1000
+        );
+    END elapsed_ms;
+
+    -- Token rows per distinct token in the index's $I table, 1 when fully optimized
+    FUNCTION get_fragmentation(p_index_name IN VARCHAR2) RETURN NUMBER AS
+        v_rows   NUMBER;
+        v_tokens NUMBER;
+    BEGIN
+        EXECUTE IMMEDIATE
+            'SELECT COUNT(*), COUNT(DISTINCT token_text || ''/'' || token_type) FROM '
+                || DBMS_ASSERT.ENQUOTE_NAME('DR$' || p_index_name || '$I')
+            INTO v_rows, v_tokens;
+
+        IF v_tokens = 0 THEN
+            RETURN 1;
+        END IF;
+        RETURN ROUND(v_rows / v_tokens, 4);
+    END get_fragmentation;
+
+    PROCEDURE sync_if_pending(p_index_name IN VARCHAR2 DEFAULT 'IDX_FILE_CONTENT') AS
+        v_pending NUMBER;
+        v_started TIMESTAMP;
+    BEGIN
+        SELECT COUNT(*)
+        INTO v_pending
+        FROM ctx_user_pending
+        WHERE pnd_index_name = UPPER(p_index_name);
+
+        -- An idle index is only logged once, when it stops needing syncs
+        IF v_pending = 0 THEN
+            IF NVL(get_last_sync_action(p_index_name), 'SYNC') <> 'SYNC_SKIPPED' THEN
+                log_run(p_index_name, 'SYNC_SKIPPED', 0, NULL, NULL);
+            END IF;
+            RETURN;
+        END IF;
+
+        v_started := SYSTIMESTAMP;
+        CTX_DDL.SYNC_INDEX(p_index_name);
+        log_run(p_index_name, 'SYNC', v_pending, NULL, elapsed_ms(v_started));
+    EXCEPTION
+        WHEN OTHERS THEN
+            error_log_pkg.log_error(
+                p_error_message => SQLERRM,
+                p_error_backtrace => DBMS_UTILITY.FORMAT_ERROR_BACKTRACE,
+                p_context => 'Syncing ' || p_index_name,
+                p_value => 'p_index_name=' || p_index_name,
+                p_api => 'text_maintenance_pkg.sync_if_pending'
+            );
+            RAISE;
+    END sync_if_pending;
+
+    PROCEDURE optimize_if_fragmented(
+        p_index_name IN VARCHAR2 DEFAULT 'IDX_FILE_CONTENT',
+        p_max_minutes IN NUMBER DEFAULT 10,
+        p_min_fragmentation IN NUMBER DEFAULT 1.5
+    ) AS
+        v_fragmentation NUMBER;
+        v_started       TIMESTAMP;
+    BEGIN
+        DELETE FROM text_maintenance_log
+        WHERE time < SYSTIMESTAMP - NUMTODSINTERVAL(c_log_retention_days, 'DAY');
+        COMMIT;
+
+        v_fragmentation := get_fragmentation(p_index_name);
+        IF v_fragmentation < p_min_fragmentation THEN
+            log_run(p_index_name, 'OPTIMIZE_SKIPPED', NULL, v_fragmentation, NULL);
+            RETURN;
+        END IF;
+
+        -- A FULL optimize stopped by maxtime resumes where it left off on the next run
+        v_started := SYSTIMESTAMP;
+        CTX_DDL.OPTIMIZE_INDEX(
+            idx_name => p_index_name,
+            optlevel => CTX_DDL.OPTLEVEL_FULL,
+            maxtime  => p_max_minutes
+        );
+        log_run(p_index_name, 'OPTIMIZE', NULL, v_fragmentation, elapsed_ms(v_started));
+    EXCEPTION
+        WHEN OTHERS THEN
+            error_log_pkg.log_error(
+                p_error_message => SQLERRM,
+                p_error_backtrace => DBMS_UTILITY.FORMAT_ERROR_BACKTRACE,
+                p_context => 'Optimizing ' || p_index_name,
+                p_value => 'p_index_name=' || p_index_name || ', p_max_minutes=' || p_max_minutes,
+                p_api => 'text_maintenance_pkg.optimize_if_fragmented'
+            );
+            RAISE;
+    END optimize_if_fragmented;
+
+    FUNCTION get_log(p_after_id IN NUMBER DEFAULT NULL) RETURN SYS_REFCURSOR AS
+        v_log SYS_REFCURSOR;
+    BEGIN
+        OPEN v_log FOR
+            SELECT *
+            FROM (
+                SELECT id,
+                       time,
+                       index_name,
+                       action,
+                       pending_count,
+                       fragmentation,
+                       duration_ms
+                FROM text_maintenance_log
+                WHERE id > NVL(p_after_id, 0)
+                ORDER BY id
+            )
+            WHERE ROWNUM <= c_log_page_size;
+        RETURN v_log;
+    END get_log;
+END text_maintenance_pkg;
+/